@@ -0,0 +1,56 @@
+package com.innowise.aspect;
+
+import com.innowise.service.kafka.BackpressureController;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aspect feeding downstream call latency and in-flight counts into the
+ * {@link BackpressureController}.
+ * <p>
+ * Only the calls made for each consumed order event are tracked: the
+ * payment insert and status update in MongoDB and the random number API.
+ * Reads, bulk updates and background jobs do not feed the controller, so
+ * they cannot pause the consumers.
+ * </p>
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class BackpressureAspect {
+
+    public static final String MONGO = "mongo";
+    public static final String RANDOM_API = "random-api";
+
+    private final BackpressureController backpressureController;
+
+    /**
+     * Tracks the MongoDB writes of the consumer path.
+     */
+    @Around("execution(public * com.innowise.service.impl.PaymentServiceImpl.createPayment(..))"
+            + " || execution(public * com.innowise.service.impl.PaymentServiceImpl.updatePaymentStatus(..))")
+    public Object trackMongo(ProceedingJoinPoint joinPoint) throws Throwable {
+        return track(MONGO, joinPoint);
+    }
+
+    /**
+     * Tracks calls to the external random number API.
+     */
+    @Around("execution(public * com.innowise.service.impl.RandomNumberClientImpl.*(..))")
+    public Object trackRandomApi(ProceedingJoinPoint joinPoint) throws Throwable {
+        return track(RANDOM_API, joinPoint);
+    }
+
+    private Object track(String stage, ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        backpressureController.callStarted();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            backpressureController.callCompleted(stage, System.nanoTime() - start);
+        }
+    }
+}
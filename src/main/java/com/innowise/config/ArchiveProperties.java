@@ -0,0 +1,48 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for archiving old payments.
+ * <p>
+ * Binds properties with the prefix "payment.archive". Every
+ * {@code interval} the instance holding the archiver lease moves settled
+ * payments older than {@code hotRetention} from the hot collection into
+ * monthly archive collections, so the hot collection and its indexes stay
+ * small enough to be held in memory.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether this instance takes part in archiving</li>
+ * <li>interval - delay between archiver runs</li>
+ * <li>hotRetention - how long payments stay in the hot collection</li>
+ * <li>archiveRetention - how long archive months are kept before their
+ * collection is dropped; unset keeps them forever</li>
+ * <li>batchSize - payments moved per round trip</li>
+ * <li>maxRate - upper bound on payments moved per second</li>
+ * <li>leaseTtl - how long the lease is held without renewal</li>
+ * <li>owner - the name this instance holds the lease under</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.archive.PaymentArchiver
+ * @see com.innowise.dao.archive.PaymentArchive
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.archive")
+public class ArchiveProperties implements LeasedJobProperties {
+    private boolean enabled = false;
+    private Duration interval = Duration.ofHours(1);
+    private Duration hotRetention = Duration.ofDays(90);
+    private Duration archiveRetention;
+    private int batchSize = 1000;
+    private int maxRate = 2000;
+    private Duration leaseTtl = Duration.ofMinutes(2);
+    private String owner = "payment-service";
+}
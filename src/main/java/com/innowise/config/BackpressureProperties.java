@@ -0,0 +1,45 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for consumer backpressure.
+ * <p>
+ * Binds properties with the prefix "payment.backpressure". Listener
+ * containers are paused when downstream latency or the number of in-flight
+ * downstream calls exceeds the high watermarks, and resumed only once both
+ * drop below the (lower) resume watermarks and the minimum pause has elapsed.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether the controller may pause containers</li>
+ * <li>maxLatency - average stage latency that triggers a pause</li>
+ * <li>resumeLatency - average stage latency below which containers resume;
+ * while paused it is measured by probing the stages that have a
+ * {@link com.innowise.service.kafka.DownstreamProbe}</li>
+ * <li>maxInFlight - in-flight downstream calls that trigger a pause</li>
+ * <li>resumeInFlight - in-flight downstream calls below which containers resume</li>
+ * <li>minPause - minimum time containers stay paused</li>
+ * <li>checkInterval - how often the thresholds are evaluated</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.kafka.BackpressureController
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.backpressure")
+public class BackpressureProperties {
+    private boolean enabled = true;
+    private Duration maxLatency = Duration.ofSeconds(2);
+    private Duration resumeLatency = Duration.ofMillis(500);
+    private int maxInFlight = 32;
+    private int resumeInFlight = 8;
+    private Duration minPause = Duration.ofSeconds(5);
+    private Duration checkInterval = Duration.ofSeconds(1);
+}
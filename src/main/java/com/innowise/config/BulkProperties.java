@@ -0,0 +1,28 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for bulk payment operations.
+ * <p>
+ * Binds properties with the prefix "payment.bulk". Bulk status updates are
+ * applied in chunks, each as one unordered bulk write, so a large request
+ * never turns into a single oversized write.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>chunkSize - status updates applied per bulk write</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.impl.PaymentServiceImpl#updatePaymentStatuses
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.bulk")
+public class BulkProperties {
+    private int chunkSize = 500;
+}
@@ -0,0 +1,37 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the built-in consumer lag exporter.
+ * <p>
+ * Binds properties with the prefix "payment.consumer-lag". The exporter
+ * periodically reads committed and end offsets for the partitions assigned
+ * to this instance and publishes per-partition lag alongside consumer client
+ * metrics such as commit latency and time since the last poll.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether offsets are refreshed</li>
+ * <li>listenerId - id of the monitored {@code @KafkaListener}</li>
+ * <li>refreshInterval - how often offsets are fetched through the admin client</li>
+ * <li>requestTimeout - timeout for a single admin client request</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.kafka.ConsumerLagMonitor
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.consumer-lag")
+public class ConsumerLagProperties {
+    private boolean enabled = true;
+    private String listenerId = "order-events-listener";
+    private Duration refreshInterval = Duration.ofSeconds(10);
+    private Duration requestTimeout = Duration.ofSeconds(5);
+}
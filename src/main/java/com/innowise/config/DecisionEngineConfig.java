@@ -0,0 +1,41 @@
+package com.innowise.config;
+
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.RandomNumberClient;
+import com.innowise.service.impl.LocalPaymentDecisionEngine;
+import com.innowise.service.impl.RemotePaymentDecisionEngine;
+import com.innowise.service.impl.RiskScreeningDecisionEngine;
+import com.innowise.service.impl.SeededPaymentDecisionEngine;
+import com.innowise.service.risk.RiskEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link PaymentDecisionEngine} configured with
+ * {@code payment.decision.engine}, screened by the {@link RiskEngine} while
+ * risk scoring is enabled.
+ *
+ * @see DecisionProperties
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class DecisionEngineConfig {
+
+    private final DecisionProperties decisionProperties;
+    private final RandomApiProperties randomApiProperties;
+
+    @Bean
+    public PaymentDecisionEngine paymentDecisionEngine(RandomNumberClient randomNumberClient, RiskEngine riskEngine) {
+        log.info("Using {} payment decision engine", decisionProperties.getEngine());
+        PaymentDecisionEngine engine = switch (decisionProperties.getEngine()) {
+            case REMOTE -> new RemotePaymentDecisionEngine(randomNumberClient);
+            case LOCAL -> new LocalPaymentDecisionEngine(randomApiProperties.getMin(), randomApiProperties.getMax());
+            case SEEDED -> new SeededPaymentDecisionEngine(decisionProperties.getSeed(),
+                    randomApiProperties.getMin(), randomApiProperties.getMax());
+        };
+        return riskEngine.isEnabled() ? new RiskScreeningDecisionEngine(riskEngine, engine) : engine;
+    }
+}
@@ -0,0 +1,31 @@
+package com.innowise.config;
+
+import com.innowise.model.enums.DecisionEngineType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the payment decision.
+ * <p>
+ * Binds properties with the prefix "payment.decision". All engines draw a
+ * number between {@code random-api.min} and {@code random-api.max}; an even
+ * number means SUCCESS.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>engine - {@code remote} (external API), {@code local} or {@code seeded}</li>
+ * <li>seed - seed of the {@code seeded} engine</li>
+ * </ul>
+ * </p>
+ *
+ * @see DecisionEngineConfig
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.decision")
+public class DecisionProperties {
+    private DecisionEngineType engine = DecisionEngineType.REMOTE;
+    private long seed = 42L;
+}
@@ -0,0 +1,50 @@
+package com.innowise.config;
+
+import com.innowise.model.enums.ExportFormat;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Configuration properties for payment exports.
+ * <p>
+ * Binds properties with the prefix "payment.export". Exports stream the
+ * payments collection through a batched cursor, by default on a secondary,
+ * so memory use is bounded by one cursor batch plus the output buffer
+ * however many payments are exported.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>batchSize - documents fetched per cursor round trip</li>
+ * <li>bufferSize - size of the output buffer (and of the gzip buffer)</li>
+ * <li>readPreference - where the cursor reads from; keeps extracts off the
+ * primary</li>
+ * <li>output - when set, the process exports to this file and exits
+ * (profile {@code export})</li>
+ * <li>from / to - time range of the file export, {@code from} inclusive</li>
+ * <li>format - format of the file export</li>
+ * <li>gzip - whether the file export is gzip-compressed</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.export.PaymentExporter
+ * @see com.innowise.service.export.PaymentExportRunner
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.export")
+public class ExportProperties {
+    private int batchSize = 1000;
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+    private String readPreference = "secondaryPreferred";
+    private Path output;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private ExportFormat format = ExportFormat.NDJSON;
+    private boolean gzip = false;
+}
@@ -0,0 +1,46 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for hedged requests to the random number API.
+ * <p>
+ * Binds properties with the prefix "random-api.hedge". A request that has not
+ * completed after the observed {@code percentile} latency gets a second,
+ * identical request and the first answer wins. Every request earns
+ * {@code budgetRatio} hedge tokens (capped at {@code maxBurst}) and a hedge
+ * spends one, so hedges stay below {@code budgetRatio} extra requests.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether requests are hedged</li>
+ * <li>percentile - latency percentile after which a hedge is sent</li>
+ * <li>budgetRatio - maximum extra requests as a fraction of all requests</li>
+ * <li>maxBurst - maximum hedges that can be saved up while latency is good</li>
+ * <li>minDelay - lower bound of the hedge delay</li>
+ * <li>minSamples - latency samples needed before hedging starts</li>
+ * <li>window - time window of the latency distribution</li>
+ * <li>refreshInterval - how often the hedge delay is recomputed</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.hedge.HedgingPolicy
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "random-api.hedge")
+public class HedgeProperties {
+    private boolean enabled = true;
+    private double percentile = 0.9;
+    private double budgetRatio = 0.05;
+    private int maxBurst = 10;
+    private Duration minDelay = Duration.ofMillis(20);
+    private long minSamples = 100;
+    private Duration window = Duration.ofMinutes(1);
+    private Duration refreshInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,32 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the in-process payment index.
+ * <p>
+ * Binds properties with the prefix "payment.index". The index remembers
+ * which payment was published for recently processed orders, so duplicate
+ * order events reaching the same running instance are skipped instead of
+ * charged twice. It is bounded and per instance: an order evicted from it,
+ * processed before a restart, or processed by another instance before a
+ * rebalance, is not recognized.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>maxOrders - number of recent orders remembered; 0 disables
+ * duplicate detection</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.index.PaymentIndex
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.index")
+public class IndexProperties {
+    private int maxOrders = 100_000;
+}
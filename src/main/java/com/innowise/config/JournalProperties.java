@@ -0,0 +1,48 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration properties for the local payment write-ahead journal.
+ * <p>
+ * Binds properties with the prefix "payment.journal". When enabled, settled
+ * payments are appended to memory-mapped segment files in {@code directory}
+ * and made durable with one fsync per group commit instead of two MongoDB
+ * round trips; a background drainer copies them into MongoDB.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether payments are journaled instead of written to MongoDB
+ * directly</li>
+ * <li>directory - where segment files are kept; must be on a persistent
+ * volume</li>
+ * <li>segmentSize - size of one memory-mapped segment file</li>
+ * <li>maxBatchSize - maximum number of appends made durable by one fsync</li>
+ * <li>groupCommitWindow - how long the writer waits for more appends before
+ * an fsync; zero commits whatever has queued up during the previous one</li>
+ * <li>drainInterval - delay between drainer runs</li>
+ * <li>drainBatchSize - maximum number of payments per MongoDB bulk write</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.journal.PaymentJournal
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.journal")
+public class JournalProperties {
+    private boolean enabled = false;
+    private Path directory = Path.of("journal");
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    private int maxBatchSize = 512;
+    private Duration groupCommitWindow = Duration.ZERO;
+    private Duration drainInterval = Duration.ofMillis(200);
+    private int drainBatchSize = 500;
+}
@@ -1,5 +1,6 @@
 package com.innowise.config;
 
+import com.innowise.service.kafka.TimedJsonDeserializer;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -7,16 +8,21 @@ import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultAfterRollbackProcessor;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.RecordInterceptor;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
 import org.springframework.util.backoff.FixedBackOff;
 
 import java.net.SocketTimeoutException;
@@ -44,11 +50,28 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.properties.spring.json.trusted.packages}")
     private String trustedPackages;
 
+    @Value("${spring.kafka.admin.auto-create:true}")
+    private boolean adminAutoCreate = true;
+
+    @Value("${spring.kafka.listener.auto-startup:true}")
+    private boolean listenerAutoStartup = true;
+
+    @Value("${payment.kafka.transactions.enabled:false}")
+    private boolean transactionsEnabled;
+
+    @Value("${payment.kafka.transactions.transactional-id-prefix:payment-tx-}")
+    private String transactionalIdPrefix = "payment-tx-";
+
+    @Value("${payment.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
         configs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        return new KafkaAdmin(configs);
+        KafkaAdmin kafkaAdmin = new KafkaAdmin(configs);
+        kafkaAdmin.setAutoCreate(adminAutoCreate);
+        return kafkaAdmin;
     }
 
     @Bean
@@ -80,19 +103,61 @@ public class KafkaConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, TimedJsonDeserializer.class);
 
         props.put(JsonDeserializer.TRUSTED_PACKAGES, trustedPackages);
+        if (transactionsEnabled) {
+            props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        }
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    /**
+     * Listener container factory for the order events listener.
+     * <p>
+     * With {@code payment.kafka.transactions.enabled} the container runs each
+     * record in a Kafka transaction: the payment event and the consumer offset
+     * are committed atomically (exactly-once consume-process-produce). Failed
+     * records are then handled by an after-rollback processor that retries and
+     * publishes to the DLT inside the transaction, instead of the error
+     * handler. The transaction manager is deliberately not a bean, so
+     * {@code @Transactional} service methods do not pick it up.
+     * </p>
+     * <p>
+     * With {@code payment.pipeline.enabled} the listener returns as soon as
+     * the record is in the pipeline ring, so offsets are acknowledged
+     * manually once its payment event is published. The pipeline completes
+     * records outside the listener thread and cannot join its transaction,
+     * so the two options are mutually exclusive.
+     * </p>
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
             ConsumerFactory<String, Object> consumerFactory,
-            DefaultErrorHandler errorHandler) {
+            DefaultErrorHandler errorHandler,
+            ObjectProvider<RecordInterceptor<String, Object>> recordInterceptor,
+            KafkaTemplate<String, Object> kafkaTemplate) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
         factory.setCommonErrorHandler(errorHandler);
+        factory.setAutoStartup(listenerAutoStartup);
+        recordInterceptor.ifAvailable(factory::setRecordInterceptor);
+        if (pipelineEnabled) {
+            if (transactionsEnabled) {
+                throw new IllegalStateException(
+                        "payment.pipeline.enabled cannot be combined with payment.kafka.transactions.enabled");
+            }
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        }
+        if (transactionsEnabled) {
+            factory.getContainerProperties().setKafkaAwareTransactionManager(
+                    new KafkaTransactionManager<>(kafkaTemplate.getProducerFactory()));
+            DefaultAfterRollbackProcessor<String, Object> afterRollbackProcessor = new DefaultAfterRollbackProcessor<>(
+                    deadLetterRecoverer(kafkaTemplate), retryBackOff(), kafkaTemplate, true);
+            afterRollbackProcessor.addNotRetryableExceptions(IllegalArgumentException.class, NullPointerException.class);
+            afterRollbackProcessor.addRetryableExceptions(SocketTimeoutException.class);
+            factory.setAfterRollbackProcessor(afterRollbackProcessor);
+        }
         return factory;
     }
 
@@ -105,31 +170,52 @@ public class KafkaConfig {
 
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
         configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 30000);
         configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 45000);
         configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
         configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
         configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "gzip");
 
-        return new DefaultKafkaProducerFactory<>(configProps);
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        if (transactionsEnabled) {
+            producerFactory.setTransactionIdPrefix(transactionalIdPrefix);
+        }
+        return producerFactory;
     }
 
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
-        return new KafkaTemplate<>(producerFactory);
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        kafkaTemplate.setAllowNonTransactional(true);
+        return kafkaTemplate;
     }
 
     @Bean
     public DefaultErrorHandler errorHandler(KafkaTemplate<String, Object> kafkaTemplate) {
-        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
-                (r, e) -> new TopicPartition(r.topic() + ".DLT", r.partition()));
-
-        FixedBackOff backOff = new FixedBackOff(1000L, 3);
-
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(deadLetterRecoverer(kafkaTemplate), retryBackOff());
         errorHandler.addNotRetryableExceptions(IllegalArgumentException.class, NullPointerException.class);
         errorHandler.addRetryableExceptions(SocketTimeoutException.class);
 
         return errorHandler;
     }
+
+    /**
+     * Dead-letter publisher used by the payment pipeline, which handles its
+     * failed records itself instead of through the error handler.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer pipelineDeadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return deadLetterRecoverer(kafkaTemplate);
+    }
+
+    private static DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (r, e) -> new TopicPartition(r.topic() + ".DLT", r.partition()));
+    }
+
+    private static FixedBackOff retryBackOff() {
+        return new FixedBackOff(1000L, 3);
+    }
 }
@@ -0,0 +1,31 @@
+package com.innowise.config;
+
+import java.time.Duration;
+
+/**
+ * Settings shared by the background jobs that run under a lease.
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether this instance takes part in the job</li>
+ * <li>interval - delay between runs</li>
+ * <li>maxRate - upper bound on items processed per second</li>
+ * <li>leaseTtl - how long the lease is held without renewal</li>
+ * <li>owner - the name this instance holds the lease under</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.job.LeasedBackgroundJob
+ */
+public interface LeasedJobProperties {
+
+    boolean isEnabled();
+
+    Duration getInterval();
+
+    int getMaxRate();
+
+    Duration getLeaseTtl();
+
+    String getOwner();
+}
@@ -93,6 +93,7 @@ public class MetricsConfig {
         return Timer.builder("payment.processing.duration")
                 .description("Time taken to process a payment")
                 .tag("service", "payment-service")
+                .publishPercentileHistogram()
                 .register(registry);
     }
 
@@ -126,6 +127,7 @@ public class MetricsConfig {
         return Timer.builder("mongodb.operation.duration")
                 .description("Time taken for MongoDB operations")
                 .tag("service", "payment-service")
+                .publishPercentileHistogram()
                 .register(registry);
     }
 }
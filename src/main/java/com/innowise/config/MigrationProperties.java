@@ -0,0 +1,38 @@
+package com.innowise.config;
+
+import com.innowise.model.enums.MigrationMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for schema migrations.
+ * <p>
+ * Binds properties with the prefix "payment.migration". Service pods only
+ * verify that the changelog has been applied; migrations are applied by a
+ * separate {@code migrate-only} run (profile {@code migrate}), so replicas do
+ * not serialize on the Liquibase lock during a rollout.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>mode - see {@link MigrationMode}</li>
+ * <li>changeLog - classpath location of the master changelog</li>
+ * <li>failOnPending - whether {@code VERIFY} fails startup when changesets
+ * are missing (otherwise it only logs a warning)</li>
+ * <li>historyCollection - collection in which Liquibase records applied
+ * changesets</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.dao.migration.SchemaMigrationRunner
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.migration")
+public class MigrationProperties {
+    private MigrationMode mode = MigrationMode.VERIFY;
+    private String changeLog = "db/changelog/db.changelog-master.xml";
+    private boolean failOnPending = true;
+    private String historyCollection = "DATABASECHANGELOG";
+}
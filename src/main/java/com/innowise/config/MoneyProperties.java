@@ -0,0 +1,30 @@
+package com.innowise.config;
+
+import com.innowise.model.enums.MoneyRepresentation;
+import com.innowise.model.money.MinorUnits;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for monetary amount storage.
+ * <p>
+ * Binds properties with the prefix "payment.money":
+ * <ul>
+ * <li>representation - how amounts are stored in MongoDB
+ * ({@code DECIMAL128} or {@code MINOR_UNITS}); startup fails if the
+ * payments collection already holds amounts in the other one</li>
+ * <li>scale - number of fractional digits used for minor units</li>
+ * </ul>
+ * </p>
+ *
+ * @see MongoConfig
+ * @see com.innowise.dao.migration.AmountRepresentationChecker
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.money")
+public class MoneyProperties {
+    private MoneyRepresentation representation = MoneyRepresentation.DECIMAL128;
+    private int scale = MinorUnits.DEFAULT_SCALE;
+}
@@ -0,0 +1,40 @@
+package com.innowise.config;
+
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.dao.converter.MoneyConverters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+/**
+ * Configuration of MongoDB type conversions.
+ * <p>
+ * Registers the monetary amount converters so that {@link java.math.BigDecimal}
+ * fields are persisted numerically instead of as strings, and the
+ * {@link PaymentCodec} that the payment repository uses to read and write
+ * documents without the mapping converter. Both honour the same money
+ * representation.
+ * </p>
+ *
+ * @see MoneyConverters
+ * @see PaymentCodec
+ * @see MoneyProperties
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MongoConfig {
+
+    private final MoneyProperties moneyProperties;
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(MoneyConverters.forRepresentation(
+                moneyProperties.getRepresentation(), moneyProperties.getScale()));
+    }
+
+    @Bean
+    public PaymentCodec paymentCodec() {
+        return new PaymentCodec(moneyProperties.getRepresentation(), moneyProperties.getScale());
+    }
+}
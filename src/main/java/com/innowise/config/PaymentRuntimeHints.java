@@ -0,0 +1,113 @@
+package com.innowise.config;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.OrderItemEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.model.dto.BulkStatusUpdateRequestDto;
+import com.innowise.model.dto.BulkStatusUpdateResponseDto;
+import com.innowise.model.dto.ErrorDto;
+import com.innowise.model.dto.PaymentCreateRequestDto;
+import com.innowise.model.dto.PaymentExportRequestDto;
+import com.innowise.model.dto.PaymentResponseDto;
+import com.innowise.model.entity.Payment;
+import com.innowise.service.kafka.TimedJsonDeserializer;
+import com.innowise.service.risk.RiskRuleSet;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the GraalVM native image.
+ * <p>
+ * Spring AOT covers beans, controllers and repositories. This registrar adds
+ * what is only reached reflectively at runtime:
+ * <ul>
+ * <li>Kafka events and DTOs - the Jackson binding of Lombok-generated
+ * classes, including types resolved by name from the
+ * {@code __TypeId__} header</li>
+ * <li>{@code PaymentMapperImpl} - the MapStruct implementation generated at
+ * compile time</li>
+ * <li>deserializers and properties that are resolved by class name or
+ * through SpEL in {@code @Scheduled} expressions</li>
+ * <li>Liquibase changelogs, XSDs and the liquibase-mongodb extension
+ * classes, which Liquibase discovers through service files and
+ * reflection</li>
+ * <li>the OTLP exporter's HTTP sender providers, loaded through
+ * {@link java.util.ServiceLoader}</li>
+ * </ul>
+ * Third-party types are registered only if present, so removing a
+ * dependency does not break the native build.
+ * </p>
+ */
+public class PaymentRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> BINDING_TYPES = List.of(
+            OrderCreatedEvent.class,
+            OrderItemEvent.class,
+            PaymentCreatedEvent.class,
+            PaymentCreateRequestDto.class,
+            PaymentResponseDto.class,
+            BulkStatusUpdateRequestDto.class,
+            BulkStatusUpdateResponseDto.class,
+            PaymentExportRequestDto.class,
+            ErrorDto.class,
+            Payment.class,
+            RiskRuleSet.class);
+
+    private static final List<String> LIQUIBASE_MONGODB_TYPES = List.of(
+            "liquibase.ext.mongodb.database.MongoLiquibaseDatabase",
+            "liquibase.ext.mongodb.database.MongoConnection",
+            "liquibase.ext.mongodb.database.MongoClientDriver",
+            "liquibase.ext.mongodb.lockservice.MongoLockService",
+            "liquibase.ext.mongodb.changelog.MongoHistoryService",
+            "liquibase.ext.mongodb.executor.MongoExecutor",
+            "liquibase.ext.mongodb.change.CreateCollectionChange",
+            "liquibase.ext.mongodb.change.CreateIndexChange",
+            "liquibase.ext.mongodb.change.DropIndexChange",
+            "liquibase.ext.mongodb.change.RunCommandChange",
+            "liquibase.ext.mongodb.change.AdminCommandChange",
+            "liquibase.ext.mongodb.statement.CreateCollectionStatement",
+            "liquibase.ext.mongodb.statement.CreateIndexStatement",
+            "liquibase.ext.mongodb.statement.RunCommandStatement",
+            "liquibase.ext.mongodb.statement.AdminCommandStatement");
+
+    private static final List<String> OTEL_SENDER_TYPES = List.of(
+            "io.opentelemetry.exporter.sender.okhttp.internal.OkHttpHttpSenderProvider",
+            "io.opentelemetry.exporter.sender.okhttp.internal.OkHttpGrpcSenderProvider",
+            "io.opentelemetry.exporter.sender.jdk.internal.JdkHttpSenderProvider");
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BINDING_TYPES.forEach(type -> bindingRegistrar.registerReflectionHints(hints.reflection(), type));
+
+        hints.reflection()
+                .registerTypeIfPresent(classLoader, "com.innowise.mapper.PaymentMapperImpl",
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(TimedJsonDeserializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                .registerType(BackpressureProperties.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(ConsumerLagProperties.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(HedgeProperties.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(RiskProperties.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(JournalProperties.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(Duration.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.resources()
+                .registerPattern("db/changelog/*.xml")
+                .registerPattern("www.liquibase.org/xml/ns/**/*.xsd")
+                .registerPattern("liquibase.build.properties")
+                .registerPattern("META-INF/services/liquibase.*")
+                .registerPattern("META-INF/services/io.opentelemetry.*");
+
+        LIQUIBASE_MONGODB_TYPES.forEach(type -> hints.reflection().registerTypeIfPresent(classLoader, type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS));
+        OTEL_SENDER_TYPES.forEach(type -> hints.reflection().registerTypeIfPresent(classLoader, type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+    }
+}
@@ -0,0 +1,42 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the staged payment pipeline.
+ * <p>
+ * Binds properties with the prefix "payment.pipeline". When enabled, the
+ * Kafka listener only hands each record to a pre-allocated ring buffer and
+ * returns; decode, decide, persist and publish run on their own threads and
+ * the record is acknowledged once its payment event is published. Both
+ * listeners are registered and the value only decides at runtime which
+ * one starts, so it can be changed without rebuilding an AOT-processed
+ * image.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether records are processed by the pipeline instead of on
+ * the listener thread</li>
+ * <li>ringSize - number of slots; a power of two, bounding the records in
+ * flight</li>
+ * <li>maxBatchSize - maximum number of slots a stage takes at once</li>
+ * <li>shutdownTimeout - how long stopping waits for in-flight slots</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.pipeline.PaymentPipeline
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.pipeline")
+public class PipelineProperties {
+    private boolean enabled = false;
+    private int ringSize = 1024;
+    private int maxBatchSize = 64;
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+}
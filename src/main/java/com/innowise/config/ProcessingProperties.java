@@ -0,0 +1,36 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for payment processing.
+ * <p>
+ * Binds properties with the prefix "payment.processing". Every consumed
+ * order event gets a time budget of {@code messageBudget}; the random API
+ * call, the Mongo stages and the payment event publish stop once it is used
+ * up. The independent steps of a payment (PENDING insert, random number
+ * fetch) run as parallel subtasks that must all complete within
+ * {@code subtaskDeadline}.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>messageBudget - time budget per consumed message; zero disables it</li>
+ * <li>subtaskDeadline - maximum time to wait for the forked subtasks</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.concurrent.Deadline
+ * @see com.innowise.service.concurrent.SubtaskExecutor
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.processing")
+public class ProcessingProperties {
+    private Duration messageBudget = Duration.ofSeconds(5);
+    private Duration subtaskDeadline = Duration.ofSeconds(10);
+}
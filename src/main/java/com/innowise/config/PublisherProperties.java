@@ -0,0 +1,60 @@
+package com.innowise.config;
+
+import com.innowise.model.enums.PublishMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for payment event publication.
+ * <p>
+ * Binds properties with the prefix "payment.publisher". In
+ * {@link PublishMode#CHANGE_STREAM} mode the instance holding the publisher
+ * lease tails a change stream on the payments collection, which requires
+ * MongoDB to run as a replica set, and stores its resume token after every
+ * published batch.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>mode - who publishes payment events</li>
+ * <li>batchSize - maximum number of events sent before waiting for the
+ * acknowledgements and storing the resume token</li>
+ * <li>maxAwaitTime - how long the change stream waits for new changes
+ * before a partial batch is published</li>
+ * <li>sendTimeout - how long to wait for the acknowledgements of one
+ * batch</li>
+ * <li>checkpointInterval - how often the resume token is stored while no
+ * payment changes, so it does not fall off the oplog</li>
+ * <li>retryBackoff - delay before the stream is reopened after a failure,
+ * and between attempts to take the lease</li>
+ * <li>leaseTtl - how long the lease is held without renewal; clock skew
+ * between instances must be well below it</li>
+ * <li>owner - the name this instance holds the lease under</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.publisher.ChangeStreamPaymentPublisher
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.publisher")
+public class PublisherProperties {
+    private PublishMode mode = PublishMode.INLINE;
+    private int batchSize = 500;
+    private Duration maxAwaitTime = Duration.ofMillis(200);
+    private Duration sendTimeout = Duration.ofSeconds(30);
+    private Duration checkpointInterval = Duration.ofSeconds(10);
+    private Duration retryBackoff = Duration.ofSeconds(5);
+    private Duration leaseTtl = Duration.ofSeconds(30);
+    private String owner = "payment-service";
+
+    /**
+     * @return whether settling a payment also publishes its event
+     */
+    public boolean isInline() {
+        return mode == PublishMode.INLINE;
+    }
+}
@@ -0,0 +1,58 @@
+package com.innowise.config;
+
+import com.innowise.service.risk.RiskRuleDefinition;
+import com.innowise.service.risk.RiskRuleSet;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for risk scoring.
+ * <p>
+ * Binds properties with the prefix "payment.risk". Every order is scored
+ * against the rules before the payment decision; a score of at least
+ * {@code rejectScore} fails the payment. Rules come from {@code rules}, or
+ * from the JSON {@code rulesFile} if set, which is checked for changes every
+ * {@code reloadInterval} and swapped in without a restart.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether orders are scored</li>
+ * <li>rejectScore - score at or above which a payment is rejected</li>
+ * <li>rules - rule definitions, see {@link RiskRuleDefinition}</li>
+ * <li>rulesFile - optional JSON file with a {@link RiskRuleSet}, overriding the rules above</li>
+ * <li>reloadInterval - how often the rules file is checked for changes</li>
+ * <li>velocityWindow - time window of the per-user velocity rules</li>
+ * <li>maxTrackedUsers - users tracked for velocity, and order IDs
+ * remembered so each order is counted once; beyond it the least recently
+ * active are evicted</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.risk.RiskEngine
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.risk")
+public class RiskProperties {
+    private boolean enabled = true;
+    private int rejectScore = 100;
+    private List<RiskRuleDefinition> rules = new ArrayList<>();
+    private Path rulesFile;
+    private Duration reloadInterval = Duration.ofSeconds(10);
+    private Duration velocityWindow = Duration.ofMinutes(1);
+    private int maxTrackedUsers = 100_000;
+
+    /**
+     * @return the rules configured inline
+     */
+    public RiskRuleSet toRuleSet() {
+        return new RiskRuleSet(rejectScore, rules);
+    }
+}
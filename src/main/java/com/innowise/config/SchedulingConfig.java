@@ -0,0 +1,13 @@
+package com.innowise.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background tasks (backpressure evaluation and
+ * other periodic maintenance jobs).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,49 @@
+package com.innowise.config;
+
+import com.innowise.model.enums.StuckPaymentResolution;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the sweeper of stuck PENDING payments.
+ * <p>
+ * Binds properties with the prefix "payment.sweeper". A payment is stuck
+ * when the instance that created it died before setting its final status.
+ * Every {@code interval} the instance holding the sweeper lease pages
+ * through PENDING payments older than {@code stuckAfter} and resolves them.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether this instance takes part in sweeping</li>
+ * <li>interval - delay between sweeps</li>
+ * <li>stuckAfter - age after which a PENDING payment is considered stuck;
+ * must be well above the message budget so live payments are never
+ * swept</li>
+ * <li>batchSize - payments read and written per round trip</li>
+ * <li>maxRate - upper bound on payments resolved per second</li>
+ * <li>leaseTtl - how long the lease is held without renewal; clock skew
+ * between instances must be well below it</li>
+ * <li>owner - the name this instance holds the lease under</li>
+ * <li>resolution - what happens to a stuck payment</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.sweeper.StuckPaymentSweeper
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.sweeper")
+public class SweeperProperties implements LeasedJobProperties {
+    private boolean enabled = false;
+    private Duration interval = Duration.ofMinutes(1);
+    private Duration stuckAfter = Duration.ofMinutes(5);
+    private int batchSize = 200;
+    private int maxRate = 200;
+    private Duration leaseTtl = Duration.ofMinutes(1);
+    private String owner = "payment-service";
+    private StuckPaymentResolution resolution = StuckPaymentResolution.FAIL;
+}
@@ -0,0 +1,43 @@
+package com.innowise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the JIT warm-up phase.
+ * <p>
+ * Binds properties with the prefix "payment.warm-up". Warm-up runs synthetic
+ * payments through the serialization and mapping paths in rounds of
+ * {@code batchSize} iterations until JIT compilation settles or the budget
+ * runs out. Compilation is considered settled once {@code stableRounds}
+ * consecutive rounds add at most {@code settleThreshold} of compilation time
+ * and at least {@code minIterations} iterations have run.
+ * </p>
+ * <p>
+ * Properties include:
+ * <ul>
+ * <li>enabled - whether warm-up runs at startup</li>
+ * <li>budget - maximum time spent warming up</li>
+ * <li>batchSize - iterations per round</li>
+ * <li>minIterations - iterations to run before compilation may count as settled</li>
+ * <li>settleThreshold - compilation time per round below which a round is stable</li>
+ * <li>stableRounds - consecutive stable rounds required</li>
+ * </ul>
+ * </p>
+ *
+ * @see com.innowise.service.warmup.JitWarmUp
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.warm-up")
+public class WarmUpProperties {
+    private boolean enabled = true;
+    private Duration budget = Duration.ofSeconds(15);
+    private int batchSize = 200;
+    private int minIterations = 5_000;
+    private Duration settleThreshold = Duration.ofMillis(10);
+    private int stableRounds = 3;
+}
@@ -0,0 +1,76 @@
+package com.innowise.controller;
+
+import com.innowise.model.dto.BulkStatusUpdateRequestDto;
+import com.innowise.model.dto.BulkStatusUpdateResponseDto;
+import com.innowise.model.dto.PaymentExportRequestDto;
+import com.innowise.service.PaymentService;
+import com.innowise.service.export.PaymentExporter;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * REST controller for payment administration endpoints.
+ * <p>
+ * Used by reconciliation and settlement jobs that need to operate on many
+ * payments at once, and by finance for payment extracts.
+ * </p>
+ *
+ * @see PaymentService
+ */
+@RestController
+@RequestMapping("/api/v1/payments")
+@RequiredArgsConstructor
+public class PaymentController {
+
+    private final PaymentService paymentService;
+
+    private final PaymentExporter paymentExporter;
+
+    /**
+     * Updates the status of many payments in one request.
+     *
+     * @param request payment IDs mapped to their new status
+     * @return aggregate counts and the per-payment outcome
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<BulkStatusUpdateResponseDto> updatePaymentStatuses(
+            @Valid @RequestBody BulkStatusUpdateRequestDto request) {
+        return ResponseEntity.ok(paymentService.updatePaymentStatuses(request.getStatuses()));
+    }
+
+    /**
+     * Streams the payments in a time range as NDJSON or CSV, optionally
+     * gzip-compressed.
+     * <p>
+     * The body is written straight from the database cursor while the
+     * client reads it, so the response can be arbitrarily large without
+     * being held in memory.
+     * </p>
+     *
+     * @param request the time range and output format
+     * @return the export as an attachment
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@Valid PaymentExportRequestDto request) {
+        String fileName = PaymentExporter.fileName(request.getFrom(), request.getTo(), request.getFormat(),
+                request.isGzip());
+        StreamingResponseBody body = out -> paymentExporter.export(request.getFrom(), request.getTo(),
+                request.getFormat(), request.isGzip(), out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(request.isGzip()
+                        ? "application/gzip" : request.getFormat().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
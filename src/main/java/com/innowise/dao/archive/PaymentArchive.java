@@ -0,0 +1,211 @@
+package com.innowise.dao.archive;
+
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.model.entity.Payment;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cold storage for payments moved out of the hot {@code payments} collection.
+ * <p>
+ * Archived payments live in one collection per month of their timestamp,
+ * named {@code payments_archive_yyyy_MM}, in the same {@link PaymentCodec}
+ * layout as the hot collection. Archive collections carry only the default
+ * {@code _id} index: they are read by ID only, and a whole month is retired
+ * by dropping its collection, which is far cheaper than deleting or
+ * TTL-expiring its documents one by one.
+ * </p>
+ * <p>
+ * Lookups by ID use the creation time embedded in an ObjectId to go
+ * straight to the right month (and its neighbours, in case the payment
+ * timestamp and the ID were generated on either side of a month boundary);
+ * other IDs fall back to checking every archive month, newest first.
+ * </p>
+ * <p>
+ * Range reads for exports scan and sort the months they overlap, spilling
+ * the sort to disk on the server if a month does not fit its memory limit.
+ * </p>
+ */
+@Component
+public class PaymentArchive {
+
+    public static final String COLLECTION_PREFIX = "payments_archive_";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+    private final MongoTemplate mongoTemplate;
+    private final PaymentCodec paymentCodec;
+    private final CodecRegistry codecRegistry;
+    private final ZoneId zone;
+
+    public PaymentArchive(MongoTemplate mongoTemplate, PaymentCodec paymentCodec) {
+        this(mongoTemplate, paymentCodec, ZoneId.systemDefault());
+    }
+
+    PaymentArchive(MongoTemplate mongoTemplate, PaymentCodec paymentCodec, ZoneId zone) {
+        this.mongoTemplate = mongoTemplate;
+        this.paymentCodec = paymentCodec;
+        this.codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(paymentCodec), MongoClientSettings.getDefaultCodecRegistry());
+        this.zone = zone;
+    }
+
+    /**
+     * @return the archive collection for payments with a timestamp in {@code month}
+     */
+    public static String collectionName(YearMonth month) {
+        return COLLECTION_PREFIX + MONTH.format(month);
+    }
+
+    /**
+     * Inserts or replaces the given payments, all from {@code month}, with one
+     * unordered bulk write; archiving the same payment twice is harmless.
+     */
+    public void upsertAll(YearMonth month, List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return;
+        }
+        List<ReplaceOneModel<Payment>> replacements = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            replacements.add(new ReplaceOneModel<>(
+                    Filters.eq(PaymentCodec.ID, PaymentCodec.toBsonId(payment.getId())), payment, UPSERT));
+        }
+        execute(month, collection -> collection.bulkWrite(replacements, new BulkWriteOptions().ordered(false)));
+    }
+
+    /**
+     * @param id the payment ID
+     * @return the archived payment, or empty if no archive month has it
+     */
+    public Optional<Payment> findById(String id) {
+        for (YearMonth month : candidateMonths(id)) {
+            Payment payment = execute(month, collection ->
+                    collection.find(Filters.eq(PaymentCodec.ID, PaymentCodec.toBsonId(id))).first());
+            if (payment != null) {
+                return Optional.of(payment);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the months that have an archive collection, newest first
+     */
+    public List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : mongoTemplate.getCollectionNames()) {
+            if (name.startsWith(COLLECTION_PREFIX)) {
+                try {
+                    months.add(YearMonth.parse(name.substring(COLLECTION_PREFIX.length()), MONTH));
+                } catch (DateTimeParseException ignored) {
+                    // Not an archive month, e.g. a manually created collection
+                }
+            }
+        }
+        months.sort(Comparator.reverseOrder());
+        return months;
+    }
+
+    /**
+     * @return the months with an archive collection that may hold payments
+     * with {@code from <= timestamp < to}, oldest first
+     */
+    public List<YearMonth> monthsBetween(LocalDateTime from, LocalDateTime to) {
+        YearMonth first = YearMonth.from(from);
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month : months()) {
+            if (!month.isBefore(first) && month.atDay(1).atStartOfDay().isBefore(to)) {
+                months.add(month);
+            }
+        }
+        months.sort(Comparator.naturalOrder());
+        return months;
+    }
+
+    /**
+     * Passes the archived payments of {@code month} with
+     * {@code from <= timestamp < to} to {@code action}, in timestamp order,
+     * one cursor batch at a time.
+     *
+     * @param month          the archive month to read
+     * @param from           inclusive lower bound
+     * @param to             exclusive upper bound
+     * @param readPreference where to read from
+     * @param batchSize      documents fetched per round trip and passed per call
+     * @param action         called once per batch of up to {@code batchSize} payments
+     */
+    public void streamBetween(YearMonth month, LocalDateTime from, LocalDateTime to, ReadPreference readPreference,
+                              int batchSize, Consumer<List<Payment>> action) {
+        Bson filter = Filters.and(
+                Filters.gte(PaymentCodec.TIMESTAMP, paymentCodec.toBsonDate(from)),
+                Filters.lt(PaymentCodec.TIMESTAMP, paymentCodec.toBsonDate(to)));
+        execute(month, collection -> {
+            List<Payment> batch = new ArrayList<>(batchSize);
+            try (MongoCursor<Payment> cursor = collection.withReadPreference(readPreference).find(filter)
+                    .sort(Sorts.ascending(PaymentCodec.TIMESTAMP))
+                    .allowDiskUse(true)
+                    .batchSize(batchSize)
+                    .cursor()) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() == batchSize) {
+                        action.accept(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                action.accept(batch);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drops the archive collection of {@code month} with all its payments.
+     */
+    public void drop(YearMonth month) {
+        mongoTemplate.dropCollection(collectionName(month));
+    }
+
+    private Set<YearMonth> candidateMonths(String id) {
+        if (!ObjectId.isValid(id)) {
+            return new LinkedHashSet<>(months());
+        }
+        YearMonth created = YearMonth.from(LocalDateTime.ofInstant(new ObjectId(id).getDate().toInstant(), zone));
+        return new LinkedHashSet<>(List.of(created, created.minusMonths(1), created.plusMonths(1)));
+    }
+
+    private <T> T execute(YearMonth month, Function<MongoCollection<Payment>, T> action) {
+        return mongoTemplate.execute(collectionName(month), collection ->
+                action.apply(collection.withCodecRegistry(codecRegistry).withDocumentClass(Payment.class)));
+    }
+}
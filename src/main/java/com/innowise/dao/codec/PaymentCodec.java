@@ -0,0 +1,201 @@
+package com.innowise.dao.codec;
+
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.MoneyRepresentation;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.money.MinorUnits;
+import org.bson.BsonDateTime;
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Hand-written BSON codec for {@link Payment}.
+ * <p>
+ * Reads and writes the document directly on the driver's BSON reader and
+ * writer, skipping the reflective {@code MappingMongoConverter} and the
+ * intermediate {@link org.bson.Document}. Documents carry no {@code _class}
+ * field and use the short field names declared on the entity:
+ * <ul>
+ * <li>{@code _id} - ObjectId if the ID is a valid hex ObjectId, else a string</li>
+ * <li>{@code o} - order ID (Int64)</li>
+ * <li>{@code u} - user ID (Int64)</li>
+ * <li>{@code s} - status name</li>
+ * <li>{@code t} - timestamp (BSON date, local time in the JVM time zone)</li>
+ * <li>{@code a} - amount, Decimal128 or Int64 minor units depending on the
+ * {@link MoneyRepresentation}</li>
+ * <li>{@code v} - version (Int64), incremented by every status transition</li>
+ * </ul>
+ * The value encodings match what the converter wrote before, and decoding
+ * also accepts the long field names, so documents written by instances that
+ * have not been upgraded yet stay readable during a rolling deployment.
+ * </p>
+ *
+ * @see com.innowise.dao.converter.MoneyConverters
+ */
+public class PaymentCodec implements CollectibleCodec<Payment> {
+
+    public static final String ID = "_id";
+    public static final String ORDER_ID = "o";
+    public static final String USER_ID = "u";
+    public static final String STATUS = "s";
+    public static final String TIMESTAMP = "t";
+    public static final String AMOUNT = "a";
+    public static final String VERSION = "v";
+
+    private final MoneyRepresentation representation;
+    private final int scale;
+    private final ZoneId zone;
+
+    /**
+     * @param representation the storage representation for amounts
+     * @param scale          currency scale used for minor units
+     */
+    public PaymentCodec(MoneyRepresentation representation, int scale) {
+        this(representation, scale, ZoneId.systemDefault());
+    }
+
+    PaymentCodec(MoneyRepresentation representation, int scale, ZoneId zone) {
+        this.representation = representation;
+        this.scale = scale;
+        this.zone = zone;
+    }
+
+    /**
+     * Converts a payment ID to the value stored in {@code _id}, the same way
+     * Spring Data converts {@code String} identifiers.
+     *
+     * @param id the payment ID
+     * @return an ObjectId if {@code id} is a valid hex ObjectId, else a string
+     */
+    public static BsonValue toBsonId(String id) {
+        return ObjectId.isValid(id) ? new BsonObjectId(new ObjectId(id)) : new BsonString(id);
+    }
+
+    /**
+     * Converts a payment timestamp to the value stored in {@code t}, for use
+     * in query filters.
+     *
+     * @param timestamp the local timestamp
+     * @return the BSON date the codec writes for it
+     */
+    public BsonDateTime toBsonDate(LocalDateTime timestamp) {
+        return new BsonDateTime(timestamp.atZone(zone).toInstant().toEpochMilli());
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Payment payment, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (payment.getId() != null) {
+            writer.writeName(ID);
+            if (ObjectId.isValid(payment.getId())) {
+                writer.writeObjectId(new ObjectId(payment.getId()));
+            } else {
+                writer.writeString(payment.getId());
+            }
+        }
+        if (payment.getOrderId() != null) {
+            writer.writeInt64(ORDER_ID, payment.getOrderId());
+        }
+        if (payment.getUserId() != null) {
+            writer.writeInt64(USER_ID, payment.getUserId());
+        }
+        if (payment.getStatus() != null) {
+            writer.writeString(STATUS, payment.getStatus().name());
+        }
+        if (payment.getTimestamp() != null) {
+            writer.writeDateTime(TIMESTAMP, payment.getTimestamp().atZone(zone).toInstant().toEpochMilli());
+        }
+        if (payment.getPaymentAmount() != null) {
+            switch (representation) {
+                case DECIMAL128 -> writer.writeDecimal128(AMOUNT, new Decimal128(payment.getPaymentAmount()));
+                case MINOR_UNITS -> writer.writeInt64(AMOUNT, MinorUnits.of(payment.getPaymentAmount(), scale));
+            }
+        }
+        if (payment.getVersion() != null) {
+            writer.writeInt64(VERSION, payment.getVersion());
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Payment decode(BsonReader reader, DecoderContext decoderContext) {
+        Payment payment = new Payment();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (name) {
+                case ID -> payment.setId(reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                        ? reader.readObjectId().toHexString()
+                        : reader.readString());
+                case ORDER_ID, "orderId" -> payment.setOrderId(readLong(reader));
+                case USER_ID, "userId" -> payment.setUserId(readLong(reader));
+                case STATUS, "status" -> payment.setStatus(PaymentStatus.valueOf(reader.readString()));
+                case TIMESTAMP, "timestamp" -> payment.setTimestamp(
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), zone));
+                case AMOUNT, "payment_amount" -> payment.setPaymentAmount(readAmount(reader));
+                case VERSION -> payment.setVersion(readLong(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return payment;
+    }
+
+    @Override
+    public Class<Payment> getEncoderClass() {
+        return Payment.class;
+    }
+
+    @Override
+    public Payment generateIdIfAbsentFromDocument(Payment payment) {
+        if (payment.getId() == null) {
+            payment.setId(new ObjectId().toHexString());
+        }
+        return payment;
+    }
+
+    @Override
+    public boolean documentHasId(Payment payment) {
+        return payment.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(Payment payment) {
+        if (payment.getId() == null) {
+            throw new IllegalStateException("Payment has no ID");
+        }
+        return toBsonId(payment.getId());
+    }
+
+    private static long readLong(BsonReader reader) {
+        return reader.getCurrentBsonType() == BsonType.INT32 ? reader.readInt32() : reader.readInt64();
+    }
+
+    private BigDecimal readAmount(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DECIMAL128 -> reader.readDecimal128().bigDecimalValue();
+            case INT64 -> MinorUnits.toBigDecimal(reader.readInt64(), scale);
+            case INT32 -> MinorUnits.toBigDecimal(reader.readInt32(), scale);
+            case STRING -> new BigDecimal(reader.readString());
+            default -> BigDecimal.valueOf(reader.readDouble());
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.innowise.dao.converter;
+
+import com.innowise.model.enums.MoneyRepresentation;
+import com.innowise.model.money.MinorUnits;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * MongoDB converters for monetary amounts.
+ * <p>
+ * By default Spring Data writes {@link BigDecimal} values as strings, which
+ * makes range queries and index ordering lexical. These converters store
+ * amounts either as BSON Decimal128 or as Int64 minor units, depending on
+ * the configured {@link MoneyRepresentation}. Reading accepts both formats
+ * (and legacy strings via the Spring Data defaults), so documents written
+ * before a migration remain readable.
+ * </p>
+ *
+ * @see com.innowise.config.MongoConfig
+ */
+public final class MoneyConverters {
+
+    private MoneyConverters() {
+    }
+
+    /**
+     * Returns the converters to register for the given representation.
+     *
+     * @param representation the storage representation for amounts
+     * @param scale          currency scale used for minor units
+     * @return the list of converters
+     */
+    public static List<Converter<?, ?>> forRepresentation(MoneyRepresentation representation, int scale) {
+        return switch (representation) {
+            case DECIMAL128 -> List.of(
+                    new BigDecimalToDecimal128Converter(),
+                    new Decimal128ToBigDecimalConverter(),
+                    new MinorUnitsToBigDecimalConverter(scale));
+            case MINOR_UNITS -> List.of(
+                    new BigDecimalToMinorUnitsConverter(scale),
+                    new Decimal128ToBigDecimalConverter(),
+                    new MinorUnitsToBigDecimalConverter(scale));
+        };
+    }
+
+    @WritingConverter
+    public static class BigDecimalToDecimal128Converter implements Converter<BigDecimal, Decimal128> {
+        @Override
+        public Decimal128 convert(BigDecimal source) {
+            return new Decimal128(source);
+        }
+    }
+
+    @ReadingConverter
+    public static class Decimal128ToBigDecimalConverter implements Converter<Decimal128, BigDecimal> {
+        @Override
+        public BigDecimal convert(Decimal128 source) {
+            return source.bigDecimalValue();
+        }
+    }
+
+    @WritingConverter
+    @RequiredArgsConstructor
+    public static class BigDecimalToMinorUnitsConverter implements Converter<BigDecimal, Long> {
+        private final int scale;
+
+        @Override
+        public Long convert(BigDecimal source) {
+            return MinorUnits.of(source, scale);
+        }
+    }
+
+    @ReadingConverter
+    @RequiredArgsConstructor
+    public static class MinorUnitsToBigDecimalConverter implements Converter<Long, BigDecimal> {
+        private final int scale;
+
+        @Override
+        public BigDecimal convert(Long source) {
+            return MinorUnits.toBigDecimal(source, scale);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.innowise.dao.lease;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * A named, time-limited lease held in one MongoDB document, used to elect a
+ * single instance for background work.
+ * <p>
+ * The lease document is {@code {_id: name, owner, expiresAt}} in the
+ * {@value #COLLECTION} collection. {@link #tryAcquire()} is a single upsert
+ * that matches the document only if this owner holds it or it has expired,
+ * and moves the expiry forward; if another owner holds a live lease the
+ * upsert attempts to insert a second document with the same {@code _id} and
+ * fails with a duplicate key error, which means "not acquired". Acquiring
+ * and renewing are the same call.
+ * </p>
+ * <p>
+ * Expiry is compared against the local clock of whoever tries to acquire,
+ * so clock skew between instances must be well below the TTL, and work done
+ * under the lease must be renewed more often than the TTL.
+ * </p>
+ */
+@Slf4j
+public class MongoLease {
+
+    public static final String COLLECTION = "leases";
+
+    static final String OWNER = "owner";
+    static final String EXPIRES_AT = "expiresAt";
+
+    @Getter
+    private final String name;
+    @Getter
+    private final String owner;
+    private final Duration ttl;
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+
+    public MongoLease(MongoTemplate mongoTemplate, String name, String owner, Duration ttl) {
+        this(mongoTemplate, name, owner, ttl, Clock.systemUTC());
+    }
+
+    MongoLease(MongoTemplate mongoTemplate, String name, String owner, Duration ttl, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.name = name;
+        this.owner = owner;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Acquires the lease, or renews it if this owner already holds it.
+     *
+     * @return whether this owner holds the lease for another TTL
+     */
+    public boolean tryAcquire() {
+        Instant now = clock.instant();
+        Query query = Query.query(Criteria.where("_id").is(name)
+                .orOperator(Criteria.where(OWNER).is(owner), Criteria.where(EXPIRES_AT).lt(Date.from(now))));
+        Update update = new Update()
+                .set(OWNER, owner)
+                .set(EXPIRES_AT, Date.from(now.plus(ttl)));
+        try {
+            mongoTemplate.upsert(query, update, COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.debug("Lease {} is held by another owner", name);
+            return false;
+        }
+    }
+
+    /**
+     * Gives the lease up early if this owner holds it, so another instance
+     * does not have to wait for it to expire.
+     */
+    public void release() {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(name).and(OWNER).is(owner)), COLLECTION);
+    }
+}
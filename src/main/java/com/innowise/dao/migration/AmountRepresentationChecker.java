@@ -0,0 +1,59 @@
+package com.innowise.dao.migration;
+
+import com.innowise.config.MoneyProperties;
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.model.enums.MoneyRepresentation;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refuses to start when the payments collection already holds amounts in
+ * the other money representation.
+ * <p>
+ * The changelog converts amounts to Decimal128 only. MongoDB compares
+ * numeric types by value, so int64 minor units (1234) written next to
+ * Decimal128 amounts (12.34) would share {@code idx_payment_amount} and every
+ * amount range query at two different scales. Switching representation
+ * therefore needs the existing amounts rewritten first; this check makes
+ * sure that happened. It runs after {@link SchemaMigrationRunner} and issues
+ * a single indexed query limited to one document.
+ * </p>
+ *
+ * @see MoneyProperties
+ */
+@Component
+@DependsOn("schemaMigrationRunner")
+@RequiredArgsConstructor
+public class AmountRepresentationChecker implements InitializingBean {
+
+    static final String COLLECTION = "payments";
+
+    private final MongoTemplate mongoTemplate;
+    private final MoneyProperties moneyProperties;
+
+    @Override
+    public void afterPropertiesSet() {
+        MoneyRepresentation representation = moneyProperties.getRepresentation();
+        BsonType foreignType = switch (representation) {
+            case DECIMAL128 -> BsonType.INT64;
+            case MINOR_UNITS -> BsonType.DECIMAL128;
+        };
+        Document foreign = mongoTemplate.getCollection(COLLECTION)
+                .find(Filters.type(PaymentCodec.AMOUNT, foreignType))
+                .projection(Projections.include(PaymentCodec.ID))
+                .limit(1)
+                .first();
+        if (foreign != null) {
+            throw new IllegalStateException("payment.money.representation is " + representation
+                    + " but the " + COLLECTION + " collection holds " + foreignType + " amounts (e.g. payment "
+                    + foreign.get(PaymentCodec.ID) + "); rewrite the existing amounts before switching");
+        }
+    }
+}
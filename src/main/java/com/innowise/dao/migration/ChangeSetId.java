@@ -0,0 +1,23 @@
+package com.innowise.dao.migration;
+
+/**
+ * Identity of a Liquibase changeset.
+ * <p>
+ * Liquibase identifies a changeset by id, author and changelog file. The
+ * file is kept for messages only: the path Liquibase records depends on how
+ * the changelog was included, so changesets are compared by id and author.
+ * </p>
+ *
+ * @param id     the changeset id
+ * @param author the changeset author
+ * @param file   the changelog file that declares it
+ */
+public record ChangeSetId(String id, String author, String file) {
+
+    /**
+     * @return the key used to match declared changesets against applied ones
+     */
+    public String key() {
+        return id + "::" + author;
+    }
+}
@@ -0,0 +1,91 @@
+package com.innowise.dao.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the changesets declared by a Liquibase XML changelog.
+ * <p>
+ * Follows {@code <include>} elements (including
+ * {@code relativeToChangelogFile}) from the master changelog and returns the
+ * changesets in declaration order. The files are parsed with the JDK DOM
+ * parser only, so checking the schema version does not initialize Liquibase.
+ * </p>
+ */
+@Slf4j
+public final class ChangelogReader {
+
+    private ChangelogReader() {
+    }
+
+    /**
+     * @param changeLog classpath location of the master changelog
+     * @return the declared changesets, in order
+     * @throws IllegalStateException if a changelog cannot be read
+     */
+    public static List<ChangeSetId> read(String changeLog) {
+        List<ChangeSetId> changeSets = new ArrayList<>();
+        read(normalize(changeLog), changeSets);
+        return changeSets;
+    }
+
+    private static void read(String path, List<ChangeSetId> changeSets) {
+        Document document = parse(path);
+        NodeList children = document.getDocumentElement().getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (!(children.item(i) instanceof Element element)) {
+                continue;
+            }
+            switch (localName(element)) {
+                case "include" -> read(resolve(path, element), changeSets);
+                case "changeSet" -> changeSets.add(new ChangeSetId(
+                        element.getAttribute("id"), element.getAttribute("author"), path));
+                case "includeAll" -> log.warn("includeAll in {} is not supported by the schema check", path);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static String resolve(String parent, Element include) {
+        String file = include.getAttribute("file");
+        if (Boolean.parseBoolean(include.getAttribute("relativeToChangelogFile"))) {
+            int slash = parent.lastIndexOf('/');
+            return normalize(slash < 0 ? file : parent.substring(0, slash + 1) + file);
+        }
+        return normalize(file);
+    }
+
+    private static Document parse(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(in);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot read changelog " + path, e);
+        }
+    }
+
+    private static String localName(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    private static String normalize(String path) {
+        String normalized = path.startsWith("classpath:") ? path.substring("classpath:".length()) : path;
+        return normalized.startsWith("/") ? normalized.substring(1) : normalized;
+    }
+}
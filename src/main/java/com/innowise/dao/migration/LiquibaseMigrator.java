@@ -0,0 +1,64 @@
+package com.innowise.dao.migration;
+
+import com.innowise.config.MigrationProperties;
+import liquibase.Scope;
+import liquibase.command.CommandScope;
+import liquibase.command.core.UpdateCommandStep;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the Liquibase MongoDB changelog.
+ * <p>
+ * Spring Boot's Liquibase auto-configuration requires a JDBC
+ * {@code DataSource}, so it never runs against MongoDB; this component drives
+ * liquibase-mongodb directly through the Liquibase command API. Liquibase
+ * takes its lock in the {@code DATABASECHANGELOGLOCK} collection, so only one
+ * process applies changesets at a time.
+ * </p>
+ */
+@Slf4j
+@Component
+public class LiquibaseMigrator {
+
+    private final MigrationProperties properties;
+    private final String mongoUri;
+
+    public LiquibaseMigrator(MigrationProperties properties,
+                             @Value("${spring.data.mongodb.uri}") String mongoUri) {
+        this.properties = properties;
+        this.mongoUri = mongoUri;
+    }
+
+    /**
+     * Applies all pending changesets of the configured changelog.
+     *
+     * @throws IllegalStateException if the migration fails
+     */
+    public void update() {
+        String changeLog = properties.getChangeLog();
+        ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor(getClass().getClassLoader());
+        try {
+            Scope.child(Scope.Attr.resourceAccessor.name(), resourceAccessor, () -> {
+                Database database = DatabaseFactory.getInstance()
+                        .openDatabase(mongoUri, null, null, null, resourceAccessor);
+                try {
+                    new CommandScope(UpdateCommandStep.COMMAND_NAME)
+                            .addArgumentValue("database", database)
+                            .addArgumentValue("changelogFile", changeLog)
+                            .execute();
+                } finally {
+                    database.close();
+                }
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Liquibase migration of " + changeLog + " failed", e);
+        }
+        log.info("Liquibase changelog {} applied", changeLog);
+    }
+}
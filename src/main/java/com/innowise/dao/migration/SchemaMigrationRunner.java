@@ -0,0 +1,113 @@
+package com.innowise.dao.migration;
+
+import com.innowise.config.MigrationProperties;
+import com.innowise.model.enums.MigrationMode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Applies or verifies the MongoDB schema according to
+ * {@code payment.migration.mode}.
+ * <p>
+ * The work is done while the bean is initialized, i.e. before the Kafka
+ * listener containers start, so a pod never consumes against an outdated
+ * schema:
+ * <ul>
+ * <li>{@code VERIFY} - compares the changelog with the Liquibase history and
+ * fails startup (or warns, see {@code failOnPending}) if changesets are
+ * missing</li>
+ * <li>{@code MIGRATE} / {@code MIGRATE_ONLY} - applies pending changesets
+ * under the Liquibase lock</li>
+ * </ul>
+ * In {@code MIGRATE_ONLY} mode the process exits once the context has
+ * started; run it with the {@code migrate} profile, which also keeps the web
+ * server and the listeners down.
+ * </p>
+ *
+ * @see SchemaVersionChecker
+ * @see LiquibaseMigrator
+ */
+@Slf4j
+@Component
+public class SchemaMigrationRunner implements InitializingBean, ApplicationRunner {
+
+    private final MigrationProperties properties;
+    private final SchemaVersionChecker schemaVersionChecker;
+    private final LiquibaseMigrator liquibaseMigrator;
+    private final ApplicationContext applicationContext;
+    private final IntConsumer exit;
+
+    private volatile int pendingChangeSets;
+
+    @Autowired
+    public SchemaMigrationRunner(MigrationProperties properties,
+                                 SchemaVersionChecker schemaVersionChecker,
+                                 LiquibaseMigrator liquibaseMigrator,
+                                 ApplicationContext applicationContext,
+                                 MeterRegistry registry) {
+        this(properties, schemaVersionChecker, liquibaseMigrator, applicationContext, registry, System::exit);
+    }
+
+    SchemaMigrationRunner(MigrationProperties properties,
+                          SchemaVersionChecker schemaVersionChecker,
+                          LiquibaseMigrator liquibaseMigrator,
+                          ApplicationContext applicationContext,
+                          MeterRegistry registry,
+                          IntConsumer exit) {
+        this.properties = properties;
+        this.schemaVersionChecker = schemaVersionChecker;
+        this.liquibaseMigrator = liquibaseMigrator;
+        this.applicationContext = applicationContext;
+        this.exit = exit;
+
+        Gauge.builder("payment.schema.pending.changesets", this, r -> r.pendingChangeSets)
+                .description("Changesets declared by the changelog but not applied, as of startup")
+                .register(registry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        MigrationMode mode = properties.getMode();
+        switch (mode) {
+            case NONE -> log.info("Schema migration and verification disabled");
+            case VERIFY -> verify();
+            case MIGRATE, MIGRATE_ONLY -> liquibaseMigrator.update();
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.getMode() == MigrationMode.MIGRATE_ONLY) {
+            log.info("Migrate-only run finished, exiting");
+            exit.accept(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void verify() {
+        long start = System.nanoTime();
+        List<ChangeSetId> pending = schemaVersionChecker.pendingChangeSets();
+        pendingChangeSets = pending.size();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (pending.isEmpty()) {
+            log.info("Schema is up to date (checked in {} ms)", elapsedMillis);
+            return;
+        }
+        String message = pending.size() + " changeset(s) not applied, run the migrate-only job first: " + pending;
+        if (properties.isFailOnPending()) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+}
@@ -0,0 +1,47 @@
+package com.innowise.dao.migration;
+
+import com.innowise.config.MigrationProperties;
+import com.mongodb.client.model.Projections;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only check of the applied schema version.
+ * <p>
+ * Compares the changesets declared by the changelog with the records in the
+ * Liquibase history collection. It issues a single projected query, takes no
+ * lock and does not start Liquibase, so it is cheap enough to run on every
+ * pod start.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class SchemaVersionChecker {
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationProperties properties;
+
+    /**
+     * @return declared changesets that are not recorded as applied, in declaration order
+     */
+    public List<ChangeSetId> pendingChangeSets() {
+        List<ChangeSetId> declared = ChangelogReader.read(properties.getChangeLog());
+
+        Set<String> applied = new HashSet<>();
+        for (Document record : mongoTemplate.getCollection(properties.getHistoryCollection())
+                .find()
+                .projection(Projections.include("id", "author"))) {
+            applied.add(new ChangeSetId(record.getString("id"), record.getString("author"), null).key());
+        }
+
+        return declared.stream()
+                .filter(changeSet -> !applied.contains(changeSet.key()))
+                .toList();
+    }
+}
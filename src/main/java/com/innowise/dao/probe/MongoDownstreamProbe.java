@@ -0,0 +1,34 @@
+package com.innowise.dao.probe;
+
+import com.innowise.aspect.BackpressureAspect;
+import com.innowise.model.entity.Payment;
+import com.innowise.service.kafka.DownstreamProbe;
+import com.mongodb.client.model.Filters;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Probes MongoDB with a lookup of a fresh, and therefore missing, ObjectId
+ * in the payments collection: one {@code _id} index seek through the same
+ * connection pool and server as the payment writes, without reading or
+ * writing any document.
+ */
+@Component
+@RequiredArgsConstructor
+public class MongoDownstreamProbe implements DownstreamProbe {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String stage() {
+        return BackpressureAspect.MONGO;
+    }
+
+    @Override
+    public void probe() {
+        mongoTemplate.execute(Payment.class, collection ->
+                collection.find(Filters.eq("_id", new ObjectId())).first());
+    }
+}
@@ -0,0 +1,16 @@
+package com.innowise.dao.repository;
+
+import com.innowise.model.enums.BulkUpdateOutcome;
+import com.innowise.model.enums.PaymentStatus;
+
+import java.util.Map;
+
+/**
+ * Result of a bulk status update.
+ *
+ * @param outcomes     the outcome for every requested payment ID
+ * @param rejectedFrom the status each {@link BulkUpdateOutcome#REJECTED}
+ *                     payment was found in
+ */
+public record BulkStatusUpdate(Map<String, BulkUpdateOutcome> outcomes, Map<String, PaymentStatus> rejectedFrom) {
+}
@@ -3,5 +3,26 @@ package com.innowise.dao.repository;
 import com.innowise.model.entity.Payment;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface PaymentRepository extends MongoRepository<Payment, String> {
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for {@link Payment} documents.
+ * <p>
+ * The methods redeclared here are implemented by
+ * {@link PaymentRepositoryCustomImpl} on top of
+ * {@link com.innowise.dao.codec.PaymentCodec}; redeclaring them resolves
+ * the overlap between the Spring Data and the custom signatures.
+ * </p>
+ */
+public interface PaymentRepository extends MongoRepository<Payment, String>, PaymentRepositoryCustom {
+
+    @Override
+    <S extends Payment> S save(S payment);
+
+    @Override
+    <S extends Payment> List<S> insert(Iterable<S> payments);
+
+    @Override
+    Optional<Payment> findById(String id);
 }
@@ -0,0 +1,217 @@
+package com.innowise.dao.repository;
+
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.BulkUpdateOutcome;
+import com.innowise.model.enums.PaymentStatus;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Custom {@link PaymentRepository} operations implemented directly on
+ * {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ * <p>
+ * {@link #save}, {@link #insert(Iterable)} and {@link #findById} override the
+ * Spring Data defaults (fragment methods take precedence over the base
+ * repository), so the hot paths read and write through
+ * {@link com.innowise.dao.codec.PaymentCodec} instead of the reflective
+ * mapping converter.
+ * </p>
+ */
+public interface PaymentRepositoryCustom {
+
+    /**
+     * Inserts the payment, assigning a new ObjectId if it has no ID, or
+     * replaces the stored document with the same ID.
+     * <p>
+     * A payment without a version is stored with version 0. A payment with
+     * a version replaces the stored document only if that still has the
+     * same version, and the version is incremented.
+     * </p>
+     *
+     * @param payment the payment to store
+     * @return the same instance, with its ID and version assigned
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the
+     *                                                                   stored version differs
+     */
+    <S extends Payment> S save(S payment);
+
+    /**
+     * Inserts the given payments with a single ordered {@code insertMany};
+     * payments without an ID get a new ObjectId, payments without a version
+     * get version 0.
+     *
+     * @param payments new payments
+     * @return the inserted payments
+     */
+    <S extends Payment> List<S> insert(Iterable<S> payments);
+
+    /**
+     * Reads a payment from the hot collection, falling back to the
+     * {@link com.innowise.dao.archive.PaymentArchive} for payments that have
+     * been archived.
+     *
+     * @param id the payment ID
+     * @return the payment, or empty if there is none with that ID
+     */
+    Optional<Payment> findById(String id);
+
+    /**
+     * Moves a payment to {@code target} with a single {@code findAndModify}.
+     * <p>
+     * The update only applies if the current status may move to
+     * {@code target} (see {@link PaymentStatus#canTransitionTo}) and, when
+     * {@code expectedVersion} is given, the stored version still equals it.
+     * The version is incremented.
+     * </p>
+     *
+     * @param id              the payment ID
+     * @param target          the new status
+     * @param expectedVersion the version the caller last read, or {@code null}
+     *                        to guard on the current status only
+     * @return the updated payment, or empty if no payment passed the guard
+     */
+    Optional<Payment> transitionStatus(String id, PaymentStatus target, Long expectedVersion);
+
+    /**
+     * Reads one page of PENDING payments created before {@code cutoff}, in
+     * (timestamp, ID) order.
+     * <p>
+     * Paging is by key rather than by offset: the next page starts after the
+     * timestamp and ID of {@code after}, so every page is one bounded range
+     * scan of the (status, timestamp, ID) index however deep the sweep is,
+     * and payments resolved in the meantime do not shift the pages.
+     * </p>
+     *
+     * @param cutoff only payments with an earlier timestamp are returned
+     * @param after  the last payment of the previous page, or {@code null}
+     *               for the first page
+     * @param limit  maximum number of payments
+     * @return the page, empty when there are no more
+     */
+    List<Payment> findPendingBefore(LocalDateTime cutoff, Payment after, int limit);
+
+    /**
+     * Moves PENDING payments to the status they carry with a single
+     * unordered bulk write.
+     * <p>
+     * Each update is guarded like {@link #transitionStatus}: it only applies
+     * if the payment is still PENDING at the version it was read with. The
+     * payments passed in get their version incremented; when not every
+     * update matched, one extra read finds out which did.
+     * </p>
+     *
+     * @param payments PENDING payments as read, with their new status set
+     * @return the payments whose update was applied
+     */
+    List<Payment> settlePending(List<Payment> payments);
+
+    /**
+     * Finds which of the given orders have a payment in one of the given
+     * statuses, with one query over the order ID index.
+     *
+     * @param orderIds the orders to look up
+     * @param statuses the statuses to look for
+     * @return the subset of {@code orderIds} with such a payment
+     */
+    Set<Long> findOrdersWithStatus(Collection<Long> orderIds, Collection<PaymentStatus> statuses);
+
+    /**
+     * Passes every payment with {@code from <= timestamp < to} to
+     * {@code action}, first from the hot collection and then from each
+     * overlapping archive month, oldest first; each collection is read in
+     * timestamp order through one batched cursor.
+     * <p>
+     * Only one batch of documents is held at a time, so memory use does not
+     * grow with the number of payments. A payment that is both archived and
+     * still hot is passed on once, from the hot collection. The cursor is
+     * closed when {@code action} throws.
+     * </p>
+     *
+     * @param from           inclusive lower bound
+     * @param to             exclusive upper bound
+     * @param readPreference where to read from
+     * @param batchSize      documents fetched per round trip
+     * @param action         called once per payment
+     * @return the number of payments passed to {@code action}
+     */
+    long streamBetween(LocalDateTime from, LocalDateTime to, ReadPreference readPreference, int batchSize,
+                       Consumer<? super Payment> action);
+
+    /**
+     * Reads the oldest settled (not PENDING) payments with a timestamp
+     * before {@code cutoff}, oldest first.
+     *
+     * @param cutoff only payments with an earlier timestamp are returned
+     * @param limit  maximum number of payments
+     * @return the payments, empty when there are none left
+     */
+    List<Payment> findSettledBefore(LocalDateTime cutoff, int limit);
+
+    /**
+     * Deletes the given payments from the hot collection with a single
+     * unordered bulk write, each only if it still has the version it was
+     * read with.
+     *
+     * @param payments payments as read
+     * @return the number of payments deleted
+     */
+    int deleteUnchanged(List<Payment> payments);
+
+    /**
+     * Opens a change stream on the hot collection that reports every write
+     * leaving a payment settled: inserts and replacements of settled
+     * payments, and updates that set a settled status.
+     * <p>
+     * The events carry the current document, looked up when the event is
+     * read, which is missing if the payment has been deleted (archived)
+     * since. The caller must close the cursor.
+     * </p>
+     *
+     * @param resumeAfter  resume token of the last processed event, or
+     *                     {@code null} to start with the next write
+     * @param batchSize    events fetched per round trip
+     * @param maxAwaitTime how long one round trip waits for new events
+     * @return the open change stream cursor
+     */
+    MongoChangeStreamCursor<ChangeStreamDocument<Payment>> watchSettled(BsonDocument resumeAfter, int batchSize,
+                                                                        Duration maxAwaitTime);
+
+    /**
+     * Sets the status of the given payments with a single unordered bulk write.
+     * <p>
+     * Each update increments the payment's version, so optimistic writers see
+     * the change. Updates that {@link PaymentStatus#canTransitionTo} does not
+     * allow from the payment's current status are reported as
+     * {@link BulkUpdateOutcome#REJECTED} and left unchanged.
+     * Callers are expected to bound the size of {@code statuses}; the whole map
+     * is sent as one bulk operation.
+     * </p>
+     *
+     * @param statuses payment IDs mapped to their new status
+     * @return the outcome for every requested payment ID, and the status
+     *         each rejected payment was found in
+     */
+    BulkStatusUpdate updateStatuses(Map<String, PaymentStatus> statuses);
+
+    /**
+     * Inserts or replaces the given payments by ID with a single unordered
+     * bulk write.
+     * <p>
+     * If a payment ID occurs more than once, the last occurrence wins.
+     * </p>
+     *
+     * @param payments complete payment documents with their IDs assigned
+     */
+    void upsertAll(List<Payment> payments);
+}
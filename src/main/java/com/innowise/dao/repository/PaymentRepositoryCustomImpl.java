@@ -0,0 +1,428 @@
+package com.innowise.dao.repository;
+
+import com.innowise.dao.archive.PaymentArchive;
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.BulkUpdateOutcome;
+import com.innowise.model.enums.PaymentStatus;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Streamable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link PaymentRepositoryCustom} implementation backed by {@link MongoTemplate}.
+ * <p>
+ * Whole-document reads and writes run on the payments collection with
+ * {@link PaymentCodec} registered, through
+ * {@link MongoTemplate#execute(String, CollectionCallback)} so that driver
+ * exceptions are still translated to Spring's {@code DataAccessException}s.
+ * Partial updates keep using the template, which maps property names to
+ * the short field names declared on {@link Payment}.
+ * </p>
+ * <p>
+ * Reads by ID that miss the hot collection fall back to the
+ * {@link PaymentArchive}, and range streams continue into the archive
+ * months the range overlaps.
+ * </p>
+ */
+@Slf4j
+public class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+
+    static final String COLLECTION = "payments";
+
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+    private static final FindOneAndUpdateOptions RETURN_UPDATED =
+            new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+    private static final List<String> SETTLED = Arrays.stream(PaymentStatus.values())
+            .filter(status -> status != PaymentStatus.PENDING)
+            .map(Enum::name)
+            .toList();
+    private static final List<Bson> SETTLED_CHANGES = List.of(Aggregates.match(Filters.or(
+            Filters.and(Filters.in("operationType", "insert", "replace"),
+                    Filters.in("fullDocument." + PaymentCodec.STATUS, SETTLED)),
+            Filters.and(Filters.eq("operationType", "update"),
+                    Filters.in("updateDescription.updatedFields." + PaymentCodec.STATUS, SETTLED)))));
+
+    private final MongoTemplate mongoTemplate;
+    private final PaymentCodec paymentCodec;
+    private final PaymentArchive paymentArchive;
+    private final CodecRegistry codecRegistry;
+
+    public PaymentRepositoryCustomImpl(MongoTemplate mongoTemplate, PaymentCodec paymentCodec,
+                                       PaymentArchive paymentArchive) {
+        this.mongoTemplate = mongoTemplate;
+        this.paymentCodec = paymentCodec;
+        this.paymentArchive = paymentArchive;
+        this.codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(paymentCodec), MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    @Override
+    public <S extends Payment> S save(S payment) {
+        Long version = payment.getVersion();
+        if (version == null) {
+            payment.setVersion(0L);
+            execute(payments -> payment.getId() == null
+                    ? payments.insertOne(payment)
+                    : payments.replaceOne(byId(payment.getId()), payment, UPSERT));
+            return payment;
+        }
+
+        payment.setVersion(version + 1);
+        UpdateResult result = execute(payments -> payments.replaceOne(
+                Filters.and(byId(payment.getId()), Filters.eq(PaymentCodec.VERSION, version)), payment));
+        if (result.getMatchedCount() == 0) {
+            payment.setVersion(version);
+            throw new OptimisticLockingFailureException(
+                    "Payment " + payment.getId() + " is no longer at version " + version);
+        }
+        return payment;
+    }
+
+    @Override
+    public <S extends Payment> List<S> insert(Iterable<S> payments) {
+        List<S> list = Streamable.of(payments).toList();
+        if (!list.isEmpty()) {
+            for (Payment payment : list) {
+                if (payment.getVersion() == null) {
+                    payment.setVersion(0L);
+                }
+            }
+            execute(collection -> collection.insertMany(list));
+        }
+        return list;
+    }
+
+    @Override
+    public Optional<Payment> findById(String id) {
+        Payment payment = execute(payments -> payments.find(byId(id)).first());
+        return payment != null ? Optional.of(payment) : paymentArchive.findById(id);
+    }
+
+    /**
+     * Filters on the ID, the statuses that may move to {@code target} and
+     * the expected version, so checking the transition and applying it is
+     * one atomic server-side operation.
+     */
+    @Override
+    public Optional<Payment> transitionStatus(String id, PaymentStatus target, Long expectedVersion) {
+        List<String> sources = PaymentStatus.sourcesOf(target).stream().map(Enum::name).toList();
+        Bson filter = expectedVersion == null
+                ? Filters.and(byId(id), Filters.in(PaymentCodec.STATUS, sources))
+                : Filters.and(byId(id), Filters.in(PaymentCodec.STATUS, sources),
+                        Filters.eq(PaymentCodec.VERSION, expectedVersion));
+        Bson update = Updates.combine(
+                Updates.set(PaymentCodec.STATUS, target.name()),
+                Updates.inc(PaymentCodec.VERSION, 1L));
+        return Optional.ofNullable(execute(payments -> payments.findOneAndUpdate(filter, update, RETURN_UPDATED)));
+    }
+
+    @Override
+    public List<Payment> findPendingBefore(LocalDateTime cutoff, Payment after, int limit) {
+        Bson filter = Filters.and(
+                Filters.eq(PaymentCodec.STATUS, PaymentStatus.PENDING.name()),
+                Filters.lt(PaymentCodec.TIMESTAMP, paymentCodec.toBsonDate(cutoff)));
+        if (after != null) {
+            BsonDateTime timestamp = paymentCodec.toBsonDate(after.getTimestamp());
+            filter = Filters.and(filter, Filters.or(
+                    Filters.gt(PaymentCodec.TIMESTAMP, timestamp),
+                    Filters.and(Filters.eq(PaymentCodec.TIMESTAMP, timestamp),
+                            Filters.gt(PaymentCodec.ID, PaymentCodec.toBsonId(after.getId())))));
+        }
+        Bson query = filter;
+        return execute(payments -> payments.find(query)
+                .sort(Sorts.ascending(PaymentCodec.TIMESTAMP, PaymentCodec.ID))
+                .limit(limit)
+                .into(new ArrayList<>(limit)));
+    }
+
+    @Override
+    public List<Payment> settlePending(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return payments;
+        }
+        List<UpdateOneModel<Payment>> updates = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            Long version = payment.getVersion();
+            Bson filter = Filters.and(byId(payment.getId()),
+                    Filters.eq(PaymentCodec.STATUS, PaymentStatus.PENDING.name()),
+                    version == null ? Filters.exists(PaymentCodec.VERSION, false)
+                            : Filters.eq(PaymentCodec.VERSION, version));
+            updates.add(new UpdateOneModel<>(filter, Updates.combine(
+                    Updates.set(PaymentCodec.STATUS, payment.getStatus().name()),
+                    Updates.inc(PaymentCodec.VERSION, 1L))));
+            payment.setVersion(version == null ? 1L : version + 1);
+        }
+        BulkWriteResult result = execute(collection ->
+                collection.bulkWrite(updates, new BulkWriteOptions().ordered(false)));
+        if (result.getMatchedCount() == payments.size()) {
+            return payments;
+        }
+
+        List<BsonValue> ids = payments.stream().map(payment -> PaymentCodec.toBsonId(payment.getId())).toList();
+        Map<String, Payment> stored = new HashMap<>(payments.size() * 2);
+        execute(collection -> collection.find(Filters.in(PaymentCodec.ID, ids)).into(new ArrayList<>()))
+                .forEach(payment -> stored.put(payment.getId(), payment));
+        List<Payment> applied = new ArrayList<>(result.getMatchedCount());
+        for (Payment payment : payments) {
+            Payment current = stored.get(payment.getId());
+            if (current != null && current.getStatus() == payment.getStatus()
+                    && payment.getVersion().equals(current.getVersion())) {
+                applied.add(payment);
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public Set<Long> findOrdersWithStatus(Collection<Long> orderIds, Collection<PaymentStatus> statuses) {
+        if (orderIds.isEmpty() || statuses.isEmpty()) {
+            return Set.of();
+        }
+        Bson filter = Filters.and(
+                Filters.in(PaymentCodec.ORDER_ID, orderIds),
+                Filters.in(PaymentCodec.STATUS, statuses.stream().map(Enum::name).toList()));
+        return execute(payments -> payments.distinct(PaymentCodec.ORDER_ID, filter, Long.class)
+                .into(new HashSet<>()));
+    }
+
+    @Override
+    public long streamBetween(LocalDateTime from, LocalDateTime to, ReadPreference readPreference, int batchSize,
+                              Consumer<? super Payment> action) {
+        Bson filter = Filters.and(
+                Filters.gte(PaymentCodec.TIMESTAMP, paymentCodec.toBsonDate(from)),
+                Filters.lt(PaymentCodec.TIMESTAMP, paymentCodec.toBsonDate(to)));
+        long[] count = new long[1];
+        execute(payments -> {
+            try (MongoCursor<Payment> cursor = payments.withReadPreference(readPreference).find(filter)
+                    .sort(Sorts.ascending(PaymentCodec.TIMESTAMP))
+                    .batchSize(batchSize)
+                    .cursor()) {
+                while (cursor.hasNext()) {
+                    action.accept(cursor.next());
+                    count[0]++;
+                }
+            }
+            return null;
+        });
+        for (YearMonth month : paymentArchive.monthsBetween(from, to)) {
+            paymentArchive.streamBetween(month, from, to, readPreference, batchSize, batch -> {
+                // A payment archived but not yet deleted was already passed on from the hot collection
+                Set<BsonValue> hot = findExistingIds(batch, readPreference);
+                for (Payment payment : batch) {
+                    if (!hot.contains(PaymentCodec.toBsonId(payment.getId()))) {
+                        action.accept(payment);
+                        count[0]++;
+                    }
+                }
+            });
+        }
+        return count[0];
+    }
+
+    @Override
+    public List<Payment> findSettledBefore(LocalDateTime cutoff, int limit) {
+        Bson filter = Filters.and(
+                Filters.lt(PaymentCodec.TIMESTAMP, paymentCodec.toBsonDate(cutoff)),
+                Filters.ne(PaymentCodec.STATUS, PaymentStatus.PENDING.name()));
+        return execute(payments -> payments.find(filter)
+                .sort(Sorts.ascending(PaymentCodec.TIMESTAMP))
+                .limit(limit)
+                .into(new ArrayList<>(limit)));
+    }
+
+    @Override
+    public int deleteUnchanged(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return 0;
+        }
+        List<DeleteOneModel<Payment>> deletes = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            deletes.add(new DeleteOneModel<>(Filters.and(byId(payment.getId()), payment.getVersion() == null
+                    ? Filters.exists(PaymentCodec.VERSION, false)
+                    : Filters.eq(PaymentCodec.VERSION, payment.getVersion()))));
+        }
+        return execute(collection -> collection.bulkWrite(deletes, new BulkWriteOptions().ordered(false)))
+                .getDeletedCount();
+    }
+
+    @Override
+    public MongoChangeStreamCursor<ChangeStreamDocument<Payment>> watchSettled(BsonDocument resumeAfter, int batchSize,
+                                                                               Duration maxAwaitTime) {
+        return execute(payments -> {
+            ChangeStreamIterable<Payment> changes = payments.watch(SETTLED_CHANGES)
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .batchSize(batchSize)
+                    .maxAwaitTime(maxAwaitTime.toMillis(), TimeUnit.MILLISECONDS);
+            return (resumeAfter != null ? changes.resumeAfter(resumeAfter) : changes).cursor();
+        });
+    }
+
+    /**
+     * Resolves which of the requested IDs exist, and their status, with one
+     * projected query, then issues one unordered bulk write of {@code $set}
+     * updates that also increment the version. Updates the state machine does
+     * not allow from the current status are rejected up front, and every
+     * update is guarded on the payment still being in one of the target's
+     * source statuses, the same guard {@link #transitionStatus} uses. Write
+     * errors reported by the server are mapped back to their payment IDs.
+     */
+    @Override
+    public BulkStatusUpdate updateStatuses(Map<String, PaymentStatus> statuses) {
+        Map<String, BulkUpdateOutcome> outcomes = new LinkedHashMap<>(statuses.size() * 2);
+        Map<String, PaymentStatus> rejectedFrom = new HashMap<>();
+        if (statuses.isEmpty()) {
+            return new BulkStatusUpdate(outcomes, rejectedFrom);
+        }
+
+        Map<String, PaymentStatus> existing = findExistingStatuses(statuses.keySet());
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class);
+        List<String> submitted = new ArrayList<>(existing.size());
+
+        for (Map.Entry<String, PaymentStatus> entry : statuses.entrySet()) {
+            String id = entry.getKey();
+            PaymentStatus target = entry.getValue();
+            if (!existing.containsKey(id)) {
+                outcomes.put(id, BulkUpdateOutcome.NOT_FOUND);
+                continue;
+            }
+            PaymentStatus current = existing.get(id);
+            if (current == null || !current.canTransitionTo(target)) {
+                outcomes.put(id, BulkUpdateOutcome.REJECTED);
+                rejectedFrom.put(id, current);
+                continue;
+            }
+            List<String> sources = PaymentStatus.sourcesOf(target).stream().map(Enum::name).toList();
+            Query legalSource = Query.query(Criteria.where("_id").is(id).and("status").in(sources));
+            bulkOps.updateOne(legalSource, new Update().set("status", target).inc("version", 1));
+            submitted.add(id);
+            outcomes.put(id, BulkUpdateOutcome.UPDATED);
+        }
+
+        if (!submitted.isEmpty()) {
+            executeBulk(bulkOps, submitted, outcomes);
+        }
+        return new BulkStatusUpdate(outcomes, rejectedFrom);
+    }
+
+    /**
+     * Collapses repeated IDs to their last payment, then issues one unordered
+     * bulk write of upserting replacements.
+     */
+    @Override
+    public void upsertAll(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return;
+        }
+        Map<String, Payment> latest = new LinkedHashMap<>(payments.size() * 2);
+        for (Payment payment : payments) {
+            latest.put(payment.getId(), payment);
+        }
+
+        List<ReplaceOneModel<Payment>> replacements = new ArrayList<>(latest.size());
+        for (Payment payment : latest.values()) {
+            replacements.add(new ReplaceOneModel<>(byId(payment.getId()), payment, UPSERT));
+        }
+        execute(collection -> collection.bulkWrite(replacements, new BulkWriteOptions().ordered(false)));
+    }
+
+    private static Bson byId(String id) {
+        return Filters.eq(PaymentCodec.ID, PaymentCodec.toBsonId(id));
+    }
+
+    private Set<BsonValue> findExistingIds(List<Payment> payments, ReadPreference readPreference) {
+        List<BsonValue> ids = payments.stream().map(payment -> PaymentCodec.toBsonId(payment.getId())).toList();
+        return execute(collection -> collection.withReadPreference(readPreference)
+                .distinct(PaymentCodec.ID, Filters.in(PaymentCodec.ID, ids), BsonValue.class)
+                .into(new HashSet<>()));
+    }
+
+    private <T> T execute(Function<MongoCollection<Payment>, T> action) {
+        return mongoTemplate.execute(COLLECTION, collection ->
+                action.apply(collection.withCodecRegistry(codecRegistry).withDocumentClass(Payment.class)));
+    }
+
+    private Map<String, PaymentStatus> findExistingStatuses(Set<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("_id").include("status");
+
+        Map<String, PaymentStatus> existing = new HashMap<>(ids.size() * 2);
+        for (Payment payment : mongoTemplate.find(query, Payment.class)) {
+            existing.put(payment.getId(), payment.getStatus());
+        }
+        return existing;
+    }
+
+    private void executeBulk(BulkOperations bulkOps, List<String> submitted,
+                             Map<String, BulkUpdateOutcome> outcomes) {
+        try {
+            bulkOps.execute();
+        } catch (BulkOperationException e) {
+            markFailed(e.getErrors(), submitted, outcomes);
+        } catch (MongoBulkWriteException e) {
+            markFailed(e.getWriteErrors(), submitted, outcomes);
+        }
+    }
+
+    private void markFailed(List<BulkWriteError> errors, List<String> submitted,
+                            Map<String, BulkUpdateOutcome> outcomes) {
+        for (BulkWriteError error : errors) {
+            String id = submitted.get(error.getIndex());
+            log.warn("Bulk status update failed for paymentId={}: {}", id, error.getMessage());
+            outcomes.put(id, BulkUpdateOutcome.FAILED);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.innowise.dao.stream;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.Getter;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Optional;
+
+/**
+ * The last processed position of a named change stream, kept in one MongoDB
+ * document so the stream can be resumed after a restart or failover.
+ * <p>
+ * The document is {@code {_id: name, token, updatedAt}} in the
+ * {@value #COLLECTION} collection; {@code token} is the change stream
+ * resume token as returned by the server and is never interpreted.
+ * </p>
+ */
+public class ResumeTokenStore {
+
+    public static final String COLLECTION = "resume_tokens";
+
+    static final String TOKEN = "token";
+    static final String UPDATED_AT = "updatedAt";
+
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+    @Getter
+    private final String name;
+    private final MongoTemplate mongoTemplate;
+
+    public ResumeTokenStore(MongoTemplate mongoTemplate, String name) {
+        this.mongoTemplate = mongoTemplate;
+        this.name = name;
+    }
+
+    /**
+     * @return the stored resume token, or empty if the stream never stored one
+     */
+    public Optional<BsonDocument> load() {
+        BsonDocument stored = tokens().find(Filters.eq("_id", name)).first();
+        return stored != null && stored.isDocument(TOKEN) ? Optional.of(stored.getDocument(TOKEN)) : Optional.empty();
+    }
+
+    /**
+     * Replaces the stored resume token.
+     */
+    public void save(BsonDocument token) {
+        BsonDocument document = new BsonDocument("_id", new BsonString(name))
+                .append(TOKEN, token)
+                .append(UPDATED_AT, new BsonDateTime(System.currentTimeMillis()));
+        tokens().replaceOne(Filters.eq("_id", name), document, UPSERT);
+    }
+
+    private MongoCollection<BsonDocument> tokens() {
+        return mongoTemplate.getCollection(COLLECTION).withDocumentClass(BsonDocument.class);
+    }
+}
@@ -0,0 +1,23 @@
+package com.innowise.exception;
+
+import com.innowise.model.enums.ProcessingStage;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the time budget of a message runs out before or during a
+ * processing stage.
+ *
+ * @see com.innowise.service.concurrent.Deadline
+ */
+@Getter
+public class DeadlineExceededException extends RuntimeException {
+
+    private final ProcessingStage stage;
+
+    public DeadlineExceededException(ProcessingStage stage, Duration budget) {
+        super("Deadline of " + budget + " exceeded at stage " + stage.tagValue());
+        this.stage = stage;
+    }
+}
@@ -0,0 +1,24 @@
+package com.innowise.exception;
+
+import com.innowise.model.enums.ErrorMessage;
+import com.innowise.model.enums.PaymentStatus;
+import lombok.Getter;
+
+/**
+ * Thrown when a payment cannot move from its current status to the
+ * requested one.
+ *
+ * @see PaymentStatus#canTransitionTo(PaymentStatus)
+ */
+@Getter
+public class IllegalStatusTransitionException extends RuntimeException {
+
+    private final PaymentStatus from;
+    private final PaymentStatus to;
+
+    public IllegalStatusTransitionException(PaymentStatus from, PaymentStatus to) {
+        super(ErrorMessage.ILLEGAL_STATUS_TRANSITION.getDefaultMessage() + " (" + from + " -> " + to + ")");
+        this.from = from;
+        this.to = to;
+    }
+}
@@ -5,6 +5,7 @@ import com.innowise.model.enums.ErrorMessage;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -25,6 +26,9 @@ import java.util.stream.Collectors;
  * Handles the following exception types:
  * <ul>
  * <li>{@link PaymentNotFoundException} - 404 Not Found</li>
+ * <li>{@link IllegalStatusTransitionException} - 409 Conflict</li>
+ * <li>{@link OptimisticLockingFailureException} - 409 Conflict (stale
+ * version)</li>
  * <li>{@link MethodArgumentNotValidException} - 400 Bad Request (validation
  * errors)</li>
  * <li>{@link ConstraintViolationException} - 400 Bad Request (constraint
@@ -57,6 +61,40 @@ public class PaymentExceptionHandler {
                 return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
         }
 
+        /**
+         * Handles {@link IllegalStatusTransitionException} and returns a 409
+         * Conflict response.
+         *
+         * @param ex the illegal status transition exception
+         * @return ResponseEntity with error details and 409 status
+         */
+        @ExceptionHandler(IllegalStatusTransitionException.class)
+        public ResponseEntity<ErrorDto> handleIllegalStatusTransitionException(IllegalStatusTransitionException ex) {
+                log.warn("Illegal status transition: {}", ex.getMessage());
+
+                ErrorDto error = new ErrorDto(
+                                ErrorMessage.ILLEGAL_STATUS_TRANSITION.getCode(),
+                                ex.getMessage());
+                return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+        }
+
+        /**
+         * Handles {@link OptimisticLockingFailureException} and returns a 409
+         * Conflict response.
+         *
+         * @param ex the optimistic locking failure
+         * @return ResponseEntity with error details and 409 status
+         */
+        @ExceptionHandler(OptimisticLockingFailureException.class)
+        public ResponseEntity<ErrorDto> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+                log.warn("Concurrent modification: {}", ex.getMessage());
+
+                ErrorDto error = new ErrorDto(
+                                ErrorMessage.CONCURRENT_MODIFICATION.getCode(),
+                                ErrorMessage.CONCURRENT_MODIFICATION.getDefaultMessage());
+                return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+        }
+
         /**
          * Handles validation errors on {@code @RequestBody} DTOs.
          * <p>
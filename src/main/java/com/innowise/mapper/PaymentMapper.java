@@ -15,6 +15,7 @@ public interface PaymentMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "timestamp", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Payment toEntity(PaymentCreateRequestDto dto);
 
     PaymentResponseDto toDto(Payment entity);
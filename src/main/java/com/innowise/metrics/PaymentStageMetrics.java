@@ -0,0 +1,138 @@
+package com.innowise.metrics;
+
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-stage latency histograms for payment processing.
+ * <p>
+ * Records one {@code payment.stage.duration} timer per
+ * {@link ProcessingStage} and outcome ({@code success}/{@code error}), and a
+ * {@code payment.end.to.end.lag} timer measuring the time from
+ * {@code OrderCreatedEvent.eventTimestamp} until the payment event publish was
+ * acknowledged, tagged by payment outcome. All timers publish percentile
+ * histograms so p99 can be aggregated across pods.
+ * </p>
+ * <p>
+ * Stages that fail because the message's time budget ran out are also
+ * counted in {@code payment.deadline.exceeded}, tagged by stage.
+ * </p>
+ * <p>
+ * Timers are resolved once at construction so recording on the hot path does
+ * not go through a registry lookup.
+ * </p>
+ */
+@Component
+public class PaymentStageMetrics {
+
+    public static final String STAGE_TIMER = "payment.stage.duration";
+    public static final String END_TO_END_TIMER = "payment.end.to.end.lag";
+    public static final String DEADLINE_EXCEEDED_COUNTER = "payment.deadline.exceeded";
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final Map<ProcessingStage, Timer> successTimers = new EnumMap<>(ProcessingStage.class);
+    private final Map<ProcessingStage, Timer> errorTimers = new EnumMap<>(ProcessingStage.class);
+    private final Map<String, Timer> endToEndTimers = new ConcurrentHashMap<>();
+    private final Map<ProcessingStage, Counter> deadlineExceededCounters = new EnumMap<>(ProcessingStage.class);
+
+    public PaymentStageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (ProcessingStage stage : ProcessingStage.values()) {
+            successTimers.put(stage, stageTimer(registry, stage, SUCCESS));
+            errorTimers.put(stage, stageTimer(registry, stage, ERROR));
+            deadlineExceededCounters.put(stage, Counter.builder(DEADLINE_EXCEEDED_COUNTER)
+                    .description("Processing stages aborted because the message deadline passed")
+                    .tag("stage", stage.tagValue())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Builds (or looks up) the stage timer; shared with components that cannot
+     * receive this bean, such as Kafka deserializers instantiated by class name.
+     */
+    public static Timer stageTimer(MeterRegistry registry, ProcessingStage stage, String outcome) {
+        return Timer.builder(STAGE_TIMER)
+                .description("Time spent in each payment processing stage")
+                .tag("stage", stage.tagValue())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Runs the action and records its duration under the given stage. A
+     * {@link DeadlineExceededException} is also counted under the stage it
+     * reports.
+     *
+     * @return the action result
+     */
+    public <T> T record(ProcessingStage stage, Supplier<T> action) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = action.get();
+            success = true;
+            return result;
+        } catch (DeadlineExceededException e) {
+            recordDeadlineExceeded(e.getStage());
+            throw e;
+        } finally {
+            record(stage, start, success);
+        }
+    }
+
+    /**
+     * Records a stage duration measured by the caller.
+     *
+     * @param stage      the processing stage
+     * @param startNanos {@link System#nanoTime()} at stage start
+     * @param success    whether the stage completed successfully
+     */
+    public void record(ProcessingStage stage, long startNanos, boolean success) {
+        (success ? successTimers : errorTimers).get(stage)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a stage aborted because the message deadline passed.
+     */
+    public void recordDeadlineExceeded(ProcessingStage stage) {
+        deadlineExceededCounters.get(stage).increment();
+    }
+
+    /**
+     * Records the lag between the order event creation and now.
+     *
+     * @param eventTimestamp the order event timestamp (system default zone)
+     * @param outcome        outcome tag, e.g. the payment status
+     */
+    public void recordEndToEndLag(LocalDateTime eventTimestamp, String outcome) {
+        if (eventTimestamp == null) {
+            return;
+        }
+        Duration lag = Duration.between(eventTimestamp.atZone(ZoneId.systemDefault()).toInstant(), Instant.now());
+        endToEndTimers.computeIfAbsent(outcome, o -> Timer.builder(END_TO_END_TIMER)
+                        .description("Time from order event creation to payment event acknowledgement")
+                        .tag("outcome", o)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+}
@@ -0,0 +1,56 @@
+package com.innowise.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Time from JVM start until the first order event reached the listener.
+ * <p>
+ * Spring Boot already reports {@code application.started.time} and
+ * {@code application.ready.time}, but a pod is only useful once it consumes.
+ * This component publishes {@code application.first.message.time}, measured
+ * from JVM start (so it includes class loading before the context starts),
+ * and logs the value once so startup benchmarks can read it from the process
+ * output.
+ * </p>
+ */
+@Slf4j
+@Component
+public class StartupMetrics {
+
+    public static final String FIRST_MESSAGE_GAUGE = "application.first.message.time";
+    public static final String FIRST_MESSAGE_LOG_PREFIX = "First message consumed after JVM start (ms): ";
+
+    private final AtomicBoolean firstMessageSeen = new AtomicBoolean();
+    private volatile double firstMessageMillis = Double.NaN;
+
+    public StartupMetrics(MeterRegistry registry) {
+        TimeGauge.builder(FIRST_MESSAGE_GAUGE, this, TimeUnit.MILLISECONDS, m -> m.firstMessageMillis)
+                .description("Time from JVM start until the first message was consumed")
+                .register(registry);
+    }
+
+    /**
+     * Records the first consumed message; subsequent calls only read a flag.
+     */
+    public void messageConsumed() {
+        if (!firstMessageSeen.get() && firstMessageSeen.compareAndSet(false, true)) {
+            long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            firstMessageMillis = uptimeMillis;
+            log.info("{}{}", FIRST_MESSAGE_LOG_PREFIX, uptimeMillis);
+        }
+    }
+
+    /**
+     * @return milliseconds from JVM start to the first consumed message, or {@code NaN} if none yet
+     */
+    public double getFirstMessageMillis() {
+        return firstMessageMillis;
+    }
+}
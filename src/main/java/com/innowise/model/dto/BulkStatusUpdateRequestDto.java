@@ -0,0 +1,31 @@
+package com.innowise.model.dto;
+
+import com.innowise.model.enums.PaymentStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Request body for updating the status of many payments at once.
+ * <p>
+ * Maps payment IDs to the status each payment should be moved to.
+ * </p>
+ *
+ * @see BulkStatusUpdateResponseDto
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateRequestDto {
+
+    @NotEmpty
+    @Size(max = 100_000)
+    private Map<@NotNull String, @NotNull PaymentStatus> statuses;
+}
@@ -0,0 +1,30 @@
+package com.innowise.model.dto;
+
+import com.innowise.model.enums.BulkUpdateOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Result of a bulk status update.
+ * <p>
+ * Contains aggregate counts and the outcome for every requested payment ID.
+ * </p>
+ *
+ * @see BulkUpdateOutcome
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateResponseDto {
+    private int requested;
+    private int updated;
+    private int notFound;
+    private int rejected;
+    private int failed;
+    private Map<String, BulkUpdateOutcome> outcomes;
+}
@@ -0,0 +1,44 @@
+package com.innowise.model.dto;
+
+import com.innowise.model.enums.ExportFormat;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Query parameters of a payment export.
+ * <p>
+ * Selects payments with {@code from <= timestamp < to}; both bounds are
+ * local date-times in ISO format.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentExportRequestDto {
+
+    @NotNull
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @NotNull
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    @Builder.Default
+    private ExportFormat format = ExportFormat.NDJSON;
+
+    private boolean gzip;
+
+    @AssertTrue(message = "from must be before to")
+    public boolean isRangeValid() {
+        return from == null || to == null || from.isBefore(to);
+    }
+}
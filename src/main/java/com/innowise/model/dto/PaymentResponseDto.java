@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
  * <p>
  * This DTO is used to return payment information to clients,
  * containing all relevant payment details including status,
- * timestamps, and associated order/user information.
+ * timestamps, and associated order/user information. The version
+ * increases with every status transition and can be passed back to make a
+ * later transition conditional on it.
  * </p>
  *
  * @see PaymentStatus
@@ -30,4 +32,5 @@ public class PaymentResponseDto {
     private PaymentStatus status;
     private LocalDateTime timestamp;
     private BigDecimal paymentAmount;
+    private Long version;
 }
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -22,14 +23,22 @@ public class Payment {
     @Id
     private String id;
 
+    @Field("o")
     private Long orderId;
 
+    @Field("u")
     private Long userId;
 
-    @Field("status")
+    @Field("s")
     private PaymentStatus status;
 
+    @Field("t")
     private LocalDateTime timestamp;
 
+    @Field("a")
     private BigDecimal paymentAmount;
+
+    @Version
+    @Field("v")
+    private Long version;
 }
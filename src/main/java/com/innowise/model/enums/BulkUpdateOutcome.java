@@ -0,0 +1,14 @@
+package com.innowise.model.enums;
+
+/**
+ * Per-payment outcome of a bulk status update.
+ */
+public enum BulkUpdateOutcome {
+    UPDATED,
+    NOT_FOUND,
+    /**
+     * The payment's current status does not allow the requested transition.
+     */
+    REJECTED,
+    FAILED
+}
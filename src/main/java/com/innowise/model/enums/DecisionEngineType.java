@@ -0,0 +1,21 @@
+package com.innowise.model.enums;
+
+/**
+ * Implementations of {@link com.innowise.service.PaymentDecisionEngine},
+ * selected with {@code payment.decision.engine}.
+ */
+public enum DecisionEngineType {
+    /**
+     * Random number from the external random number API.
+     */
+    REMOTE,
+    /**
+     * Random number generated in-process, no network hop.
+     */
+    LOCAL,
+    /**
+     * Random number derived from a fixed seed and the order ID, so a load test
+     * replaying the same orders gets the same outcomes.
+     */
+    SEEDED
+}
@@ -14,6 +14,8 @@ public enum ErrorMessage {
     PAYMENT_NOT_FOUND(4001, "The requested payment resource was not found."),
     VALIDATION_ERROR(4000, "One or more request fields failed validation."),
     PAYMENT_FAILED(4002, "Payment processing failed due to external or business reasons."),
+    ILLEGAL_STATUS_TRANSITION(4009, "The payment cannot move from its current status to the requested one."),
+    CONCURRENT_MODIFICATION(4010, "The payment was modified concurrently; reload it and retry."),
     INTERNAL_SERVER_ERROR(5000, "An unexpected internal server error occurred.");
 
     private final int code;
@@ -0,0 +1,21 @@
+package com.innowise.model.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Output format of a payment export.
+ * <ul>
+ * <li>{@link #NDJSON} - one JSON object per line</li>
+ * <li>{@link #CSV} - RFC 4180 with a header row</li>
+ * </ul>
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+}
@@ -0,0 +1,19 @@
+package com.innowise.model.enums;
+
+/**
+ * How a process handles the Liquibase MongoDB changelog at startup.
+ * <ul>
+ * <li>{@link #NONE} - no migration and no check</li>
+ * <li>{@link #VERIFY} - read-only check that every changeset has been
+ * applied; the default for service pods</li>
+ * <li>{@link #MIGRATE} - apply pending changesets, then keep running</li>
+ * <li>{@link #MIGRATE_ONLY} - apply pending changesets and exit; intended for
+ * a Kubernetes Job run before the rollout</li>
+ * </ul>
+ */
+public enum MigrationMode {
+    NONE,
+    VERIFY,
+    MIGRATE,
+    MIGRATE_ONLY
+}
@@ -0,0 +1,14 @@
+package com.innowise.model.enums;
+
+/**
+ * Storage representation used for monetary amounts in MongoDB.
+ * <ul>
+ * <li>{@link #DECIMAL128} - amounts are stored as BSON Decimal128 values</li>
+ * <li>{@link #MINOR_UNITS} - amounts are stored as Int64 minor units
+ * (e.g. cents) using the configured currency scale</li>
+ * </ul>
+ */
+public enum MoneyRepresentation {
+    DECIMAL128,
+    MINOR_UNITS
+}
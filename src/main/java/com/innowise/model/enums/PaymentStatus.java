@@ -1,7 +1,48 @@
 package com.innowise.model.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lifecycle status of a payment.
+ * <p>
+ * Legal transitions:
+ * <ul>
+ * <li>{@code PENDING -> SUCCESS | FAILED} - the payment decision</li>
+ * <li>{@code SUCCESS -> FAILED} - compensation when the payment event could
+ * not be published</li>
+ * </ul>
+ * {@code FAILED} is final.
+ * </p>
+ */
 public enum PaymentStatus {
     SUCCESS,
     FAILED,
-    PENDING
+    PENDING;
+
+    /**
+     * @param target the requested status
+     * @return whether a payment in this status may move to {@code target}
+     */
+    public boolean canTransitionTo(PaymentStatus target) {
+        return switch (this) {
+            case PENDING -> target == SUCCESS || target == FAILED;
+            case SUCCESS -> target == FAILED;
+            case FAILED -> false;
+        };
+    }
+
+    /**
+     * @param target the requested status
+     * @return the statuses a payment may move to {@code target} from
+     */
+    public static Set<PaymentStatus> sourcesOf(PaymentStatus target) {
+        Set<PaymentStatus> sources = EnumSet.noneOf(PaymentStatus.class);
+        for (PaymentStatus status : values()) {
+            if (status.canTransitionTo(target)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
 }
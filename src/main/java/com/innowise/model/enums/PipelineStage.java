@@ -0,0 +1,32 @@
+package com.innowise.model.enums;
+
+import java.util.Locale;
+
+/**
+ * Stages of the ring-buffer payment pipeline, in the order a slot passes
+ * through them; used as the {@code stage} tag of the pipeline meters.
+ */
+public enum PipelineStage {
+    DECODE(ProcessingStage.DESERIALIZE),
+    DECIDE(ProcessingStage.RANDOM_FETCH),
+    PERSIST(ProcessingStage.INSERT),
+    PUBLISH(ProcessingStage.PUBLISH);
+
+    private final ProcessingStage processingStage;
+    private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+    PipelineStage(ProcessingStage processingStage) {
+        this.processingStage = processingStage;
+    }
+
+    /**
+     * @return the processing stage whose timers and deadline errors this stage reports
+     */
+    public ProcessingStage processingStage() {
+        return processingStage;
+    }
+
+    public String tagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,22 @@
+package com.innowise.model.enums;
+
+import java.util.Locale;
+
+/**
+ * Stages of the payment processing pipeline, used as the {@code stage} tag
+ * of the per-stage latency timers.
+ */
+public enum ProcessingStage {
+    DESERIALIZE,
+    INSERT,
+    RANDOM_FETCH,
+    STATUS_UPDATE,
+    JOURNAL,
+    PUBLISH;
+
+    private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+    public String tagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,16 @@
+package com.innowise.model.enums;
+
+/**
+ * How payment events reach Kafka.
+ * <ul>
+ * <li>{@link #INLINE} - the thread that settles a payment publishes its
+ * event and waits for the acknowledgement</li>
+ * <li>{@link #CHANGE_STREAM} - the processing thread only writes to MongoDB;
+ * one instance tails a change stream on the payments collection and
+ * publishes an event for every payment that becomes settled</li>
+ * </ul>
+ */
+public enum PublishMode {
+    INLINE,
+    CHANGE_STREAM
+}
@@ -0,0 +1,36 @@
+package com.innowise.model.enums;
+
+/**
+ * Predicates available to risk rules. Each compares one order feature with
+ * the rule threshold, except {@link #BLACKLISTED_ITEM}, which matches line
+ * items against the rule's item IDs.
+ *
+ * @see com.innowise.service.risk.RiskProgram
+ */
+public enum RiskRuleType {
+    /**
+     * {@code totalAmount} above the threshold.
+     */
+    AMOUNT_ABOVE,
+    /**
+     * Number of line items above the threshold.
+     */
+    ITEM_COUNT_ABOVE,
+    /**
+     * Sum of line item quantities above the threshold.
+     */
+    QUANTITY_ABOVE,
+    /**
+     * Price of any single line item above the threshold.
+     */
+    ITEM_PRICE_ABOVE,
+    /**
+     * Orders by the same user within the velocity window, including this one,
+     * above the threshold.
+     */
+    USER_VELOCITY_ABOVE,
+    /**
+     * Any line item whose {@code itemId} is in the rule's item list.
+     */
+    BLACKLISTED_ITEM
+}
@@ -0,0 +1,16 @@
+package com.innowise.model.enums;
+
+/**
+ * What the sweeper does with a payment left PENDING past the threshold.
+ * <ul>
+ * <li>{@link #FAIL} - mark it FAILED; the order service is told the payment
+ * did not go through</li>
+ * <li>{@link #DECIDE} - ask the configured decision engine again, as if the
+ * order event had been processed now; the order items are not stored with
+ * the payment, so item-based risk rules see none</li>
+ * </ul>
+ */
+public enum StuckPaymentResolution {
+    FAIL,
+    DECIDE
+}
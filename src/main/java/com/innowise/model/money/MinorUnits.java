@@ -0,0 +1,102 @@
+package com.innowise.model.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Allocation-free arithmetic over monetary amounts expressed as {@code long}
+ * minor units (e.g. cents for a scale of 2).
+ * <p>
+ * Hot-path code works with primitive minor units and only converts to
+ * {@link BigDecimal} at the edges (persistence, events, REST). All arithmetic
+ * is overflow-checked and throws {@link ArithmeticException} instead of
+ * silently wrapping.
+ * </p>
+ */
+public final class MinorUnits {
+
+    /**
+     * Default currency scale (two fractional digits).
+     */
+    public static final int DEFAULT_SCALE = 2;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L,
+            10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private MinorUnits() {
+    }
+
+    /**
+     * Converts a decimal amount into minor units for the given scale.
+     *
+     * @param amount the decimal amount, must not be {@code null}
+     * @param scale  number of fractional digits of the currency
+     * @return the amount in minor units
+     * @throws ArithmeticException if the amount has more fractional digits than
+     *                             the scale allows or does not fit into a long
+     */
+    public static long of(BigDecimal amount, int scale) {
+        return amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts minor units back into a decimal amount with the given scale.
+     *
+     * @param minorUnits the amount in minor units
+     * @param scale      number of fractional digits of the currency
+     * @return the decimal amount
+     */
+    public static BigDecimal toBigDecimal(long minorUnits, int scale) {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
+    /**
+     * Adds two amounts expressed in the same scale.
+     */
+    public static long add(long left, long right) {
+        return Math.addExact(left, right);
+    }
+
+    /**
+     * Subtracts two amounts expressed in the same scale.
+     */
+    public static long subtract(long left, long right) {
+        return Math.subtractExact(left, right);
+    }
+
+    /**
+     * Multiplies a unit price by a quantity, e.g. for order line totals.
+     */
+    public static long multiply(long unitPrice, long quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    /**
+     * Rescales an amount from one scale to another without rounding.
+     *
+     * @throws ArithmeticException if precision would be lost or on overflow
+     */
+    public static long rescale(long minorUnits, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return minorUnits;
+        }
+        if (toScale > fromScale) {
+            return Math.multiplyExact(minorUnits, powerOfTen(toScale - fromScale));
+        }
+        long divisor = powerOfTen(fromScale - toScale);
+        if (minorUnits % divisor != 0) {
+            throw new ArithmeticException("Rescaling " + minorUnits + " from scale " + fromScale
+                    + " to " + toScale + " would lose precision");
+        }
+        return minorUnits / divisor;
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent < 0 || exponent >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Unsupported scale difference: " + exponent);
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+}
@@ -0,0 +1,30 @@
+package com.innowise.service;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+
+/**
+ * Decides whether a payment succeeds.
+ * <p>
+ * Payment processing is simulated: the outcome is SUCCESS for an even random
+ * number and FAILED for an odd one. Implementations differ in where the
+ * number comes from, see {@link com.innowise.model.enums.DecisionEngineType}.
+ * </p>
+ */
+public interface PaymentDecisionEngine {
+
+    /**
+     * Decides the outcome of the payment for an order.
+     *
+     * @param event the order being paid
+     * @return {@link PaymentStatus#SUCCESS} or {@link PaymentStatus#FAILED}
+     */
+    PaymentStatus decide(OrderCreatedEvent event);
+
+    /**
+     * @return SUCCESS for an even number, FAILED for an odd one
+     */
+    static PaymentStatus fromNumber(int number) {
+        return number % 2 == 0 ? PaymentStatus.SUCCESS : PaymentStatus.FAILED;
+    }
+}
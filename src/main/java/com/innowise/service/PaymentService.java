@@ -1,10 +1,15 @@
 package com.innowise.service;
 
+import com.innowise.model.dto.BulkStatusUpdateResponseDto;
 import com.innowise.model.dto.PaymentCreateRequestDto;
 import com.innowise.model.dto.PaymentResponseDto;
+import com.innowise.model.entity.Payment;
 import com.innowise.model.enums.PaymentStatus;
 import jakarta.validation.Valid;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Service interface for managing payment operations.
  * <p>
@@ -19,14 +24,36 @@ import jakarta.validation.Valid;
 public interface PaymentService {
 
     /**
-     * Updates the status of an existing payment.
+     * Moves an existing payment to a new status, atomically and only along
+     * a legal transition.
+     * <p>
+     * Moving a payment to the status it already has returns it unchanged.
+     * </p>
      *
-     * @param id        the payment ID
-     * @param newStatus the new payment status to set
+     * @param id              the payment ID
+     * @param newStatus       the new payment status to set
+     * @param expectedVersion the payment version the caller last saw, or
+     *                        {@code null} to only check the current status
      * @return the updated payment as a response DTO
-     * @throws com.innowise.exception.PaymentNotFoundException if payment not found
+     * @throws com.innowise.exception.PaymentNotFoundException          if payment not found
+     * @throws com.innowise.exception.IllegalStatusTransitionException if the current
+     *                                                                  status cannot move to {@code newStatus}
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the payment
+     *                                                                   changed since {@code expectedVersion}
+     */
+    PaymentResponseDto updatePaymentStatus(String id, PaymentStatus newStatus, Long expectedVersion);
+
+    /**
+     * Updates the status of many payments at once.
+     * <p>
+     * Updates are applied in bounded chunks; unknown IDs are reported as
+     * not found instead of failing the whole request.
+     * </p>
+     *
+     * @param statuses payment IDs mapped to their new status
+     * @return aggregate counts and the outcome for every requested payment ID
      */
-    PaymentResponseDto updatePaymentStatus(String id, PaymentStatus newStatus);
+    BulkStatusUpdateResponseDto updatePaymentStatuses(Map<String, PaymentStatus> statuses);
 
     /**
      * Creates a new payment record.
@@ -36,4 +63,44 @@ public interface PaymentService {
      * @throws jakarta.validation.ConstraintViolationException if validation fails
      */
     PaymentResponseDto createPayment(@Valid PaymentCreateRequestDto dto);
+
+    /**
+     * Creates a payment that is already settled and records it in the local
+     * write-ahead journal.
+     * <p>
+     * The payment is durable once this method returns; it reaches the database
+     * asynchronously, so reads may not see it yet. Journaling the same ID
+     * again replaces the earlier record when the journal is drained.
+     * </p>
+     *
+     * @param id     the payment ID, assigned by the caller so that a retry can reuse it
+     * @param dto    the payment creation request containing order and user details
+     * @param status the settled payment status
+     * @return the journaled payment as a response DTO
+     * @throws jakarta.validation.ConstraintViolationException if validation fails
+     * @see com.innowise.service.journal.PaymentJournal
+     */
+    PaymentResponseDto journalPayment(String id, @Valid PaymentCreateRequestDto dto, PaymentStatus status);
+
+    /**
+     * Records a new status for a payment created with
+     * {@link #journalPayment(String, PaymentCreateRequestDto, PaymentStatus)}.
+     *
+     * @param payment   the journaled payment
+     * @param newStatus the new payment status to set
+     * @return the updated payment as a response DTO
+     */
+    PaymentResponseDto journalPaymentStatus(PaymentResponseDto payment, PaymentStatus newStatus);
+
+    /**
+     * Stores a batch of payments that are already settled, in one write.
+     * <p>
+     * IDs and timestamps are assigned in place, so the caller can publish
+     * the payment events afterwards. With the payment journal enabled the
+     * batch is journaled instead of inserted.
+     * </p>
+     *
+     * @param payments settled payments without an ID
+     */
+    void persistSettledPayments(List<Payment> payments);
 }
@@ -0,0 +1,175 @@
+package com.innowise.service.archive;
+
+import com.innowise.config.ArchiveProperties;
+import com.innowise.dao.archive.PaymentArchive;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.model.entity.Payment;
+import com.innowise.service.job.LeasedBackgroundJob;
+import com.innowise.service.kafka.BackpressureController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves settled payments older than the hot retention from the hot
+ * collection into the monthly {@link PaymentArchive} collections.
+ * <p>
+ * Every interval, the instance holding the {@value #LEASE} lease (see
+ * {@link MongoLease}) repeatedly takes the oldest batch of settled payments
+ * past the cutoff and:
+ * <ol>
+ * <li>upserts them into the archive collection of their month, one bulk
+ * write per month</li>
+ * <li>deletes them from the hot collection with one bulk write, each only
+ * if its version is unchanged; a payment updated in between stays hot and
+ * is archived again, with its new contents, in the next batch</li>
+ * </ol>
+ * A crash between the two steps leaves a payment in both places, which is
+ * harmless: reads prefer the hot copy and the next run archives it again.
+ * PENDING payments are left to the stuck payment sweeper. Once the hot
+ * collection is caught up, archive months older than the archive retention
+ * are dropped.
+ * </p>
+ * <p>
+ * Like the sweeper, the archiver is a {@link LeasedBackgroundJob}: it runs
+ * on its own thread, paces itself to {@code maxRate} payments per second
+ * and stops early while the {@link BackpressureController} has the
+ * consumers paused.
+ * </p>
+ *
+ * @see ArchiveProperties
+ */
+@Slf4j
+@Component
+public class PaymentArchiver extends LeasedBackgroundJob {
+
+    public static final String LEASE = "payment-archiver";
+
+    private final ArchiveProperties properties;
+    private final PaymentRepository paymentRepository;
+    private final PaymentArchive paymentArchive;
+
+    private final Counter movedCounter;
+    private final Counter droppedMonthsCounter;
+    private final Timer runTimer;
+
+    public PaymentArchiver(ArchiveProperties properties,
+                           PaymentRepository paymentRepository,
+                           PaymentArchive paymentArchive,
+                           MongoTemplate mongoTemplate,
+                           BackpressureController backpressureController,
+                           MeterRegistry registry) {
+        super(LEASE, "payment.archive", properties, mongoTemplate, backpressureController, registry);
+        this.properties = properties;
+        this.paymentRepository = paymentRepository;
+        this.paymentArchive = paymentArchive;
+
+        this.movedCounter = Counter.builder("payment.archive.moved")
+                .description("Payments moved from the hot collection into the archive")
+                .register(registry);
+        this.droppedMonthsCounter = Counter.builder("payment.archive.months.dropped")
+                .description("Archive months dropped after the archive retention")
+                .register(registry);
+        this.runTimer = Timer.builder("payment.archive.duration")
+                .description("Time spent in one archiver run while holding the lease")
+                .register(registry);
+    }
+
+    /**
+     * Archives once if this instance can acquire the lease.
+     *
+     * @return the number of payments moved out of the hot collection
+     */
+    public int archive() {
+        if (!tryAcquireLease()) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(properties.getHotRetention());
+        int moved = 0;
+        boolean caughtUp = false;
+        try {
+            while (isRunning() && !deferIfPaused()) {
+                long batchStarted = System.nanoTime();
+                List<Payment> batch = paymentRepository.findSettledBefore(cutoff, properties.getBatchSize());
+                if (batch.isEmpty()) {
+                    caughtUp = true;
+                    break;
+                }
+                for (Map.Entry<YearMonth, List<Payment>> month : byMonth(batch).entrySet()) {
+                    paymentArchive.upsertAll(month.getKey(), month.getValue());
+                }
+                int deleted = paymentRepository.deleteUnchanged(batch);
+                movedCounter.increment(deleted);
+                moved += deleted;
+                if (deleted == 0) {
+                    log.warn("None of {} archived payments could be removed from the hot collection, "
+                            + "retrying in {}", batch.size(), properties.getInterval());
+                    break;
+                }
+                if (batch.size() < properties.getBatchSize()) {
+                    caughtUp = true;
+                    break;
+                }
+                throttle(batch.size(), batchStarted);
+                if (!renewLease()) {
+                    break;
+                }
+            }
+            if (caughtUp) {
+                dropExpiredMonths(now);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (moved > 0) {
+            log.info("Archived {} payments older than {}", moved, cutoff);
+        }
+        return moved;
+    }
+
+    @Override
+    protected void runOnce() {
+        archive();
+    }
+
+    private void dropExpiredMonths(LocalDateTime now) {
+        if (properties.getArchiveRetention() == null) {
+            return;
+        }
+        // Only months that lie entirely before the retention limit
+        YearMonth oldestKept = YearMonth.from(now.minus(properties.getArchiveRetention()));
+        for (YearMonth month : paymentArchive.months()) {
+            if (month.isBefore(oldestKept)) {
+                paymentArchive.drop(month);
+                droppedMonthsCounter.increment();
+                log.info("Dropped archive month {} past the archive retention of {}", month,
+                        properties.getArchiveRetention());
+            }
+        }
+    }
+
+    private static Map<YearMonth, List<Payment>> byMonth(List<Payment> batch) {
+        Map<YearMonth, List<Payment>> months = new TreeMap<>();
+        for (Payment payment : batch) {
+            months.computeIfAbsent(YearMonth.from(payment.getTimestamp()), month -> new ArrayList<>()).add(payment);
+        }
+        return months;
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.innowise.service.concurrent;
+
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Time budget of the message being processed by the current thread.
+ * <p>
+ * The consumer attaches a deadline when it receives a record; downstream calls
+ * read it through {@link #current()} and either bound their waits by
+ * {@link #remaining(ProcessingStage)} or fail fast with a
+ * {@link DeadlineExceededException}. Without an attached deadline (REST
+ * calls, warm-up) nothing is limited. {@link SubtaskScope} carries the
+ * deadline into forked subtasks.
+ * </p>
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final Duration budget;
+    private final long deadlineNanos;
+
+    private Deadline(Duration budget, long deadlineNanos) {
+        this.budget = budget;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @return a deadline that expires {@code budget} from now
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(budget, System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @return the deadline attached to the current thread, if any
+     */
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Fails fast if the current thread's deadline, if any, has passed.
+     *
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public static void check(ProcessingStage stage) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.remaining(stage);
+        }
+    }
+
+    /**
+     * @return the task, running with the caller's deadline attached
+     */
+    static <T> Callable<T> propagate(Callable<T> task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            try (Attachment ignored = deadline.attach()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * Attaches this deadline to the current thread until the returned
+     * attachment is closed.
+     */
+    public Attachment attach() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the time left, always positive
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public Duration remaining(ProcessingStage stage) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            throw exceeded(stage);
+        }
+        return Duration.ofNanos(remaining);
+    }
+
+    /**
+     * @return the time left, {@link Duration#ZERO} once the deadline has passed
+     */
+    public Duration timeLeft() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    public Duration budget() {
+        return budget;
+    }
+
+    /**
+     * @return the exception reporting that this deadline passed during the stage
+     */
+    public DeadlineExceededException exceeded(ProcessingStage stage) {
+        return new DeadlineExceededException(stage, budget);
+    }
+
+    /**
+     * Restores the previously attached deadline on close.
+     */
+    @FunctionalInterface
+    public interface Attachment extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.innowise.service.concurrent;
+
+import com.innowise.config.ProcessingProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opens {@link SubtaskScope}s whose subtasks run on virtual threads.
+ * <p>
+ * This is the structured concurrency pattern of Java 21's
+ * {@code StructuredTaskScope.ShutdownOnFailure} built on a thread-per-task
+ * executor: {@code StructuredTaskScope} is still a preview API in Java 21 and
+ * would need {@code --enable-preview} for the compiler, the tests, the
+ * container image and the native image.
+ * </p>
+ */
+@Component
+public class SubtaskExecutor implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("payment-subtask-", 0).factory());
+
+    private final ProcessingProperties properties;
+
+    public SubtaskExecutor(ProcessingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return a new scope; use with try-with-resources
+     */
+    public SubtaskScope open() {
+        return new SubtaskScope(executor);
+    }
+
+    /**
+     * @return the configured time limit for joining a scope
+     */
+    public Duration deadline() {
+        return properties.getSubtaskDeadline();
+    }
+
+    /**
+     * Joins the scope within the configured deadline or, if it comes sooner,
+     * what is left of the {@link Deadline} of the current message.
+     *
+     * @return {@code false} if the message deadline passed before all
+     * subtasks completed; they are cancelled when the scope closes
+     * @see SubtaskScope#join(Duration)
+     */
+    public boolean join(SubtaskScope scope) {
+        Deadline deadline = Deadline.current().orElse(null);
+        Duration limit = properties.getSubtaskDeadline();
+        boolean limitedByMessage = false;
+        if (deadline != null) {
+            Duration remaining = deadline.timeLeft();
+            if (remaining.compareTo(limit) < 0) {
+                limit = remaining;
+                limitedByMessage = true;
+            }
+        }
+        try {
+            scope.join(limit);
+            return true;
+        } catch (IllegalStateException e) {
+            if (limitedByMessage && e.getCause() instanceof TimeoutException) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,94 @@
+package com.innowise.service.concurrent;
+
+import io.opentelemetry.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * A scope of subtasks forked on virtual threads and joined together, with
+ * the shutdown-on-failure semantics of {@code StructuredTaskScope}.
+ * <p>
+ * {@link #join(Duration)} waits for all subtasks in completion order. The
+ * first failure, the deadline or an interrupt cancels (interrupts) the
+ * remaining subtasks; closing the scope does the same for subtasks that were
+ * never joined, so no subtask outlives the try-with-resources block.
+ * </p>
+ * <p>
+ * Not thread-safe: fork, join and close are called by the owning thread.
+ * </p>
+ */
+public class SubtaskScope implements AutoCloseable {
+
+    private final ExecutorCompletionService<Object> completionService;
+    private final List<Future<Object>> subtasks = new ArrayList<>();
+
+    SubtaskScope(ExecutorService executor) {
+        this.completionService = new ExecutorCompletionService<>(executor);
+    }
+
+    /**
+     * Starts the task in a new virtual thread, with the caller's trace
+     * context and {@link Deadline}.
+     *
+     * @return the task result, available once {@link #join(Duration)} returned
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Supplier<T> fork(Callable<? extends T> task) {
+        Future<Object> future = completionService.submit(
+                Context.current().wrap(Deadline.propagate((Callable<Object>) task)));
+        subtasks.add(future);
+        return () -> (T) future.resultNow();
+    }
+
+    /**
+     * Waits until all forked subtasks completed.
+     *
+     * @param deadline maximum time to wait for all subtasks
+     * @throws RuntimeException      the first subtask failure, rethrown as is
+     *                               if unchecked, wrapped otherwise
+     * @throws IllegalStateException if the deadline passed or the caller was
+     *                               interrupted (the interrupt flag is kept)
+     */
+    public void join(Duration deadline) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        try {
+            for (int completed = 0; completed < subtasks.size(); completed++) {
+                Future<Object> done = completionService.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    throw new IllegalStateException("Subtasks did not complete within " + deadline,
+                            new TimeoutException());
+                }
+                done.get();
+            }
+        } catch (ExecutionException e) {
+            cancelAll();
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll();
+            throw new IllegalStateException("Interrupted while joining subtasks", e);
+        } catch (IllegalStateException e) {
+            cancelAll();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        subtasks.forEach(subtask -> subtask.cancel(true));
+    }
+}
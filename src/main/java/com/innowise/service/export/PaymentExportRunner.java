@@ -0,0 +1,87 @@
+package com.innowise.service.export;
+
+import com.innowise.config.ExportProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntConsumer;
+
+/**
+ * Command-line mode that writes one payment export to a file and exits.
+ * <p>
+ * Active when {@code payment.export.output} is set; run it with the
+ * {@code export} profile, which keeps the web server and the listeners
+ * down:
+ * <pre>
+ * java -jar app.jar --spring.profiles.active=export \
+ *     --payment.export.from=2024-05-01T00:00 --payment.export.to=2024-05-02T00:00 \
+ *     --payment.export.output=/exports --payment.export.gzip=true
+ * </pre>
+ * If {@code output} is a directory, a file named after the range is
+ * created in it. The exit code is 0 on success and 1 on failure.
+ * </p>
+ *
+ * @see PaymentExporter
+ */
+@Slf4j
+@Component
+public class PaymentExportRunner implements ApplicationRunner {
+
+    private final ExportProperties properties;
+    private final PaymentExporter exporter;
+    private final ApplicationContext applicationContext;
+    private final IntConsumer exit;
+
+    @Autowired
+    public PaymentExportRunner(ExportProperties properties, PaymentExporter exporter,
+                               ApplicationContext applicationContext) {
+        this(properties, exporter, applicationContext, System::exit);
+    }
+
+    PaymentExportRunner(ExportProperties properties, PaymentExporter exporter,
+                        ApplicationContext applicationContext, IntConsumer exit) {
+        this.properties = properties;
+        this.exporter = exporter;
+        this.applicationContext = applicationContext;
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.getOutput() == null) {
+            return;
+        }
+        int code = export() ? 0 : 1;
+        exit.accept(SpringApplication.exit(applicationContext, () -> code));
+    }
+
+    private boolean export() {
+        if (properties.getFrom() == null || properties.getTo() == null
+                || !properties.getFrom().isBefore(properties.getTo())) {
+            log.error("payment.export.from and payment.export.to must be set, with from before to");
+            return false;
+        }
+        Path target = properties.getOutput();
+        if (Files.isDirectory(target)) {
+            target = target.resolve(PaymentExporter.fileName(properties.getFrom(), properties.getTo(),
+                    properties.getFormat(), properties.isGzip()));
+        }
+        try {
+            long count = exporter.exportToFile(properties.getFrom(), properties.getTo(), properties.getFormat(),
+                    properties.isGzip(), target);
+            log.info("Export of {} payments written to {}, exiting", count, target);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Export to {} failed", target, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.innowise.service.export;
+
+import com.innowise.config.ExportProperties;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.ExportFormat;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams payments in a time range to an output stream as NDJSON or CSV.
+ * <p>
+ * Payments are read through batched cursors over the hot collection and
+ * the archive months the range overlaps (see
+ * {@link PaymentRepository#streamBetween}) and each is written out as soon
+ * as it is decoded, through a fixed-size buffer and optionally a gzip
+ * stream, so the heap holds at most one cursor batch and one buffer no
+ * matter how many payments are exported.
+ * </p>
+ * <p>
+ * Both formats carry the same columns: id, orderId, userId, status,
+ * timestamp (ISO local date-time), amount (plain decimal) and version.
+ * Fields missing from a document are written as JSON {@code null} or an
+ * empty CSV field.
+ * </p>
+ *
+ * @see ExportProperties
+ */
+@Slf4j
+@Component
+public class PaymentExporter {
+
+    static final String CSV_HEADER = "id,order_id,user_id,status,timestamp,amount,version";
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final PaymentRepository paymentRepository;
+    private final ExportProperties properties;
+    private final MeterRegistry registry;
+    private final Counter exportedCounter;
+
+    public PaymentExporter(PaymentRepository paymentRepository, ExportProperties properties, MeterRegistry registry) {
+        this.paymentRepository = paymentRepository;
+        this.properties = properties;
+        this.registry = registry;
+        this.exportedCounter = Counter.builder("payment.export.payments")
+                .description("Payments written by exports")
+                .register(registry);
+    }
+
+    /**
+     * Writes the payments with {@code from <= timestamp < to} to {@code out}.
+     * <p>
+     * The stream is flushed, and the gzip trailer written, but not closed.
+     * </p>
+     *
+     * @return the number of payments written
+     * @throws UncheckedIOException if writing to {@code out} fails
+     */
+    public long export(LocalDateTime from, LocalDateTime to, ExportFormat format, boolean gzip, OutputStream out) {
+        int bufferSize = (int) properties.getBufferSize().toBytes();
+        long started = System.nanoTime();
+        long count;
+        try {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, bufferSize) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    compressed != null ? compressed : out, StandardCharsets.UTF_8), bufferSize);
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            StringBuilder line = new StringBuilder(256);
+            count = paymentRepository.streamBetween(from, to,
+                    ReadPreference.valueOf(properties.getReadPreference()), properties.getBatchSize(), payment -> {
+                        line.setLength(0);
+                        if (format == ExportFormat.CSV) {
+                            appendCsv(line, payment);
+                        } else {
+                            appendJson(line, payment);
+                        }
+                        line.append('\n');
+                        try {
+                            writer.append(line);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        exportedCounter.increment();
+                    });
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Timer.builder("payment.export.duration")
+                .description("Time taken by one payment export")
+                .tag("format", format.name().toLowerCase(Locale.ROOT))
+                .register(registry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        log.info("Exported {} payments from {} to {} as {}{}", count, from, to, format, gzip ? " (gzip)" : "");
+        return count;
+    }
+
+    /**
+     * Writes the export to {@code target}.
+     * <p>
+     * The file is written next to {@code target} under a {@code .part} name
+     * and moved into place only once complete, so a reader never picks up a
+     * partial extract.
+     * </p>
+     *
+     * @return the number of payments written
+     */
+    public long exportToFile(LocalDateTime from, LocalDateTime to, ExportFormat format, boolean gzip, Path target)
+            throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long count;
+        try (OutputStream out = Files.newOutputStream(partial)) {
+            count = export(from, to, format, gzip, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * @return a file name for an export of the given range
+     */
+    public static String fileName(LocalDateTime from, LocalDateTime to, ExportFormat format, boolean gzip) {
+        DateTimeFormatter compact = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+        return "payments-" + compact.format(from) + "-" + compact.format(to) + "." + format.getExtension()
+                + (gzip ? ".gz" : "");
+    }
+
+    static void appendJson(StringBuilder line, Payment payment) {
+        line.append("{\"id\":");
+        appendJsonString(line, payment.getId());
+        line.append(",\"orderId\":").append(payment.getOrderId());
+        line.append(",\"userId\":").append(payment.getUserId());
+        line.append(",\"status\":");
+        appendJsonString(line, payment.getStatus() == null ? null : payment.getStatus().name());
+        line.append(",\"timestamp\":");
+        appendJsonString(line, payment.getTimestamp() == null ? null : TIMESTAMP.format(payment.getTimestamp()));
+        line.append(",\"amount\":")
+                .append(payment.getPaymentAmount() == null ? null : payment.getPaymentAmount().toPlainString());
+        line.append(",\"version\":").append(payment.getVersion());
+        line.append('}');
+    }
+
+    static void appendCsv(StringBuilder line, Payment payment) {
+        appendCsvField(line, payment.getId());
+        line.append(',');
+        if (payment.getOrderId() != null) {
+            line.append(payment.getOrderId());
+        }
+        line.append(',');
+        if (payment.getUserId() != null) {
+            line.append(payment.getUserId());
+        }
+        line.append(',');
+        if (payment.getStatus() != null) {
+            line.append(payment.getStatus().name());
+        }
+        line.append(',');
+        if (payment.getTimestamp() != null) {
+            TIMESTAMP.formatTo(payment.getTimestamp(), line);
+        }
+        line.append(',');
+        if (payment.getPaymentAmount() != null) {
+            line.append(payment.getPaymentAmount().toPlainString());
+        }
+        line.append(',');
+        if (payment.getVersion() != null) {
+            line.append(payment.getVersion());
+        }
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
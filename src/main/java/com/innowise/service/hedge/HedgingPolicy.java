@@ -0,0 +1,186 @@
+package com.innowise.service.hedge;
+
+import com.innowise.config.HedgeProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedges requests to the random number API to cut tail latency.
+ * <p>
+ * {@link #hedge(Mono)} subscribes the request and, if it has not produced a
+ * value after the hedge delay, subscribes it a second time; whichever answer
+ * comes first is used. The hedge delay is the observed latency at
+ * {@code random-api.hedge.percentile} over the last
+ * {@code random-api.hedge.window}, recomputed every refresh interval; before
+ * {@code min-samples} requests have been seen nothing is hedged.
+ * </p>
+ * <p>
+ * Hedges are limited by a token budget shared by all callers: each request
+ * earns {@code budget-ratio} tokens up to {@code max-burst}, each hedge
+ * spends one. When the API is slow for everyone the budget runs dry and
+ * requests are no longer duplicated, so hedging cannot amplify an overload.
+ * </p>
+ * <p>
+ * Metrics, for tuning the budget:
+ * <ul>
+ * <li>{@code random.api.requests} - requests sent, tagged {@code type}
+ * ({@code primary}/{@code hedge}); the hedge rate is hedge/primary</li>
+ * <li>{@code random.api.hedge.wins} - hedges that answered first; the win rate
+ * is wins/hedges</li>
+ * <li>{@code random.api.hedge.latency.saved} - how much earlier a winning hedge
+ * answered than its primary request</li>
+ * <li>{@code random.api.hedge.budget.exhausted} - hedges skipped for lack of
+ * budget</li>
+ * <li>{@code random.api.latency} - latency of single requests, the basis of the
+ * hedge delay ({@code random.api.hedge.delay} gauge)</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class HedgingPolicy {
+
+    private static final long TOKEN = 1_000;
+
+    private final HedgeProperties properties;
+
+    private final Timer latencyTimer;
+    private final Counter primaryCounter;
+    private final Counter hedgeCounter;
+    private final Counter winCounter;
+    private final Counter budgetExhaustedCounter;
+    private final Timer latencySavedTimer;
+
+    private final AtomicLong tokens = new AtomicLong();
+
+    private volatile Duration hedgeDelay;
+
+    public HedgingPolicy(HedgeProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.latencyTimer = Timer.builder("random.api.latency")
+                .description("Latency of single requests to the random number API")
+                .publishPercentiles(properties.getPercentile())
+                .distributionStatisticExpiry(properties.getWindow())
+                .register(registry);
+        this.primaryCounter = requestCounter(registry, "primary");
+        this.hedgeCounter = requestCounter(registry, "hedge");
+        this.winCounter = Counter.builder("random.api.hedge.wins")
+                .description("Hedged requests that answered before their primary request")
+                .register(registry);
+        this.budgetExhaustedCounter = Counter.builder("random.api.hedge.budget.exhausted")
+                .description("Hedges skipped because the hedge budget was used up")
+                .register(registry);
+        this.latencySavedTimer = Timer.builder("random.api.hedge.latency.saved")
+                .description("Time by which a winning hedge answered before its primary request")
+                .register(registry);
+        Gauge.builder("random.api.hedge.delay", this, p -> p.hedgeDelay == null
+                        ? 0 : p.hedgeDelay.toNanos() / 1e6)
+                .description("Current hedge delay in milliseconds, 0 while not hedging")
+                .register(registry);
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String type) {
+        return Counter.builder("random.api.requests")
+                .description("Requests sent to the random number API")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    /**
+     * Recomputes the hedge delay from the latency distribution.
+     */
+    @Scheduled(fixedDelayString = "#{@hedgeProperties.refreshInterval.toMillis()}")
+    public void refresh() {
+        if (!properties.isEnabled() || latencyTimer.count() < properties.getMinSamples()) {
+            hedgeDelay = null;
+            return;
+        }
+        for (ValueAtPercentile value : latencyTimer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == properties.getPercentile()) {
+                long nanos = (long) value.value(TimeUnit.NANOSECONDS);
+                hedgeDelay = nanos <= 0 ? null : Duration.ofNanos(Math.max(nanos, properties.getMinDelay().toNanos()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the current hedge delay, or {@code null} while not hedging
+     */
+    public Duration getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * Wraps a request so that it is hedged according to this policy.
+     *
+     * @param request a cold request; it is subscribed once more for the hedge
+     * @return the first value produced by the request or its hedge
+     */
+    public <T> Mono<T> hedge(Mono<T> request) {
+        return Mono.defer(() -> {
+            primaryCounter.increment();
+            earnToken();
+            Duration delay = hedgeDelay;
+            if (delay == null) {
+                return timed(request);
+            }
+            // Cached so a primary that loses keeps running and its latency is still measured
+            Mono<T> primary = timed(request).cache();
+            Mono<Attempt<T>> hedge = Mono.delay(delay)
+                    .filter(tick -> trySpendToken())
+                    .flatMap(tick -> {
+                        hedgeCounter.increment();
+                        return timed(request);
+                    })
+                    .map(value -> new Attempt<>(value, true));
+            return Mono.firstWithValue(primary.map(value -> new Attempt<>(value, false)), hedge)
+                    .map(winner -> {
+                        if (winner.hedge()) {
+                            long hedgeAnsweredAt = System.nanoTime();
+                            winCounter.increment();
+                            primary.subscribe(value -> latencySavedTimer.record(
+                                    System.nanoTime() - hedgeAnsweredAt, TimeUnit.NANOSECONDS), error -> { });
+                        }
+                        return winner.value();
+                    });
+        });
+    }
+
+    private <T> Mono<T> timed(Mono<T> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request.doOnNext(value -> latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private void earnToken() {
+        long earned = (long) (properties.getBudgetRatio() * TOKEN);
+        long cap = properties.getMaxBurst() * TOKEN;
+        tokens.getAndUpdate(current -> Math.min(cap, current + earned));
+    }
+
+    private boolean trySpendToken() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                budgetExhaustedCounter.increment();
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private record Attempt<T>(T value, boolean hedge) {
+    }
+}
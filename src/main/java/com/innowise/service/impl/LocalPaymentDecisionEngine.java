@@ -0,0 +1,30 @@
+package com.innowise.service.impl;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.PaymentDecisionEngine;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link PaymentDecisionEngine} drawing the number in-process from
+ * {@link ThreadLocalRandom}, within the configured random API range.
+ */
+public class LocalPaymentDecisionEngine implements PaymentDecisionEngine {
+
+    private final int min;
+    private final int max;
+
+    public LocalPaymentDecisionEngine(int min, int max) {
+        if (max < min) {
+            throw new IllegalArgumentException("random-api.max must not be below random-api.min");
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public PaymentStatus decide(OrderCreatedEvent event) {
+        return PaymentDecisionEngine.fromNumber(ThreadLocalRandom.current().nextInt(min, max + 1));
+    }
+}
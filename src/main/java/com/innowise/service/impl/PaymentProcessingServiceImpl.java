@@ -1,21 +1,35 @@
 package com.innowise.service.impl;
 
+import com.innowise.config.PublisherProperties;
 import com.innowise.event.OrderCreatedEvent;
 import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.exception.DeadlineExceededException;
 
+import com.innowise.metrics.PaymentStageMetrics;
 import com.innowise.model.dto.PaymentCreateRequestDto;
 import com.innowise.model.dto.PaymentResponseDto;
 import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.ProcessingStage;
 import com.innowise.service.PaymentProcessingService;
 import com.innowise.service.PaymentService;
-import com.innowise.service.RandomNumberClient;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.concurrent.Deadline;
+import com.innowise.service.concurrent.SubtaskExecutor;
+import com.innowise.service.concurrent.SubtaskScope;
+import com.innowise.service.index.PaymentIndex;
+import com.innowise.service.index.QueuedPayment;
+import com.innowise.service.journal.PaymentJournal;
 import com.innowise.service.kafka.PaymentEventProducer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 /**
  * Implementation of {@link PaymentProcessingService} that orchestrates the
@@ -23,22 +37,27 @@ import java.util.concurrent.ExecutionException;
  * <p>
  * This service coordinates the entire payment lifecycle:
  * <ol>
- * <li>Creates a pending payment record</li>
- * <li>Simulates payment processing using a random number generator</li>
+ * <li>Creates a pending payment record while simulating payment processing
+ * using a random number generator</li>
  * <li>Updates the payment status based on the simulation result</li>
  * <li>Publishes a payment event to Kafka</li>
  * <li>Handles failures by marking the payment as failed</li>
  * </ol>
  * </p>
  * <p>
- * The payment success/failure is determined by whether the generated random
- * number
- * is even (success) or odd (failure).
+ * The payment success/failure is determined by the configured
+ * {@link PaymentDecisionEngine}: whether its random number is even (success)
+ * or odd (failure).
+ * </p>
+ * <p>
+ * Every step is timed as a {@link ProcessingStage} and the time from the
+ * order event timestamp to the publish acknowledgement is recorded as the
+ * end-to-end lag (see {@link PaymentStageMetrics}).
  * </p>
  *
  * @see PaymentProcessingService
  * @see PaymentService
- * @see RandomNumberClient
+ * @see PaymentDecisionEngine
  * @see PaymentEventProducer
  */
 @Service
@@ -50,41 +69,139 @@ public class PaymentProcessingServiceImpl implements PaymentProcessingService {
 
     private final PaymentEventProducer paymentEventProducer;
 
-    private final RandomNumberClient randomNumberClient;
+    private final PaymentDecisionEngine decisionEngine;
+
+    private final PaymentStageMetrics stageMetrics;
+
+    private final SubtaskExecutor subtaskExecutor;
+
+    private final PaymentJournal paymentJournal;
+
+    private final PaymentIndex paymentIndex;
+
+    private final PublisherProperties publisherProperties;
 
     /**
      * Processes a payment for an order creation event.
      * <p>
      * This method performs the following steps:
      * <ol>
-     * <li>Creates a pending payment record in the database</li>
-     * <li>Generates a random number to simulate payment processing</li>
-     * <li>Determines payment status (SUCCESS if even, FAILED if odd)</li>
+     * <li>Creates a pending payment record in the database and, in
+     * parallel, asks the {@link PaymentDecisionEngine} for the outcome</li>
      * <li>Updates the payment status in the database</li>
      * <li>Publishes a PaymentCreatedEvent to Kafka</li>
      * <li>If event publishing fails, marks the payment as FAILED</li>
      * </ol>
      * </p>
+     * <p>
+     * The insert, the payment decision and the event id generation are
+     * independent, so they are forked as subtasks on virtual threads and
+     * joined within the configured deadline, or the message deadline if that
+     * is sooner; the first failure cancels the other subtasks and is
+     * rethrown.
+     * </p>
+     * <p>
+     * If the consumer attached a {@link Deadline}, each stage fails fast with
+     * a {@link DeadlineExceededException} once it has passed. A publish that
+     * times out does not mark the payment FAILED, because the event may
+     * still be delivered.
+     * </p>
+     * <p>
+     * With the {@link PaymentJournal} enabled, the payment is decided first
+     * and then written once, already settled, to the local journal instead
+     * of being inserted and updated in MongoDB. The payment is remembered
+     * in the {@link PaymentIndex} before it is journaled, so a retry after
+     * the deadline cut the journal wait short writes the same payment again.
+     * </p>
+     * <p>
+     * An order that the {@link PaymentIndex} already has a published payment
+     * for is a redelivery and is skipped. If the previous attempt timed out
+     * waiting for the publish acknowledgement, the retry sends the same event
+     * again instead of creating another payment.
+     * </p>
+     * <p>
+     * In change stream publish mode (see {@link PublisherProperties}) the
+     * payment is only written; the event is published by the change stream
+     * publisher once the settled payment is in MongoDB.
+     * </p>
      *
      * @param event the order created event containing order details
      * @throws RuntimeException if payment creation or status update fails
      */
     @Override
     public void processPayment(OrderCreatedEvent event) {
+        if (paymentIndex.isDuplicate(event.getOrderId())) {
+            log.warn("Skipping duplicate order event for order {}, already paid by payment {}",
+                    event.getOrderId(), paymentIndex.findPaymentId(event.getOrderId()));
+            return;
+        }
+        PaymentCreatedEvent unacknowledged = paymentIndex.findUnacknowledged(event.getOrderId());
+        if (unacknowledged != null) {
+            republish(event, unacknowledged);
+            return;
+        }
         PaymentCreateRequestDto dto = PaymentCreateRequestDto.builder()
                 .orderId(event.getOrderId())
                 .userId(event.getUserId())
                 .paymentAmount(event.getTotalAmount())
                 .build();
 
-        PaymentResponseDto pending = paymentService.createPayment(dto);
+        PaymentResponseDto updated;
+        PaymentStatus status;
+        String eventId;
+        if (paymentJournal.isEnabled()) {
+            QueuedPayment queued = paymentIndex.findQueued(event.getOrderId());
+            if (queued == null) {
+                PaymentStatus decided = stageMetrics.record(ProcessingStage.RANDOM_FETCH,
+                        () -> decisionEngine.decide(event));
+                queued = new QueuedPayment(new ObjectId().toHexString(), decided);
+                // The journal may commit the record even if the deadline cuts the wait short
+                paymentIndex.recordQueued(event.getOrderId(), queued);
+            } else {
+                log.info("Journaling queued payment {} for order {} again", queued.paymentId(), event.getOrderId());
+            }
+            String paymentId = queued.paymentId();
+            status = queued.status();
+            eventId = UUID.randomUUID().toString();
+            updated = stageMetrics.record(ProcessingStage.JOURNAL, () -> {
+                Deadline.check(ProcessingStage.JOURNAL);
+                return paymentService.journalPayment(paymentId, dto, status);
+            });
+        } else {
+            PaymentResponseDto pending;
+            checkDeadline(ProcessingStage.INSERT);
+            try (SubtaskScope scope = subtaskExecutor.open()) {
+                Supplier<PaymentResponseDto> insert = scope.fork(() -> stageMetrics.record(ProcessingStage.INSERT, () -> {
+                    Deadline.check(ProcessingStage.INSERT);
+                    return paymentService.createPayment(dto);
+                }));
+                Supplier<PaymentStatus> decision = scope.fork(() -> stageMetrics.record(ProcessingStage.RANDOM_FETCH,
+                        () -> decisionEngine.decide(event)));
+                Supplier<String> id = scope.fork(() -> UUID.randomUUID().toString());
+                if (!subtaskExecutor.join(scope)) {
+                    stageMetrics.recordDeadlineExceeded(ProcessingStage.INSERT);
+                    throw Deadline.current().orElseThrow().exceeded(ProcessingStage.INSERT);
+                }
+                pending = insert.get();
+                status = decision.get();
+                eventId = id.get();
+            }
 
-        int number = randomNumberClient.generateRandomNumber();
-        PaymentStatus status = number % 2 == 0 ? PaymentStatus.SUCCESS : PaymentStatus.FAILED;
+            updated = stageMetrics.record(ProcessingStage.STATUS_UPDATE, () -> {
+                Deadline.check(ProcessingStage.STATUS_UPDATE);
+                return paymentService.updatePaymentStatus(pending.getId(), status, pending.getVersion());
+            });
+        }
 
-        PaymentResponseDto updated = paymentService.updatePaymentStatus(pending.getId(), status);
+        if (!publisherProperties.isInline()) {
+            paymentIndex.recordPublished(event.getOrderId(), updated.getId());
+            log.info("Payment settled for order {} with status {}, left to the change stream publisher",
+                    event.getOrderId(), status);
+            return;
+        }
 
         PaymentCreatedEvent paymentEvent = PaymentCreatedEvent.builder()
+                .eventId(eventId)
                 .paymentId(updated.getId())
                 .orderId(event.getOrderId())
                 .userId(event.getUserId())
@@ -92,18 +209,90 @@ public class PaymentProcessingServiceImpl implements PaymentProcessingService {
                 .status(updated.getStatus())
                 .build();
 
+        long publishStart = System.nanoTime();
         try {
             paymentEventProducer.sendPaymentCreatedEvent(paymentEvent);
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, true);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+            stageMetrics.recordEndToEndLag(event.getEventTimestamp(), PaymentStageMetrics.ERROR);
             log.error("Interrupted while sending payment event for paymentId={}", updated.getId(), e);
-            paymentService.updatePaymentStatus(updated.getId(), PaymentStatus.FAILED);
+            markFailed(updated);
             return;
         } catch (ExecutionException e) {
-            paymentService.updatePaymentStatus(updated.getId(), PaymentStatus.FAILED);
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+            stageMetrics.recordEndToEndLag(event.getEventTimestamp(), PaymentStageMetrics.ERROR);
+            markFailed(updated);
             log.error("Failed to send payment event for paymentId={}", updated.getId(), e);
             throw new RuntimeException(e);
+        } catch (DeadlineExceededException e) {
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+            stageMetrics.recordDeadlineExceeded(ProcessingStage.PUBLISH);
+            stageMetrics.recordEndToEndLag(event.getEventTimestamp(), PaymentStageMetrics.ERROR);
+            paymentIndex.recordUnacknowledged(event.getOrderId(), paymentEvent);
+            throw e;
         }
+        paymentIndex.recordPublished(event.getOrderId(), updated.getId());
+        stageMetrics.recordEndToEndLag(event.getEventTimestamp(), status.name().toLowerCase(Locale.ROOT));
         log.info("Payment processed for order {} with status {}", event.getOrderId(), status);
     }
+
+    /**
+     * Sends the event of a payment whose earlier publish timed out again.
+     * <p>
+     * The payment keeps its status whatever happens: the earlier send may
+     * still have been delivered, so it is not compensated to FAILED.
+     * </p>
+     */
+    private void republish(OrderCreatedEvent event, PaymentCreatedEvent paymentEvent) {
+        long publishStart = System.nanoTime();
+        try {
+            paymentEventProducer.sendPaymentCreatedEvent(paymentEvent);
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+            stageMetrics.recordEndToEndLag(event.getEventTimestamp(), PaymentStageMetrics.ERROR);
+            throw new IllegalStateException("Interrupted while resending the payment event for paymentId="
+                    + paymentEvent.getPaymentId(), e);
+        } catch (ExecutionException e) {
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+            stageMetrics.recordEndToEndLag(event.getEventTimestamp(), PaymentStageMetrics.ERROR);
+            log.error("Failed to resend payment event for paymentId={}", paymentEvent.getPaymentId(), e);
+            throw new RuntimeException(e);
+        } catch (DeadlineExceededException e) {
+            stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+            stageMetrics.recordDeadlineExceeded(ProcessingStage.PUBLISH);
+            stageMetrics.recordEndToEndLag(event.getEventTimestamp(), PaymentStageMetrics.ERROR);
+            throw e;
+        }
+        paymentIndex.recordPublished(event.getOrderId(), paymentEvent.getPaymentId());
+        stageMetrics.recordEndToEndLag(event.getEventTimestamp(),
+                paymentEvent.getStatus().name().toLowerCase(Locale.ROOT));
+        log.info("Payment event resent for order {} with status {}", event.getOrderId(), paymentEvent.getStatus());
+    }
+
+    /**
+     * Fails fast, before any subtask is forked, once the message deadline
+     * has passed.
+     */
+    private void checkDeadline(ProcessingStage stage) {
+        try {
+            Deadline.check(stage);
+        } catch (DeadlineExceededException e) {
+            stageMetrics.recordDeadlineExceeded(stage);
+            throw e;
+        }
+    }
+
+    private void markFailed(PaymentResponseDto payment) {
+        if (paymentJournal.isEnabled()) {
+            paymentService.journalPaymentStatus(payment, PaymentStatus.FAILED);
+            // A FAILED payment is final: a retry of the order journals a new one
+            paymentIndex.removeQueued(payment.getOrderId());
+        } else {
+            paymentService.updatePaymentStatus(payment.getId(), PaymentStatus.FAILED, payment.getVersion());
+        }
+    }
 }
@@ -1,21 +1,37 @@
 package com.innowise.service.impl;
 
+import com.innowise.config.BulkProperties;
+import com.innowise.dao.repository.BulkStatusUpdate;
 import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.exception.IllegalStatusTransitionException;
 import com.innowise.exception.PaymentNotFoundException;
 import com.innowise.mapper.PaymentMapper;
+import com.innowise.model.dto.BulkStatusUpdateResponseDto;
 import com.innowise.model.dto.PaymentCreateRequestDto;
 import com.innowise.model.dto.PaymentResponseDto;
 import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.BulkUpdateOutcome;
 import com.innowise.model.enums.PaymentStatus;
 import com.innowise.service.PaymentService;
+import com.innowise.service.journal.PaymentJournal;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementation of {@link PaymentService} that manages payment persistence
@@ -24,7 +40,10 @@ import java.time.LocalDateTime;
  * This service handles CRUD operations for payment entities, including:
  * <ul>
  * <li>Creating new payment records with PENDING status</li>
- * <li>Updating payment status (e.g., SUCCESS, FAILED)</li>
+ * <li>Moving payments along legal status transitions (e.g., PENDING to
+ * SUCCESS) with one conditional update</li>
+ * <li>Bulk status updates in bounded, unordered chunks</li>
+ * <li>Journaling settled payments to the local write-ahead journal</li>
  * </ul>
  * </p>
  * <p>
@@ -40,13 +59,20 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
 
+    private static final String REJECTED_ILLEGAL = "illegal";
+    private static final String REJECTED_CONCURRENT = "concurrent";
+
     private final PaymentRepository paymentRepository;
     private final PaymentMapper paymentMapper;
+    private final PaymentJournal paymentJournal;
+    private final BulkProperties bulkProperties;
 
     private final Counter paymentsCreatedCounter;
     private final Counter paymentsSuccessCounter;
     private final Counter paymentsFailedCounter;
     private final Timer paymentProcessingTimer;
+    private final Timer mongoOperationTimer;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Creates a new payment record with PENDING status.
@@ -68,38 +94,224 @@ public class PaymentServiceImpl implements PaymentService {
             payment.setStatus(PaymentStatus.PENDING);
             payment.setTimestamp(LocalDateTime.now());
 
-            Payment saved = paymentRepository.save(payment);
+            Payment saved = mongoOperationTimer.record(() -> paymentRepository.save(payment));
             paymentsCreatedCounter.increment();
             return paymentMapper.toDto(saved);
         });
     }
 
     /**
-     * Updates the status of an existing payment.
+     * Moves an existing payment to a new status.
      * <p>
-     * This method retrieves the payment by ID, updates its status,
-     * and persists the changes to the database.
+     * The transition is checked and applied by a single {@code findAndModify}
+     * filtered on the statuses that may move to {@code newStatus} and on the
+     * expected version. Only if it does not apply is the payment read again,
+     * to tell a missing payment, a repeated request, an illegal transition
+     * and a concurrent change apart. Rejected transitions are counted in
+     * {@code payment.status.transitions.rejected}, tagged by from/to status
+     * and reason.
      * </p>
      *
-     * @param id        the payment ID
-     * @param newStatus the new payment status to set
+     * @param id              the payment ID
+     * @param newStatus       the new payment status to set
+     * @param expectedVersion the payment version the caller last saw, or {@code null}
      * @return the updated payment as a response DTO
-     * @throws PaymentNotFoundException if no payment exists with the given ID
+     * @throws PaymentNotFoundException          if no payment exists with the given ID
+     * @throws IllegalStatusTransitionException  if the current status cannot move to {@code newStatus}
+     * @throws OptimisticLockingFailureException if the payment changed concurrently
      */
     @Override
     @Transactional
-    public PaymentResponseDto updatePaymentStatus(String id, PaymentStatus newStatus) {
-        Payment payment = paymentRepository.findById(id)
+    public PaymentResponseDto updatePaymentStatus(String id, PaymentStatus newStatus, Long expectedVersion) {
+        Optional<Payment> updated = mongoOperationTimer.record(
+                () -> paymentRepository.transitionStatus(id, newStatus, expectedVersion));
+        if (updated.isPresent()) {
+            countStatus(newStatus);
+            return paymentMapper.toDto(updated.get());
+        }
+
+        Payment current = mongoOperationTimer.record(() -> paymentRepository.findById(id))
                 .orElseThrow(() -> new PaymentNotFoundException());
-        payment.setStatus(newStatus);
-        Payment saved = paymentRepository.save(payment);
+        PaymentStatus status = current.getStatus();
+        if (status == newStatus) {
+            return paymentMapper.toDto(current);
+        }
+        if (status == null || !status.canTransitionTo(newStatus)) {
+            countRejected(status, newStatus, REJECTED_ILLEGAL);
+            throw new IllegalStatusTransitionException(status, newStatus);
+        }
+        countRejected(status, newStatus, REJECTED_CONCURRENT);
+        throw new OptimisticLockingFailureException("Payment " + id + " was modified concurrently (expected version "
+                + expectedVersion + ", found " + current.getVersion() + ")");
+    }
+
+    /**
+     * Creates a payment that is already settled and records it in the local
+     * write-ahead journal.
+     * <p>
+     * The ID is assigned by the caller, as MongoDB would assign it, so the
+     * payment event can be published before the journal is drained.
+     * </p>
+     *
+     * @param id     the payment ID
+     * @param dto    the payment creation request containing order and user details
+     * @param status the settled payment status
+     * @return the journaled payment as a response DTO
+     * @throws jakarta.validation.ConstraintViolationException if validation fails
+     */
+    @Override
+    public PaymentResponseDto journalPayment(String id, PaymentCreateRequestDto dto, PaymentStatus status) {
+        Payment payment = paymentMapper.toEntity(dto);
+        payment.setId(id);
+        payment.setStatus(status);
+        payment.setTimestamp(LocalDateTime.now());
+
+        paymentJournal.append(payment);
+        paymentsCreatedCounter.increment();
+        countStatus(status);
+        return paymentMapper.toDto(payment);
+    }
+
+    /**
+     * Journals the whole payment again with the new status; the later record
+     * replaces the earlier one when the journal is drained.
+     *
+     * @param payment   the journaled payment
+     * @param newStatus the new payment status to set
+     * @return the updated payment as a response DTO
+     */
+    @Override
+    public PaymentResponseDto journalPaymentStatus(PaymentResponseDto payment, PaymentStatus newStatus) {
+        Payment updated = Payment.builder()
+                .id(payment.getId())
+                .orderId(payment.getOrderId())
+                .userId(payment.getUserId())
+                .status(newStatus)
+                .timestamp(payment.getTimestamp())
+                .paymentAmount(payment.getPaymentAmount())
+                .build();
+
+        paymentJournal.append(updated);
+        countStatus(newStatus);
+        return paymentMapper.toDto(updated);
+    }
 
-        if (newStatus == PaymentStatus.SUCCESS) {
+    /**
+     * Stores a batch of settled payments with one bulk insert, or one
+     * journal group commit when the journal is enabled.
+     *
+     * @param payments settled payments without an ID
+     */
+    @Override
+    public void persistSettledPayments(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Payment payment : payments) {
+            payment.setId(new ObjectId().toHexString());
+            payment.setTimestamp(now);
+        }
+        if (paymentJournal.isEnabled()) {
+            paymentJournal.appendAll(payments);
+        } else {
+            mongoOperationTimer.record(() -> paymentRepository.insert(payments));
+        }
+        paymentsCreatedCounter.increment(payments.size());
+        for (Payment payment : payments) {
+            countStatus(payment.getStatus());
+        }
+    }
+
+    private void countRejected(PaymentStatus from, PaymentStatus to, String reason) {
+        Counter.builder("payment.status.transitions.rejected")
+                .description("Status transitions rejected by the state machine guard")
+                .tag("from", from == null ? "none" : from.name().toLowerCase(Locale.ROOT))
+                .tag("to", to.name().toLowerCase(Locale.ROOT))
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void countStatus(PaymentStatus status) {
+        if (status == PaymentStatus.SUCCESS) {
             paymentsSuccessCounter.increment();
-        } else if (newStatus == PaymentStatus.FAILED) {
+        } else if (status == PaymentStatus.FAILED) {
             paymentsFailedCounter.increment();
         }
+    }
+
+    /**
+     * Updates the status of many payments at once.
+     * <p>
+     * The requested updates are split into chunks of at most
+     * {@link BulkProperties#getChunkSize()} entries, each applied as one unordered
+     * bulk write. Success/failure counters are incremented once per request
+     * with the number of payments actually moved to that status; updates the
+     * state machine does not allow are rejected and counted in
+     * {@code payment.status.transitions.rejected}.
+     * </p>
+     *
+     * @param statuses payment IDs mapped to their new status
+     * @return aggregate counts and the outcome for every requested payment ID
+     */
+    @Override
+    public BulkStatusUpdateResponseDto updatePaymentStatuses(Map<String, PaymentStatus> statuses) {
+        Map<String, BulkUpdateOutcome> outcomes = new LinkedHashMap<>(statuses.size() * 2);
+        Map<String, PaymentStatus> rejectedFrom = new HashMap<>();
+        List<Map.Entry<String, PaymentStatus>> entries = new ArrayList<>(statuses.entrySet());
+        int chunkSize = Math.max(1, bulkProperties.getChunkSize());
+
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            List<Map.Entry<String, PaymentStatus>> slice = entries.subList(from, Math.min(from + chunkSize, entries.size()));
+            Map<String, PaymentStatus> chunk = new LinkedHashMap<>(slice.size() * 2);
+            for (Map.Entry<String, PaymentStatus> entry : slice) {
+                chunk.put(entry.getKey(), entry.getValue());
+            }
+            BulkStatusUpdate update = mongoOperationTimer.record(() -> paymentRepository.updateStatuses(chunk));
+            outcomes.putAll(update.outcomes());
+            rejectedFrom.putAll(update.rejectedFrom());
+        }
+
+        int updated = 0;
+        int notFound = 0;
+        int rejected = 0;
+        int failed = 0;
+        long succeededPayments = 0;
+        long failedPayments = 0;
+        for (Map.Entry<String, BulkUpdateOutcome> entry : outcomes.entrySet()) {
+            switch (entry.getValue()) {
+                case UPDATED -> {
+                    updated++;
+                    PaymentStatus status = statuses.get(entry.getKey());
+                    if (status == PaymentStatus.SUCCESS) {
+                        succeededPayments++;
+                    } else if (status == PaymentStatus.FAILED) {
+                        failedPayments++;
+                    }
+                }
+                case NOT_FOUND -> notFound++;
+                case REJECTED -> {
+                    rejected++;
+                    countRejected(rejectedFrom.get(entry.getKey()), statuses.get(entry.getKey()), REJECTED_ILLEGAL);
+                }
+                case FAILED -> failed++;
+            }
+        }
+        if (succeededPayments > 0) {
+            paymentsSuccessCounter.increment(succeededPayments);
+        }
+        if (failedPayments > 0) {
+            paymentsFailedCounter.increment(failedPayments);
+        }
 
-        return paymentMapper.toDto(saved);
+        return BulkStatusUpdateResponseDto.builder()
+                .requested(statuses.size())
+                .updated(updated)
+                .notFound(notFound)
+                .rejected(rejected)
+                .failed(failed)
+                .outcomes(outcomes)
+                .build();
     }
 }
@@ -1,13 +1,19 @@
 package com.innowise.service.impl;
 
 import com.innowise.config.RandomApiProperties;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
 import com.innowise.service.RandomNumberClient;
+import com.innowise.service.concurrent.Deadline;
+import com.innowise.service.hedge.HedgingPolicy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.Optional;
 
 /**
  * Implementation of {@link RandomNumberClient} that fetches random numbers from
@@ -29,6 +35,7 @@ public class RandomNumberClientImpl implements RandomNumberClient {
 
     private final WebClient randomApiWebClient;
     private final RandomApiProperties randomApiProperties;
+    private final HedgingPolicy hedgingPolicy;
 
     /**
      * Generates a random number by calling an external random number API.
@@ -37,18 +44,27 @@ public class RandomNumberClientImpl implements RandomNumberClient {
      * parameters
      * for min, max, and count values. It implements exponential backoff retry logic
      * (3 attempts with 2-second initial delay) to handle transient failures.
+     * A request that is slower than usual is hedged by a second request, see
+     * {@link HedgingPolicy}.
      * </p>
      * <p>
      * If the API call fails or returns no data, the method returns the configured
      * minimum value as a fallback.
      * </p>
+     * <p>
+     * When a {@link Deadline} is attached, the call including its retries is
+     * limited to the remaining time; running out of it raises a
+     * {@link DeadlineExceededException} instead of falling back.
+     * </p>
      *
      * @return a random integer between the configured min and max values,
      *         or the minimum value if the API call fails
+     * @throws DeadlineExceededException if the message deadline passes
      */
     @Override
     public int generateRandomNumber() {
-        Integer[] numbers = randomApiWebClient.get()
+        Optional<Deadline> deadline = Deadline.current();
+        Mono<Integer[]> request = hedgingPolicy.hedge(randomApiWebClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path(randomApiProperties.getPath())
                         .queryParam("min", randomApiProperties.getMin())
@@ -56,9 +72,15 @@ public class RandomNumberClientImpl implements RandomNumberClient {
                         .queryParam("count", randomApiProperties.getCount())
                         .build())
                 .retrieve()
-                .bodyToMono(Integer[].class)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2)))
-                .onErrorReturn(new Integer[0])
+                .bodyToMono(Integer[].class))
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2)));
+        if (deadline.isPresent()) {
+            Duration remaining = deadline.get().remaining(ProcessingStage.RANDOM_FETCH);
+            request = request.timeout(remaining,
+                    Mono.error(() -> deadline.get().exceeded(ProcessingStage.RANDOM_FETCH)));
+        }
+        Integer[] numbers = request
+                .onErrorResume(e -> !(e instanceof DeadlineExceededException), e -> Mono.just(new Integer[0]))
                 .block();
 
         return (numbers != null && numbers.length > 0) ? numbers[0] : randomApiProperties.getMin();
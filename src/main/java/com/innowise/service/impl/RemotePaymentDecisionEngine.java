@@ -0,0 +1,24 @@
+package com.innowise.service.impl;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.RandomNumberClient;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link PaymentDecisionEngine} drawing the number from the external random
+ * number API.
+ *
+ * @see RandomNumberClient
+ */
+@RequiredArgsConstructor
+public class RemotePaymentDecisionEngine implements PaymentDecisionEngine {
+
+    private final RandomNumberClient randomNumberClient;
+
+    @Override
+    public PaymentStatus decide(OrderCreatedEvent event) {
+        return PaymentDecisionEngine.fromNumber(randomNumberClient.generateRandomNumber());
+    }
+}
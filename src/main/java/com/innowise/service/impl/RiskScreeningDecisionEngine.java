@@ -0,0 +1,27 @@
+package com.innowise.service.impl;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.risk.RiskEngine;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link PaymentDecisionEngine} that fails payments rejected by the
+ * {@link RiskEngine} and asks the wrapped engine otherwise. Rejected orders
+ * never reach the wrapped engine, so they cost no random API call.
+ */
+@RequiredArgsConstructor
+public class RiskScreeningDecisionEngine implements PaymentDecisionEngine {
+
+    private final RiskEngine riskEngine;
+    private final PaymentDecisionEngine delegate;
+
+    @Override
+    public PaymentStatus decide(OrderCreatedEvent event) {
+        if (riskEngine.rejects(event)) {
+            return PaymentStatus.FAILED;
+        }
+        return delegate.decide(event);
+    }
+}
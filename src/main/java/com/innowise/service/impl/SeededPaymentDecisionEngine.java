@@ -0,0 +1,37 @@
+package com.innowise.service.impl;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.PaymentDecisionEngine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic {@link PaymentDecisionEngine} for reproducible load tests.
+ * <p>
+ * The number is drawn from a {@link SplittableRandom} seeded with the
+ * configured seed and the order ID, so an order always gets the same outcome
+ * regardless of partitioning, concurrency or arrival order.
+ * </p>
+ */
+public class SeededPaymentDecisionEngine implements PaymentDecisionEngine {
+
+    private final long seed;
+    private final int min;
+    private final int max;
+
+    public SeededPaymentDecisionEngine(long seed, int min, int max) {
+        if (max < min) {
+            throw new IllegalArgumentException("random-api.max must not be below random-api.min");
+        }
+        this.seed = seed;
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public PaymentStatus decide(OrderCreatedEvent event) {
+        long orderId = event.getOrderId() == null ? 0L : event.getOrderId();
+        return PaymentDecisionEngine.fromNumber(new SplittableRandom(seed ^ orderId).nextInt(min, max + 1));
+    }
+}
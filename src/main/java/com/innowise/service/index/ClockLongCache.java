@@ -0,0 +1,153 @@
+package com.innowise.service.index;
+
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe, bounded map from primitive {@code long} keys to references
+ * with CLOCK eviction.
+ * <p>
+ * The key space is striped over independently locked
+ * {@link LongHashMap#withClockEviction(int) clock-evicting maps}, chosen by
+ * the high bits of the spread key, so threads working on different keys
+ * rarely contend and no key is ever boxed. Each segment evicts on its own
+ * once it holds its share of {@code maxSize} entries, so eviction order is
+ * per segment, not global, and with keys spread unevenly the first
+ * evictions happen somewhat before {@code maxSize} entries are held.
+ * </p>
+ *
+ * @param <V> the value type
+ */
+public final class ClockLongCache<V> {
+
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final LongHashMap<V>[] segments;
+    private final int segmentShift;
+    private final int maxSize;
+
+    /**
+     * @param maxSize maximum number of entries, allocated up front
+     */
+    @SuppressWarnings("unchecked")
+    public ClockLongCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(
+                Runtime.getRuntime().availableProcessors() * 4, maxSize / MIN_SEGMENT_SIZE)));
+        int segmentSize = (maxSize + count - 1) / count;
+        this.segments = new LongHashMap[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = LongHashMap.withClockEviction(segmentSize);
+        }
+        this.segmentShift = Long.SIZE - Integer.numberOfTrailingZeros(count);
+        this.maxSize = segmentSize * count;
+    }
+
+    /**
+     * @return the value of the key, or {@code null} if absent
+     */
+    public V get(long key) {
+        LongHashMap<V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * @return the previous value of the key, or {@code null} if absent
+     */
+    public V put(long key, V value) {
+        LongHashMap<V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    /**
+     * @return the current value of the key, or {@code null} if the value was added
+     */
+    public V putIfAbsent(long key, V value) {
+        LongHashMap<V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.putIfAbsent(key, value);
+        }
+    }
+
+    /**
+     * Returns the current value of the key, adding the one computed by the
+     * function if absent; the function runs under the segment lock and must
+     * be short.
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> function) {
+        LongHashMap<V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.computeIfAbsent(key, function);
+        }
+    }
+
+    /**
+     * @return the removed value, or {@code null} if absent
+     */
+    public V remove(long key) {
+        LongHashMap<V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes matching entries one segment at a time.
+     *
+     * @return the number of entries removed
+     */
+    public int removeIf(Predicate<? super V> filter) {
+        int removed = 0;
+        for (LongHashMap<V> segment : segments) {
+            synchronized (segment) {
+                removed += segment.removeIf(filter);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the number of entries, summed over the segments without a
+     * global lock
+     */
+    public int size() {
+        int size = 0;
+        for (LongHashMap<V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of entries evicted to make room
+     */
+    public long evictions() {
+        long evictions = 0;
+        for (LongHashMap<V> segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions();
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * @return the maximum number of entries, {@code maxSize} rounded up to
+     * a multiple of the segment count
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    private LongHashMap<V> segmentFor(long key) {
+        return segments.length == 1 ? segments[0] : segments[(int) (LongHashMap.mix(key) >>> segmentShift)];
+    }
+}
@@ -0,0 +1,318 @@
+package com.innowise.service.index;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to references.
+ * <p>
+ * Keys and values live in two parallel arrays, so there are no per-entry
+ * node objects and no boxed keys: an entry costs 12 bytes of table (8 for
+ * the key, 4 for a compressed reference) divided by the load factor. Keys
+ * are spread with the MurmurHash3 finalizer and collisions are resolved by
+ * linear probing; removal shifts the following entries back instead of
+ * leaving tombstones, so lookups never degrade after many removals. Null
+ * values are not allowed, as {@code null} marks a free slot.
+ * </p>
+ * <p>
+ * A map created with {@link #withClockEviction(int)} never grows: once it
+ * holds {@code maxSize} entries, each insert first evicts one entry chosen
+ * by the CLOCK algorithm, an approximation of LRU. Every hit sets the
+ * entry's reference bit; the clock hand sweeps the table, clearing set bits
+ * and evicting the first entry whose bit is already clear. Entries that are
+ * never read again after being inserted go first.
+ * </p>
+ * <p>
+ * Not thread-safe; see {@link ClockLongCache} for the concurrent variant.
+ * </p>
+ *
+ * @param <V> the value type
+ */
+public final class LongHashMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int maxSize;
+
+    private long[] keys;
+    private Object[] values;
+    private boolean[] referenced;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+    private int hand;
+    private long evictions;
+
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the map holds without resizing
+     */
+    public LongHashMap(int expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    private LongHashMap(int expectedSize, int maxSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        this.maxSize = maxSize;
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @param maxSize maximum number of entries, allocated up front
+     * @return a map that evicts with the CLOCK algorithm instead of growing
+     */
+    public static <V> LongHashMap<V> withClockEviction(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        return new LongHashMap<>(maxSize, maxSize);
+    }
+
+    /**
+     * Spreads the key bits; the low bits pick the slot, the high bits are
+     * free for striping (see {@link ClockLongCache}).
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * @return the value of the key, or {@code null} if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        if (referenced != null) {
+            referenced[slot] = true;
+        }
+        return (V) values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * @return the previous value of the key, or {@code null} if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        int slot = find(key);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insert(key, value);
+        return null;
+    }
+
+    /**
+     * @return the current value of the key, or {@code null} if the value was added
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        int slot = find(key);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        insert(key, value);
+        return null;
+    }
+
+    /**
+     * @return the current value of the key, adding the one computed by the
+     * function if absent
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> function) {
+        V current = get(key);
+        if (current != null) {
+            return current;
+        }
+        V value = Objects.requireNonNull(function.apply(key), "computed value");
+        insert(key, value);
+        return value;
+    }
+
+    /**
+     * @return the removed value, or {@code null} if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * @return the number of entries removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super V> filter) {
+        int removed = 0;
+        for (int slot = 0; slot < values.length; ) {
+            if (values[slot] != null && filter.test((V) values[slot])) {
+                // the next entry of the cluster may have been shifted here
+                removeAt(slot);
+                removed++;
+            } else {
+                slot++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of entries evicted to make room; always 0 unless
+     * created with {@link #withClockEviction(int)}
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        if (referenced != null) {
+            Arrays.fill(referenced, false);
+        }
+        size = 0;
+        hand = 0;
+    }
+
+    private int find(long key) {
+        int slot = (int) mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long key, Object value) {
+        if (maxSize > 0 && size >= maxSize) {
+            evict();
+        } else if (size >= resizeThreshold) {
+            resize();
+        }
+        int slot = (int) mix(key) & mask;
+        while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Empties the slot and shifts back the entries after it that probed past
+     * it, so every entry stays reachable from its home slot.
+     */
+    private void removeAt(int hole) {
+        values[hole] = null;
+        size--;
+        for (int slot = (hole + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            int home = (int) mix(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                values[slot] = null;
+                if (referenced != null) {
+                    referenced[hole] = referenced[slot];
+                    referenced[slot] = false;
+                }
+                hole = slot;
+            }
+        }
+        if (referenced != null) {
+            referenced[hole] = false;
+        }
+    }
+
+    private void evict() {
+        while (true) {
+            int slot = hand;
+            if (values[slot] != null) {
+                if (!referenced[slot]) {
+                    removeAt(slot);
+                    evictions++;
+                    return;
+                }
+                referenced[slot] = false;
+            }
+            hand = (slot + 1) & mask;
+        }
+    }
+
+    private void resize() {
+        if (values.length == MAX_CAPACITY) {
+            throw new IllegalStateException("LongHashMap cannot grow beyond " + MAX_CAPACITY + " slots");
+        }
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(values.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = (int) mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        if (maxSize > 0) {
+            referenced = new boolean[capacity];
+        }
+        mask = capacity - 1;
+        resizeThreshold = (int) Math.min(capacity * 3L / 4, MAX_CAPACITY);
+    }
+
+    /**
+     * @return the smallest power-of-two table that holds the entries at a
+     * load factor of at most 0.75
+     */
+    private static int capacityFor(int entries) {
+        long needed = Math.max(MIN_CAPACITY, (entries * 4L + 2) / 3 + 1);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("LongHashMap cannot hold " + entries + " entries");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
@@ -0,0 +1,167 @@
+package com.innowise.service.index;
+
+import com.innowise.config.IndexProperties;
+import com.innowise.event.PaymentCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process index of the payments published for recent orders, keyed by
+ * the primitive order ID.
+ * <p>
+ * The order service may publish the same order event more than once, and
+ * a failed record is redelivered by the error handler. Processing looks
+ * the order up here first and skips it if a payment was already published,
+ * logging that payment's ID; the index is updated only after the payment
+ * event is acknowledged, so a record that failed half-way is processed
+ * again when it is retried. Inside a transaction, such as the listener's
+ * Kafka transaction with {@code payment.kafka.transactions.enabled}, the
+ * update waits until the transaction commits: an aborted event is never
+ * seen by read_committed consumers, so its redelivered record must not be
+ * skipped.
+ * </p>
+ * <p>
+ * The index lives in memory and is not shared: it only catches duplicates
+ * that reach the same running instance. After a rebalance or a restart,
+ * a redelivered order lands on an instance that has not seen it.
+ * </p>
+ * <p>
+ * An event whose acknowledgement did not arrive within the message deadline
+ * may still be delivered, so it is remembered as unacknowledged: the retry
+ * of the order sends the same event again, with the same event ID, instead
+ * of creating a second payment.
+ * </p>
+ * <p>
+ * Likewise, a payment handed to the journal is remembered as queued until
+ * its event is published: the journal may still commit a record whose
+ * caller gave up waiting at the message deadline, so the retry journals
+ * the same payment, with the same ID and status, instead of a second one.
+ * </p>
+ * <p>
+ * Backed by {@link ClockLongCache}s: lookups do not box the order ID and
+ * the least recently seen orders are evicted beyond
+ * {@code payment.index.max-orders}, so duplicate detection is best effort.
+ * </p>
+ */
+@Component
+public class PaymentIndex {
+
+    private final ClockLongCache<String> paymentsByOrder;
+    private final ClockLongCache<PaymentCreatedEvent> unacknowledgedByOrder;
+    private final ClockLongCache<QueuedPayment> queuedByOrder;
+    private final Counter duplicateCounter;
+
+    public PaymentIndex(IndexProperties properties, MeterRegistry registry) {
+        this.paymentsByOrder = properties.getMaxOrders() > 0 ? new ClockLongCache<>(properties.getMaxOrders()) : null;
+        this.unacknowledgedByOrder = properties.getMaxOrders() > 0
+                ? new ClockLongCache<>(properties.getMaxOrders())
+                : null;
+        this.queuedByOrder = properties.getMaxOrders() > 0 ? new ClockLongCache<>(properties.getMaxOrders()) : null;
+        this.duplicateCounter = Counter.builder("payment.index.duplicates")
+                .description("Order events skipped because a payment was already published for the order")
+                .register(registry);
+        if (paymentsByOrder != null) {
+            Gauge.builder("payment.index.orders", paymentsByOrder, ClockLongCache::size)
+                    .description("Orders remembered by the payment index")
+                    .register(registry);
+            FunctionCounter.builder("payment.index.evictions", paymentsByOrder, ClockLongCache::evictions)
+                    .description("Orders evicted from the payment index to make room")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * @return the ID of the payment published for the order, or {@code null}
+     * if the order is not in the index
+     */
+    public String findPaymentId(long orderId) {
+        return paymentsByOrder == null ? null : paymentsByOrder.get(orderId);
+    }
+
+    /**
+     * Looks the order up and counts a hit as a skipped duplicate.
+     *
+     * @return whether a payment was already published for the order
+     */
+    public boolean isDuplicate(Long orderId) {
+        if (orderId == null || findPaymentId(orderId) == null) {
+            return false;
+        }
+        duplicateCounter.increment();
+        return true;
+    }
+
+    /**
+     * Records that the payment event for the order was published, once the
+     * current transaction, if any, has committed.
+     */
+    public void recordPublished(long orderId, String paymentId) {
+        if (paymentsByOrder == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putPublished(orderId, paymentId);
+                }
+            });
+            return;
+        }
+        putPublished(orderId, paymentId);
+    }
+
+    /**
+     * Records a payment event that was sent but not acknowledged in time.
+     */
+    public void recordUnacknowledged(long orderId, PaymentCreatedEvent event) {
+        if (unacknowledgedByOrder != null) {
+            unacknowledgedByOrder.put(orderId, event);
+        }
+    }
+
+    /**
+     * @return the unacknowledged payment event of the order, or {@code null}
+     * if there is none
+     */
+    public PaymentCreatedEvent findUnacknowledged(Long orderId) {
+        return orderId == null || unacknowledgedByOrder == null ? null : unacknowledgedByOrder.get(orderId);
+    }
+
+    /**
+     * Records a payment about to be handed to the journal.
+     */
+    public void recordQueued(long orderId, QueuedPayment payment) {
+        if (queuedByOrder != null) {
+            queuedByOrder.put(orderId, payment);
+        }
+    }
+
+    /**
+     * Forgets the queued payment of the order, e.g. once it was failed.
+     */
+    public void removeQueued(long orderId) {
+        if (queuedByOrder != null) {
+            queuedByOrder.remove(orderId);
+        }
+    }
+
+    /**
+     * @return the payment queued for the order whose event has not been
+     * published yet, or {@code null} if there is none
+     */
+    public QueuedPayment findQueued(Long orderId) {
+        return orderId == null || queuedByOrder == null ? null : queuedByOrder.get(orderId);
+    }
+
+    private void putPublished(long orderId, String paymentId) {
+        paymentsByOrder.put(orderId, paymentId);
+        unacknowledgedByOrder.remove(orderId);
+        queuedByOrder.remove(orderId);
+    }
+}
@@ -0,0 +1,13 @@
+package com.innowise.service.index;
+
+import com.innowise.model.enums.PaymentStatus;
+
+/**
+ * A settled payment handed to the journal for an order whose event has not
+ * been published yet.
+ *
+ * @param paymentId the ID assigned to the payment
+ * @param status    the decided payment status
+ */
+public record QueuedPayment(String paymentId, PaymentStatus status) {
+}
@@ -0,0 +1,159 @@
+package com.innowise.service.job;
+
+import com.innowise.config.LeasedJobProperties;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.service.kafka.BackpressureController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base for background jobs that one instance at a time runs every
+ * {@code interval} while holding a {@link MongoLease}.
+ * <p>
+ * When enabled, {@link #start()} schedules {@link #runOnce()} with a fixed
+ * delay on a daemon thread named after the job; a run that fails is logged
+ * and retried after the next delay. {@link #stop()} interrupts the current
+ * run, waits up to one interval for it to end and gives the lease up, so
+ * another instance does not have to wait for it to expire.
+ * </p>
+ * <p>
+ * A run calls {@link #tryAcquireLease()} before doing any work and then,
+ * between batches, {@link #deferIfPaused()} to give way to live traffic
+ * while the {@link BackpressureController} has the consumers paused,
+ * {@link #throttle} to stay below {@code maxRate} and {@link #renewLease()}
+ * to stop as soon as the lease is lost.
+ * </p>
+ *
+ * @see LeasedJobProperties
+ */
+@Slf4j
+public abstract class LeasedBackgroundJob implements SmartLifecycle {
+
+    private final String name;
+    private final LeasedJobProperties properties;
+    private final BackpressureController backpressureController;
+    private final MongoLease lease;
+    private final Counter deferredCounter;
+
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    /**
+     * @param name         the lease and thread name
+     * @param metricPrefix prefix of the job's meters, e.g. {@code payment.sweeper}
+     */
+    protected LeasedBackgroundJob(String name,
+                                  String metricPrefix,
+                                  LeasedJobProperties properties,
+                                  MongoTemplate mongoTemplate,
+                                  BackpressureController backpressureController,
+                                  MeterRegistry registry) {
+        this.name = name;
+        this.properties = properties;
+        this.backpressureController = backpressureController;
+        this.lease = new MongoLease(mongoTemplate, name, properties.getOwner(), properties.getLeaseTtl());
+        this.deferredCounter = Counter.builder(metricPrefix + ".deferred")
+                .description("Runs stopped early because the consumers were paused by backpressure")
+                .register(registry);
+    }
+
+    /**
+     * Does one run of the job; called every interval while enabled.
+     */
+    protected abstract void runOnce();
+
+    @Override
+    public void start() {
+        running = true;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long intervalMillis = properties.getInterval().toMillis();
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(name).daemon().factory());
+        executor.scheduleWithFixedDelay(this::run, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            lease.release();
+        } catch (RuntimeException e) {
+            log.warn("Could not release the {} lease; it expires in {}", name, properties.getLeaseTtl(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return whether this instance holds the lease and may start a run
+     */
+    protected boolean tryAcquireLease() {
+        return lease.tryAcquire();
+    }
+
+    /**
+     * Renews the lease between batches.
+     *
+     * @return whether the run may go on; {@code false} once the lease is lost
+     */
+    protected boolean renewLease() {
+        if (lease.tryAcquire()) {
+            return true;
+        }
+        log.warn("Lost the {} lease, stopping the run", name);
+        return false;
+    }
+
+    /**
+     * @return whether the run should stop because the consumers are paused
+     * by backpressure
+     */
+    protected boolean deferIfPaused() {
+        if (!backpressureController.isPaused()) {
+            return false;
+        }
+        deferredCounter.increment();
+        log.info("Consumers are paused by backpressure, deferring the rest of the {} run", name);
+        return true;
+    }
+
+    /**
+     * Sleeps for whatever is left of the time {@code count} items take at
+     * {@code maxRate}.
+     */
+    protected void throttle(int count, long startedNanos) throws InterruptedException {
+        long budgetNanos = TimeUnit.SECONDS.toNanos(count) / Math.max(1, properties.getMaxRate());
+        long remainingNanos = budgetNanos - (System.nanoTime() - startedNanos);
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+
+    private void run() {
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            log.warn("The {} run failed, retrying in {}", name, properties.getInterval(), e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.innowise.service.journal;
+
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary encoding of a {@link Payment} as a journal record payload.
+ * <p>
+ * Layout: a version byte, a presence bit set for the nullable fields, the
+ * id as a length-prefixed UTF-8 string, then order ID, user ID, status
+ * ordinal, timestamp (UTC epoch second and nanos) and amount (scale and
+ * unscaled two's-complement bytes). Absent fields are skipped.
+ * </p>
+ */
+final class JournalCodec {
+
+    static final byte VERSION = 1;
+
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private static final int ORDER_ID = 1;
+    private static final int USER_ID = 1 << 1;
+    private static final int STATUS = 1 << 2;
+    private static final int TIMESTAMP = 1 << 3;
+    private static final int AMOUNT = 1 << 4;
+
+    private JournalCodec() {
+    }
+
+    static byte[] encode(Payment payment) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(presence(payment));
+            byte[] id = payment.getId().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(id.length);
+            out.write(id);
+            if (payment.getOrderId() != null) {
+                out.writeLong(payment.getOrderId());
+            }
+            if (payment.getUserId() != null) {
+                out.writeLong(payment.getUserId());
+            }
+            if (payment.getStatus() != null) {
+                out.writeByte(payment.getStatus().ordinal());
+            }
+            if (payment.getTimestamp() != null) {
+                out.writeLong(payment.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(payment.getTimestamp().getNano());
+            }
+            if (payment.getPaymentAmount() != null) {
+                byte[] unscaled = payment.getPaymentAmount().unscaledValue().toByteArray();
+                out.writeInt(payment.getPaymentAmount().scale());
+                out.writeShort(unscaled.length);
+                out.write(unscaled);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Payment decode(ByteBuffer in) {
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported journal record version " + version);
+        }
+        int presence = in.get();
+        byte[] id = new byte[in.getShort()];
+        in.get(id);
+
+        Payment payment = new Payment();
+        payment.setId(new String(id, StandardCharsets.UTF_8));
+        if ((presence & ORDER_ID) != 0) {
+            payment.setOrderId(in.getLong());
+        }
+        if ((presence & USER_ID) != 0) {
+            payment.setUserId(in.getLong());
+        }
+        if ((presence & STATUS) != 0) {
+            payment.setStatus(STATUSES[in.get()]);
+        }
+        if ((presence & TIMESTAMP) != 0) {
+            long epochSecond = in.getLong();
+            payment.setTimestamp(LocalDateTime.ofEpochSecond(epochSecond, in.getInt(), ZoneOffset.UTC));
+        }
+        if ((presence & AMOUNT) != 0) {
+            int scale = in.getInt();
+            byte[] unscaled = new byte[in.getShort()];
+            in.get(unscaled);
+            payment.setPaymentAmount(new BigDecimal(new BigInteger(unscaled), scale));
+        }
+        return payment;
+    }
+
+    private static int presence(Payment payment) {
+        int presence = 0;
+        if (payment.getOrderId() != null) {
+            presence |= ORDER_ID;
+        }
+        if (payment.getUserId() != null) {
+            presence |= USER_ID;
+        }
+        if (payment.getStatus() != null) {
+            presence |= STATUS;
+        }
+        if (payment.getTimestamp() != null) {
+            presence |= TIMESTAMP;
+        }
+        if (payment.getPaymentAmount() != null) {
+            presence |= AMOUNT;
+        }
+        return presence;
+    }
+}
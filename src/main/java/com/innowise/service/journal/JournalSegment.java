@@ -0,0 +1,231 @@
+package com.innowise.service.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped, append-only journal file.
+ * <p>
+ * A segment starts with a 12-byte header (magic, format version and drain
+ * position) followed by records framed as
+ * {@code [int length][int CRC32C][payload]}. Files are
+ * preallocated and zero-filled, so a zero length marks the end; a record
+ * whose checksum does not match was torn by a crash and ends the segment
+ * as well.
+ * </p>
+ * <p>
+ * The writer thread appends and commits; the drainer reads committed records
+ * concurrently and tracks how far they have reached MongoDB. Positions are
+ * only published through the volatile {@code committedPosition} after the
+ * mapped pages have been forced to disk. The drain position is forced into
+ * the header as well, so a recovered segment resumes after the records that
+ * already reached MongoDB instead of replaying them.
+ * </p>
+ */
+final class JournalSegment {
+
+    static final int HEADER_SIZE = 12;
+    static final int RECORD_OVERHEAD = 8;
+
+    private static final int MAGIC = 0x504A524E;
+    private static final int FORMAT_VERSION = 2;
+    private static final int DRAINED_OFFSET = 8;
+    private static final String SUFFIX = ".journal";
+
+    private final long sequence;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+
+    private int writePosition;
+    private volatile int committedPosition;
+    private volatile int drainedPosition;
+    private volatile boolean sealed;
+
+    private JournalSegment(long sequence, Path file, MappedByteBuffer buffer, int committedPosition,
+                           int drainedPosition) {
+        this.sequence = sequence;
+        this.file = file;
+        this.buffer = buffer;
+        this.writePosition = committedPosition;
+        this.committedPosition = committedPosition;
+        this.drainedPosition = drainedPosition;
+    }
+
+    /**
+     * Creates and maps a new, empty segment file.
+     */
+    static JournalSegment create(Path directory, long sequence, int size) throws IOException {
+        Path file = directory.resolve(fileName(sequence));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(DRAINED_OFFSET, HEADER_SIZE);
+            buffer.force();
+            return new JournalSegment(sequence, file, buffer, HEADER_SIZE, HEADER_SIZE);
+        }
+    }
+
+    /**
+     * Maps an existing segment left by a previous run; it is sealed, ends
+     * after its last intact record and resumes draining at the stored drain
+     * position.
+     *
+     * @throws IllegalStateException if the file is not a journal segment
+     */
+    static JournalSegment recover(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IllegalStateException("Not a payment journal segment: " + file);
+            }
+            int committed = scan(buffer);
+            int drained = buffer.getInt(DRAINED_OFFSET);
+            if (drained < HEADER_SIZE || drained > committed) {
+                // Past a torn record: replay the whole segment, upserts are idempotent
+                drained = HEADER_SIZE;
+            }
+            JournalSegment segment = new JournalSegment(sequence(file), file, buffer, committed, drained);
+            segment.seal();
+            return segment;
+        }
+    }
+
+    static boolean isSegment(Path file) {
+        return file.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static String fileName(long sequence) {
+        return String.format("%020d%s", sequence, SUFFIX);
+    }
+
+    private static int scan(ByteBuffer buffer) {
+        int position = HEADER_SIZE;
+        while (position + RECORD_OVERHEAD <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - RECORD_OVERHEAD
+                    || buffer.getInt(position + 4) != checksum(buffer, position + RECORD_OVERHEAD, length)) {
+                break;
+            }
+            position += RECORD_OVERHEAD + length;
+        }
+        return position;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    boolean hasRoom(int payloadLength) {
+        return writePosition + RECORD_OVERHEAD + payloadLength <= buffer.capacity();
+    }
+
+    /**
+     * Writes a record after the last one; it is not durable until {@link #commit()}.
+     */
+    void append(byte[] payload) {
+        int position = writePosition;
+        buffer.put(position + RECORD_OVERHEAD, payload);
+        buffer.putInt(position + 4, checksum(buffer, position + RECORD_OVERHEAD, payload.length));
+        buffer.putInt(position, payload.length);
+        writePosition = position + RECORD_OVERHEAD + payload.length;
+    }
+
+    /**
+     * Forces the appended records to disk and makes them visible to the drainer.
+     */
+    void commit() {
+        if (writePosition != committedPosition) {
+            buffer.force(committedPosition, writePosition - committedPosition);
+            committedPosition = writePosition;
+        }
+    }
+
+    /**
+     * Discards appended records that were not committed, so a later commit
+     * cannot make them durable and recovery cannot replay them.
+     */
+    void rollback() {
+        int committed = committedPosition;
+        if (writePosition != committed) {
+            buffer.put(committed, new byte[writePosition - committed]);
+            buffer.force(committed, writePosition - committed);
+            writePosition = committed;
+        }
+    }
+
+    /**
+     * Reads committed records that have not been drained yet.
+     *
+     * @param maxRecords maximum number of records to read
+     * @param payloads   receives the record payloads
+     * @return the position after the last record read
+     */
+    int read(int maxRecords, List<ByteBuffer> payloads) {
+        int limit = committedPosition;
+        int position = drainedPosition;
+        while (position < limit && payloads.size() < maxRecords) {
+            int length = buffer.getInt(position);
+            payloads.add(buffer.slice(position + RECORD_OVERHEAD, length));
+            position += RECORD_OVERHEAD + length;
+        }
+        return position;
+    }
+
+    /**
+     * Records that the records before {@code position} reached MongoDB and
+     * forces the position to disk.
+     */
+    void markDrained(int position) {
+        buffer.putInt(DRAINED_OFFSET, position);
+        buffer.force(DRAINED_OFFSET, Integer.BYTES);
+        drainedPosition = position;
+    }
+
+    /**
+     * @return committed bytes not yet drained
+     */
+    long pendingBytes() {
+        return committedPosition - drainedPosition;
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    /**
+     * @return whether no more records will be appended and all have been drained
+     */
+    boolean isDrained() {
+        return sealed && drainedPosition == committedPosition;
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+}
@@ -0,0 +1,442 @@
+package com.innowise.service.journal;
+
+import com.innowise.config.JournalProperties;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.ProcessingStage;
+import com.innowise.service.concurrent.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Local write-ahead journal for settled payments.
+ * <p>
+ * When {@code payment.journal.enabled} is set, the processing pipeline
+ * appends each settled payment here instead of inserting and updating it in
+ * MongoDB. Appends are queued to a single writer thread that writes them
+ * sequentially into memory-mapped {@link JournalSegment}s and makes a whole
+ * batch durable with one fsync (group commit); {@link #append} returns once
+ * its batch is on disk, so the Kafka offset may advance.
+ * </p>
+ * <p>
+ * A scheduled drainer copies committed records into MongoDB with bulk
+ * upserts keyed by payment ID and deletes segments once fully drained.
+ * After every bulk write the drain position is made durable in the segment
+ * header, so a crash only repeats the last bulk write, and records drained
+ * earlier cannot overwrite later updates of their payments. On start, the
+ * undrained records left by the previous run are replayed into MongoDB
+ * before the Kafka listeners start;
+ * if MongoDB is unreachable the start fails and the segments are kept.
+ * </p>
+ * <p>
+ * Payments reach MongoDB asynchronously: REST reads may not see a journaled
+ * payment until the next drain. The journal directory must be on a
+ * persistent volume that is not shared between instances.
+ * </p>
+ */
+@Slf4j
+@Component
+public class PaymentJournal implements SmartLifecycle {
+
+    /**
+     * Starts before JIT warm-up and the listener containers, and stops after them.
+     */
+    public static final int PHASE = AbstractMessageListenerContainer.DEFAULT_PHASE - 200;
+
+    private static final long WRITER_POLL_MILLIS = 100;
+
+    private final JournalProperties properties;
+    private final PaymentRepository paymentRepository;
+    private final Timer appendTimer;
+    private final DistributionSummary groupCommitSize;
+    private final Counter drainedCounter;
+    private final Counter drainFailureCounter;
+
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Deque<JournalSegment> segments = new ConcurrentLinkedDeque<>();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private JournalSegment active;
+    private Thread writer;
+    private volatile boolean open;
+    private volatile boolean running;
+
+    public PaymentJournal(JournalProperties properties, PaymentRepository paymentRepository, MeterRegistry registry) {
+        this.properties = properties;
+        this.paymentRepository = paymentRepository;
+        this.appendTimer = Timer.builder("payment.journal.append")
+                .description("Time from queueing a journal append until its group commit is on disk")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.groupCommitSize = DistributionSummary.builder("payment.journal.group.commit.size")
+                .description("Payments made durable by one fsync")
+                .register(registry);
+        this.drainedCounter = Counter.builder("payment.journal.drained")
+                .description("Journaled payments written to MongoDB")
+                .register(registry);
+        this.drainFailureCounter = Counter.builder("payment.journal.drain.failures")
+                .description("Drainer runs that failed and will be retried")
+                .register(registry);
+        Gauge.builder("payment.journal.pending.bytes", this, PaymentJournal::pendingBytes)
+                .description("Journaled bytes not yet written to MongoDB")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled()) {
+            try {
+                open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open the payment journal in "
+                        + properties.getDirectory(), e);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            writer.join(WRITER_POLL_MILLIS * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingAppend pending;
+        while ((pending = queue.poll()) != null) {
+            pending.done().completeExceptionally(new IllegalStateException("Payment journal is closed"));
+        }
+        active.seal();
+        try {
+            drainAll();
+        } catch (RuntimeException e) {
+            log.warn("Could not drain the payment journal on shutdown; it is replayed on the next start", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * @return whether payments are journaled instead of written to MongoDB directly
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Appends a payment and waits until it is durable on disk.
+     * <p>
+     * A later append for the same payment ID supersedes the earlier one when
+     * drained. With a {@link Deadline} attached, the wait is limited to the
+     * remaining time.
+     * </p>
+     *
+     * @param payment the payment, with its ID assigned
+     * @throws IllegalStateException                             if the journal is not open or
+     *                                                           the write failed
+     * @throws com.innowise.exception.DeadlineExceededException if the deadline passes first
+     */
+    public void append(Payment payment) {
+        appendAll(List.of(payment));
+    }
+
+    /**
+     * Appends several payments and waits until all of them are durable on
+     * disk; they are queued together, so they usually share one group commit.
+     *
+     * @param payments the payments, with their IDs assigned
+     * @throws IllegalStateException                             if the journal is not open or
+     *                                                           a write failed
+     * @throws com.innowise.exception.DeadlineExceededException if the deadline passes first
+     * @see #append(Payment)
+     */
+    public void appendAll(List<Payment> payments) {
+        if (!open) {
+            throw new IllegalStateException("Payment journal is not open");
+        }
+        List<PendingAppend> pending = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            byte[] payload = JournalCodec.encode(payment);
+            if (payload.length > maxPayloadLength()) {
+                throw new IllegalArgumentException("Journal record of " + payload.length
+                        + " bytes exceeds the segment size");
+            }
+            pending.add(new PendingAppend(payload, new CompletableFuture<>()));
+        }
+        Optional<Deadline> deadline = Deadline.current();
+        long start = System.nanoTime();
+        queue.addAll(pending);
+        if (!open && queue.removeAll(pending)) {
+            throw new IllegalStateException("Payment journal is not open");
+        }
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                await(pending.get(i), deadline, payments.get(i));
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            for (int i = 0; i < pending.size(); i++) {
+                appendTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static void await(PendingAppend pending, Optional<Deadline> deadline, Payment payment) {
+        try {
+            if (deadline.isPresent()) {
+                pending.done().get(deadline.get().remaining(ProcessingStage.JOURNAL).toNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                pending.done().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Journal append failed for paymentId=" + payment.getId(), e.getCause());
+        } catch (TimeoutException e) {
+            throw deadline.orElseThrow().exceeded(ProcessingStage.JOURNAL);
+        }
+    }
+
+    /**
+     * Copies committed records into MongoDB; failures are retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "#{@journalProperties.drainInterval.toMillis()}")
+    public void drain() {
+        if (!open) {
+            return;
+        }
+        try {
+            drainAll();
+        } catch (RuntimeException e) {
+            drainFailureCounter.increment();
+            log.warn("Failed to drain the payment journal, retrying in {}", properties.getDrainInterval(), e);
+        }
+    }
+
+    /**
+     * @return committed bytes not yet written to MongoDB
+     */
+    public long pendingBytes() {
+        long pending = 0;
+        for (JournalSegment segment : segments) {
+            pending += segment.pendingBytes();
+        }
+        return pending;
+    }
+
+    void open() throws IOException {
+        Path directory = properties.getDirectory();
+        Files.createDirectories(directory);
+
+        long nextSequence = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> existing = files.filter(JournalSegment::isSegment)
+                    .sorted()
+                    .toList();
+            for (Path file : existing) {
+                JournalSegment segment = JournalSegment.recover(file);
+                segments.addLast(segment);
+                nextSequence = segment.sequence() + 1;
+            }
+        }
+        if (!segments.isEmpty()) {
+            int recovered = segments.size();
+            long bytes = pendingBytes();
+            int replayed = drainAll();
+            log.info("Replayed {} journaled payments ({} bytes) from {} segments into MongoDB",
+                    replayed, bytes, recovered);
+        }
+
+        active = JournalSegment.create(directory, nextSequence, (int) properties.getSegmentSize().toBytes());
+        segments.addLast(active);
+        open = true;
+        writer = Thread.ofPlatform()
+                .name("payment-journal-writer")
+                .daemon()
+                .start(this::writeLoop);
+    }
+
+    /**
+     * Drains until no committed record is left.
+     *
+     * @return the number of records written to MongoDB
+     */
+    int drainAll() {
+        drainLock.lock();
+        try {
+            int total = 0;
+            int drained;
+            while ((drained = drainChunk()) > 0) {
+                total += drained;
+            }
+            return total;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private int drainChunk() {
+        Iterator<JournalSegment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            JournalSegment segment = iterator.next();
+            List<ByteBuffer> payloads = new ArrayList<>();
+            int end = segment.read(Math.max(1, properties.getDrainBatchSize()), payloads);
+            if (!payloads.isEmpty()) {
+                List<Payment> payments = new ArrayList<>(payloads.size());
+                for (ByteBuffer payload : payloads) {
+                    payments.add(JournalCodec.decode(payload));
+                }
+                paymentRepository.upsertAll(payments);
+                segment.markDrained(end);
+                drainedCounter.increment(payments.size());
+                return payments.size();
+            }
+            if (!segment.isDrained()) {
+                return 0;
+            }
+            iterator.remove();
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("Failed to delete drained journal segment {}", segment, e);
+            }
+        }
+        return 0;
+    }
+
+    private void writeLoop() {
+        int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        while (open) {
+            try {
+                PendingAppend first = queue.poll(WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, maxBatchSize);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.done().completeExceptionally(e));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds what has queued up meanwhile, then waits up to the group commit
+     * window for more.
+     */
+    private void collect(List<PendingAppend> batch, int maxBatchSize) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long windowEnd = System.nanoTime() + properties.getGroupCommitWindow().toNanos();
+        while (batch.size() < maxBatchSize) {
+            long remaining = windowEnd - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingAppend next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void write(List<PendingAppend> batch) {
+        int durable = 0;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                byte[] payload = batch.get(i).payload();
+                if (!active.hasRoom(payload.length)) {
+                    roll();
+                    complete(batch, durable, i);
+                    durable = i;
+                }
+                active.append(payload);
+            }
+            active.commit();
+            complete(batch, durable, batch.size());
+            groupCommitSize.record(batch.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("Journal write failed for {} payments", batch.size() - durable, e);
+            try {
+                active.rollback();
+            } catch (RuntimeException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            for (int i = durable; i < batch.size(); i++) {
+                batch.get(i).done().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        active.commit();
+        JournalSegment next = JournalSegment.create(properties.getDirectory(), active.sequence() + 1,
+                (int) properties.getSegmentSize().toBytes());
+        active.seal();
+        segments.addLast(next);
+        active = next;
+    }
+
+    private static void complete(List<PendingAppend> batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            batch.get(i).done().complete(null);
+        }
+    }
+
+    private int maxPayloadLength() {
+        return (int) properties.getSegmentSize().toBytes() - JournalSegment.HEADER_SIZE
+                - JournalSegment.RECORD_OVERHEAD;
+    }
+
+    private record PendingAppend(byte[] payload, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.innowise.service.kafka;
+
+import com.innowise.config.BackpressureProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pauses Kafka listener containers while downstream dependencies are slow.
+ * <p>
+ * Downstream calls (MongoDB through {@code PaymentServiceImpl}, the random
+ * number API through {@code RandomNumberClientImpl}) report their latency and
+ * in-flight count to this controller. Every check interval the average
+ * latency per stage over the last interval is compared against the configured
+ * thresholds:
+ * <ul>
+ * <li>if any stage is above {@code maxLatency} or in-flight calls exceed
+ * {@code maxInFlight}, all listener containers are paused</li>
+ * <li>containers are resumed only after {@code minPause} has elapsed and all
+ * stages are below {@code resumeLatency} and in-flight calls are at most
+ * {@code resumeInFlight} (hysteresis)</li>
+ * </ul>
+ * A paused container keeps polling (returning no records), so the consumer
+ * stays in the group and no rebalance is triggered by
+ * {@code max.poll.interval.ms} expiry.
+ * </p>
+ * <p>
+ * While paused, hardly any real calls report latency, so each check first
+ * runs the {@link DownstreamProbe} of every stage that had no calls in the
+ * interval and records its latency instead; a failed probe counts as
+ * {@code maxLatency}. A stage without a probe and without calls does not
+ * hold the resume back, so for it only {@code minPause} and the in-flight
+ * watermark apply.
+ * </p>
+ *
+ * @see com.innowise.aspect.BackpressureAspect
+ * @see BackpressureProperties
+ */
+@Slf4j
+@Component
+public class BackpressureController {
+
+    private final KafkaListenerEndpointRegistry listenerEndpointRegistry;
+    private final BackpressureProperties properties;
+    private final List<DownstreamProbe> probes;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, StageWindow> stages = new ConcurrentHashMap<>();
+
+    private final Counter pauseCounter;
+    private final Counter resumeCounter;
+    private final Timer pausedTimer;
+
+    private volatile boolean paused;
+    private volatile long pausedAtNanos;
+
+    public BackpressureController(KafkaListenerEndpointRegistry listenerEndpointRegistry,
+                                  BackpressureProperties properties,
+                                  List<DownstreamProbe> probes,
+                                  MeterRegistry registry) {
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
+        this.properties = properties;
+        this.probes = probes;
+
+        this.pauseCounter = Counter.builder("kafka.consumer.backpressure.pauses")
+                .description("Number of times listener containers were paused due to backpressure")
+                .register(registry);
+        this.resumeCounter = Counter.builder("kafka.consumer.backpressure.resumes")
+                .description("Number of times listener containers were resumed after backpressure")
+                .register(registry);
+        this.pausedTimer = Timer.builder("kafka.consumer.backpressure.paused.duration")
+                .description("Time listener containers spent paused due to backpressure")
+                .register(registry);
+        Gauge.builder("kafka.consumer.backpressure.paused", this, c -> c.paused ? 1 : 0)
+                .description("Whether listener containers are currently paused (1) or not (0)")
+                .register(registry);
+        Gauge.builder("kafka.consumer.backpressure.in.flight", inFlight, AtomicInteger::get)
+                .description("Number of downstream calls currently in flight")
+                .register(registry);
+    }
+
+    /**
+     * Marks the start of a downstream call.
+     */
+    public void callStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a downstream call and records its latency.
+     *
+     * @param stage        the downstream stage (e.g. "mongo", "random-api")
+     * @param elapsedNanos the call duration in nanoseconds
+     */
+    public void callCompleted(String stage, long elapsedNanos) {
+        inFlight.decrementAndGet();
+        stages.computeIfAbsent(stage, s -> new StageWindow()).record(elapsedNanos);
+    }
+
+    /**
+     * Evaluates thresholds and pauses or resumes listener containers.
+     */
+    @Scheduled(fixedDelayString = "#{@backpressureProperties.checkInterval.toMillis()}")
+    public void evaluate() {
+        if (paused && properties.isEnabled()) {
+            probeIdleStages();
+        }
+        long maxAverageNanos = 0;
+        for (StageWindow window : stages.values()) {
+            maxAverageNanos = Math.max(maxAverageNanos, window.drainAverage());
+        }
+        if (!properties.isEnabled()) {
+            if (paused) {
+                resume();
+            }
+            return;
+        }
+
+        int currentInFlight = inFlight.get();
+        if (!paused) {
+            if (maxAverageNanos > properties.getMaxLatency().toNanos()
+                    || currentInFlight > properties.getMaxInFlight()) {
+                log.warn("Downstream overloaded (avg latency {} ms, in-flight {}), pausing consumers",
+                        maxAverageNanos / 1_000_000, currentInFlight);
+                pause();
+            }
+        } else if (System.nanoTime() - pausedAtNanos >= properties.getMinPause().toNanos()
+                && maxAverageNanos <= properties.getResumeLatency().toNanos()
+                && currentInFlight <= properties.getResumeInFlight()) {
+            log.info("Downstream recovered (avg latency {} ms, in-flight {}), resuming consumers",
+                    maxAverageNanos / 1_000_000, currentInFlight);
+            resume();
+        }
+    }
+
+    /**
+     * @return whether listener containers are currently paused by this controller
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    private void probeIdleStages() {
+        for (DownstreamProbe probe : probes) {
+            StageWindow window = stages.computeIfAbsent(probe.stage(), s -> new StageWindow());
+            if (!window.isEmpty()) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                probe.probe();
+                window.record(System.nanoTime() - start);
+            } catch (RuntimeException e) {
+                log.debug("Probe of {} failed while paused", probe.stage(), e);
+                window.record(Math.max(System.nanoTime() - start, properties.getMaxLatency().toNanos()));
+            }
+        }
+    }
+
+    private void pause() {
+        for (MessageListenerContainer container : listenerEndpointRegistry.getListenerContainers()) {
+            container.pause();
+        }
+        pausedAtNanos = System.nanoTime();
+        paused = true;
+        pauseCounter.increment();
+    }
+
+    private void resume() {
+        for (MessageListenerContainer container : listenerEndpointRegistry.getListenerContainers()) {
+            container.resume();
+        }
+        paused = false;
+        pausedTimer.record(System.nanoTime() - pausedAtNanos, TimeUnit.NANOSECONDS);
+        resumeCounter.increment();
+    }
+
+    /**
+     * Latency accumulator for one stage over the current check interval.
+     */
+    private static final class StageWindow {
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        void record(long elapsedNanos) {
+            totalNanos.add(elapsedNanos);
+            count.increment();
+        }
+
+        boolean isEmpty() {
+            return count.sum() == 0;
+        }
+
+        long drainAverage() {
+            long calls = count.sumThenReset();
+            long total = totalNanos.sumThenReset();
+            return calls == 0 ? 0 : total / calls;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.innowise.service.kafka;
+
+import com.innowise.config.ConsumerLagProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsSpec;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Exports consumer lag and throughput as seen by this instance.
+ * <p>
+ * An external lag exporter sees the whole consumer group and samples it on
+ * its own schedule, so its numbers rarely match what a single pod is doing.
+ * This monitor reports, for the partitions currently assigned to the
+ * monitored listener only:
+ * <ul>
+ * <li>{@code kafka.consumer.partition.lag} - end offset minus committed
+ * offset, refreshed through an admin client every refresh interval</li>
+ * <li>{@code kafka.consumer.lag} - the sum over all assigned partitions</li>
+ * <li>{@code kafka.consumer.partition.records.processed} - records handled by
+ * the listener, tagged by outcome; its rate is the processing rate</li>
+ * <li>{@code kafka.consumer.commit.latency.avg} / {@code .max} and
+ * {@code kafka.consumer.last.poll.age} - read from the consumer client
+ * metrics of the listener container</li>
+ * </ul>
+ * The monitor is installed on the listener container factory as a
+ * {@link RecordInterceptor}, which is how processed records are counted.
+ * </p>
+ *
+ * @see ConsumerLagProperties
+ */
+@Slf4j
+@Component
+public class ConsumerLagMonitor implements RecordInterceptor<String, Object>, DisposableBean {
+
+    private static final String COMMIT_LATENCY_AVG = "commit-latency-avg";
+    private static final String COMMIT_LATENCY_MAX = "commit-latency-max";
+    private static final String LAST_POLL_SECONDS_AGO = "last-poll-seconds-ago";
+
+    private final KafkaListenerEndpointRegistry listenerEndpointRegistry;
+    private final ConsumerLagProperties properties;
+    private final MeterRegistry registry;
+    private final Supplier<Admin> adminFactory;
+
+    private final Map<TopicPartition, PartitionLag> partitions = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Counter> processed = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Counter> failed = new ConcurrentHashMap<>();
+    private final Counter refreshFailures;
+
+    private volatile Admin admin;
+    private volatile double commitLatencyAvg = Double.NaN;
+    private volatile double commitLatencyMax = Double.NaN;
+    private volatile double lastPollAge = Double.NaN;
+
+    @Autowired
+    public ConsumerLagMonitor(KafkaAdmin kafkaAdmin,
+                              KafkaListenerEndpointRegistry listenerEndpointRegistry,
+                              ConsumerLagProperties properties,
+                              MeterRegistry registry) {
+        this(() -> AdminClient.create(kafkaAdmin.getConfigurationProperties()),
+                listenerEndpointRegistry, properties, registry);
+    }
+
+    ConsumerLagMonitor(Supplier<Admin> adminFactory,
+                       KafkaListenerEndpointRegistry listenerEndpointRegistry,
+                       ConsumerLagProperties properties,
+                       MeterRegistry registry) {
+        this.adminFactory = adminFactory;
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
+        this.properties = properties;
+        this.registry = registry;
+
+        this.refreshFailures = Counter.builder("kafka.consumer.lag.refresh.failures")
+                .description("Number of failed committed/end offset refreshes")
+                .register(registry);
+        Gauge.builder("kafka.consumer.lag", this, ConsumerLagMonitor::getTotalLag)
+                .description("Total lag over the partitions assigned to this instance")
+                .tag("listener", properties.getListenerId())
+                .register(registry);
+        Gauge.builder("kafka.consumer.commit.latency.avg", this, m -> m.commitLatencyAvg)
+                .description("Average offset commit latency of the listener consumers")
+                .baseUnit("milliseconds")
+                .tag("listener", properties.getListenerId())
+                .register(registry);
+        Gauge.builder("kafka.consumer.commit.latency.max", this, m -> m.commitLatencyMax)
+                .description("Maximum offset commit latency of the listener consumers")
+                .baseUnit("milliseconds")
+                .tag("listener", properties.getListenerId())
+                .register(registry);
+        Gauge.builder("kafka.consumer.last.poll.age", this, m -> m.lastPollAge)
+                .description("Seconds since the least recent poll among the listener consumers")
+                .baseUnit("seconds")
+                .tag("listener", properties.getListenerId())
+                .register(registry);
+    }
+
+    @Override
+    public ConsumerRecord<String, Object> intercept(ConsumerRecord<String, Object> record,
+                                                    Consumer<String, Object> consumer) {
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<String, Object> record, Consumer<String, Object> consumer) {
+        processedCounter(processed, record, "success").increment();
+    }
+
+    @Override
+    public void failure(ConsumerRecord<String, Object> record, Exception exception,
+                        Consumer<String, Object> consumer) {
+        processedCounter(failed, record, "error").increment();
+    }
+
+    /**
+     * Refreshes committed and end offsets of the assigned partitions and
+     * samples the consumer client metrics of the listener container.
+     */
+    @Scheduled(fixedDelayString = "#{@consumerLagProperties.refreshInterval.toMillis()}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        MessageListenerContainer container = listenerEndpointRegistry.getListenerContainer(properties.getListenerId());
+        if (container == null) {
+            return;
+        }
+        sampleClientMetrics(container);
+
+        Collection<TopicPartition> assigned = container.getAssignedPartitions();
+        Set<TopicPartition> current = assigned == null ? Set.of() : Set.copyOf(assigned);
+        partitions.forEach((tp, lag) -> {
+            if (!current.contains(tp)) {
+                lag.unassign();
+            }
+        });
+        if (current.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = fetchCommitted(container.getGroupId(), current);
+            Map<TopicPartition, Long> endOffsets = fetchEndOffsets(current);
+            for (TopicPartition tp : current) {
+                OffsetAndMetadata offset = committed.get(tp);
+                Long end = endOffsets.get(tp);
+                partition(tp, container.getGroupId())
+                        .update(offset == null ? -1 : offset.offset(), end == null ? -1 : end);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            refreshFailures.increment();
+            log.warn("Failed to refresh consumer lag for listener {}: {}", properties.getListenerId(), e.toString());
+        }
+    }
+
+    /**
+     * @return the summed lag of the partitions assigned to this instance, or
+     * {@code NaN} when no partition has known offsets yet
+     */
+    public double getTotalLag() {
+        double total = Double.NaN;
+        for (PartitionLag lag : partitions.values()) {
+            double value = lag.lag();
+            if (!Double.isNaN(value)) {
+                total = Double.isNaN(total) ? value : total + value;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void destroy() {
+        Admin current = admin;
+        if (current != null) {
+            current.close(Duration.ofSeconds(1));
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> fetchCommitted(String groupId, Set<TopicPartition> assigned)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return admin()
+                .listConsumerGroupOffsets(Map.of(groupId, new ListConsumerGroupOffsetsSpec().topicPartitions(assigned)))
+                .partitionsToOffsetAndMetadata(groupId)
+                .get(properties.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Map<TopicPartition, Long> fetchEndOffsets(Set<TopicPartition> assigned)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+        assigned.forEach(tp -> request.put(tp, OffsetSpec.latest()));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> result = admin().listOffsets(request).all()
+                .get(properties.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        result.forEach((tp, info) -> endOffsets.put(tp, info.offset()));
+        return endOffsets;
+    }
+
+    private void sampleClientMetrics(MessageListenerContainer container) {
+        double latencyAvg = Double.NaN;
+        double latencyMax = Double.NaN;
+        double pollAge = Double.NaN;
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> entry : clientMetrics.entrySet()) {
+                String name = entry.getKey().name();
+                if (!(entry.getValue().metricValue() instanceof Number number) || Double.isNaN(number.doubleValue())) {
+                    continue;
+                }
+                double value = number.doubleValue();
+                switch (name) {
+                    case COMMIT_LATENCY_AVG -> latencyAvg = max(latencyAvg, value);
+                    case COMMIT_LATENCY_MAX -> latencyMax = max(latencyMax, value);
+                    case LAST_POLL_SECONDS_AGO -> pollAge = max(pollAge, value);
+                    default -> {
+                    }
+                }
+            }
+        }
+        commitLatencyAvg = latencyAvg;
+        commitLatencyMax = latencyMax;
+        lastPollAge = pollAge;
+    }
+
+    private static double max(double current, double value) {
+        return Double.isNaN(current) ? value : Math.max(current, value);
+    }
+
+    private Admin admin() {
+        Admin current = admin;
+        if (current == null) {
+            synchronized (this) {
+                current = admin;
+                if (current == null) {
+                    current = adminFactory.get();
+                    admin = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private PartitionLag partition(TopicPartition tp, String groupId) {
+        return partitions.computeIfAbsent(tp, key -> {
+            PartitionLag lag = new PartitionLag();
+            Gauge.builder("kafka.consumer.partition.lag", lag, PartitionLag::lag)
+                    .description("End offset minus committed offset of an assigned partition")
+                    .tag("group", groupId == null ? "" : groupId)
+                    .tag("topic", key.topic())
+                    .tag("partition", String.valueOf(key.partition()))
+                    .register(registry);
+            return lag;
+        });
+    }
+
+    private Counter processedCounter(Map<TopicPartition, Counter> counters, ConsumerRecord<?, ?> record,
+                                     String outcome) {
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        Counter counter = counters.get(tp);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(tp, key -> Counter.builder("kafka.consumer.partition.records.processed")
+                    .description("Records handled by the listener per partition")
+                    .tag("topic", key.topic())
+                    .tag("partition", String.valueOf(key.partition()))
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+        return counter;
+    }
+
+    /**
+     * Last known offsets of one partition; lag is {@code NaN} while unknown
+     * or while the partition is not assigned to this instance.
+     */
+    private static final class PartitionLag {
+        private volatile long committed = -1;
+        private volatile long end = -1;
+
+        void update(long committed, long end) {
+            this.committed = committed;
+            this.end = end;
+        }
+
+        void unassign() {
+            update(-1, -1);
+        }
+
+        double lag() {
+            long c = committed;
+            long e = end;
+            if (c < 0 || e < 0) {
+                return Double.NaN;
+            }
+            return Math.max(0, e - c);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.innowise.service.kafka;
+
+/**
+ * A cheap call to a downstream dependency, timed by the
+ * {@link BackpressureController} while the consumers are paused and no
+ * real calls report the latency of its stage.
+ */
+public interface DownstreamProbe {
+
+    /**
+     * @return the stage this probe measures, as reported by
+     * {@link com.innowise.aspect.BackpressureAspect}
+     */
+    String stage();
+
+    /**
+     * Makes one call to the dependency.
+     *
+     * @throws RuntimeException if the dependency cannot be reached
+     */
+    void probe();
+}
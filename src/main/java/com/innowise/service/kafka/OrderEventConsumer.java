@@ -1,8 +1,12 @@
 package com.innowise.service.kafka;
 
+import com.innowise.config.ProcessingProperties;
 import com.innowise.event.OrderCreatedEvent;
+import com.innowise.metrics.StartupMetrics;
 import com.innowise.model.enums.EventType;
 import com.innowise.service.PaymentProcessingService;
+import com.innowise.service.concurrent.Deadline;
+import io.micrometer.core.instrument.Counter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -19,6 +23,13 @@ import org.springframework.stereotype.Service;
  * The consumer performs validation on incoming events to ensure
  * data integrity before processing.
  * </p>
+ * <p>
+ * Both this listener and {@link PipelineOrderEventConsumer} are always
+ * registered; {@code payment.pipeline.enabled} decides at runtime which
+ * one starts and carries the configured listener ID, so the choice is not
+ * frozen into an AOT-processed context. The other one stays stopped under
+ * a {@code -standby} ID.
+ * </p>
  *
  * @see OrderCreatedEvent
  * @see PaymentProcessingService
@@ -30,6 +41,12 @@ public class OrderEventConsumer {
 
     private final PaymentProcessingService paymentProcessingService;
 
+    private final Counter kafkaOrderMessagesConsumedCounter;
+
+    private final StartupMetrics startupMetrics;
+
+    private final ProcessingProperties processingProperties;
+
     /**
      * Handles incoming order created events from Kafka.
      * <p>
@@ -39,14 +56,21 @@ public class OrderEventConsumer {
      * <li>Validates that the order ID is not null</li>
      * </ul>
      * If validation passes, the event is forwarded to the payment processing
-     * service.
+     * service with a {@link Deadline} of {@code payment.processing.message-budget}
+     * attached.
      * </p>
      *
      * @param event the order created event to process
      * @throws IllegalArgumentException if the order ID is null
      */
-    @KafkaListener(topics = "${spring.kafka.topic.order-events}", groupId = "${spring.kafka.consumer.group-id}")
+    @KafkaListener(id = "#{@pipelineProperties.enabled"
+            + " ? '${payment.consumer-lag.listener-id:order-events-listener}-standby'"
+            + " : '${payment.consumer-lag.listener-id:order-events-listener}'}",
+            autoStartup = "#{!@pipelineProperties.enabled && ${spring.kafka.listener.auto-startup:true}}",
+            topics = "${spring.kafka.topic.order-events}", groupId = "${spring.kafka.consumer.group-id}")
     public void handleOrderCreatedEvent(OrderCreatedEvent event) {
+        kafkaOrderMessagesConsumedCounter.increment();
+        startupMetrics.messageConsumed();
 
         log.info("Received event type: '{}'", event.getEventType());
 
@@ -57,7 +81,13 @@ public class OrderEventConsumer {
         if (event.getOrderId() == null) {
             throw new IllegalArgumentException("Order ID cannot be null in OrderCreatedEvent");
         }
-        paymentProcessingService.processPayment(event);
+        if (processingProperties.getMessageBudget().isPositive()) {
+            try (Deadline.Attachment ignored = Deadline.after(processingProperties.getMessageBudget()).attach()) {
+                paymentProcessingService.processPayment(event);
+            }
+        } else {
+            paymentProcessingService.processPayment(event);
+        }
 
         log.info("Order processed successfully by Payment Service: {}", event.getOrderId());
     }
@@ -1,6 +1,9 @@
 package com.innowise.service.kafka;
 
 import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
+import com.innowise.service.concurrent.Deadline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,8 +11,11 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Kafka producer service for publishing payment-related events.
@@ -48,24 +54,48 @@ public class PaymentEventProducer {
      * to allow the caller to handle the failure (e.g., by rolling back the
      * transaction).
      * </p>
+     * <p>
+     * When a {@link Deadline} is attached, nothing is sent once it has passed
+     * and the wait for the acknowledgement is limited to the remaining time.
+     * </p>
      *
      * @param event the payment created event to send
      * @throws ExecutionException   if the send operation fails
      * @throws InterruptedException if the thread is interrupted while waiting
      * @throws RuntimeException     if the event cannot be completed successfully
+     * @throws DeadlineExceededException if the message deadline passes before
+     *                                   the send is acknowledged
      */
     public void sendPaymentCreatedEvent(PaymentCreatedEvent event) throws ExecutionException, InterruptedException {
+        Optional<Deadline> deadline = Deadline.current();
+        Deadline.check(ProcessingStage.PUBLISH);
         CompletableFuture<SendResult<String, Object>> future = sendEvent(event);
         try {
-            SendResult<String, Object> result = future.get();
+            SendResult<String, Object> result = deadline.isPresent()
+                    ? future.get(deadline.get().remaining(ProcessingStage.PUBLISH).toNanos(), TimeUnit.NANOSECONDS)
+                    : future.get();
             log.info("Successfully sent PAYMENT_CREATED event for payment ID: {} to partition: {}",
                     event.getPaymentId(), result.getRecordMetadata().partition());
         } catch (ExecutionException | InterruptedException e) {
             log.error("Failed to send PAYMENT_CREATED event for payment ID: {}", event.getPaymentId(), e);
             throw e;
+        } catch (TimeoutException | DeadlineExceededException e) {
+            log.error("Deadline exceeded sending PAYMENT_CREATED event for payment ID: {}", event.getPaymentId());
+            throw deadline.orElseThrow().exceeded(ProcessingStage.PUBLISH);
         }
     }
 
+    /**
+     * Sends a payment created event to the Kafka topic without waiting for
+     * the acknowledgement, so a caller can have several sends in flight.
+     *
+     * @param event the payment created event to send
+     * @return a CompletableFuture containing the send result
+     */
+    public CompletableFuture<SendResult<String, Object>> sendPaymentCreatedEventAsync(PaymentCreatedEvent event) {
+        return sendEvent(event);
+    }
+
     /**
      * Internal method to send an event to Kafka asynchronously.
      * <p>
@@ -0,0 +1,53 @@
+package com.innowise.service.kafka;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.metrics.StartupMetrics;
+import com.innowise.service.pipeline.PaymentPipeline;
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Kafka consumer that hands order events to the {@link PaymentPipeline}.
+ * <p>
+ * Started instead of {@link OrderEventConsumer} when
+ * {@code payment.pipeline.enabled} is set; both are registered and the
+ * property is read at runtime. The listener does no processing
+ * itself: validation, the payment decision, persistence and publishing run
+ * in the pipeline stages, which acknowledge the record once its payment
+ * event is published (manual acknowledgement mode).
+ * </p>
+ *
+ * @see PaymentPipeline
+ */
+@Service
+@RequiredArgsConstructor
+public class PipelineOrderEventConsumer {
+
+    private final PaymentPipeline paymentPipeline;
+
+    private final Counter kafkaOrderMessagesConsumedCounter;
+
+    private final StartupMetrics startupMetrics;
+
+    /**
+     * Puts the record into the pipeline ring; blocks while the ring is full.
+     *
+     * @param record         the order event record
+     * @param acknowledgment acknowledged by the pipeline when the record is done
+     */
+    @KafkaListener(id = "#{@pipelineProperties.enabled"
+            + " ? '${payment.consumer-lag.listener-id:order-events-listener}'"
+            + " : '${payment.consumer-lag.listener-id:order-events-listener}-standby'}",
+            autoStartup = "#{@pipelineProperties.enabled && ${spring.kafka.listener.auto-startup:true}}",
+            topics = "${spring.kafka.topic.order-events}", groupId = "${spring.kafka.consumer.group-id}")
+    public void handleOrderCreatedEvent(ConsumerRecord<String, OrderCreatedEvent> record,
+                                        Acknowledgment acknowledgment) {
+        kafkaOrderMessagesConsumedCounter.increment();
+        startupMetrics.messageConsumed();
+        paymentPipeline.submit(record, acknowledgment);
+    }
+}
@@ -0,0 +1,53 @@
+package com.innowise.service.kafka;
+
+import com.innowise.metrics.PaymentStageMetrics;
+import com.innowise.model.enums.ProcessingStage;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonDeserializer} that records its duration as the
+ * {@link ProcessingStage#DESERIALIZE} stage.
+ * <p>
+ * Kafka instantiates deserializers by class name, so the timers are
+ * registered on {@link Metrics#globalRegistry}, to which Spring Boot adds
+ * the application's registries.
+ * </p>
+ */
+public class TimedJsonDeserializer extends JsonDeserializer<Object> {
+
+    private final Timer successTimer = PaymentStageMetrics.stageTimer(
+            Metrics.globalRegistry, ProcessingStage.DESERIALIZE, PaymentStageMetrics.SUCCESS);
+    private final Timer errorTimer = PaymentStageMetrics.stageTimer(
+            Metrics.globalRegistry, ProcessingStage.DESERIALIZE, PaymentStageMetrics.ERROR);
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = super.deserialize(topic, headers, data);
+            success = true;
+            return result;
+        } finally {
+            (success ? successTimer : errorTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = super.deserialize(topic, data);
+            success = true;
+            return result;
+        } finally {
+            (success ? successTimer : errorTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.innowise.service.pipeline;
+
+import com.innowise.config.PipelineProperties;
+import com.innowise.config.ProcessingProperties;
+import com.innowise.config.PublisherProperties;
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.metrics.PaymentStageMetrics;
+import com.innowise.model.dto.PaymentResponseDto;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.EventType;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.PipelineStage;
+import com.innowise.model.enums.ProcessingStage;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.PaymentService;
+import com.innowise.service.concurrent.Deadline;
+import com.innowise.service.concurrent.SubtaskExecutor;
+import com.innowise.service.concurrent.SubtaskScope;
+import com.innowise.service.index.PaymentIndex;
+import com.innowise.service.journal.PaymentJournal;
+import com.innowise.service.kafka.PaymentEventProducer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Staged payment pipeline between the Kafka listener and the payment event
+ * publication, enabled with {@code payment.pipeline.enabled}.
+ * <p>
+ * The listener only puts each record into a pre-allocated {@link PaymentRing}
+ * and returns. Each {@link PipelineStage} then runs on its own thread and
+ * takes every slot the previous stage has finished, up to
+ * {@code payment.pipeline.max-batch-size}:
+ * <ol>
+ * <li>decode - validates the event, skips orders the {@link PaymentIndex}
+ * has already seen published and fills the slot's payment</li>
+ * <li>decide - asks the {@link PaymentDecisionEngine} for each payment of
+ * the batch in parallel, on virtual threads</li>
+ * <li>persist - stores the settled payments of the batch with one bulk
+ * insert, or one journal group commit</li>
+ * <li>publish - sends all payment events of the batch, then waits for the
+ * acknowledgements and acknowledges the records in order; in change stream
+ * publish mode the records are acknowledged once persisted and the events
+ * are left to the change stream publisher</li>
+ * </ol>
+ * A record is acknowledged only after its payment event is published, so
+ * records in the ring when the service stops are redelivered. A record that
+ * fails in any stage is published to the dead-letter topic and acknowledged;
+ * the other records of its batch carry on. Each slot keeps the
+ * {@link Deadline} of its record, started when it was received.
+ * </p>
+ * <p>
+ * When the ring is full the listener thread blocks, which stops polling
+ * (backpressure) until the publish stage frees a slot. Listener threads of
+ * all partitions share the ring and take turns publishing to it.
+ * </p>
+ *
+ * @see PipelineProperties
+ */
+@Slf4j
+@Component
+public class PaymentPipeline implements SmartLifecycle {
+
+    /**
+     * Stops after the listener containers, so the ring is no longer fed,
+     * and before the {@link PaymentJournal} the persist stage writes to.
+     */
+    public static final int PHASE = AbstractMessageListenerContainer.DEFAULT_PHASE - 150;
+
+    private static final PipelineStage[] STAGES = PipelineStage.values();
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final PipelineProperties properties;
+    private final ProcessingProperties processingProperties;
+    private final PublisherProperties publisherProperties;
+    private final PaymentService paymentService;
+    private final PaymentDecisionEngine decisionEngine;
+    private final PaymentEventProducer paymentEventProducer;
+    private final PaymentJournal paymentJournal;
+    private final PaymentIndex paymentIndex;
+    private final SubtaskExecutor subtaskExecutor;
+    private final PaymentStageMetrics stageMetrics;
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer;
+    private final DistributionSummary[] batchSizes = new DistributionSummary[STAGES.length];
+
+    private final List<Payment> persistBatch = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final ReentrantLock producerLock = new ReentrantLock();
+    private volatile PaymentRing ring;
+    private volatile boolean running;
+
+    public PaymentPipeline(PipelineProperties properties, ProcessingProperties processingProperties,
+                           PublisherProperties publisherProperties, PaymentService paymentService, PaymentDecisionEngine decisionEngine,
+                           PaymentEventProducer paymentEventProducer, PaymentJournal paymentJournal,
+                           PaymentIndex paymentIndex, SubtaskExecutor subtaskExecutor, PaymentStageMetrics stageMetrics,
+                           DeadLetterPublishingRecoverer pipelineDeadLetterRecoverer, MeterRegistry registry) {
+        this.properties = properties;
+        this.processingProperties = processingProperties;
+        this.publisherProperties = publisherProperties;
+        this.paymentService = paymentService;
+        this.decisionEngine = decisionEngine;
+        this.paymentEventProducer = paymentEventProducer;
+        this.paymentJournal = paymentJournal;
+        this.paymentIndex = paymentIndex;
+        this.subtaskExecutor = subtaskExecutor;
+        this.stageMetrics = stageMetrics;
+        this.deadLetterRecoverer = pipelineDeadLetterRecoverer;
+        for (PipelineStage stage : STAGES) {
+            Gauge.builder("payment.pipeline.ring.occupancy", this, pipeline -> pipeline.occupancy(stage))
+                    .description("Ring slots handed to the pipeline stage and not finished by it yet")
+                    .tag("stage", stage.tagValue())
+                    .register(registry);
+            batchSizes[stage.ordinal()] = DistributionSummary.builder("payment.pipeline.batch.size")
+                    .description("Number of slots a pipeline stage processed at once")
+                    .tag("stage", stage.tagValue())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        if (properties.getMaxBatchSize() <= 0) {
+            throw new IllegalArgumentException("payment.pipeline.max-batch-size must be positive");
+        }
+        ring = new PaymentRing(properties.getRingSize(), STAGES.length);
+        running = true;
+        for (PipelineStage stage : STAGES) {
+            Thread thread = Thread.ofPlatform()
+                    .name("payment-pipeline-" + stage.tagValue())
+                    .start(() -> runStage(stage));
+            threads.add(thread);
+        }
+        log.info("Payment pipeline started with {} slots", ring.size());
+    }
+
+    /**
+     * Waits up to {@code payment.pipeline.shutdown-timeout} for the records
+     * in the ring to be published, then stops the stage threads; records
+     * still in the ring are not acknowledged and will be redelivered.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        while (ring.pending() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (ring.pending() > 0) {
+            log.warn("Payment pipeline stopped with {} unfinished records; they will be redelivered",
+                    ring.pending());
+        }
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(properties.getShutdownTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * @return ring slots handed to the stage and not finished by it yet
+     */
+    public int occupancy(PipelineStage stage) {
+        PaymentRing current = ring;
+        return current == null ? 0 : current.occupancy(stage.ordinal());
+    }
+
+    /**
+     * Hands a record to the pipeline; blocks while the ring is full.
+     *
+     * @param record         the order event record
+     * @param acknowledgment acknowledged once the record is done
+     * @throws IllegalStateException if the pipeline is not running
+     */
+    public void submit(ConsumerRecord<String, OrderCreatedEvent> record, Acknowledgment acknowledgment) {
+        Deadline deadline = processingProperties.getMessageBudget().isPositive()
+                ? Deadline.after(processingProperties.getMessageBudget())
+                : null;
+        producerLock.lock();
+        try {
+            long sequence;
+            do {
+                if (!running) {
+                    throw new IllegalStateException("Payment pipeline is not running");
+                }
+                sequence = ring.claim(WAIT_NANOS);
+            } while (sequence < 0);
+            ring.get(sequence).reset(record, acknowledgment, deadline);
+            ring.publish(sequence);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a pipeline slot", e);
+        } finally {
+            producerLock.unlock();
+        }
+    }
+
+    private void runStage(PipelineStage stage) {
+        int index = stage.ordinal();
+        long next = ring.processed(index) + 1;
+        while (running) {
+            long available;
+            try {
+                available = ring.waitFor(index, next, WAIT_NANOS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (available < next) {
+                continue;
+            }
+            long last = Math.min(available, next + properties.getMaxBatchSize() - 1);
+            try {
+                process(stage, next, last);
+            } catch (RuntimeException e) {
+                log.error("Pipeline stage {} failed for sequences {}..{}", stage.tagValue(), next, last, e);
+                for (long sequence = next; sequence <= last; sequence++) {
+                    PaymentSlot slot = ring.get(sequence);
+                    if (slot.isLive()) {
+                        slot.fail(e);
+                    }
+                }
+            }
+            batchSizes[index].record(last - next + 1);
+            ring.advance(index, last);
+            next = last + 1;
+        }
+    }
+
+    private void process(PipelineStage stage, long first, long last) {
+        switch (stage) {
+            case DECODE -> decode(first, last);
+            case DECIDE -> decide(first, last);
+            case PERSIST -> persist(first, last);
+            case PUBLISH -> publish(first, last);
+        }
+    }
+
+    private void decode(long first, long last) {
+        for (long sequence = first; sequence <= last; sequence++) {
+            PaymentSlot slot = ring.get(sequence);
+            OrderCreatedEvent event = slot.record.value();
+            if (event == null || event.getEventType() == null) {
+                slot.fail(new IllegalArgumentException("Order event has no payload or event type"));
+            } else if (!EventType.ORDER_CREATE.toString().equals(event.getEventType().toString())) {
+                log.warn("Received unsupported event type: {}", event.getEventType());
+                slot.skipped = true;
+            } else if (event.getOrderId() == null) {
+                slot.fail(new IllegalArgumentException("Order ID cannot be null in OrderCreatedEvent"));
+            } else if (paymentIndex.isDuplicate(event.getOrderId())) {
+                log.warn("Skipping duplicate order event for order {}, already paid by payment {}",
+                        event.getOrderId(), paymentIndex.findPaymentId(event.getOrderId()));
+                slot.skipped = true;
+            } else {
+                slot.event = event;
+                slot.payment.setOrderId(event.getOrderId());
+                slot.payment.setUserId(event.getUserId());
+                slot.payment.setPaymentAmount(event.getTotalAmount());
+            }
+        }
+    }
+
+    private void decide(long first, long last) {
+        try (SubtaskScope scope = subtaskExecutor.open()) {
+            for (long sequence = first; sequence <= last; sequence++) {
+                PaymentSlot slot = ring.get(sequence);
+                if (slot.isLive()) {
+                    scope.fork(() -> decideOne(slot));
+                }
+            }
+            scope.join(subtaskExecutor.deadline());
+        } catch (IllegalStateException e) {
+            for (long sequence = first; sequence <= last; sequence++) {
+                PaymentSlot slot = ring.get(sequence);
+                if (slot.isLive() && slot.status == null) {
+                    slot.fail(e);
+                }
+            }
+        }
+    }
+
+    private Void decideOne(PaymentSlot slot) {
+        long start = System.nanoTime();
+        try (Deadline.Attachment ignored = attach(slot)) {
+            Deadline.check(ProcessingStage.RANDOM_FETCH);
+            slot.status = decisionEngine.decide(slot.event);
+            stageMetrics.record(ProcessingStage.RANDOM_FETCH, start, true);
+        } catch (RuntimeException e) {
+            stageMetrics.record(ProcessingStage.RANDOM_FETCH, start, false);
+            if (e instanceof DeadlineExceededException) {
+                stageMetrics.recordDeadlineExceeded(ProcessingStage.RANDOM_FETCH);
+            }
+            slot.fail(e);
+        }
+        return null;
+    }
+
+    private void persist(long first, long last) {
+        ProcessingStage stage = paymentJournal.isEnabled() ? ProcessingStage.JOURNAL : ProcessingStage.INSERT;
+        persistBatch.clear();
+        for (long sequence = first; sequence <= last; sequence++) {
+            PaymentSlot slot = ring.get(sequence);
+            if (!slot.isLive()) {
+                continue;
+            }
+            if (slot.deadline != null && slot.deadline.isExpired()) {
+                stageMetrics.recordDeadlineExceeded(stage);
+                slot.fail(slot.deadline.exceeded(stage));
+                continue;
+            }
+            slot.payment.setStatus(slot.status);
+            persistBatch.add(slot.payment);
+        }
+        if (persistBatch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            paymentService.persistSettledPayments(persistBatch);
+            stageMetrics.record(stage, start, true);
+        } catch (RuntimeException e) {
+            stageMetrics.record(stage, start, false);
+            log.error("Failed to persist {} pipeline payments", persistBatch.size(), e);
+            for (long sequence = first; sequence <= last; sequence++) {
+                PaymentSlot slot = ring.get(sequence);
+                if (slot.isLive()) {
+                    slot.fail(e);
+                }
+            }
+        } finally {
+            persistBatch.clear();
+        }
+    }
+
+    private void publish(long first, long last) {
+        long start = System.nanoTime();
+        for (long sequence = first; sequence <= last; sequence++) {
+            PaymentSlot slot = ring.get(sequence);
+            if (!slot.isLive()) {
+                continue;
+            }
+            if (!publisherProperties.isInline()) {
+                slot.sendResult = CompletableFuture.completedFuture(null);
+                continue;
+            }
+            try {
+                if (slot.deadline != null) {
+                    slot.deadline.remaining(ProcessingStage.PUBLISH);
+                }
+                slot.sendResult = paymentEventProducer.sendPaymentCreatedEventAsync(PaymentCreatedEvent.builder()
+                        .eventId(UUID.randomUUID().toString())
+                        .paymentId(slot.payment.getId())
+                        .orderId(slot.payment.getOrderId())
+                        .userId(slot.payment.getUserId())
+                        .amount(slot.payment.getPaymentAmount())
+                        .status(slot.payment.getStatus())
+                        .build());
+            } catch (DeadlineExceededException e) {
+                // Nothing was sent, so the payment is compensated like any failed send
+                stageMetrics.record(ProcessingStage.PUBLISH, start, false);
+                stageMetrics.recordDeadlineExceeded(ProcessingStage.PUBLISH);
+                markFailed(slot);
+                slot.fail(e);
+            } catch (RuntimeException e) {
+                stageMetrics.record(ProcessingStage.PUBLISH, start, false);
+                markFailed(slot);
+                slot.fail(e);
+            }
+        }
+        for (long sequence = first; sequence <= last; sequence++) {
+            PaymentSlot slot = ring.get(sequence);
+            try {
+                complete(slot, start);
+            } finally {
+                slot.clear();
+            }
+        }
+    }
+
+    private void complete(PaymentSlot slot, long publishStart) {
+        if (slot.skipped) {
+            slot.acknowledgment.acknowledge();
+            return;
+        }
+        if (slot.failure == null) {
+            try {
+                if (slot.deadline != null) {
+                    slot.sendResult.get(slot.deadline.remaining(ProcessingStage.PUBLISH).toNanos(),
+                            TimeUnit.NANOSECONDS);
+                } else {
+                    slot.sendResult.get();
+                }
+                stageMetrics.record(ProcessingStage.PUBLISH, publishStart, true);
+                paymentIndex.recordPublished(slot.payment.getOrderId(), slot.payment.getId());
+                stageMetrics.recordEndToEndLag(slot.event.getEventTimestamp(),
+                        slot.status.name().toLowerCase(Locale.ROOT));
+                slot.acknowledgment.acknowledge();
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+                slot.fail(new IllegalStateException("Interrupted while waiting for the payment event", e));
+                markFailed(slot);
+            } catch (ExecutionException e) {
+                stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+                log.error("Failed to send payment event for paymentId={}", slot.payment.getId(), e);
+                slot.fail(new IllegalStateException(e.getCause()));
+                markFailed(slot);
+            } catch (TimeoutException | DeadlineExceededException e) {
+                stageMetrics.record(ProcessingStage.PUBLISH, publishStart, false);
+                stageMetrics.recordDeadlineExceeded(ProcessingStage.PUBLISH);
+                slot.fail(slot.deadline.exceeded(ProcessingStage.PUBLISH));
+            }
+        }
+        if (slot.event != null) {
+            stageMetrics.recordEndToEndLag(slot.event.getEventTimestamp(), PaymentStageMetrics.ERROR);
+        }
+        deadLetter(slot);
+        slot.acknowledgment.acknowledge();
+    }
+
+    /**
+     * Marks a persisted payment FAILED when its event could not be published,
+     * including when the deadline passed before it was sent; a send that
+     * timed out waiting for its acknowledgement is left as it is, because
+     * the event may still be delivered.
+     */
+    private void markFailed(PaymentSlot slot) {
+        Payment payment = slot.payment;
+        try {
+            if (paymentJournal.isEnabled()) {
+                paymentService.journalPaymentStatus(PaymentResponseDto.builder()
+                        .id(payment.getId())
+                        .orderId(payment.getOrderId())
+                        .userId(payment.getUserId())
+                        .status(payment.getStatus())
+                        .timestamp(payment.getTimestamp())
+                        .paymentAmount(payment.getPaymentAmount())
+                        .build(), PaymentStatus.FAILED);
+            } else {
+                paymentService.updatePaymentStatus(payment.getId(), PaymentStatus.FAILED, payment.getVersion());
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to mark payment {} as FAILED", payment.getId(), e);
+        }
+    }
+
+    private void deadLetter(PaymentSlot slot) {
+        log.error("Order event at {}-{}@{} failed in the payment pipeline", slot.record.topic(),
+                slot.record.partition(), slot.record.offset(), slot.failure);
+        try {
+            deadLetterRecoverer.accept(slot.record, slot.failure);
+        } catch (RuntimeException e) {
+            log.error("Failed to publish order event at {}-{}@{} to the dead-letter topic", slot.record.topic(),
+                    slot.record.partition(), slot.record.offset(), e);
+        }
+    }
+
+    private static Deadline.Attachment attach(PaymentSlot slot) {
+        return slot.deadline != null ? slot.deadline.attach() : () -> {
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.innowise.service.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size ring of {@link PaymentSlot}s shared by the pipeline stages, in
+ * the style of the LMAX Disruptor.
+ * <p>
+ * Slots are allocated once. The producer claims the next sequence, fills
+ * its slot and publishes it; stage {@code i} processes sequences up to what
+ * stage {@code i - 1} (or, for the first stage, the producer) has finished
+ * and then advances its own sequence. A sequence is reused only after the
+ * last stage has advanced past it, so each slot is owned by exactly one
+ * thread at a time and the sequences provide the happens-before edges.
+ * </p>
+ * <p>
+ * Waiting is blocking rather than busy-spinning: the stages share one
+ * condition that is signalled whenever a sequence moves. Not safe for
+ * concurrent producers; {@link #claim} and {@link #publish} must be called
+ * by one thread at a time.
+ * </p>
+ */
+final class PaymentRing {
+
+    private final PaymentSlot[] slots;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong(-1);
+    private final AtomicLong[] processed;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition moved = lock.newCondition();
+
+    PaymentRing(int size, int stages) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a positive power of two: " + size);
+        }
+        slots = new PaymentSlot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new PaymentSlot();
+        }
+        mask = size - 1;
+        processed = new AtomicLong[stages];
+        for (int i = 0; i < stages; i++) {
+            processed[i] = new AtomicLong(-1);
+        }
+    }
+
+    int size() {
+        return slots.length;
+    }
+
+    PaymentSlot get(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    /**
+     * Waits until the slot after the last published one is free.
+     *
+     * @return the claimed sequence, or -1 if no slot freed up in time
+     */
+    long claim(long timeoutNanos) throws InterruptedException {
+        long next = published.get() + 1;
+        long wrapPoint = next - slots.length;
+        if (processed[processed.length - 1].get() >= wrapPoint) {
+            return next;
+        }
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (processed[processed.length - 1].get() < wrapPoint) {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                remaining = moved.awaitNanos(remaining);
+            }
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the filled slot of a claimed sequence visible to the first stage.
+     */
+    void publish(long sequence) {
+        published.set(sequence);
+        signal();
+    }
+
+    /**
+     * @return the last sequence the stage has finished
+     */
+    long processed(int stage) {
+        return processed[stage].get();
+    }
+
+    /**
+     * @return the last sequence the stage may process
+     */
+    long available(int stage) {
+        return stage == 0 ? published.get() : processed[stage - 1].get();
+    }
+
+    /**
+     * Waits until the stage may process the sequence.
+     *
+     * @return the last sequence the stage may process, less than
+     * {@code sequence} if the wait timed out
+     */
+    long waitFor(int stage, long sequence, long timeoutNanos) throws InterruptedException {
+        long available = available(stage);
+        if (available >= sequence) {
+            return available;
+        }
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while ((available = available(stage)) < sequence && remaining > 0) {
+                remaining = moved.awaitNanos(remaining);
+            }
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the stage done with all sequences up to and including the given one.
+     */
+    void advance(int stage, long sequence) {
+        processed[stage].set(sequence);
+        signal();
+    }
+
+    /**
+     * @return slots handed to the stage that it has not finished yet
+     */
+    int occupancy(int stage) {
+        return (int) (available(stage) - processed(stage));
+    }
+
+    /**
+     * @return published slots the last stage has not finished yet
+     */
+    int pending() {
+        return (int) (published.get() - processed(processed.length - 1));
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            moved.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
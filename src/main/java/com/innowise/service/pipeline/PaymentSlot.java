@@ -0,0 +1,76 @@
+package com.innowise.service.pipeline;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.concurrent.Deadline;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One pre-allocated entry of the {@link PaymentRing}.
+ * <p>
+ * A slot is reused for every record that passes through its ring position:
+ * the consumer fills it, each stage reads what the previous one wrote and
+ * adds its own result, and the publish stage clears it. The {@link Payment}
+ * is mutated in place rather than mapped into a new entity per message.
+ * Fields are plain: the ring's sequences publish them from one stage to the
+ * next.
+ * </p>
+ */
+final class PaymentSlot {
+
+    final Payment payment = new Payment();
+
+    ConsumerRecord<String, OrderCreatedEvent> record;
+    Acknowledgment acknowledgment;
+    Deadline deadline;
+
+    OrderCreatedEvent event;
+    boolean skipped;
+    RuntimeException failure;
+    PaymentStatus status;
+    CompletableFuture<SendResult<String, Object>> sendResult;
+
+    void reset(ConsumerRecord<String, OrderCreatedEvent> record, Acknowledgment acknowledgment, Deadline deadline) {
+        this.record = record;
+        this.acknowledgment = acknowledgment;
+        this.deadline = deadline;
+        this.event = null;
+        this.skipped = false;
+        this.failure = null;
+        this.status = null;
+        this.sendResult = null;
+    }
+
+    /**
+     * @return whether the record is still being processed: neither skipped nor failed
+     */
+    boolean isLive() {
+        return !skipped && failure == null;
+    }
+
+    void fail(RuntimeException failure) {
+        if (this.failure == null) {
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Drops the references to the finished record, so the ring does not keep
+     * it reachable until the slot is reused.
+     */
+    void clear() {
+        reset(null, null, null);
+        payment.setId(null);
+        payment.setOrderId(null);
+        payment.setUserId(null);
+        payment.setStatus(null);
+        payment.setTimestamp(null);
+        payment.setPaymentAmount(null);
+        payment.setVersion(null);
+    }
+}
@@ -0,0 +1,306 @@
+package com.innowise.service.publisher;
+
+import com.innowise.config.PublisherProperties;
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.dao.stream.ResumeTokenStore;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.PublishMode;
+import com.innowise.service.kafka.PaymentEventProducer;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes a {@link PaymentCreatedEvent} for every payment that becomes
+ * settled, driven by a MongoDB change stream on the payments collection
+ * (see {@link PaymentRepository#watchSettled}), in
+ * {@link PublishMode#CHANGE_STREAM} mode.
+ * <p>
+ * The instance holding the {@value #LEASE} lease (see {@link MongoLease})
+ * tails the stream on its own thread. Changes are collected until
+ * {@code batchSize} are read or the stream has been idle for
+ * {@code maxAwaitTime}; the batch is then sent to Kafka without waiting
+ * between sends, all acknowledgements are awaited, and only then is the
+ * resume token of the last change stored in the {@link ResumeTokenStore}.
+ * </p>
+ * <p>
+ * After a crash, a failed send or a lease handover the stream resumes after
+ * the stored token, so every settled payment is published at least once;
+ * changes of a batch that was not fully acknowledged are sent again. The
+ * event ID is derived from the change's resume token, so a resent event
+ * carries the same ID and consumers can drop the duplicate. While nothing
+ * changes, the token is still stored every {@code checkpointInterval} so
+ * that it does not fall off the oplog.
+ * </p>
+ * <p>
+ * A FAILED payment whose order already has a SUCCESS payment is an orphan
+ * failed by the stuck payment sweeper; its event is not published, so the
+ * order service never hears a second outcome.
+ * </p>
+ *
+ * @see PublisherProperties
+ */
+@Slf4j
+@Component
+public class ChangeStreamPaymentPublisher implements SmartLifecycle {
+
+    public static final String LEASE = "payment-publisher";
+
+    private final PublisherProperties properties;
+    private final PaymentRepository paymentRepository;
+    private final PaymentEventProducer paymentEventProducer;
+    private final MongoLease lease;
+    private final ResumeTokenStore resumeTokens;
+
+    private final Counter publishedCounter;
+    private final Counter skippedCounter;
+    private final Counter orphanCounter;
+    private final Counter failureCounter;
+    private final Timer lagTimer;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public ChangeStreamPaymentPublisher(PublisherProperties properties,
+                                        PaymentRepository paymentRepository,
+                                        PaymentEventProducer paymentEventProducer,
+                                        MongoTemplate mongoTemplate,
+                                        MeterRegistry registry) {
+        this.properties = properties;
+        this.paymentRepository = paymentRepository;
+        this.paymentEventProducer = paymentEventProducer;
+        this.lease = new MongoLease(mongoTemplate, LEASE, properties.getOwner(), properties.getLeaseTtl());
+        this.resumeTokens = new ResumeTokenStore(mongoTemplate, LEASE);
+
+        this.publishedCounter = Counter.builder("payment.publisher.published")
+                .description("Payment events published from the change stream")
+                .register(registry);
+        this.skippedCounter = Counter.builder("payment.publisher.skipped")
+                .description("Settled payment changes without an event because the payment was deleted since")
+                .register(registry);
+        this.orphanCounter = Counter.builder("payment.publisher.orphans")
+                .description("Failed payments without an event because their order already succeeded")
+                .register(registry);
+        this.failureCounter = Counter.builder("payment.publisher.failures")
+                .description("Change stream batches that could not be published and are retried")
+                .register(registry);
+        this.lagTimer = Timer.builder("payment.publisher.lag")
+                .description("Time from a payment write to the acknowledgement of its event")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (properties.isInline()) {
+            return;
+        }
+        thread = Thread.ofPlatform().name("payment-change-stream").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(properties.getSendTimeout().plus(properties.getMaxAwaitTime()).toMillis());
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            lease.release();
+        } catch (RuntimeException e) {
+            log.warn("Could not release the {} lease; it expires in {}", LEASE, properties.getLeaseTtl(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Tails the change stream from the stored resume token, if this instance
+     * can acquire the lease, until the publisher stops or loses the lease.
+     *
+     * @return the number of payment events published
+     * @throws RuntimeException if the stream fails or a batch cannot be
+     *                          published; nothing after the stored token is
+     *                          lost
+     */
+    public long tail() {
+        if (!lease.tryAcquire()) {
+            return 0;
+        }
+        long renewEveryNanos = properties.getLeaseTtl().toNanos() / 3;
+        long checkpointEveryNanos = properties.getCheckpointInterval().toNanos();
+        long renewedAt = System.nanoTime();
+        long checkpointedAt = renewedAt;
+        BsonDocument token = resumeTokens.load().orElse(null);
+        if (token == null) {
+            log.info("No resume token stored, publishing settled payments from now on");
+        }
+        long published = 0;
+        List<ChangeStreamDocument<Payment>> batch = new ArrayList<>(properties.getBatchSize());
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Payment>> cursor = paymentRepository.watchSettled(
+                token, properties.getBatchSize(), properties.getMaxAwaitTime())) {
+            while (running) {
+                ChangeStreamDocument<Payment> change = cursor.tryNext();
+                if (change != null) {
+                    batch.add(change);
+                    if (batch.size() < properties.getBatchSize()) {
+                        continue;
+                    }
+                }
+                long now = System.nanoTime();
+                if (now - renewedAt >= renewEveryNanos) {
+                    if (!lease.tryAcquire()) {
+                        log.warn("Lost the {} lease, stopping the change stream", LEASE);
+                        break;
+                    }
+                    renewedAt = now;
+                }
+                if (!batch.isEmpty()) {
+                    published += send(batch);
+                    token = batch.get(batch.size() - 1).getResumeToken();
+                    resumeTokens.save(token);
+                    batch.clear();
+                    checkpointedAt = now;
+                } else if (now - checkpointedAt >= checkpointEveryNanos) {
+                    BsonDocument idle = cursor.getResumeToken();
+                    if (idle != null && !idle.equals(token)) {
+                        resumeTokens.save(idle);
+                        token = idle;
+                    }
+                    checkpointedAt = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return published;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                tail();
+            } catch (RuntimeException e) {
+                log.warn("Payment change stream failed, resuming after the stored token in {}",
+                        properties.getRetryBackoff(), e);
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(properties.getRetryBackoff().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends the events of a batch, then waits for all acknowledgements.
+     *
+     * @return the number of events published
+     * @throws IllegalStateException if any event was not acknowledged in time
+     */
+    private int send(List<ChangeStreamDocument<Payment>> batch) throws InterruptedException {
+        List<PaymentCreatedEvent> events = new ArrayList<>(batch.size());
+        List<Long> failedOrders = new ArrayList<>();
+        for (ChangeStreamDocument<Payment> change : batch) {
+            PaymentCreatedEvent event = toEvent(change);
+            if (event == null) {
+                skippedCounter.increment();
+                log.warn("Payment {} was deleted before its event could be published", change.getDocumentKey());
+                continue;
+            }
+            events.add(event);
+            if (event.getStatus() == PaymentStatus.FAILED) {
+                failedOrders.add(event.getOrderId());
+            }
+        }
+        Set<Long> succeeded = paymentRepository.findOrdersWithStatus(failedOrders, EnumSet.of(PaymentStatus.SUCCESS));
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        for (PaymentCreatedEvent event : events) {
+            if (event.getStatus() == PaymentStatus.FAILED && succeeded.contains(event.getOrderId())) {
+                orphanCounter.increment();
+                log.warn("Not publishing orphaned paymentId={}, order {} already succeeded",
+                        event.getPaymentId(), event.getOrderId());
+                continue;
+            }
+            sends.add(paymentEventProducer.sendPaymentCreatedEventAsync(event));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(properties.getSendTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            failureCounter.increment();
+            throw new IllegalStateException("Could not publish " + sends.size() + " payment events", e);
+        }
+        publishedCounter.increment(sends.size());
+        ChangeStreamDocument<Payment> last = batch.get(batch.size() - 1);
+        if (last.getClusterTime() != null) {
+            long lagMillis = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(last.getClusterTime().getTime());
+            lagTimer.record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
+        }
+        return sends.size();
+    }
+
+    /**
+     * @return the event for a settled payment change, or {@code null} if the
+     * payment no longer exists
+     */
+    static PaymentCreatedEvent toEvent(ChangeStreamDocument<Payment> change) {
+        Payment payment = change.getFullDocument();
+        if (payment == null) {
+            return null;
+        }
+        // The looked-up document may already be further along than this change
+        PaymentStatus status = payment.getStatus();
+        BsonDocument updated = change.getUpdateDescription() == null
+                ? null
+                : change.getUpdateDescription().getUpdatedFields();
+        if (updated != null && updated.isString(PaymentCodec.STATUS)) {
+            status = PaymentStatus.valueOf(updated.getString(PaymentCodec.STATUS).getValue());
+        }
+        return PaymentCreatedEvent.builder()
+                .eventId(UUID.nameUUIDFromBytes(change.getResumeToken().toJson().getBytes(StandardCharsets.UTF_8))
+                        .toString())
+                .paymentId(payment.getId())
+                .orderId(payment.getOrderId())
+                .userId(payment.getUserId())
+                .amount(payment.getPaymentAmount())
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,160 @@
+package com.innowise.service.risk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.config.MoneyProperties;
+import com.innowise.config.RiskProperties;
+import com.innowise.event.OrderCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scores orders against the compiled risk rules.
+ * <p>
+ * The rules are compiled into a {@link RiskProgram} at startup. If
+ * {@code payment.risk.rules-file} is set, the file is checked every reload
+ * interval; a changed file is compiled and the program reference replaced
+ * atomically, so an order is always scored by exactly one complete rule set.
+ * A file that fails to parse or compile is reported and the previous program
+ * stays active.
+ * </p>
+ * <p>
+ * Metrics: {@code payment.risk.rule.hits} per rule,
+ * {@code payment.risk.decisions} tagged {@code outcome}
+ * ({@code accepted}/{@code rejected}) and
+ * {@code payment.risk.reload.failures}.
+ * </p>
+ *
+ * @see RiskProperties
+ */
+@Slf4j
+@Component
+public class RiskEngine implements InitializingBean {
+
+    private final RiskProperties properties;
+    private final MoneyProperties moneyProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+
+    private final AtomicReference<RiskProgram> program = new AtomicReference<>(RiskProgram.empty());
+    private final UserVelocityTracker velocityTracker;
+
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter reloadFailureCounter;
+
+    private volatile Object loadedFileVersion;
+
+    public RiskEngine(RiskProperties properties, MoneyProperties moneyProperties, ObjectMapper objectMapper,
+                      MeterRegistry registry) {
+        this.properties = properties;
+        this.moneyProperties = moneyProperties;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.velocityTracker = new UserVelocityTracker(properties.getMaxTrackedUsers());
+        this.acceptedCounter = decisionCounter(registry, "accepted");
+        this.rejectedCounter = decisionCounter(registry, "rejected");
+        this.reloadFailureCounter = Counter.builder("payment.risk.reload.failures")
+                .description("Risk rule reloads that failed and kept the previous rules")
+                .register(registry);
+    }
+
+    private static Counter decisionCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("payment.risk.decisions")
+                .description("Orders scored by the risk engine")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Compiles the initial rules; invalid rules fail the startup.
+     */
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Path rulesFile = properties.getRulesFile();
+        if (rulesFile != null) {
+            loadedFileVersion = fileVersion(rulesFile);
+            install(objectMapper.readValue(rulesFile.toFile(), RiskRuleSet.class), rulesFile.toString());
+        } else {
+            install(properties.toRuleSet(), "payment.risk.rules");
+        }
+    }
+
+    /**
+     * Reloads the rules file if it changed and purges expired velocity windows.
+     */
+    @Scheduled(fixedDelayString = "#{@riskProperties.reloadInterval.toMillis()}")
+    public void reload() {
+        velocityTracker.purge(System.nanoTime(), properties.getVelocityWindow().toNanos());
+        Path rulesFile = properties.getRulesFile();
+        if (rulesFile == null) {
+            return;
+        }
+        try {
+            Object version = fileVersion(rulesFile);
+            if (version.equals(loadedFileVersion)) {
+                return;
+            }
+            install(objectMapper.readValue(rulesFile.toFile(), RiskRuleSet.class), rulesFile.toString());
+            loadedFileVersion = version;
+        } catch (IOException | RuntimeException e) {
+            reloadFailureCounter.increment();
+            log.error("Failed to reload risk rules from {}, keeping the previous rules", rulesFile, e);
+        }
+    }
+
+    /**
+     * Scores the order; does nothing and accepts while disabled.
+     * <p>
+     * Scoring the same order again, on a retry or a re-decision, does not
+     * add to the user's velocity.
+     * </p>
+     *
+     * @return whether the order's risk score rejects the payment
+     */
+    public boolean rejects(OrderCreatedEvent event) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        RiskProgram current = program.get();
+        long velocity = 0;
+        if (current.usesVelocity()) {
+            velocity = velocityTracker.record(event.getUserId(), event.getOrderId(), System.nanoTime(),
+                    properties.getVelocityWindow().toNanos());
+        }
+        boolean rejected = current.rejects(current.score(event, velocity));
+        (rejected ? rejectedCounter : acceptedCounter).increment();
+        return rejected;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * @return the active program
+     */
+    public RiskProgram currentProgram() {
+        return program.get();
+    }
+
+    private void install(RiskRuleSet ruleSet, String source) {
+        RiskProgram compiled = RiskProgram.compile(ruleSet, moneyProperties.getScale(), registry);
+        program.set(compiled);
+        log.info("Loaded {} risk rules from {}: {}", compiled.ruleIds().size(), source, compiled.ruleIds());
+    }
+
+    private static Object fileVersion(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+    }
+}
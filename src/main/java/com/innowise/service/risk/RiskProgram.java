@@ -0,0 +1,225 @@
+package com.innowise.service.risk;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.OrderItemEvent;
+import com.innowise.model.enums.RiskRuleType;
+import com.innowise.model.money.MinorUnits;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link RiskRuleSet} compiled into flat, immutable arrays.
+ * <p>
+ * Compilation validates the rules and turns each into an opcode, a
+ * {@code long} threshold (amounts in minor units) and a score; blacklists
+ * become sorted {@code long[]} arrays searched with binary search. Scoring an
+ * order extracts its features once, then runs a loop over primitive
+ * comparisons - no reflection, expression parsing or boxing per event.
+ * </p>
+ * <p>
+ * Instances are thread-safe; reloading compiles a new program and replaces
+ * the reference, see {@link RiskEngine}.
+ * </p>
+ */
+public final class RiskProgram {
+
+    public static final String RULE_HITS_COUNTER = "payment.risk.rule.hits";
+
+    private static final RiskRuleType[] TYPES = RiskRuleType.values();
+
+    private final String[] ruleIds;
+    private final int[] opcodes;
+    private final long[] thresholds;
+    private final long[][] blacklists;
+    private final int[] scores;
+    private final Counter[] hits;
+    private final int rejectScore;
+    private final int scale;
+    private final boolean usesItems;
+    private final boolean usesVelocity;
+
+    private RiskProgram(String[] ruleIds, int[] opcodes, long[] thresholds, long[][] blacklists, int[] scores,
+                        Counter[] hits, int rejectScore, int scale) {
+        this.ruleIds = ruleIds;
+        this.opcodes = opcodes;
+        this.thresholds = thresholds;
+        this.blacklists = blacklists;
+        this.scores = scores;
+        this.hits = hits;
+        this.rejectScore = rejectScore;
+        this.scale = scale;
+        boolean items = false;
+        boolean velocity = false;
+        for (int opcode : opcodes) {
+            RiskRuleType type = TYPES[opcode];
+            items |= type != RiskRuleType.AMOUNT_ABOVE && type != RiskRuleType.USER_VELOCITY_ABOVE;
+            velocity |= type == RiskRuleType.USER_VELOCITY_ABOVE;
+        }
+        this.usesItems = items;
+        this.usesVelocity = velocity;
+    }
+
+    /**
+     * Compiles and validates a rule set.
+     *
+     * @param ruleSet  the rules
+     * @param scale    currency scale used to convert amounts to minor units
+     * @param registry registry for the per-rule hit counters
+     * @throws IllegalArgumentException if a rule is incomplete or IDs repeat
+     */
+    public static RiskProgram compile(RiskRuleSet ruleSet, int scale, MeterRegistry registry) {
+        List<RiskRuleDefinition> rules = ruleSet.getRules() == null ? List.of() : ruleSet.getRules();
+        int size = rules.size();
+        String[] ruleIds = new String[size];
+        int[] opcodes = new int[size];
+        long[] thresholds = new long[size];
+        long[][] blacklists = new long[size][];
+        int[] scores = new int[size];
+        Counter[] hits = new Counter[size];
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < size; i++) {
+            RiskRuleDefinition rule = rules.get(i);
+            if (rule.getId() == null || rule.getId().isBlank()) {
+                throw new IllegalArgumentException("Risk rule #" + i + " has no id");
+            }
+            if (!seen.add(rule.getId())) {
+                throw new IllegalArgumentException("Duplicate risk rule id: " + rule.getId());
+            }
+            if (rule.getType() == null) {
+                throw new IllegalArgumentException("Risk rule " + rule.getId() + " has no type");
+            }
+            ruleIds[i] = rule.getId();
+            opcodes[i] = rule.getType().ordinal();
+            scores[i] = rule.getScore();
+            if (rule.getType() == RiskRuleType.BLACKLISTED_ITEM) {
+                if (rule.getItems() == null || rule.getItems().isEmpty()) {
+                    throw new IllegalArgumentException("Risk rule " + rule.getId() + " has no items");
+                }
+                blacklists[i] = rule.getItems().stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            } else {
+                if (rule.getThreshold() == null) {
+                    throw new IllegalArgumentException("Risk rule " + rule.getId() + " has no threshold");
+                }
+                thresholds[i] = isAmount(rule.getType())
+                        ? MinorUnits.of(rule.getThreshold(), scale)
+                        : rule.getThreshold().longValueExact();
+            }
+            hits[i] = Counter.builder(RULE_HITS_COUNTER)
+                    .description("Orders matched by a risk rule")
+                    .tag("rule", rule.getId())
+                    .register(registry);
+        }
+        return new RiskProgram(ruleIds, opcodes, thresholds, blacklists, scores, hits, ruleSet.getRejectScore(), scale);
+    }
+
+    /**
+     * @return a program without rules, which never rejects
+     */
+    public static RiskProgram empty() {
+        return new RiskProgram(new String[0], new int[0], new long[0], new long[0][], new int[0], new Counter[0],
+                Integer.MAX_VALUE, MinorUnits.DEFAULT_SCALE);
+    }
+
+    private static boolean isAmount(RiskRuleType type) {
+        return type == RiskRuleType.AMOUNT_ABOVE || type == RiskRuleType.ITEM_PRICE_ABOVE;
+    }
+
+    /**
+     * Scores an order and counts the hit of every matching rule.
+     *
+     * @param event    the order
+     * @param velocity orders by the same user in the velocity window, including this one
+     * @return the sum of the scores of all matching rules
+     */
+    public int score(OrderCreatedEvent event, long velocity) {
+        long amount = minorUnits(event.getTotalAmount());
+        long itemCount = 0;
+        long quantity = 0;
+        long maxItemPrice = 0;
+        List<OrderItemEvent> items = usesItems ? event.getItems() : null;
+        if (items != null) {
+            itemCount = items.size();
+            for (int i = 0; i < items.size(); i++) {
+                OrderItemEvent item = items.get(i);
+                if (item.getQuantity() != null) {
+                    quantity += item.getQuantity();
+                }
+                maxItemPrice = Math.max(maxItemPrice, minorUnits(item.getPrice()));
+            }
+        }
+
+        int score = 0;
+        for (int i = 0; i < opcodes.length; i++) {
+            boolean hit = switch (TYPES[opcodes[i]]) {
+                case AMOUNT_ABOVE -> amount > thresholds[i];
+                case ITEM_COUNT_ABOVE -> itemCount > thresholds[i];
+                case QUANTITY_ABOVE -> quantity > thresholds[i];
+                case ITEM_PRICE_ABOVE -> maxItemPrice > thresholds[i];
+                case USER_VELOCITY_ABOVE -> velocity > thresholds[i];
+                case BLACKLISTED_ITEM -> containsBlacklisted(items, blacklists[i]);
+            };
+            if (hit) {
+                score += scores[i];
+                hits[i].increment();
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return whether the score rejects the payment
+     */
+    public boolean rejects(int score) {
+        return score >= rejectScore;
+    }
+
+    /**
+     * @return whether scoring needs the user's order velocity
+     */
+    public boolean usesVelocity() {
+        return usesVelocity;
+    }
+
+    /**
+     * @return IDs of the compiled rules, in evaluation order
+     */
+    public List<String> ruleIds() {
+        return Arrays.asList(ruleIds.clone());
+    }
+
+    private static boolean containsBlacklisted(List<OrderItemEvent> items, long[] blacklist) {
+        if (items == null) {
+            return false;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            Long itemId = items.get(i).getItemId();
+            if (itemId != null && Arrays.binarySearch(blacklist, itemId) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long minorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        try {
+            return MinorUnits.of(amount, scale);
+        } catch (ArithmeticException e) {
+            // More fractional digits than the currency has, or beyond long: round up, saturate
+            BigInteger rounded = amount.setScale(scale, RoundingMode.CEILING).unscaledValue();
+            return rounded.bitLength() > 63 ? (rounded.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE)
+                    : rounded.longValue();
+        }
+    }
+}
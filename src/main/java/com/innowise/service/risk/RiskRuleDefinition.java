@@ -0,0 +1,38 @@
+package com.innowise.service.risk;
+
+import com.innowise.model.enums.RiskRuleType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One risk rule as configured in {@code payment.risk.rules} or the rules
+ * file.
+ * <p>
+ * A matching rule adds its {@code score} to the order's risk score. The
+ * {@code threshold} is an amount for {@code AMOUNT_ABOVE} and
+ * {@code ITEM_PRICE_ABOVE} and a count otherwise; {@code items} is only used
+ * by {@code BLACKLISTED_ITEM}.
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskRuleDefinition {
+
+    private String id;
+    private RiskRuleType type;
+    private BigDecimal threshold;
+
+    @Builder.Default
+    private List<Long> items = new ArrayList<>();
+
+    @Builder.Default
+    private int score = 100;
+}
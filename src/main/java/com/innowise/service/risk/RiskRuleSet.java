@@ -0,0 +1,25 @@
+package com.innowise.service.risk;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A complete set of risk rules, the unit that is compiled and swapped on
+ * reload. This is also the format of the JSON rules file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskRuleSet {
+
+    /**
+     * Risk score at or above which a payment is rejected.
+     */
+    private int rejectScore = 100;
+
+    private List<RiskRuleDefinition> rules = new ArrayList<>();
+}
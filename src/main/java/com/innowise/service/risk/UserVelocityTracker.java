@@ -0,0 +1,103 @@
+package com.innowise.service.risk;
+
+import com.innowise.service.index.ClockLongCache;
+
+/**
+ * Counts orders per user in fixed time windows for the velocity rules.
+ * <p>
+ * A user's window starts with their first order and resets once it is older
+ * than the window length, so the count is approximate at window borders but
+ * costs one map lookup and no allocation for returning users.
+ * </p>
+ * <p>
+ * Windows are kept in a {@link ClockLongCache} keyed by the primitive user
+ * ID: once {@code maxUsers} are tracked, the least recently active user is
+ * evicted, which only forgets a count that would soon expire anyway.
+ * </p>
+ * <p>
+ * An order is counted once per window: retries, redeliveries and re-decisions
+ * of the same order ID read the user's count without adding to it. Counted
+ * order IDs are kept in a second {@link ClockLongCache} of the same size and
+ * purged with the windows.
+ * </p>
+ */
+class UserVelocityTracker {
+
+    private final ClockLongCache<Window> windows;
+    private final ClockLongCache<CountedOrder> countedOrders;
+
+    UserVelocityTracker(int maxUsers) {
+        this.windows = new ClockLongCache<>(maxUsers);
+        this.countedOrders = new ClockLongCache<>(maxUsers);
+    }
+
+    /**
+     * Counts an order, unless it was already counted in the current window.
+     *
+     * @return the user's orders in the current window, including this one;
+     * 0 if the user is unknown
+     */
+    long record(Long userId, Long orderId, long nowNanos, long windowNanos) {
+        if (userId == null) {
+            return 0;
+        }
+        Window window = windows.computeIfAbsent(userId, id -> new Window());
+        if (orderId == null) {
+            return window.increment(nowNanos, windowNanos);
+        }
+        CountedOrder counted = countedOrders.get(orderId);
+        if (counted != null && counted.window == window) {
+            long count = window.countIncluding(counted.countedNanos, nowNanos, windowNanos);
+            if (count > 0) {
+                return count;
+            }
+        }
+        long count = window.increment(nowNanos, windowNanos);
+        countedOrders.put(orderId, new CountedOrder(window, nowNanos));
+        return count;
+    }
+
+    /**
+     * Removes users whose window has expired, and the orders counted in them.
+     */
+    void purge(long nowNanos, long windowNanos) {
+        windows.removeIf(window -> window.isExpired(nowNanos, windowNanos));
+        countedOrders.removeIf(counted -> counted.isExpired(nowNanos, windowNanos));
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    private static final class Window {
+        private long startNanos;
+        private long count;
+
+        synchronized long increment(long nowNanos, long windowNanos) {
+            if (count == 0 || nowNanos - startNanos >= windowNanos) {
+                startNanos = nowNanos;
+                count = 0;
+            }
+            return ++count;
+        }
+
+        /**
+         * @return the count, if the window is current and started no later
+         * than {@code countedNanos}; 0 otherwise
+         */
+        synchronized long countIncluding(long countedNanos, long nowNanos, long windowNanos) {
+            return countedNanos >= startNanos && nowNanos - startNanos < windowNanos ? count : 0;
+        }
+
+        synchronized boolean isExpired(long nowNanos, long windowNanos) {
+            return nowNanos - startNanos >= windowNanos;
+        }
+    }
+
+    private record CountedOrder(Window window, long countedNanos) {
+
+        boolean isExpired(long nowNanos, long windowNanos) {
+            return nowNanos - countedNanos >= windowNanos;
+        }
+    }
+}
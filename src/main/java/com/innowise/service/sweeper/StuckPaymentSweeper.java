@@ -0,0 +1,255 @@
+package com.innowise.service.sweeper;
+
+import com.innowise.config.PublisherProperties;
+import com.innowise.config.SweeperProperties;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.StuckPaymentResolution;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.job.LeasedBackgroundJob;
+import com.innowise.service.kafka.BackpressureController;
+import com.innowise.service.kafka.PaymentEventProducer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves payments left PENDING by an instance that died between creating
+ * a payment and setting its final status.
+ * <p>
+ * Every sweep interval, the instance holding the {@value #LEASE} lease
+ * (see {@link MongoLease}) pages through PENDING payments older than
+ * {@code stuckAfter} with keyset cursors over the (status, timestamp, ID)
+ * index, one page of {@code batchSize} per round trip:
+ * <ol>
+ * <li>each payment is given its final status according to the configured
+ * {@link StuckPaymentResolution}; an orphan, whose order already has
+ * another payment that is no longer PENDING (for example after a
+ * redelivered order event), is failed instead and its event is not
+ * published, so the order service never hears a second outcome</li>
+ * <li>the page is written with one guarded bulk write; a payment that is no
+ * longer PENDING at the version read is left alone</li>
+ * <li>a payment event is published for every payment written, so the order
+ * service learns the outcome; a SUCCESS whose event cannot be published is
+ * compensated to FAILED, as in live processing; in change stream publish
+ * mode the change stream publisher publishes them instead</li>
+ * </ol>
+ * The sweep never competes with live traffic: as a
+ * {@link LeasedBackgroundJob} it runs on its own thread, paces itself to
+ * {@code maxRate} payments per second, and stops early while the
+ * {@link BackpressureController} has the consumers paused. The lease is
+ * renewed after every page and the sweep stops if it was lost.
+ * </p>
+ *
+ * @see SweeperProperties
+ */
+@Slf4j
+@Component
+public class StuckPaymentSweeper extends LeasedBackgroundJob {
+
+    public static final String LEASE = "payment-sweeper";
+
+    private static final Set<PaymentStatus> SETTLED = EnumSet.of(PaymentStatus.SUCCESS, PaymentStatus.FAILED);
+
+    private final SweeperProperties properties;
+    private final PublisherProperties publisherProperties;
+    private final PaymentRepository paymentRepository;
+    private final PaymentDecisionEngine decisionEngine;
+    private final PaymentEventProducer paymentEventProducer;
+
+    private final Counter settledSuccess;
+    private final Counter settledFailed;
+    private final Counter skippedCounter;
+    private final Counter orphanCounter;
+    private final Counter publishFailureCounter;
+    private final Timer sweepTimer;
+
+    public StuckPaymentSweeper(SweeperProperties properties,
+                               PublisherProperties publisherProperties,
+                               PaymentRepository paymentRepository,
+                               MongoTemplate mongoTemplate,
+                               PaymentDecisionEngine decisionEngine,
+                               PaymentEventProducer paymentEventProducer,
+                               BackpressureController backpressureController,
+                               MeterRegistry registry) {
+        super(LEASE, "payment.sweeper", properties, mongoTemplate, backpressureController, registry);
+        this.properties = properties;
+        this.publisherProperties = publisherProperties;
+        this.paymentRepository = paymentRepository;
+        this.decisionEngine = decisionEngine;
+        this.paymentEventProducer = paymentEventProducer;
+
+        this.settledSuccess = settledCounter(registry, PaymentStatus.SUCCESS);
+        this.settledFailed = settledCounter(registry, PaymentStatus.FAILED);
+        this.skippedCounter = Counter.builder("payment.sweeper.skipped")
+                .description("Stuck payments changed by another writer before the sweeper wrote them")
+                .register(registry);
+        this.orphanCounter = Counter.builder("payment.sweeper.orphans")
+                .description("Stuck payments failed without an event because their order was already settled")
+                .register(registry);
+        this.publishFailureCounter = Counter.builder("payment.sweeper.publish.failures")
+                .description("Swept payments whose payment event could not be published")
+                .register(registry);
+        this.sweepTimer = Timer.builder("payment.sweeper.duration")
+                .description("Time spent in one sweep while holding the lease")
+                .register(registry);
+    }
+
+    /**
+     * Sweeps once if this instance can acquire the lease.
+     *
+     * @return the number of stuck payments resolved
+     */
+    public int sweep() {
+        if (!tryAcquireLease()) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getStuckAfter());
+        int resolved = 0;
+        Payment after = null;
+        try {
+            while (isRunning() && !deferIfPaused()) {
+                long pageStarted = System.nanoTime();
+                List<Payment> page = paymentRepository.findPendingBefore(cutoff, after, properties.getBatchSize());
+                if (page.isEmpty()) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+                resolved += settle(page);
+                if (page.size() < properties.getBatchSize()) {
+                    break;
+                }
+                throttle(page.size(), pageStarted);
+                if (!renewLease()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sweepTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (resolved > 0) {
+            log.info("Resolved {} stuck PENDING payments older than {}", resolved, cutoff);
+        }
+        return resolved;
+    }
+
+    @Override
+    protected void runOnce() {
+        sweep();
+    }
+
+    private int settle(List<Payment> page) throws InterruptedException {
+        Set<Long> settledOrders = paymentRepository.findOrdersWithStatus(
+                page.stream().map(Payment::getOrderId).toList(), SETTLED);
+        Set<String> orphans = new HashSet<>();
+        for (Payment payment : page) {
+            if (settledOrders.contains(payment.getOrderId())) {
+                payment.setStatus(PaymentStatus.FAILED);
+                orphans.add(payment.getId());
+            } else {
+                payment.setStatus(resolve(payment));
+            }
+        }
+        List<Payment> applied = paymentRepository.settlePending(page);
+        skippedCounter.increment(page.size() - applied.size());
+        List<Payment> outcomes = new ArrayList<>(applied.size());
+        for (Payment payment : applied) {
+            if (orphans.contains(payment.getId())) {
+                orphanCounter.increment();
+                log.warn("Failed orphaned paymentId={}, order {} already has a settled payment",
+                        payment.getId(), payment.getOrderId());
+            } else {
+                outcomes.add(payment);
+            }
+        }
+        if (!publisherProperties.isInline()) {
+            for (Payment payment : outcomes) {
+                (payment.getStatus() == PaymentStatus.SUCCESS ? settledSuccess : settledFailed).increment();
+            }
+            return applied.size();
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(outcomes.size());
+        for (Payment payment : outcomes) {
+            sends.add(send(payment));
+        }
+        for (int i = 0; i < outcomes.size(); i++) {
+            Payment payment = outcomes.get(i);
+            try {
+                sends.get(i).get();
+                (payment.getStatus() == PaymentStatus.SUCCESS ? settledSuccess : settledFailed).increment();
+            } catch (ExecutionException e) {
+                publishFailureCounter.increment();
+                log.error("Failed to publish the payment event for swept paymentId={}", payment.getId(), e);
+                if (payment.getStatus() == PaymentStatus.SUCCESS) {
+                    paymentRepository.transitionStatus(payment.getId(), PaymentStatus.FAILED, payment.getVersion());
+                }
+            }
+        }
+        return applied.size();
+    }
+
+    private PaymentStatus resolve(Payment payment) {
+        if (properties.getResolution() == StuckPaymentResolution.FAIL) {
+            return PaymentStatus.FAILED;
+        }
+        try {
+            return decisionEngine.decide(OrderCreatedEvent.builder()
+                    .orderId(payment.getOrderId())
+                    .userId(payment.getUserId())
+                    .totalAmount(payment.getPaymentAmount())
+                    .eventTimestamp(payment.getTimestamp())
+                    .items(List.of())
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Decision failed for stuck paymentId={}, failing it", payment.getId(), e);
+            return PaymentStatus.FAILED;
+        }
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(Payment payment) {
+        PaymentCreatedEvent event = PaymentCreatedEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .paymentId(payment.getId())
+                .orderId(payment.getOrderId())
+                .userId(payment.getUserId())
+                .amount(payment.getPaymentAmount())
+                .status(payment.getStatus())
+                .build();
+        try {
+            return paymentEventProducer.sendPaymentCreatedEventAsync(event);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Counter settledCounter(MeterRegistry registry, PaymentStatus status) {
+        return Counter.builder("payment.sweeper.settled")
+                .description("Stuck PENDING payments resolved by the sweeper")
+                .tag("status", status.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+}
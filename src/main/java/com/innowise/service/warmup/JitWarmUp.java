@@ -0,0 +1,152 @@
+package com.innowise.service.warmup;
+
+import com.innowise.config.WarmUpProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Warms up the JIT before the service takes load.
+ * <p>
+ * Runs {@link WarmUpWorkload} in rounds until JIT compilation settles (see
+ * {@link WarmUpProperties}) or the time budget runs out. The warm-up runs as
+ * a {@link SmartLifecycle} in a phase before the Kafka listener containers,
+ * so no order event is consumed until it has finished. The web server starts
+ * in an earlier phase ({@code Integer.MAX_VALUE - 2048}) and already accepts
+ * connections during warm-up; what holds HTTP traffic back is readiness,
+ * which the application only reports ({@code ACCEPTING_TRAFFIC}) once all
+ * lifecycle beans have started. Until then the readiness probe stays DOWN,
+ * so load balancers that route on it send no requests.
+ * </p>
+ * <p>
+ * Compilation time is read from the {@link CompilationMXBean}; where the JVM
+ * does not support it, warm-up runs {@code minIterations} iterations, still
+ * bounded by the budget. A failing workload ends warm-up early and never
+ * blocks startup.
+ * </p>
+ */
+@Slf4j
+@Component
+public class JitWarmUp implements SmartLifecycle {
+
+    /**
+     * Runs before the listener containers, which start in {@link AbstractMessageListenerContainer#DEFAULT_PHASE}.
+     */
+    public static final int PHASE = AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+
+    private static final String SETTLED = "settled";
+    private static final String BUDGET = "budget";
+    private static final String FAILED = "failed";
+
+    private final WarmUpWorkload workload;
+    private final WarmUpProperties properties;
+    private final MeterRegistry registry;
+    private final LongSupplier compilationTimeMillis;
+    private final Counter iterationCounter;
+
+    private volatile boolean running;
+
+    @Autowired
+    public JitWarmUp(WarmUpWorkload workload, WarmUpProperties properties, MeterRegistry registry) {
+        this(workload, properties, registry, compilationTime(ManagementFactory.getCompilationMXBean()));
+    }
+
+    JitWarmUp(WarmUpWorkload workload, WarmUpProperties properties, MeterRegistry registry,
+              LongSupplier compilationTimeMillis) {
+        this.workload = workload;
+        this.properties = properties;
+        this.registry = registry;
+        this.compilationTimeMillis = compilationTimeMillis;
+        this.iterationCounter = Counter.builder("payment.warmup.iterations")
+                .description("Synthetic payments run during JIT warm-up")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (properties.isEnabled()) {
+            warmUp();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Runs warm-up rounds until compilation settles or the budget runs out.
+     *
+     * @return the outcome: {@code settled}, {@code budget} or {@code failed}
+     */
+    String warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + properties.getBudget().toNanos();
+        long threshold = properties.getSettleThreshold().toMillis();
+        long lastCompilation = compilationTimeMillis.getAsLong();
+        long iterations = 0;
+        int stableRounds = 0;
+        String outcome = BUDGET;
+
+        try {
+            while (System.nanoTime() < deadline) {
+                for (int i = 0; i < properties.getBatchSize(); i++) {
+                    workload.runOnce();
+                }
+                iterations += properties.getBatchSize();
+                iterationCounter.increment(properties.getBatchSize());
+
+                long compilation = compilationTimeMillis.getAsLong();
+                stableRounds = compilation >= 0 && compilation - lastCompilation <= threshold ? stableRounds + 1 : 0;
+                lastCompilation = compilation;
+
+                if (iterations >= properties.getMinIterations()
+                        && (compilation < 0 || stableRounds >= properties.getStableRounds())) {
+                    outcome = SETTLED;
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            outcome = FAILED;
+            log.warn("JIT warm-up failed after {} iterations, continuing startup", iterations, e);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("payment.warmup.duration")
+                .description("Time spent in JIT warm-up before accepting traffic")
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("JIT warm-up finished ({}) after {} iterations in {} ms",
+                outcome, iterations, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return outcome;
+    }
+
+    private static LongSupplier compilationTime(CompilationMXBean compilation) {
+        if (compilation == null || !compilation.isCompilationTimeMonitoringSupported()) {
+            return () -> -1;
+        }
+        return compilation::getTotalCompilationTime;
+    }
+}
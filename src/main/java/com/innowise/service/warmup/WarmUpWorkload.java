@@ -0,0 +1,139 @@
+package com.innowise.service.warmup;
+
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.OrderItemEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.mapper.PaymentMapper;
+import com.innowise.model.dto.PaymentCreateRequestDto;
+import com.innowise.model.dto.PaymentResponseDto;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.OrderStatus;
+import com.innowise.model.enums.PaymentStatus;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * One synthetic payment through the hot CPU paths, without I/O.
+ * <p>
+ * Each iteration serializes an {@link OrderCreatedEvent} with type headers and
+ * deserializes it as the listener does, maps it through {@link PaymentMapper},
+ * encodes the {@link Payment} to BSON and decodes it back with the
+ * {@link PaymentCodec} the repository reads and writes with, then serializes
+ * the {@link PaymentCreatedEvent}. Results go to a no-op sink so the JIT cannot
+ * eliminate the work. The serializer and deserializer are configured from the
+ * application's producer and consumer factories, so the same Jackson code
+ * paths are compiled.
+ * </p>
+ */
+@Component
+public class WarmUpWorkload {
+
+    private final PaymentMapper paymentMapper;
+    private final PaymentCodec paymentCodec;
+    private final JsonSerializer<Object> serializer = new JsonSerializer<>();
+    private final JsonDeserializer<Object> deserializer = new JsonDeserializer<>();
+    private final String orderTopic;
+    private final String paymentTopic;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private long sink;
+
+    public WarmUpWorkload(PaymentMapper paymentMapper,
+                          PaymentCodec paymentCodec,
+                          ProducerFactory<String, Object> producerFactory,
+                          ConsumerFactory<String, Object> consumerFactory,
+                          @Value("${spring.kafka.topic.order-events}") String orderTopic,
+                          @Value("${spring.kafka.topic.payment-events}") String paymentTopic) {
+        this.paymentMapper = paymentMapper;
+        this.paymentCodec = paymentCodec;
+        this.orderTopic = orderTopic;
+        this.paymentTopic = paymentTopic;
+        serializer.configure(producerFactory.getConfigurationProperties(), false);
+        deserializer.configure(consumerFactory.getConfigurationProperties(), false);
+    }
+
+    /**
+     * Runs one synthetic payment through all warm-up paths.
+     */
+    public void runOnce() {
+        RecordHeaders headers = new RecordHeaders();
+        byte[] orderBytes = serializer.serialize(orderTopic, headers, syntheticOrder());
+        OrderCreatedEvent order = (OrderCreatedEvent) deserializer.deserialize(orderTopic, headers, orderBytes);
+
+        Payment payment = paymentMapper.toEntity(PaymentCreateRequestDto.builder()
+                .orderId(order.getOrderId())
+                .userId(order.getUserId())
+                .paymentAmount(order.getTotalAmount())
+                .build());
+        payment.setId(new ObjectId().toHexString());
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setTimestamp(LocalDateTime.now());
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        paymentCodec.encode(new BsonBinaryWriter(buffer), payment, EncoderContext.builder().build());
+        Payment read = paymentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(buffer.toByteArray())),
+                DecoderContext.builder().build());
+        read.setStatus(random.nextBoolean() ? PaymentStatus.SUCCESS : PaymentStatus.FAILED);
+        PaymentResponseDto response = paymentMapper.toDto(read);
+
+        byte[] paymentBytes = serializer.serialize(paymentTopic, new RecordHeaders(), PaymentCreatedEvent.builder()
+                .paymentId(response.getId())
+                .orderId(response.getOrderId())
+                .userId(response.getUserId())
+                .amount(response.getPaymentAmount())
+                .status(response.getStatus())
+                .build());
+
+        sink += buffer.getPosition() + paymentBytes.length;
+    }
+
+    /**
+     * @return the accumulated sink value; only meaningful to keep the work observable
+     */
+    public long sink() {
+        return sink;
+    }
+
+    private OrderCreatedEvent syntheticOrder() {
+        int itemCount = 1 + random.nextInt(5);
+        List<OrderItemEvent> items = new ArrayList<>(itemCount);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            int quantity = 1 + random.nextInt(3);
+            items.add(OrderItemEvent.builder()
+                    .itemId(random.nextLong(1, 10_000))
+                    .itemName("warm-up-" + i)
+                    .price(price)
+                    .quantity(quantity)
+                    .build());
+            total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+        }
+        return OrderCreatedEvent.builder()
+                .orderId(random.nextLong(1, Long.MAX_VALUE))
+                .userId(random.nextLong(1, 1_000_000))
+                .status(OrderStatus.PAYMENT_PENDING)
+                .totalAmount(total)
+                .items(items)
+                .build();
+    }
+}
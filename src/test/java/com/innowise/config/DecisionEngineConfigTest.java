@@ -0,0 +1,72 @@
+package com.innowise.config;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.DecisionEngineType;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.RandomNumberClient;
+import com.innowise.service.impl.LocalPaymentDecisionEngine;
+import com.innowise.service.impl.RemotePaymentDecisionEngine;
+import com.innowise.service.impl.RiskScreeningDecisionEngine;
+import com.innowise.service.impl.SeededPaymentDecisionEngine;
+import com.innowise.service.risk.RiskEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DecisionEngineConfigTest {
+
+    private DecisionProperties decisionProperties;
+    private RandomApiProperties randomApiProperties;
+    private RandomNumberClient randomNumberClient;
+    private RiskEngine riskEngine;
+    private DecisionEngineConfig config;
+
+    @BeforeEach
+    void setUp() {
+        decisionProperties = new DecisionProperties();
+        randomApiProperties = new RandomApiProperties();
+        randomApiProperties.setMin(100);
+        randomApiProperties.setMax(1000);
+        randomNumberClient = mock(RandomNumberClient.class);
+        riskEngine = mock(RiskEngine.class);
+        config = new DecisionEngineConfig(decisionProperties, randomApiProperties);
+    }
+
+    @Test
+    void paymentDecisionEngine_shouldDefaultToRemote() {
+        when(randomNumberClient.generateRandomNumber()).thenReturn(42);
+
+        var engine = config.paymentDecisionEngine(randomNumberClient, riskEngine);
+
+        assertThat(engine).isInstanceOf(RemotePaymentDecisionEngine.class);
+        assertThat(engine.decide(OrderCreatedEvent.builder().orderId(1L).build())).isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    @Test
+    void paymentDecisionEngine_shouldCreateLocalEngine() {
+        decisionProperties.setEngine(DecisionEngineType.LOCAL);
+
+        assertThat(config.paymentDecisionEngine(randomNumberClient, riskEngine)).isInstanceOf(LocalPaymentDecisionEngine.class);
+        verifyNoInteractions(randomNumberClient);
+    }
+
+    @Test
+    void paymentDecisionEngine_shouldCreateSeededEngine() {
+        decisionProperties.setEngine(DecisionEngineType.SEEDED);
+
+        assertThat(config.paymentDecisionEngine(randomNumberClient, riskEngine)).isInstanceOf(SeededPaymentDecisionEngine.class);
+    }
+
+    @Test
+    void paymentDecisionEngine_shouldScreenWithRiskEngine_whenEnabled() {
+        decisionProperties.setEngine(DecisionEngineType.LOCAL);
+        when(riskEngine.isEnabled()).thenReturn(true);
+
+        assertThat(config.paymentDecisionEngine(randomNumberClient, riskEngine))
+                .isInstanceOf(RiskScreeningDecisionEngine.class);
+    }
+}
@@ -5,12 +5,16 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.RecordInterceptor;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 
 class KafkaConfigTest {
@@ -92,12 +96,66 @@ class KafkaConfigTest {
     void kafkaListenerContainerFactory_shouldCreateFactory() {
         ConsumerFactory<String, Object> consumerFactory = kafkaConfig.consumerFactory();
         DefaultErrorHandler errorHandler = mock(DefaultErrorHandler.class);
+        ObjectProvider<RecordInterceptor<String, Object>> recordInterceptor = mock(ObjectProvider.class);
+        KafkaTemplate<String, Object> kafkaTemplate = kafkaConfig.kafkaTemplate(kafkaConfig.producerFactory());
 
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = kafkaConfig
-                .kafkaListenerContainerFactory(consumerFactory, errorHandler);
+                .kafkaListenerContainerFactory(consumerFactory, errorHandler, recordInterceptor, kafkaTemplate);
 
         assertThat(factory).isNotNull();
         assertThat(factory.getConsumerFactory()).isEqualTo(consumerFactory);
+        assertThat(factory.getContainerProperties().getKafkaAwareTransactionManager()).isNull();
+    }
+
+    @Test
+    void producerFactory_shouldEnableIdempotence() {
+        ProducerFactory<String, Object> producerFactory = kafkaConfig.producerFactory();
+
+        assertThat(producerFactory.getConfigurationProperties())
+                .containsEntry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        assertThat(producerFactory.transactionCapable()).isFalse();
+    }
+
+    @Test
+    void transactionsEnabled_shouldConfigureTransactionalProducerAndContainer() {
+        ReflectionTestUtils.setField(kafkaConfig, "transactionsEnabled", true);
+        ReflectionTestUtils.setField(kafkaConfig, "transactionalIdPrefix", "payment-tx-pod-1-");
+
+        ProducerFactory<String, Object> producerFactory = kafkaConfig.producerFactory();
+        KafkaTemplate<String, Object> kafkaTemplate = kafkaConfig.kafkaTemplate(producerFactory);
+        ConsumerFactory<String, Object> consumerFactory = kafkaConfig.consumerFactory();
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = kafkaConfig.kafkaListenerContainerFactory(
+                consumerFactory, mock(DefaultErrorHandler.class), mock(ObjectProvider.class), kafkaTemplate);
+
+        assertThat(producerFactory.transactionCapable()).isTrue();
+        assertThat(producerFactory.getTransactionIdPrefix()).isEqualTo("payment-tx-pod-1-");
+        assertThat(kafkaTemplate.isAllowNonTransactional()).isTrue();
+        assertThat(consumerFactory.getConfigurationProperties())
+                .containsEntry(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        assertThat(factory.getContainerProperties().getKafkaAwareTransactionManager()).isNotNull();
+    }
+
+    @Test
+    void pipelineEnabled_shouldAcknowledgeManually() {
+        ReflectionTestUtils.setField(kafkaConfig, "pipelineEnabled", true);
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = kafkaConfig.kafkaListenerContainerFactory(
+                kafkaConfig.consumerFactory(), mock(DefaultErrorHandler.class), mock(ObjectProvider.class),
+                kafkaConfig.kafkaTemplate(kafkaConfig.producerFactory()));
+
+        assertThat(factory.getContainerProperties().getAckMode()).isEqualTo(ContainerProperties.AckMode.MANUAL);
+    }
+
+    @Test
+    void pipelineEnabled_shouldRejectTransactions() {
+        ReflectionTestUtils.setField(kafkaConfig, "pipelineEnabled", true);
+        ReflectionTestUtils.setField(kafkaConfig, "transactionsEnabled", true);
+        KafkaTemplate<String, Object> kafkaTemplate = kafkaConfig.kafkaTemplate(kafkaConfig.producerFactory());
+        ConsumerFactory<String, Object> consumerFactory = kafkaConfig.consumerFactory();
+
+        assertThatThrownBy(() -> kafkaConfig.kafkaListenerContainerFactory(consumerFactory,
+                mock(DefaultErrorHandler.class), mock(ObjectProvider.class), kafkaTemplate))
+                .isInstanceOf(IllegalStateException.class);
     }
 
     @Test
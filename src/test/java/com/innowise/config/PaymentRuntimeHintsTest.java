@@ -0,0 +1,47 @@
+package com.innowise.config;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.service.kafka.TimedJsonDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentRuntimeHintsTest {
+
+    private RuntimeHints hints;
+
+    @BeforeEach
+    void setUp() {
+        hints = new RuntimeHints();
+        new PaymentRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registerHints_shouldRegisterEventBinding() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(OrderCreatedEvent.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(PaymentCreatedEvent.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+    }
+
+    @Test
+    void registerHints_shouldRegisterTypesResolvedByName() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(TimedJsonDeserializer.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(Duration.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)).accepts(hints);
+    }
+
+    @Test
+    void registerHints_shouldRegisterChangelogResources() {
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/changelog/db.changelog-master.xml"))
+                .accepts(hints);
+    }
+}
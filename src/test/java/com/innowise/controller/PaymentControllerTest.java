@@ -0,0 +1,122 @@
+package com.innowise.controller;
+
+import com.innowise.model.dto.BulkStatusUpdateResponseDto;
+import com.innowise.model.enums.BulkUpdateOutcome;
+import com.innowise.model.enums.ExportFormat;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.PaymentService;
+import com.innowise.service.export.PaymentExporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentControllerTest {
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private PaymentExporter paymentExporter;
+
+    @InjectMocks
+    private PaymentController paymentController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(paymentController).build();
+    }
+
+    @Test
+    void updatePaymentStatuses_shouldReturnPerIdOutcomes() throws Exception {
+        Map<String, PaymentStatus> statuses = Map.of("payment-1", PaymentStatus.SUCCESS);
+        when(paymentService.updatePaymentStatuses(statuses)).thenReturn(BulkStatusUpdateResponseDto.builder()
+                .requested(1)
+                .updated(1)
+                .outcomes(Map.of("payment-1", BulkUpdateOutcome.UPDATED))
+                .build());
+
+        mockMvc.perform(patch("/api/v1/payments/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"statuses\":{\"payment-1\":\"SUCCESS\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.outcomes.payment-1").value("UPDATED"));
+
+        verify(paymentService).updatePaymentStatuses(statuses);
+    }
+
+    @Test
+    void updatePaymentStatuses_shouldRejectEmptyRequest() throws Exception {
+        mockMvc.perform(patch("/api/v1/payments/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"statuses\":{}}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportPayments_shouldStreamAttachment() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 5, 2, 0, 0);
+        when(paymentExporter.export(eq(from), eq(to), eq(ExportFormat.CSV), eq(false), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<OutputStream>getArgument(4).write("id\n".getBytes(StandardCharsets.UTF_8));
+                    return 0L;
+                });
+
+        MvcResult result = mockMvc.perform(get("/api/v1/payments/export")
+                        .param("from", "2024-05-01T00:00:00")
+                        .param("to", "2024-05-02T00:00:00")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        containsString("payments-20240501T000000-20240502T000000.csv")))
+                .andExpect(content().string("id\n"));
+    }
+
+    @Test
+    void exportPayments_shouldRejectEmptyRange() throws Exception {
+        mockMvc.perform(get("/api/v1/payments/export")
+                        .param("from", "2024-05-02T00:00:00")
+                        .param("to", "2024-05-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(paymentExporter);
+    }
+}
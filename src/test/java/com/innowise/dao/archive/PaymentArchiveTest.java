@@ -0,0 +1,200 @@
+package com.innowise.dao.archive;
+
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.MoneyRepresentation;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentArchiveTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private MongoCollection<Payment> payments;
+
+    @Mock
+    private FindIterable<Payment> findIterable;
+
+    @Mock
+    private MongoCursor<Payment> cursor;
+
+    private PaymentArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = new PaymentArchive(mongoTemplate, new PaymentCodec(MoneyRepresentation.DECIMAL128, 2),
+                ZoneOffset.UTC);
+    }
+
+    @Test
+    void collectionName_shouldSuffixYearAndMonth() {
+        assertThat(PaymentArchive.collectionName(YearMonth.of(2024, 3))).isEqualTo("payments_archive_2024_03");
+    }
+
+    @Test
+    void months_shouldListArchiveCollectionsNewestFirst() {
+        when(mongoTemplate.getCollectionNames()).thenReturn(Set.of("payments", "payments_archive_2023_12",
+                "payments_archive_2024_02", "payments_archive_backup", "leases"));
+
+        assertThat(archive.months()).containsExactly(YearMonth.of(2024, 2), YearMonth.of(2023, 12));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void upsertAll_shouldReplaceByIdInOneBulkWrite() {
+        stubCollection("payments_archive_2024_05");
+        List<Payment> batch = List.of(Payment.builder().id("payment-1").build(),
+                Payment.builder().id("payment-2").build());
+
+        archive.upsertAll(YearMonth.of(2024, 5), batch);
+
+        ArgumentCaptor<List<WriteModel<Payment>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(payments).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        assertThat(writes.getValue()).hasSize(2)
+                .allMatch(write -> ((ReplaceOneModel<Payment>) write).getReplaceOptions().isUpsert());
+    }
+
+    @Test
+    void upsertAll_shouldDoNothing_whenEmpty() {
+        archive.upsertAll(YearMonth.of(2024, 5), List.of());
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void findById_shouldLookInMonthOfObjectIdFirst() {
+        ObjectId id = objectIdAt(LocalDateTime.of(2024, 5, 10, 12, 0));
+        Payment payment = Payment.builder().id(id.toHexString()).build();
+        stubCollection("payments_archive_2024_05");
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(payment);
+
+        assertThat(archive.findById(id.toHexString())).contains(payment);
+
+        verify(mongoTemplate, times(1)).execute(anyString(), any(CollectionCallback.class));
+        verify(mongoTemplate, never()).getCollectionNames();
+    }
+
+    @Test
+    void findById_shouldTryNeighbouringMonths_whenNotInMonthOfObjectId() {
+        ObjectId id = objectIdAt(LocalDateTime.of(2024, 5, 1, 0, 0, 5));
+        Payment payment = Payment.builder().id(id.toHexString()).build();
+        stubAnyCollection();
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(null, payment);
+
+        assertThat(archive.findById(id.toHexString())).contains(payment);
+
+        verify(mongoTemplate).execute(eq("payments_archive_2024_05"), any(CollectionCallback.class));
+        verify(mongoTemplate).execute(eq("payments_archive_2024_04"), any(CollectionCallback.class));
+        verify(mongoTemplate, never()).execute(eq("payments_archive_2024_06"), any(CollectionCallback.class));
+    }
+
+    @Test
+    void findById_shouldSearchEveryMonth_whenIdIsNotAnObjectId() {
+        when(mongoTemplate.getCollectionNames())
+                .thenReturn(Set.of("payments_archive_2024_01", "payments_archive_2024_02"));
+        stubAnyCollection();
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+
+        assertThat(archive.findById("legacy-1")).isEmpty();
+
+        verify(mongoTemplate).execute(eq("payments_archive_2024_02"), any(CollectionCallback.class));
+        verify(mongoTemplate).execute(eq("payments_archive_2024_01"), any(CollectionCallback.class));
+    }
+
+    @Test
+    void monthsBetween_shouldListOverlappingMonthsOldestFirst() {
+        when(mongoTemplate.getCollectionNames()).thenReturn(Set.of("payments_archive_2023_12",
+                "payments_archive_2024_01", "payments_archive_2024_02", "payments_archive_2024_03"));
+
+        assertThat(archive.monthsBetween(LocalDateTime.of(2024, 1, 20, 0, 0), LocalDateTime.of(2024, 3, 1, 0, 0)))
+                .containsExactly(YearMonth.of(2024, 1), YearMonth.of(2024, 2));
+    }
+
+    @Test
+    void streamBetween_shouldPassPaymentsInBatchesAndCloseCursor() {
+        Payment first = Payment.builder().id("payment-1").build();
+        Payment second = Payment.builder().id("payment-2").build();
+        Payment third = Payment.builder().id("payment-3").build();
+        stubCollection("payments_archive_2024_02");
+        when(payments.withReadPreference(ReadPreference.secondaryPreferred())).thenReturn(payments);
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.allowDiskUse(true)).thenReturn(findIterable);
+        when(findIterable.batchSize(2)).thenReturn(findIterable);
+        when(findIterable.cursor()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(first, second, third);
+        List<List<Payment>> batches = new ArrayList<>();
+
+        archive.streamBetween(YearMonth.of(2024, 2), LocalDateTime.of(2024, 2, 1, 0, 0),
+                LocalDateTime.of(2024, 3, 1, 0, 0), ReadPreference.secondaryPreferred(), 2,
+                batch -> batches.add(List.copyOf(batch)));
+
+        assertThat(batches).containsExactly(List.of(first, second), List.of(third));
+        verify(cursor).close();
+    }
+
+    @Test
+    void drop_shouldDropCollectionOfMonth() {
+        archive.drop(YearMonth.of(2023, 1));
+
+        verify(mongoTemplate).dropCollection("payments_archive_2023_01");
+    }
+
+    private static ObjectId objectIdAt(LocalDateTime time) {
+        return new ObjectId(Date.from(time.toInstant(ZoneOffset.UTC)));
+    }
+
+    private void stubCollection(String name) {
+        when(mongoTemplate.execute(eq(name), any(CollectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<CollectionCallback<?>>getArgument(1).doInCollection(collection));
+        when(collection.withCodecRegistry(any(CodecRegistry.class))).thenReturn(collection);
+        when(collection.withDocumentClass(Payment.class)).thenReturn(payments);
+    }
+
+    private void stubAnyCollection() {
+        when(mongoTemplate.execute(anyString(), any(CollectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<CollectionCallback<?>>getArgument(1).doInCollection(collection));
+        when(collection.withCodecRegistry(any(CodecRegistry.class))).thenReturn(collection);
+        when(collection.withDocumentClass(Payment.class)).thenReturn(payments);
+    }
+}
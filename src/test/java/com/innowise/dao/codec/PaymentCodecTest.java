@@ -0,0 +1,149 @@
+package com.innowise.dao.codec;
+
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.MoneyRepresentation;
+import com.innowise.model.enums.PaymentStatus;
+import org.bson.BsonDateTime;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentCodecTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000);
+
+    private final PaymentCodec codec = new PaymentCodec(MoneyRepresentation.DECIMAL128, 2, ZoneOffset.UTC);
+
+    @Test
+    void encode_shouldWriteShortFieldNamesWithoutClass() {
+        String id = new ObjectId().toHexString();
+
+        BsonDocument document = encode(codec, payment(id));
+
+        assertThat(document.keySet()).containsExactly("_id", "o", "u", "s", "t", "a");
+        assertThat(document.get("_id")).isEqualTo(new BsonObjectId(new ObjectId(id)));
+        assertThat(document.get("o")).isEqualTo(new BsonInt64(1001L));
+        assertThat(document.get("s")).isEqualTo(new BsonString("SUCCESS"));
+        assertThat(document.get("t")).isEqualTo(new BsonDateTime(TIMESTAMP.toInstant(ZoneOffset.UTC).toEpochMilli()));
+        assertThat(document.get("a")).isEqualTo(new BsonDecimal128(new Decimal128(new BigDecimal("150.25"))));
+    }
+
+    @Test
+    void encode_shouldWriteMinorUnits_whenMinorUnitsMode() {
+        PaymentCodec minorUnits = new PaymentCodec(MoneyRepresentation.MINOR_UNITS, 2, ZoneOffset.UTC);
+
+        BsonDocument document = encode(minorUnits, payment("payment-1"));
+
+        assertThat(document.get("_id")).isEqualTo(new BsonString("payment-1"));
+        assertThat(document.get("a")).isEqualTo(new BsonInt64(15025L));
+        assertThat(decode(minorUnits, document).getPaymentAmount()).isEqualTo(new BigDecimal("150.25"));
+    }
+
+    @Test
+    void encode_shouldSkipNullFields() {
+        BsonDocument document = encode(codec, Payment.builder().orderId(1L).build());
+
+        assertThat(document.keySet()).containsExactly("o");
+    }
+
+    @Test
+    void decode_shouldRoundTripEncodedPayment() {
+        Payment payment = payment(new ObjectId().toHexString());
+
+        assertThat(decode(codec, encode(codec, payment))).isEqualTo(payment);
+    }
+
+    @Test
+    void encode_shouldWriteVersionAsInt64() {
+        Payment payment = payment("payment-1");
+        payment.setVersion(3L);
+
+        BsonDocument document = encode(codec, payment);
+
+        assertThat(document.get("v")).isEqualTo(new BsonInt64(3L));
+        assertThat(decode(codec, document).getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void decode_shouldReadDocumentsWrittenByMappingConverter() {
+        String id = new ObjectId().toHexString();
+        BsonDocument legacy = new BsonDocument("_id", new BsonObjectId(new ObjectId(id)))
+                .append("orderId", new BsonInt64(1001L))
+                .append("userId", new BsonInt64(2002L))
+                .append("status", new BsonString("SUCCESS"))
+                .append("timestamp", new BsonDateTime(TIMESTAMP.toInstant(ZoneOffset.UTC).toEpochMilli()))
+                .append("payment_amount", new BsonDecimal128(new Decimal128(new BigDecimal("150.25"))))
+                .append("_class", new BsonString("com.innowise.model.entity.Payment"));
+
+        assertThat(decode(codec, legacy)).isEqualTo(payment(id));
+    }
+
+    @Test
+    void toBsonDate_shouldMatchEncodedTimestamp() {
+        BsonDocument document = encode(codec, payment("payment-1"));
+
+        assertThat(codec.toBsonDate(TIMESTAMP)).isEqualTo(document.get("t"));
+    }
+
+    @Test
+    void generateIdIfAbsentFromDocument_shouldAssignObjectId() {
+        Payment payment = codec.generateIdIfAbsentFromDocument(new Payment());
+
+        assertThat(codec.documentHasId(payment)).isTrue();
+        assertThat(ObjectId.isValid(payment.getId())).isTrue();
+        assertThat(codec.getDocumentId(payment)).isEqualTo(new BsonObjectId(new ObjectId(payment.getId())));
+    }
+
+    @Test
+    void fieldNames_shouldMatchEntityMapping() {
+        MongoPersistentEntity<?> entity = new MongoMappingContext().getRequiredPersistentEntity(Payment.class);
+
+        assertThat(entity.getRequiredPersistentProperty("id").getFieldName()).isEqualTo(PaymentCodec.ID);
+        assertThat(entity.getRequiredPersistentProperty("orderId").getFieldName()).isEqualTo(PaymentCodec.ORDER_ID);
+        assertThat(entity.getRequiredPersistentProperty("userId").getFieldName()).isEqualTo(PaymentCodec.USER_ID);
+        assertThat(entity.getRequiredPersistentProperty("status").getFieldName()).isEqualTo(PaymentCodec.STATUS);
+        assertThat(entity.getRequiredPersistentProperty("timestamp").getFieldName())
+                .isEqualTo(PaymentCodec.TIMESTAMP);
+        assertThat(entity.getRequiredPersistentProperty("paymentAmount").getFieldName())
+                .isEqualTo(PaymentCodec.AMOUNT);
+        assertThat(entity.getRequiredPersistentProperty("version").getFieldName()).isEqualTo(PaymentCodec.VERSION);
+    }
+
+    private static Payment payment(String id) {
+        return Payment.builder()
+                .id(id)
+                .orderId(1001L)
+                .userId(2002L)
+                .status(PaymentStatus.SUCCESS)
+                .timestamp(TIMESTAMP)
+                .paymentAmount(new BigDecimal("150.25"))
+                .build();
+    }
+
+    private static BsonDocument encode(PaymentCodec codec, Payment payment) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), payment, EncoderContext.builder().build());
+        return document;
+    }
+
+    private static Payment decode(PaymentCodec codec, BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,55 @@
+package com.innowise.dao.converter;
+
+import com.innowise.model.enums.MoneyRepresentation;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.converter.Converter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyConvertersTest {
+
+    @Test
+    void decimal128Converters_shouldRoundTripAmount() {
+        BigDecimal amount = new BigDecimal("150.25");
+
+        Decimal128 stored = new MoneyConverters.BigDecimalToDecimal128Converter().convert(amount);
+        BigDecimal read = new MoneyConverters.Decimal128ToBigDecimalConverter().convert(stored);
+
+        assertThat(stored).isEqualTo(new Decimal128(amount));
+        assertThat(read).isEqualByComparingTo(amount);
+    }
+
+    @Test
+    void minorUnitsConverters_shouldRoundTripAmount() {
+        BigDecimal amount = new BigDecimal("150.25");
+
+        Long stored = new MoneyConverters.BigDecimalToMinorUnitsConverter(2).convert(amount);
+        BigDecimal read = new MoneyConverters.MinorUnitsToBigDecimalConverter(2).convert(stored);
+
+        assertThat(stored).isEqualTo(15025L);
+        assertThat(read).isEqualTo(new BigDecimal("150.25"));
+    }
+
+    @Test
+    void forRepresentation_shouldWriteDecimal128_whenDecimal128Mode() {
+        List<Converter<?, ?>> converters = MoneyConverters.forRepresentation(MoneyRepresentation.DECIMAL128, 2);
+
+        assertThat(converters)
+                .hasAtLeastOneElementOfType(MoneyConverters.BigDecimalToDecimal128Converter.class)
+                .noneMatch(MoneyConverters.BigDecimalToMinorUnitsConverter.class::isInstance);
+    }
+
+    @Test
+    void forRepresentation_shouldWriteMinorUnits_whenMinorUnitsMode() {
+        List<Converter<?, ?>> converters = MoneyConverters.forRepresentation(MoneyRepresentation.MINOR_UNITS, 2);
+
+        assertThat(converters)
+                .hasAtLeastOneElementOfType(MoneyConverters.BigDecimalToMinorUnitsConverter.class)
+                .hasAtLeastOneElementOfType(MoneyConverters.Decimal128ToBigDecimalConverter.class)
+                .noneMatch(MoneyConverters.BigDecimalToDecimal128Converter.class::isInstance);
+    }
+}
@@ -0,0 +1,74 @@
+package com.innowise.dao.lease;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoLeaseTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private MongoLease lease;
+
+    @BeforeEach
+    void setUp() {
+        lease = new MongoLease(mongoTemplate, "sweeper", "pod-a", Duration.ofMinutes(1),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void tryAcquire_shouldUpsertOwnerAndExpiry_whenFreeOrOwned() {
+        assertThat(lease.tryAcquire()).isTrue();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(MongoLease.COLLECTION));
+        assertThat(query.getValue().getQueryObject().get("_id")).isEqualTo("sweeper");
+        assertThat(query.getValue().getQueryObject()).containsKey("$or");
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertThat(set.get(MongoLease.OWNER)).isEqualTo("pod-a");
+        assertThat(set.get(MongoLease.EXPIRES_AT)).isEqualTo(Date.from(NOW.plusSeconds(60)));
+    }
+
+    @Test
+    void tryAcquire_shouldFail_whenHeldByAnotherOwner() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MongoLease.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertThat(lease.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void release_shouldRemoveOnlyOwnLease() {
+        lease.release();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(query.capture(), eq(MongoLease.COLLECTION));
+        assertThat(query.getValue().getQueryObject())
+                .containsEntry("_id", "sweeper")
+                .containsEntry(MongoLease.OWNER, "pod-a");
+    }
+}
@@ -0,0 +1,74 @@
+package com.innowise.dao.migration;
+
+import com.innowise.config.MoneyProperties;
+import com.innowise.model.enums.MoneyRepresentation;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AmountRepresentationCheckerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> payments;
+
+    @Mock
+    private FindIterable<Document> findIterable;
+
+    private MoneyProperties moneyProperties;
+    private AmountRepresentationChecker checker;
+
+    @BeforeEach
+    void setUp() {
+        moneyProperties = new MoneyProperties();
+        checker = new AmountRepresentationChecker(mongoTemplate, moneyProperties);
+        when(mongoTemplate.getCollection("payments")).thenReturn(payments);
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.projection(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.limit(1)).thenReturn(findIterable);
+    }
+
+    @Test
+    void afterPropertiesSet_shouldReject_whenMinorUnitsMeetDecimal128Amounts() {
+        moneyProperties.setRepresentation(MoneyRepresentation.MINOR_UNITS);
+        when(findIterable.first()).thenReturn(new Document("_id", "payment-1"));
+
+        assertThatThrownBy(() -> checker.afterPropertiesSet())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("MINOR_UNITS")
+                .hasMessageContaining("DECIMAL128");
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(payments).find(filter.capture());
+        assertThat(filter.getValue().toBsonDocument().getDocument("a").getInt32("$type").getValue())
+                .isEqualTo(19);
+    }
+
+    @Test
+    void afterPropertiesSet_shouldPass_whenAmountsMatchRepresentation() {
+        when(findIterable.first()).thenReturn(null);
+
+        assertThatCode(() -> checker.afterPropertiesSet()).doesNotThrowAnyException();
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(payments).find(filter.capture());
+        assertThat(filter.getValue().toBsonDocument().getDocument("a").getInt32("$type").getValue())
+                .isEqualTo(18);
+    }
+}
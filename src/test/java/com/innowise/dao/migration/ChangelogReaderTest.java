@@ -0,0 +1,33 @@
+package com.innowise.dao.migration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangelogReaderTest {
+
+    @Test
+    void read_shouldFollowIncludesInOrder() {
+        List<ChangeSetId> changeSets = ChangelogReader.read("classpath:db/changelog/db.changelog-master.xml");
+
+        assertThat(changeSets).extracting(ChangeSetId::id).containsExactly(
+                "create-payments-collection",
+                "create-payments-indexes",
+                "convert-payment-amount-to-decimal128",
+                "shorten-payment-field-names",
+                "add-payment-version",
+                "add-status-timestamp-index");
+        assertThat(changeSets).extracting(ChangeSetId::author).containsOnly("payment-service");
+        assertThat(changeSets.get(0).file()).isEqualTo("db/changelog/db.changelog-1.0-create-collection.xml");
+    }
+
+    @Test
+    void read_shouldFail_whenChangelogMissing() {
+        assertThatThrownBy(() -> ChangelogReader.read("db/changelog/missing.xml"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("missing.xml");
+    }
+}
@@ -0,0 +1,111 @@
+package com.innowise.dao.migration;
+
+import com.innowise.config.MigrationProperties;
+import com.innowise.model.enums.MigrationMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SchemaMigrationRunnerTest {
+
+    private static final ChangeSetId PENDING = new ChangeSetId("create-payments-indexes", "payment-service",
+            "db/changelog/db.changelog-2.0-add-indexes.xml");
+
+    @Mock
+    private SchemaVersionChecker schemaVersionChecker;
+
+    @Mock
+    private LiquibaseMigrator liquibaseMigrator;
+
+    @Mock
+    private ConfigurableApplicationContext applicationContext;
+
+    private MigrationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger exitCode;
+    private SchemaMigrationRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MigrationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        exitCode = new AtomicInteger(-1);
+        runner = new SchemaMigrationRunner(properties, schemaVersionChecker, liquibaseMigrator,
+                applicationContext, meterRegistry, exitCode::set);
+    }
+
+    @Test
+    void verify_shouldPass_whenSchemaUpToDate() {
+        when(schemaVersionChecker.pendingChangeSets()).thenReturn(List.of());
+
+        runner.afterPropertiesSet();
+
+        verifyNoInteractions(liquibaseMigrator);
+        assertThat(meterRegistry.get("payment.schema.pending.changesets").gauge().value()).isZero();
+    }
+
+    @Test
+    void verify_shouldFailStartup_whenChangeSetsPending() {
+        when(schemaVersionChecker.pendingChangeSets()).thenReturn(List.of(PENDING));
+
+        assertThatThrownBy(runner::afterPropertiesSet)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("create-payments-indexes");
+        verifyNoInteractions(liquibaseMigrator);
+    }
+
+    @Test
+    void verify_shouldOnlyWarn_whenFailOnPendingDisabled() {
+        properties.setFailOnPending(false);
+        when(schemaVersionChecker.pendingChangeSets()).thenReturn(List.of(PENDING));
+
+        runner.afterPropertiesSet();
+
+        assertThat(meterRegistry.get("payment.schema.pending.changesets").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void migrate_shouldApplyChangelogAndKeepRunning() {
+        properties.setMode(MigrationMode.MIGRATE);
+
+        runner.afterPropertiesSet();
+        runner.run(new DefaultApplicationArguments());
+
+        verify(liquibaseMigrator).update();
+        verifyNoInteractions(schemaVersionChecker);
+        assertThat(exitCode.get()).isEqualTo(-1);
+    }
+
+    @Test
+    void migrateOnly_shouldApplyChangelogAndExit() {
+        properties.setMode(MigrationMode.MIGRATE_ONLY);
+
+        runner.afterPropertiesSet();
+        runner.run(new DefaultApplicationArguments());
+
+        verify(liquibaseMigrator).update();
+        assertThat(exitCode.get()).isZero();
+    }
+
+    @Test
+    void none_shouldSkipMigrationAndVerification() {
+        properties.setMode(MigrationMode.NONE);
+
+        runner.afterPropertiesSet();
+
+        verifyNoInteractions(liquibaseMigrator, schemaVersionChecker);
+    }
+}
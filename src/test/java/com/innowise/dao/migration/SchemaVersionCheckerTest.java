@@ -0,0 +1,81 @@
+package com.innowise.dao.migration;
+
+import com.innowise.config.MigrationProperties;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SchemaVersionCheckerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> historyCollection;
+
+    @Mock
+    private FindIterable<Document> findIterable;
+
+    @Mock
+    private MongoCursor<Document> cursor;
+
+    private SchemaVersionChecker checker;
+
+    @BeforeEach
+    void setUp() {
+        checker = new SchemaVersionChecker(mongoTemplate, new MigrationProperties());
+        when(mongoTemplate.getCollection("DATABASECHANGELOG")).thenReturn(historyCollection);
+        when(historyCollection.find()).thenReturn(findIterable);
+        when(findIterable.projection(any(Bson.class))).thenReturn(findIterable);
+    }
+
+    @Test
+    void pendingChangeSets_shouldBeEmpty_whenAllApplied() {
+        stubHistory(List.of(
+                record("create-payments-collection"),
+                record("create-payments-indexes"),
+                record("convert-payment-amount-to-decimal128"),
+                record("shorten-payment-field-names"),
+                record("add-payment-version"),
+                record("add-status-timestamp-index")));
+
+        assertThat(checker.pendingChangeSets()).isEmpty();
+    }
+
+    @Test
+    void pendingChangeSets_shouldListMissingChangeSets() {
+        stubHistory(List.of(record("create-payments-collection")));
+
+        assertThat(checker.pendingChangeSets()).extracting(ChangeSetId::id)
+                .containsExactly("create-payments-indexes", "convert-payment-amount-to-decimal128",
+                        "shorten-payment-field-names", "add-payment-version",
+                        "add-status-timestamp-index");
+    }
+
+    private void stubHistory(List<Document> records) {
+        Iterator<Document> iterator = records.iterator();
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    }
+
+    private static Document record(String id) {
+        return new Document("id", id).append("author", "payment-service");
+    }
+}
@@ -0,0 +1,594 @@
+package com.innowise.dao.repository;
+
+import com.innowise.dao.archive.PaymentArchive;
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.BulkUpdateOutcome;
+import com.innowise.model.enums.MoneyRepresentation;
+import com.innowise.model.enums.PaymentStatus;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.DistinctIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private MongoCollection<Payment> payments;
+
+    @Mock
+    private FindIterable<Payment> findIterable;
+
+    @Mock
+    private MongoCursor<Payment> cursor;
+
+    @Mock
+    private DistinctIterable<Long> distinctOrders;
+
+    @Mock
+    private DistinctIterable<BsonValue> distinctIds;
+
+    @Mock
+    private PaymentArchive paymentArchive;
+
+    @Mock
+    private ChangeStreamIterable<Payment> changeStream;
+
+    @Mock
+    private MongoChangeStreamCursor<ChangeStreamDocument<Payment>> changeCursor;
+
+    private PaymentRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new PaymentRepositoryCustomImpl(mongoTemplate,
+                new PaymentCodec(MoneyRepresentation.DECIMAL128, 2), paymentArchive);
+    }
+
+    @Test
+    void updateStatuses_shouldUpdateExistingAndReportMissing() {
+        Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+        statuses.put("payment-1", PaymentStatus.SUCCESS);
+        statuses.put("payment-2", PaymentStatus.FAILED);
+
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class)))
+                .thenReturn(List.of(Payment.builder().id("payment-1").status(PaymentStatus.PENDING).build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class)).thenReturn(bulkOperations);
+
+        Map<String, BulkUpdateOutcome> outcomes = repository.updateStatuses(statuses).outcomes();
+
+        assertThat(outcomes)
+                .containsEntry("payment-1", BulkUpdateOutcome.UPDATED)
+                .containsEntry("payment-2", BulkUpdateOutcome.NOT_FOUND);
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    void updateStatuses_shouldIncrementVersionAndRejectFailedPayments() {
+        Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+        statuses.put("payment-1", PaymentStatus.FAILED);
+        statuses.put("payment-2", PaymentStatus.SUCCESS);
+
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class))).thenReturn(List.of(
+                Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).build(),
+                Payment.builder().id("payment-2").status(PaymentStatus.FAILED).build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class)).thenReturn(bulkOperations);
+
+        BulkStatusUpdate result = repository.updateStatuses(statuses);
+
+        assertThat(result.outcomes())
+                .containsEntry("payment-1", BulkUpdateOutcome.UPDATED)
+                .containsEntry("payment-2", BulkUpdateOutcome.REJECTED);
+        assertThat(result.rejectedFrom()).containsOnly(Map.entry("payment-2", PaymentStatus.FAILED));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(1)).updateOne(query.capture(), update.capture());
+        assertThat(query.getValue().getQueryObject().get("status", Document.class).get("$in", List.class))
+                .containsExactlyInAnyOrder("PENDING", "SUCCESS");
+        assertThat(update.getValue().getUpdateObject().get("$inc", Document.class)).containsEntry("version", 1);
+    }
+
+    @Test
+    void updateStatuses_shouldRejectTransitionsTheStateMachineForbids() {
+        Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+        statuses.put("payment-1", PaymentStatus.PENDING);
+        statuses.put("payment-2", PaymentStatus.PENDING);
+        statuses.put("payment-3", PaymentStatus.SUCCESS);
+
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class))).thenReturn(List.of(
+                Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).build(),
+                Payment.builder().id("payment-2").status(PaymentStatus.PENDING).build(),
+                Payment.builder().id("payment-3").status(PaymentStatus.SUCCESS).build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class)).thenReturn(bulkOperations);
+
+        BulkStatusUpdate result = repository.updateStatuses(statuses);
+
+        assertThat(result.outcomes()).containsOnly(
+                Map.entry("payment-1", BulkUpdateOutcome.REJECTED),
+                Map.entry("payment-2", BulkUpdateOutcome.REJECTED),
+                Map.entry("payment-3", BulkUpdateOutcome.REJECTED));
+        assertThat(result.rejectedFrom()).containsOnly(
+                Map.entry("payment-1", PaymentStatus.SUCCESS),
+                Map.entry("payment-2", PaymentStatus.PENDING),
+                Map.entry("payment-3", PaymentStatus.SUCCESS));
+        verify(bulkOperations, never()).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    void updateStatuses_shouldMapWriteErrorsToIds() {
+        Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+        statuses.put("payment-1", PaymentStatus.SUCCESS);
+        statuses.put("payment-2", PaymentStatus.SUCCESS);
+
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class))).thenReturn(List.of(
+                Payment.builder().id("payment-1").status(PaymentStatus.PENDING).build(),
+                Payment.builder().id("payment-2").status(PaymentStatus.PENDING).build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("failed",
+                List.of(new BulkWriteError(11000, "write error", new BsonDocument(), 1)),
+                BulkWriteResult.unacknowledged()));
+
+        Map<String, BulkUpdateOutcome> outcomes = repository.updateStatuses(statuses).outcomes();
+
+        assertThat(outcomes)
+                .containsEntry("payment-1", BulkUpdateOutcome.UPDATED)
+                .containsEntry("payment-2", BulkUpdateOutcome.FAILED);
+    }
+
+    @Test
+    void updateStatuses_shouldSkipBulkWrite_whenNothingExists() {
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class))).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class)).thenReturn(bulkOperations);
+
+        Map<String, BulkUpdateOutcome> outcomes = repository.updateStatuses(Map.of("missing", PaymentStatus.FAILED))
+                .outcomes();
+
+        assertThat(outcomes).containsEntry("missing", BulkUpdateOutcome.NOT_FOUND);
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void upsertAll_shouldReplaceByIdKeepingLastOccurrence() {
+        Payment first = Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).build();
+        Payment second = Payment.builder().id("payment-2").status(PaymentStatus.SUCCESS).build();
+        Payment firstFailed = Payment.builder().id("payment-1").status(PaymentStatus.FAILED).build();
+        stubPaymentsCollection();
+
+        repository.upsertAll(List.of(first, second, firstFailed));
+
+        ArgumentCaptor<List<WriteModel<Payment>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(payments).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        assertThat(writes.getValue())
+                .map(write -> ((ReplaceOneModel<Payment>) write).getReplacement())
+                .containsExactly(firstFailed, second);
+        assertThat(writes.getValue())
+                .allMatch(write -> ((ReplaceOneModel<Payment>) write).getReplaceOptions().isUpsert());
+        verifyNoInteractions(bulkOperations);
+    }
+
+    @Test
+    void upsertAll_shouldDoNothing_whenEmpty() {
+        repository.upsertAll(List.of());
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void save_shouldInsertWithCodec_whenIdMissing() {
+        Payment payment = Payment.builder().orderId(1L).paymentAmount(new BigDecimal("10.00")).build();
+        stubPaymentsCollection();
+
+        Payment saved = repository.save(payment);
+
+        assertThat(saved).isSameAs(payment);
+        assertThat(saved.getVersion()).isZero();
+        verify(payments).insertOne(payment);
+        verify(payments, never()).replaceOne(any(Bson.class), any(Payment.class), any(ReplaceOptions.class));
+    }
+
+    @Test
+    void save_shouldUpsertById_whenIdPresent() {
+        Payment payment = Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).build();
+        stubPaymentsCollection();
+
+        repository.save(payment);
+
+        ArgumentCaptor<ReplaceOptions> options = ArgumentCaptor.forClass(ReplaceOptions.class);
+        verify(payments).replaceOne(any(Bson.class), eq(payment), options.capture());
+        assertThat(options.getValue().isUpsert()).isTrue();
+        verify(payments, never()).insertOne(any(Payment.class));
+    }
+
+    @Test
+    void save_shouldReplaceOnVersionAndIncrementIt_whenVersioned() {
+        Payment payment = Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).version(2L).build();
+        stubPaymentsCollection();
+        when(payments.replaceOne(any(Bson.class), eq(payment))).thenReturn(UpdateResult.acknowledged(1L, 1L, null));
+
+        repository.save(payment);
+
+        assertThat(payment.getVersion()).isEqualTo(3L);
+        verify(payments, never()).replaceOne(any(Bson.class), any(Payment.class), any(ReplaceOptions.class));
+    }
+
+    @Test
+    void save_shouldThrowAndKeepVersion_whenVersionIsStale() {
+        Payment payment = Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).version(2L).build();
+        stubPaymentsCollection();
+        when(payments.replaceOne(any(Bson.class), eq(payment))).thenReturn(UpdateResult.acknowledged(0L, 0L, null));
+
+        assertThatThrownBy(() -> repository.save(payment)).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(payment.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void transitionStatus_shouldReturnUpdatedPayment() {
+        Payment updated = Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).version(1L).build();
+        stubPaymentsCollection();
+        when(payments.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(updated);
+
+        assertThat(repository.transitionStatus("payment-1", PaymentStatus.SUCCESS, 0L)).contains(updated);
+        verify(payments).findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+    }
+
+    @Test
+    void transitionStatus_shouldBeEmpty_whenGuardDoesNotMatch() {
+        stubPaymentsCollection();
+
+        assertThat(repository.transitionStatus("payment-1", PaymentStatus.SUCCESS, null)).isEmpty();
+    }
+
+    @Test
+    void findPendingBefore_shouldReadOnePageInKeyOrder() {
+        Payment payment = Payment.builder().id("payment-1").status(PaymentStatus.PENDING).build();
+        stubPaymentsCollection();
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.limit(50)).thenReturn(findIterable);
+        when(findIterable.into(anyList())).thenAnswer(invocation -> {
+            List<Payment> page = invocation.getArgument(0);
+            page.add(payment);
+            return page;
+        });
+
+        Payment after = Payment.builder().id(new ObjectId().toHexString()).timestamp(LocalDateTime.now()).build();
+        assertThat(repository.findPendingBefore(LocalDateTime.now(), after, 50)).containsExactly(payment);
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(payments).find(filter.capture());
+        assertThat(filter.getValue().toBsonDocument().toJson()).contains("\"$or\"").contains("\"PENDING\"");
+        verify(findIterable).limit(50);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void settlePending_shouldWriteGuardedUpdatesInOneBulkWrite() {
+        Payment first = Payment.builder().id("payment-1").status(PaymentStatus.FAILED).version(0L).build();
+        Payment second = Payment.builder().id("payment-2").status(PaymentStatus.SUCCESS).version(3L).build();
+        stubPaymentsCollection();
+        when(payments.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+
+        assertThat(repository.settlePending(List.of(first, second))).containsExactly(first, second);
+
+        ArgumentCaptor<List<WriteModel<Payment>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(payments).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        assertThat(writes.getValue()).hasSize(2).allMatch(UpdateOneModel.class::isInstance);
+        assertThat(first.getVersion()).isEqualTo(1L);
+        assertThat(second.getVersion()).isEqualTo(4L);
+        verify(payments, never()).find(any(Bson.class));
+    }
+
+    @Test
+    void settlePending_shouldReturnOnlyAppliedUpdates_whenSomeDidNotMatch() {
+        Payment applied = Payment.builder().id("payment-1").status(PaymentStatus.FAILED).version(0L).build();
+        Payment raced = Payment.builder().id("payment-2").status(PaymentStatus.FAILED).version(0L).build();
+        stubPaymentsCollection();
+        when(payments.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.into(anyList())).thenAnswer(invocation -> {
+            List<Payment> stored = invocation.getArgument(0);
+            stored.add(Payment.builder().id("payment-1").status(PaymentStatus.FAILED).version(1L).build());
+            stored.add(Payment.builder().id("payment-2").status(PaymentStatus.SUCCESS).version(1L).build());
+            return stored;
+        });
+
+        assertThat(repository.settlePending(List.of(applied, raced))).containsExactly(applied);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findOrdersWithStatus_shouldReadDistinctOrderIdsInOneQuery() {
+        stubPaymentsCollection();
+        when(payments.distinct(eq(PaymentCodec.ORDER_ID), any(Bson.class), eq(Long.class))).thenReturn(distinctOrders);
+        when(distinctOrders.into(any(Set.class))).thenAnswer(invocation -> {
+            Set<Long> orders = invocation.getArgument(0);
+            orders.add(1001L);
+            return orders;
+        });
+
+        assertThat(repository.findOrdersWithStatus(List.of(1001L, 1002L),
+                EnumSet.of(PaymentStatus.SUCCESS, PaymentStatus.FAILED))).containsExactly(1001L);
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(payments).distinct(eq(PaymentCodec.ORDER_ID), filter.capture(), eq(Long.class));
+        assertThat(filter.getValue().toBsonDocument().toJson())
+                .contains("\"o\"").contains("\"SUCCESS\"").contains("\"FAILED\"");
+    }
+
+    @Test
+    void findOrdersWithStatus_shouldNotQuery_whenNoOrders() {
+        assertThat(repository.findOrdersWithStatus(List.of(), EnumSet.of(PaymentStatus.SUCCESS))).isEmpty();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void findSettledBefore_shouldReadOldestSettledPaymentsFirst() {
+        Payment payment = Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).build();
+        stubPaymentsCollection();
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.limit(100)).thenReturn(findIterable);
+        when(findIterable.into(anyList())).thenAnswer(invocation -> {
+            List<Payment> page = invocation.getArgument(0);
+            page.add(payment);
+            return page;
+        });
+
+        assertThat(repository.findSettledBefore(LocalDateTime.now(), 100)).containsExactly(payment);
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(payments).find(filter.capture());
+        assertThat(filter.getValue().toBsonDocument().toJson()).contains("\"$ne\"").contains("\"PENDING\"");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteUnchanged_shouldDeleteOnVersionInOneBulkWrite() {
+        Payment versioned = Payment.builder().id("payment-1").version(2L).build();
+        Payment legacy = Payment.builder().id("payment-2").build();
+        stubPaymentsCollection();
+        when(payments.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.acknowledged(0, 0, 1, 0, List.of(), List.of()));
+
+        assertThat(repository.deleteUnchanged(List.of(versioned, legacy))).isEqualTo(1);
+
+        ArgumentCaptor<List<WriteModel<Payment>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(payments).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        assertThat(writes.getValue()).hasSize(2).allMatch(DeleteOneModel.class::isInstance);
+        assertThat(((DeleteOneModel<Payment>) writes.getValue().get(0)).getFilter().toBsonDocument().toJson())
+                .contains("\"v\": 2");
+        assertThat(((DeleteOneModel<Payment>) writes.getValue().get(1)).getFilter().toBsonDocument().toJson())
+                .contains("\"$exists\": false");
+    }
+
+    @Test
+    void deleteUnchanged_shouldDoNothing_whenEmpty() {
+        assertThat(repository.deleteUnchanged(List.of())).isZero();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void watchSettled_shouldResumeAfterTokenWithLookedUpDocuments() {
+        BsonDocument token = new BsonDocument("_data", new BsonString("8266A1B2C3"));
+        stubChangeStream();
+        when(changeStream.resumeAfter(token)).thenReturn(changeStream);
+
+        assertThat(repository.watchSettled(token, 100, Duration.ofMillis(250))).isSameAs(changeCursor);
+
+        ArgumentCaptor<List<Bson>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(payments).watch(pipeline.capture());
+        assertThat(pipeline.getValue().get(0).toBsonDocument().toJson())
+                .contains("updateDescription.updatedFields.s").contains("\"SUCCESS\"")
+                .doesNotContain("\"PENDING\"");
+        verify(changeStream).fullDocument(FullDocument.UPDATE_LOOKUP);
+        verify(changeStream).batchSize(100);
+    }
+
+    @Test
+    void watchSettled_shouldStartWithNextChange_whenNoToken() {
+        stubChangeStream();
+
+        assertThat(repository.watchSettled(null, 100, Duration.ofMillis(250))).isSameAs(changeCursor);
+
+        verify(changeStream, never()).resumeAfter(any());
+    }
+
+    @Test
+    void streamBetween_shouldPassEveryPaymentAndCloseCursor() {
+        Payment first = Payment.builder().id("payment-1").build();
+        Payment second = Payment.builder().id("payment-2").build();
+        stubPaymentsCollection();
+        when(payments.withReadPreference(ReadPreference.secondaryPreferred())).thenReturn(payments);
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.batchSize(500)).thenReturn(findIterable);
+        when(findIterable.cursor()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn(first, second);
+        List<Payment> seen = new ArrayList<>();
+
+        long count = repository.streamBetween(LocalDateTime.now().minusDays(1), LocalDateTime.now(),
+                ReadPreference.secondaryPreferred(), 500, seen::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(seen).containsExactly(first, second);
+        verify(cursor).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamBetween_shouldContinueIntoArchiveMonths_andSkipPaymentsStillHot() {
+        Payment hot = Payment.builder().id("payment-1").build();
+        Payment archivedAndHot = Payment.builder().id("payment-1").build();
+        Payment archived = Payment.builder().id("payment-2").build();
+        LocalDateTime from = LocalDateTime.of(2024, 1, 15, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 3, 1, 0, 0);
+        stubPaymentsCollection();
+        when(payments.withReadPreference(ReadPreference.primary())).thenReturn(payments);
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.batchSize(500)).thenReturn(findIterable);
+        when(findIterable.cursor()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(hot);
+        when(paymentArchive.monthsBetween(from, to)).thenReturn(List.of(YearMonth.of(2024, 1)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<List<Payment>>>getArgument(5)
+                    .accept(List.of(archivedAndHot, archived));
+            return null;
+        }).when(paymentArchive).streamBetween(eq(YearMonth.of(2024, 1)), eq(from), eq(to),
+                eq(ReadPreference.primary()), eq(500), any());
+        when(payments.distinct(eq(PaymentCodec.ID), any(Bson.class), eq(BsonValue.class))).thenReturn(distinctIds);
+        when(distinctIds.into(any(Set.class))).thenAnswer(invocation -> {
+            Set<BsonValue> ids = invocation.getArgument(0);
+            ids.add(new BsonString("payment-1"));
+            return ids;
+        });
+        List<Payment> seen = new ArrayList<>();
+
+        long count = repository.streamBetween(from, to, ReadPreference.primary(), 500, seen::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(seen).containsExactly(hot, archived);
+    }
+
+    @Test
+    void insert_shouldInsertAllWithOneCall() {
+        List<Payment> batch = List.of(Payment.builder().orderId(1L).build(), Payment.builder().orderId(2L).build());
+        stubPaymentsCollection();
+
+        List<Payment> inserted = repository.insert(batch);
+
+        assertThat(inserted).containsExactlyElementsOf(batch);
+        assertThat(inserted).allMatch(payment -> payment.getVersion() == 0L);
+        verify(payments).insertMany(batch);
+    }
+
+    @Test
+    void insert_shouldDoNothing_whenEmpty() {
+        assertThat(repository.insert(List.<Payment>of())).isEmpty();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void findById_shouldDecodeWithCodec() {
+        Payment payment = Payment.builder().id("payment-1").build();
+        stubPaymentsCollection();
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(payment);
+
+        assertThat(repository.findById("payment-1")).contains(payment);
+        verifyNoInteractions(paymentArchive);
+    }
+
+    @Test
+    void findById_shouldFallBackToArchive_whenNotHot() {
+        Payment archived = Payment.builder().id("payment-1").build();
+        stubPaymentsCollection();
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(paymentArchive.findById("payment-1")).thenReturn(Optional.of(archived));
+
+        assertThat(repository.findById("payment-1")).contains(archived);
+    }
+
+    @Test
+    void findById_shouldBeEmpty_whenMissing() {
+        stubPaymentsCollection();
+        when(payments.find(any(Bson.class))).thenReturn(findIterable);
+        when(paymentArchive.findById("missing")).thenReturn(Optional.empty());
+
+        assertThat(repository.findById("missing")).isEqualTo(Optional.empty());
+    }
+
+    private void stubChangeStream() {
+        stubPaymentsCollection();
+        when(payments.watch(anyList())).thenReturn(changeStream);
+        when(changeStream.fullDocument(any(FullDocument.class))).thenReturn(changeStream);
+        when(changeStream.batchSize(100)).thenReturn(changeStream);
+        when(changeStream.maxAwaitTime(250, TimeUnit.MILLISECONDS)).thenReturn(changeStream);
+        when(changeStream.cursor()).thenReturn(changeCursor);
+    }
+
+    private void stubPaymentsCollection() {
+        when(mongoTemplate.execute(eq(PaymentRepositoryCustomImpl.COLLECTION), any(CollectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<CollectionCallback<?>>getArgument(1).doInCollection(collection));
+        when(collection.withCodecRegistry(any(CodecRegistry.class))).thenReturn(collection);
+        when(collection.withDocumentClass(Payment.class)).thenReturn(payments);
+    }
+}
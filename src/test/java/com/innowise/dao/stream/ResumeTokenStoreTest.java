@@ -0,0 +1,76 @@
+package com.innowise.dao.stream;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumeTokenStoreTest {
+
+    private static final BsonDocument TOKEN = new BsonDocument("_data", new BsonString("8266A1B2C3"));
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private MongoCollection<BsonDocument> tokens;
+
+    @Mock
+    private FindIterable<BsonDocument> findIterable;
+
+    private ResumeTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ResumeTokenStore(mongoTemplate, "payment-publisher");
+        when(mongoTemplate.getCollection(ResumeTokenStore.COLLECTION)).thenReturn(collection);
+        when(collection.withDocumentClass(BsonDocument.class)).thenReturn(tokens);
+    }
+
+    @Test
+    void load_shouldReturnStoredToken() {
+        when(tokens.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(new BsonDocument("_id", new BsonString("payment-publisher"))
+                .append(ResumeTokenStore.TOKEN, TOKEN));
+
+        assertThat(store.load()).contains(TOKEN);
+    }
+
+    @Test
+    void load_shouldBeEmpty_whenNothingStored() {
+        when(tokens.find(any(Bson.class))).thenReturn(findIterable);
+
+        assertThat(store.load()).isEmpty();
+    }
+
+    @Test
+    void save_shouldUpsertTokenUnderStreamName() {
+        store.save(TOKEN);
+
+        ArgumentCaptor<BsonDocument> document = ArgumentCaptor.forClass(BsonDocument.class);
+        ArgumentCaptor<ReplaceOptions> options = ArgumentCaptor.forClass(ReplaceOptions.class);
+        verify(tokens).replaceOne(any(Bson.class), document.capture(), options.capture());
+        assertThat(document.getValue().getString("_id").getValue()).isEqualTo("payment-publisher");
+        assertThat(document.getValue().getDocument(ResumeTokenStore.TOKEN)).isEqualTo(TOKEN);
+        assertThat(document.getValue().isDateTime(ResumeTokenStore.UPDATED_AT)).isTrue();
+        assertThat(options.getValue().isUpsert()).isTrue();
+    }
+}
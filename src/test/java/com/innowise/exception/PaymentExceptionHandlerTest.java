@@ -2,10 +2,12 @@ package com.innowise.exception;
 
 import com.innowise.model.dto.ErrorDto;
 import com.innowise.model.enums.ErrorMessage;
+import com.innowise.model.enums.PaymentStatus;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -43,6 +45,34 @@ class PaymentExceptionHandlerTest {
                 .isEqualTo(ErrorMessage.PAYMENT_NOT_FOUND.getDefaultMessage());
     }
 
+    @Test
+    void handleIllegalStatusTransitionException_ShouldReturnConflict() {
+        IllegalStatusTransitionException exception =
+                new IllegalStatusTransitionException(PaymentStatus.FAILED, PaymentStatus.SUCCESS);
+
+        ResponseEntity<ErrorDto> response = handler.handleIllegalStatusTransitionException(exception);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getErrorCode())
+                .isEqualTo(ErrorMessage.ILLEGAL_STATUS_TRANSITION.getCode());
+        assertThat(response.getBody().getErrorMessage()).contains("FAILED -> SUCCESS");
+    }
+
+    @Test
+    void handleOptimisticLockingFailureException_ShouldReturnConflict() {
+        OptimisticLockingFailureException exception = new OptimisticLockingFailureException("stale");
+
+        ResponseEntity<ErrorDto> response = handler.handleOptimisticLockingFailureException(exception);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getErrorCode())
+                .isEqualTo(ErrorMessage.CONCURRENT_MODIFICATION.getCode());
+        assertThat(response.getBody().getErrorMessage())
+                .isEqualTo(ErrorMessage.CONCURRENT_MODIFICATION.getDefaultMessage());
+    }
+
     @Test
     void handleGenericException_ShouldReturnInternalServerError() {
         Exception exception = new RuntimeException("Something went wrong");
@@ -0,0 +1,199 @@
+package com.innowise.loadtest;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput cost of exactly-once consume-transform-produce.
+ * <p>
+ * Copies a pre-filled input topic to an output topic with a plain Kafka
+ * consumer and producer, in two modes:
+ * <ul>
+ * <li>{@code at-least-once} - idempotent producer, {@code commitSync} after
+ * each poll</li>
+ * <li>{@code exactly-once} - transactional producer, offsets committed with
+ * {@code sendOffsetsToTransaction}, one transaction per poll</li>
+ * </ul>
+ * The number of records per poll - and so per transaction - is varied with
+ * {@code max.poll.records}. The payment listener processes one record at a
+ * time, so with transactions enabled it pays the batch size 1 price.
+ * </p>
+ * <p>
+ * Run with {@code mvn -Pload-test test -Dtest=KafkaEosBenchmark}; tune with
+ * {@code eos.records} (default 20000) and {@code eos.batch-sizes} (default
+ * {@code 1,50,500}). The report is written to
+ * {@code target/load-test/kafka-eos.txt}.
+ * </p>
+ */
+@Tag("load")
+class KafkaEosBenchmark {
+
+    private static final Path REPORT_DIR = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+    private static final Duration RUN_TIMEOUT = Duration.ofMinutes(5);
+
+    private static EmbeddedKafkaKraftBroker kafka;
+
+    @BeforeAll
+    static void startKafka() {
+        kafka = new EmbeddedKafkaKraftBroker(1, 1);
+        kafka.brokerProperties(Map.of(
+                "transaction.state.log.replication.factor", "1",
+                "transaction.state.log.min.isr", "1"));
+        kafka.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopKafka() {
+        if (kafka != null) {
+            kafka.destroy();
+        }
+    }
+
+    @Test
+    void atLeastOnceVersusExactlyOnce() throws Exception {
+        int records = Integer.getInteger("eos.records", 20_000);
+        String[] batchSizes = System.getProperty("eos.batch-sizes", "1,50,500").split(",");
+
+        String input = "eos-input";
+        createTopics(input);
+        fill(input, records);
+
+        List<String> lines = new ArrayList<>();
+        int run = 0;
+        for (String batchSize : batchSizes) {
+            int maxPollRecords = Integer.parseInt(batchSize.trim());
+            for (boolean transactional : new boolean[]{false, true}) {
+                String output = "eos-output-" + run++;
+                createTopics(output);
+                long started = System.nanoTime();
+                long copied = copy(input, output, records, maxPollRecords, transactional, "eos-" + output);
+                double seconds = (System.nanoTime() - started) / 1e9;
+
+                assertThat(copied).isEqualTo(records);
+                lines.add(String.format("%-14s %8d %10d %12.0f", transactional ? "exactly-once" : "at-least-once",
+                        maxPollRecords, copied, copied / seconds));
+            }
+        }
+
+        writeReport(lines);
+    }
+
+    private static long copy(String input, String output, int records, int maxPollRecords, boolean transactional,
+                             String groupId) {
+        Map<String, Object> consumerProps = new HashMap<>();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBrokersAsString());
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+
+        Map<String, Object> producerProps = new HashMap<>();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBrokersAsString());
+        producerProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        if (transactional) {
+            producerProps.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, groupId + "-tx");
+        }
+
+        long copied = 0;
+        long deadline = System.nanoTime() + RUN_TIMEOUT.toNanos();
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer());
+             KafkaProducer<String, String> producer = new KafkaProducer<>(producerProps,
+                     new StringSerializer(), new StringSerializer())) {
+            if (transactional) {
+                producer.initTransactions();
+            }
+            consumer.subscribe(List.of(input));
+            while (copied < records && System.nanoTime() < deadline) {
+                ConsumerRecords<String, String> polled = consumer.poll(Duration.ofMillis(100));
+                if (polled.isEmpty()) {
+                    continue;
+                }
+                if (transactional) {
+                    producer.beginTransaction();
+                }
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, String> record : polled) {
+                    producer.send(new ProducerRecord<>(output, record.key(), record.value().toUpperCase()));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                }
+                if (transactional) {
+                    producer.sendOffsetsToTransaction(offsets, consumer.groupMetadata());
+                    producer.commitTransaction();
+                } else {
+                    producer.flush();
+                    consumer.commitSync(offsets);
+                }
+                copied += polled.count();
+            }
+        }
+        return copied;
+    }
+
+    private static void fill(String topic, int records) throws Exception {
+        Map<String, Object> props = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBrokersAsString(),
+                ProducerConfig.LINGER_MS_CONFIG, 5);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(props,
+                new StringSerializer(), new StringSerializer())) {
+            for (int i = 0; i < records; i++) {
+                producer.send(new ProducerRecord<>(topic, String.valueOf(i), "{\"orderId\":" + i + "}"));
+            }
+            producer.flush();
+        }
+    }
+
+    private static void createTopics(String... topics) throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBrokersAsString()))) {
+            List<NewTopic> newTopics = new ArrayList<>();
+            for (String topic : topics) {
+                newTopics.add(new NewTopic(topic, 1, (short) 1));
+            }
+            admin.createTopics(newTopics).all().get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void writeReport(List<String> lines) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Path report = REPORT_DIR.resolve("kafka-eos.txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(report))) {
+            out.printf("%-14s %8s %10s %12s%n", "mode", "batch", "records", "records/s");
+            lines.forEach(out::println);
+        }
+        System.out.println(Files.readString(report));
+    }
+}
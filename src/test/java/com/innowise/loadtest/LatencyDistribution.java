@@ -0,0 +1,48 @@
+package com.innowise.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency distribution used by {@link RandomApiStub} to delay responses.
+ * <p>
+ * Parsed from a compact spec so it can be passed as a system property:
+ * <ul>
+ * <li>{@code none}</li>
+ * <li>{@code fixed:20} - always 20 ms</li>
+ * <li>{@code uniform:5:50} - uniformly between 5 and 50 ms</li>
+ * <li>{@code lognormal:20:0.6} - log-normal with a 20 ms median and sigma 0.6</li>
+ * </ul>
+ * </p>
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long nextDelayMillis();
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        return switch (parts[0]) {
+            case "none" -> () -> 0L;
+            case "fixed" -> {
+                long millis = Long.parseLong(parts[1]);
+                yield () -> millis;
+            }
+            case "uniform" -> {
+                long min = Long.parseLong(parts[1]);
+                long max = Long.parseLong(parts[2]);
+                yield () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+            }
+            case "lognormal" -> {
+                double mu = Math.log(Double.parseDouble(parts[1]));
+                double sigma = Double.parseDouble(parts[2]);
+                yield () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        };
+    }
+
+    default Duration nextDelay() {
+        return Duration.ofMillis(nextDelayMillis());
+    }
+}
@@ -0,0 +1,75 @@
+package com.innowise.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects end-to-end latency, throughput and consumer lag samples of a load
+ * run and writes them as an HDR histogram report.
+ * <p>
+ * Output (under the given directory):
+ * <ul>
+ * <li>{@code latency.hgrm} - HDR percentile distribution of order → payment latency (ms)</li>
+ * <li>{@code timeline.csv} - per-second completed payments and consumer lag</li>
+ * <li>{@code summary.txt} - headline percentiles and sustained throughput</li>
+ * </ul>
+ * </p>
+ */
+public class LoadTestReport {
+
+    private final Histogram latencyMicros = new Histogram(TimeUnit.MINUTES.toMicros(5), 3);
+    private final List<long[]> timeline = new ArrayList<>();
+
+    public synchronized void recordLatency(long latencyNanos) {
+        latencyMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos),
+                latencyMicros.getHighestTrackableValue()));
+    }
+
+    public synchronized void recordTick(long elapsedSeconds, long completed, long lag) {
+        timeline.add(new long[]{elapsedSeconds, completed, lag});
+    }
+
+    public synchronized long completed() {
+        return latencyMicros.getTotalCount();
+    }
+
+    public synchronized double percentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public synchronized void write(Path directory, int targetRate, long sent, double elapsedSeconds) throws IOException {
+        Files.createDirectories(directory);
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("latency.hgrm")))) {
+            latencyMicros.outputPercentileDistribution(out, 1000.0);
+        }
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("timeline.csv")))) {
+            out.println("second,completed_total,consumer_lag");
+            for (long[] tick : timeline) {
+                out.println(tick[0] + "," + tick[1] + "," + tick[2]);
+            }
+        }
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("summary.txt")))) {
+            out.printf("target rate      : %d events/s%n", targetRate);
+            out.printf("sent             : %d%n", sent);
+            out.printf("completed        : %d%n", latencyMicros.getTotalCount());
+            out.printf("throughput       : %.1f payments/s%n", latencyMicros.getTotalCount() / elapsedSeconds);
+            out.printf("latency p50      : %.2f ms%n", percentileMillis(50));
+            out.printf("latency p90      : %.2f ms%n", percentileMillis(90));
+            out.printf("latency p99      : %.2f ms%n", percentileMillis(99));
+            out.printf("latency p99.9    : %.2f ms%n", percentileMillis(99.9));
+            out.printf("latency max      : %.2f ms%n", latencyMicros.getMaxValue() / 1000.0);
+            long maxLag = timeline.stream().mapToLong(t -> t[2]).max().orElse(0);
+            out.printf("max consumer lag : %d%n", maxLag);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.innowise.loadtest;
+
+import com.innowise.service.index.ClockLongCache;
+import com.innowise.service.index.LongHashMap;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and heap footprint of the primitive order index against
+ * {@code ConcurrentHashMap<Long, String>}.
+ * <p>
+ * For each size, fills a map with sequential order IDs (all mapped to one
+ * shared value, so only the map's own overhead is measured), then looks up
+ * random present keys. Footprint is the retained heap after a full GC, so
+ * it is approximate; give the JVM enough heap for the largest size (about
+ * 1 GB for 10M entries), e.g.
+ * {@code mvn -Pload-test test -Dtest=LongIndexBenchmark -DargLine=-Xmx2g}.
+ * Tune with {@code index.sizes} (default {@code 1000000,10000000}) and
+ * {@code index.lookups} (default 20000000). The report is written to
+ * {@code target/load-test/long-index.txt}.
+ * </p>
+ */
+@Tag("load")
+class LongIndexBenchmark {
+
+    private static final Path REPORT_DIR = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+    private static final String VALUE = "payment";
+    private static final long FIRST_ORDER_ID = 1_000_000_000L;
+
+    @Test
+    void primitiveIndexVersusConcurrentHashMap() throws IOException {
+        String[] sizes = System.getProperty("index.sizes", "1000000,10000000").split(",");
+        int lookups = Integer.getInteger("index.lookups", 20_000_000);
+
+        List<String> lines = new ArrayList<>();
+        for (String value : sizes) {
+            int size = Integer.parseInt(value.trim());
+            Result boxed = measure("ConcurrentHashMap<Long>", size, lookups,
+                    ConcurrentHashMap<Long, String>::new,
+                    (map, key) -> map.put(key, VALUE), (map, key) -> map.get(key) != null);
+            Result primitive = measure("LongHashMap", size, lookups,
+                    LongHashMap<String>::new,
+                    (map, key) -> map.put(key, VALUE), (map, key) -> map.get(key) != null);
+            Result clock = measure("ClockLongCache", size, lookups,
+                    // segments evict on their own, so leave headroom for uneven key spread
+                    entries -> new ClockLongCache<String>(entries + entries / 8),
+                    (map, key) -> map.put(key, VALUE), (map, key) -> map.get(key) != null);
+            lines.add(boxed.format());
+            lines.add(primitive.format());
+            lines.add(clock.format());
+
+            assertThat(primitive.bytesPerEntry).isLessThan(boxed.bytesPerEntry);
+            assertThat(clock.bytesPerEntry).isLessThan(boxed.bytesPerEntry);
+        }
+        writeReport(lines);
+    }
+
+    private static <M> Result measure(String name, int size, int lookups, IntFunction<M> factory,
+                                      Put<M> put, Lookup<M> lookup) {
+        long before = retainedHeap();
+        M map = factory.apply(size);
+        long started = System.nanoTime();
+        for (long i = 0; i < size; i++) {
+            put.put(map, FIRST_ORDER_ID + i);
+        }
+        double putSeconds = (System.nanoTime() - started) / 1e9;
+        long footprint = retainedHeap() - before;
+
+        // Warm-up so the measured loop runs compiled code
+        run(map, size, lookups / 4, lookup);
+        started = System.nanoTime();
+        long hits = run(map, size, lookups, lookup);
+        double getSeconds = (System.nanoTime() - started) / 1e9;
+        assertThat(hits).isEqualTo(lookups);
+
+        Result result = new Result(name, size, size / putSeconds, lookups / getSeconds,
+                (double) footprint / size);
+        Reference.reachabilityFence(map);
+        return result;
+    }
+
+    private static <M> long run(M map, int size, int lookups, Lookup<M> lookup) {
+        SplittableRandom random = new SplittableRandom(7);
+        long hits = 0;
+        for (int i = 0; i < lookups; i++) {
+            if (lookup.get(map, FIRST_ORDER_ID + random.nextInt(size))) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void writeReport(List<String> lines) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Path report = REPORT_DIR.resolve("long-index.txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(report))) {
+            out.printf("%-24s %10s %14s %14s %12s%n", "map", "entries", "puts/s", "gets/s", "bytes/entry");
+            lines.forEach(out::println);
+        }
+        System.out.println(Files.readString(report));
+    }
+
+    @FunctionalInterface
+    private interface Put<M> {
+        void put(M map, long key);
+    }
+
+    @FunctionalInterface
+    private interface Lookup<M> {
+        boolean get(M map, long key);
+    }
+
+    private record Result(String name, int size, double putsPerSecond, double getsPerSecond,
+                          double bytesPerEntry) {
+
+        String format() {
+            return String.format("%-24s %10d %14.0f %14.0f %12.1f", name, size, putsPerSecond, getsPerSecond,
+                    bytesPerEntry);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.innowise.loadtest;
+
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.event.PaymentCreatedEvent;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Order to payment round trip through the GraalVM native binary.
+ * <p>
+ * Launches {@code target/payment-service} (built with
+ * {@code mvn -Pnative native:compile -DskipTests}) against the process
+ * stand-ins, publishes one {@code OrderCreatedEvent} and expects the matching
+ * {@code PaymentCreatedEvent} on the payment topic and the payment document
+ * in MongoDB. This exercises the reflection and resource hints for the event
+ * type headers, the MapStruct mapper, the money converters and, since the run
+ * applies the changelog, Liquibase.
+ * Run with {@code mvn -Pnative-smoke test}; {@code native.binary} overrides
+ * the binary location.
+ * </p>
+ */
+@Tag("native-smoke")
+class NativeImageSmokeTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final long ORDER_ID = 4242L;
+
+    @Test
+    void orderCreatedEvent_shouldProducePaymentEvent() throws Exception {
+        Path binary = Path.of(System.getProperty("native.binary", "target/payment-service"));
+        assumeTrue(Files.isExecutable(binary), "Native binary not found; run mvn -Pnative native:compile first");
+
+        try (ProcessStandIns standIns = new ProcessStandIns()) {
+            standIns.createTopics("order-events", "payment-events");
+            standIns.publishOrder("order-events", ORDER_ID);
+
+            List<String> command = new ArrayList<>();
+            command.add(binary.toAbsolutePath().toString());
+            command.addAll(standIns.applicationArguments("native"));
+            command.add("--payment.migration.mode=migrate");
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            try (Consumer<String, PaymentCreatedEvent> consumer = standIns.paymentConsumer("native-smoke")) {
+                consumer.subscribe(List.of("payment-events"));
+                PaymentCreatedEvent event = awaitPayment(consumer, process);
+
+                assertThat(event.getOrderId()).isEqualTo(ORDER_ID);
+                assertThat(event.getStatus()).isNotNull();
+                try (MongoClient mongo = MongoClients.create(standIns.mongoUri(""))) {
+                    Document payment = mongo.getDatabase("payment_native").getCollection("payments")
+                            .find(Filters.eq(PaymentCodec.ORDER_ID, ORDER_ID)).first();
+                    assertThat(payment).isNotNull();
+                }
+            } finally {
+                ProcessStandIns.stop(process);
+            }
+        }
+    }
+
+    private static PaymentCreatedEvent awaitPayment(Consumer<String, PaymentCreatedEvent> consumer, Process process) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertThat(process.isAlive()).as("native process is running").isTrue();
+            for (ConsumerRecord<String, PaymentCreatedEvent> record : consumer.poll(Duration.ofMillis(100))) {
+                if (record.value() != null && Long.valueOf(ORDER_ID).equals(record.value().getOrderId())) {
+                    return record.value();
+                }
+            }
+        }
+        throw new AssertionError("No payment event for order " + ORDER_ID + " within " + TIMEOUT);
+    }
+}
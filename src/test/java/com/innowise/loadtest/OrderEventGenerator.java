@@ -0,0 +1,96 @@
+package com.innowise.loadtest;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.OrderItemEvent;
+import com.innowise.model.enums.OrderStatus;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes {@link OrderCreatedEvent}s at a fixed target rate.
+ * <p>
+ * Cart sizes follow a geometric distribution (most carts hold one to three
+ * items, with a long tail up to {@link #MAX_ITEMS}); item prices are drawn
+ * between 0.50 and 250.00. Send times are recorded per order ID so the
+ * end-to-end latency can be computed when the matching payment event arrives.
+ * </p>
+ */
+public class OrderEventGenerator {
+
+    static final int MAX_ITEMS = 25;
+    private static final double NEXT_ITEM_PROBABILITY = 0.55;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String topic;
+    private final Map<Long, Long> sendTimes;
+    private final AtomicLong orderIds = new AtomicLong(1);
+
+    public OrderEventGenerator(KafkaTemplate<String, Object> kafkaTemplate, String topic, Map<Long, Long> sendTimes) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.sendTimes = sendTimes;
+    }
+
+    /**
+     * Sends events at {@code ratePerSecond} for the given duration using an
+     * open-loop schedule (sends are not delayed by slow consumers).
+     *
+     * @return number of events sent
+     */
+    public long run(int ratePerSecond, long durationSeconds) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = ratePerSecond * durationSeconds;
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            OrderCreatedEvent event = nextEvent();
+            sendTimes.put(event.getOrderId(), System.nanoTime());
+            kafkaTemplate.send(topic, event.getOrderId().toString(), event);
+        }
+        kafkaTemplate.flush();
+        return total;
+    }
+
+    OrderCreatedEvent nextEvent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int itemCount = 1;
+        while (itemCount < MAX_ITEMS && random.nextDouble() < NEXT_ITEM_PROBABILITY) {
+            itemCount++;
+        }
+
+        List<OrderItemEvent> items = new ArrayList<>(itemCount);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextLong(50, 25_001), 2);
+            int quantity = random.nextInt(1, 4);
+            items.add(OrderItemEvent.builder()
+                    .itemId(random.nextLong(1, 10_000))
+                    .itemName("item-" + i)
+                    .price(price)
+                    .quantity(quantity)
+                    .build());
+            total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+        }
+
+        return OrderCreatedEvent.builder()
+                .orderId(orderIds.getAndIncrement())
+                .userId(random.nextLong(1, 50_000))
+                .status(OrderStatus.PAYMENT_PENDING)
+                .totalAmount(total)
+                .items(items)
+                .build();
+    }
+}
@@ -0,0 +1,233 @@
+package com.innowise.loadtest;
+
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.dao.converter.MoneyConverters;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.MoneyRepresentation;
+import com.innowise.model.enums.PaymentStatus;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mapping CPU and document size of {@link PaymentCodec} against Spring
+ * Data's {@link MappingMongoConverter}.
+ * <p>
+ * Both paths turn a payment into BSON bytes and back, the way the driver
+ * does on the wire: the converter goes through an intermediate
+ * {@link Document} encoded by the driver's {@link DocumentCodec}, the codec
+ * writes and reads the BSON directly. The converter is configured like the
+ * application's (money converters, {@code _class} type key). The report
+ * also lists the size of the same payment in the layout used before the
+ * short field names. Tune with {@code codec.payments} (distinct payments,
+ * default 10000) and {@code codec.operations} (default 2000000); the
+ * report is written to {@code target/load-test/payment-codec.txt}.
+ * </p>
+ */
+@Tag("load")
+class PaymentCodecBenchmark {
+
+    private static final Path REPORT_DIR = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+    private static final EncoderContext ENCODE = EncoderContext.builder().isEncodingCollectibleDocument(true).build();
+    private static final DecoderContext DECODE = DecoderContext.builder().build();
+    private static final Map<String, String> LEGACY_NAMES = Map.of(
+            "o", "orderId", "u", "userId", "s", "status", "t", "timestamp", "a", "payment_amount");
+
+    private final DocumentCodec documentCodec = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private final MappingMongoConverter converter = converter();
+    private final PaymentCodec codec = new PaymentCodec(MoneyRepresentation.DECIMAL128, 2);
+
+    @Test
+    void codecVersusMappingConverter() throws IOException {
+        int count = Integer.getInteger("codec.payments", 10_000);
+        int operations = Integer.getInteger("codec.operations", 2_000_000);
+        Payment[] payments = payments(count);
+
+        byte[][] converted = new byte[count][];
+        byte[][] encoded = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            converted[i] = writeWithConverter(payments[i], new BasicOutputBuffer());
+            encoded[i] = writeWithCodec(payments[i], new BasicOutputBuffer());
+            assertThat(codec.decode(reader(converted[i]), DECODE)).isEqualTo(payments[i]);
+            assertThat(readWithConverter(encoded[i])).isEqualTo(payments[i]);
+        }
+
+        Result converterResult = new Result("MappingMongoConverter", averageSize(converted),
+                encodeRate(operations, payments, this::writeWithConverter),
+                decodeRate(operations, converted, this::readWithConverter));
+        Result codecResult = new Result("PaymentCodec", averageSize(encoded),
+                encodeRate(operations, payments, this::writeWithCodec),
+                decodeRate(operations, encoded, bytes -> codec.decode(reader(bytes), DECODE)));
+        double legacyBytes = legacySize(payments);
+
+        writeReport(converterResult, codecResult, legacyBytes);
+
+        assertThat(codecResult.bytesPerDocument).isLessThan(converterResult.bytesPerDocument);
+        assertThat(codecResult.bytesPerDocument).isLessThan(legacyBytes);
+        assertThat(codecResult.encodesPerSecond).isGreaterThan(converterResult.encodesPerSecond);
+        assertThat(codecResult.decodesPerSecond).isGreaterThan(converterResult.decodesPerSecond);
+    }
+
+    private byte[] writeWithConverter(Payment payment, BasicOutputBuffer buffer) {
+        Document document = new Document();
+        converter.write(payment, document);
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, ENCODE);
+        return buffer.toByteArray();
+    }
+
+    private byte[] writeWithCodec(Payment payment, BasicOutputBuffer buffer) {
+        codec.encode(new BsonBinaryWriter(buffer), payment, ENCODE);
+        return buffer.toByteArray();
+    }
+
+    private Payment readWithConverter(byte[] bytes) {
+        return converter.read(Payment.class, documentCodec.decode(reader(bytes), DECODE));
+    }
+
+    private static double encodeRate(int operations, Payment[] payments, Writer writer) {
+        // Warm-up so the measured loop runs compiled code
+        encode(operations / 4, payments, writer);
+        long started = System.nanoTime();
+        long bytes = encode(operations, payments, writer);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        assertThat(bytes).isGreaterThan(0L);
+        return operations / seconds;
+    }
+
+    private static long encode(int operations, Payment[] payments, Writer writer) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer(256);
+        long bytes = 0;
+        for (int i = 0; i < operations; i++) {
+            buffer.truncateToPosition(0);
+            bytes += writer.write(payments[i % payments.length], buffer).length;
+        }
+        return bytes;
+    }
+
+    private static double decodeRate(int operations, byte[][] documents, Reader reader) {
+        decode(operations / 4, documents, reader);
+        long started = System.nanoTime();
+        long checksum = decode(operations, documents, reader);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        assertThat(checksum).isGreaterThan(0L);
+        return operations / seconds;
+    }
+
+    private static long decode(int operations, byte[][] documents, Reader reader) {
+        long checksum = 0;
+        for (int i = 0; i < operations; i++) {
+            checksum += reader.read(documents[i % documents.length]).getOrderId();
+        }
+        return checksum;
+    }
+
+    private double legacySize(Payment[] payments) {
+        long total = 0;
+        for (Payment payment : payments) {
+            Document current = new Document();
+            converter.write(payment, current);
+            Document legacy = new Document();
+            current.forEach((name, value) -> legacy.put(LEGACY_NAMES.getOrDefault(name, name), value));
+            BasicOutputBuffer buffer = new BasicOutputBuffer();
+            documentCodec.encode(new BsonBinaryWriter(buffer), legacy, ENCODE);
+            total += buffer.getSize();
+        }
+        return (double) total / payments.length;
+    }
+
+    private static double averageSize(byte[][] documents) {
+        long total = 0;
+        for (byte[] document : documents) {
+            total += document.length;
+        }
+        return (double) total / documents.length;
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+
+    private static Payment[] payments(int count) {
+        SplittableRandom random = new SplittableRandom(7);
+        PaymentStatus[] statuses = PaymentStatus.values();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Payment[] payments = new Payment[count];
+        for (int i = 0; i < count; i++) {
+            payments[i] = Payment.builder()
+                    .id(new ObjectId().toHexString())
+                    .orderId(1_000_000_000L + i)
+                    .userId(1L + random.nextInt(100_000))
+                    .status(statuses[random.nextInt(statuses.length)])
+                    .timestamp(now.minusSeconds(random.nextInt(86_400)))
+                    .paymentAmount(BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2))
+                    .build();
+        }
+        return payments;
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(
+                MoneyConverters.forRepresentation(MoneyRepresentation.DECIMAL128, 2));
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        context.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static void writeReport(Result converter, Result codec, double legacyBytes) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Path report = REPORT_DIR.resolve("payment-codec.txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(report))) {
+            out.printf("%-24s %14s %14s %10s%n", "mapping", "encodes/s", "decodes/s", "bytes/doc");
+            out.println(converter.format());
+            out.println(codec.format());
+            out.printf("%-24s %14s %14s %10.1f%n", "legacy field names", "-", "-", legacyBytes);
+        }
+        System.out.println(Files.readString(report));
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        byte[] write(Payment payment, BasicOutputBuffer buffer);
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+        Payment read(byte[] bytes);
+    }
+
+    private record Result(String name, double bytesPerDocument, double encodesPerSecond, double decodesPerSecond) {
+
+        String format() {
+            return String.format("%-24s %14.0f %14.0f %10.1f", name, encodesPerSecond, decodesPerSecond,
+                    bytesPerDocument);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.innowise.loadtest;
+
+import com.innowise.event.PaymentCreatedEvent;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end throughput harness.
+ * <p>
+ * Starts the full application against an embedded Kafka broker, an
+ * in-process MongoDB and a local random API stub, drives
+ * {@code OrderCreatedEvent}s at a target rate and measures the latency until
+ * the matching {@code PaymentCreatedEvent} is visible on the payment topic.
+ * Run with {@code mvn -Pload-test test}; tune with system properties:
+ * <ul>
+ * <li>{@code loadtest.rate} - events per second (default 200)</li>
+ * <li>{@code loadtest.duration} - seconds of sustained load (default 60)</li>
+ * <li>{@code loadtest.drain-timeout} - seconds to wait for stragglers (default 120)</li>
+ * <li>{@code loadtest.random-api.latency} - stub latency, see {@link LatencyDistribution}
+ * (default {@code lognormal:20:0.6})</li>
+ * <li>{@code loadtest.decision-engine} - {@code remote} (through the stub), {@code local}
+ * or {@code seeded} (default {@code remote})</li>
+ * <li>{@code loadtest.report-dir} - report output directory (default {@code target/load-test})</li>
+ * </ul>
+ * </p>
+ */
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EmbeddedKafka(partitions = 3,
+        topics = {"order-events", "payment-events"},
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PaymentLoadTest {
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static RandomApiStub randomApiStub;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Value("${spring.kafka.topic.order-events}")
+    private String orderTopic;
+
+    @Value("${spring.kafka.topic.payment-events}")
+    private String paymentTopic;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String paymentServiceGroup;
+
+    @DynamicPropertySource
+    static void standIns(DynamicPropertyRegistry registry) {
+        startStandIns();
+        ServerAddress address = mongod.current().getServerAddress();
+        registry.add("spring.data.mongodb.uri",
+                () -> "mongodb://" + address.getHost() + ":" + address.getPort() + "/payment_load");
+        registry.add("random-api.base-url", randomApiStub::baseUrl);
+        registry.add("payment.decision.engine", () -> System.getProperty("loadtest.decision-engine", "remote"));
+    }
+
+    private static synchronized void startStandIns() {
+        if (mongod == null) {
+            mongod = Mongod.instance().start(Version.Main.V6_0);
+        }
+        if (randomApiStub == null) {
+            try {
+                randomApiStub = new RandomApiStub("/api/v1.0/random",
+                        LatencyDistribution.parse(System.getProperty("loadtest.random-api.latency", "lognormal:20:0.6")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @AfterAll
+    static void stopStandIns() {
+        if (randomApiStub != null) {
+            randomApiStub.close();
+        }
+        if (mongod != null) {
+            mongod.close();
+        }
+    }
+
+    @Test
+    void sustainedLoad_shouldProduceOnePaymentEventPerOrder() throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 200);
+        long duration = Long.getLong("loadtest.duration", 60);
+        long drainTimeout = Long.getLong("loadtest.drain-timeout", 120);
+        Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+
+        Map<Long, Long> sendTimes = new ConcurrentHashMap<>();
+        LoadTestReport report = new LoadTestReport();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread collector = Thread.ofPlatform().name("load-collector").start(() -> collect(sendTimes, report, running));
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        long startNanos = System.nanoTime();
+
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString()))) {
+            sampler.scheduleAtFixedRate(() -> report.recordTick(
+                            TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos),
+                            report.completed(),
+                            consumerLag(admin)),
+                    1, 1, TimeUnit.SECONDS);
+
+            long sent = new OrderEventGenerator(kafkaTemplate, orderTopic, sendTimes).run(rate, duration);
+
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainTimeout);
+            while (report.completed() < sent && System.nanoTime() < drainDeadline) {
+                Thread.sleep(200);
+            }
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+            sampler.shutdownNow();
+            running.set(false);
+            collector.join();
+            report.write(reportDir, rate, sent, elapsedSeconds);
+
+            assertThat(report.completed()).isEqualTo(sent);
+        } finally {
+            sampler.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    private void collect(Map<Long, Long> sendTimes, LoadTestReport report, AtomicBoolean running) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("load-test-collector", "true", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, PaymentCreatedEvent> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new JsonDeserializer<>(PaymentCreatedEvent.class, false))
+                .createConsumer()) {
+            consumer.subscribe(List.of(paymentTopic));
+            while (running.get()) {
+                for (ConsumerRecord<String, PaymentCreatedEvent> record : consumer.poll(Duration.ofMillis(100))) {
+                    Long sentAt = sendTimes.remove(record.value().getOrderId());
+                    if (sentAt != null) {
+                        report.recordLatency(System.nanoTime() - sentAt);
+                    }
+                }
+            }
+        }
+    }
+
+    private long consumerLag(AdminClient admin) {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin
+                    .listConsumerGroupOffsets(paymentServiceGroup)
+                    .partitionsToOffsetAndMetadata()
+                    .get(5, TimeUnit.SECONDS);
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            for (int partition = 0; partition < 3; partition++) {
+                latest.put(new TopicPartition(orderTopic, partition), OffsetSpec.latest());
+            }
+            long lag = 0;
+            for (var entry : admin.listOffsets(latest).all().get(5, TimeUnit.SECONDS).entrySet()) {
+                OffsetAndMetadata offset = committed.get(entry.getKey());
+                lag += entry.getValue().offset() - (offset != null ? offset.offset() : 0);
+            }
+            return lag;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
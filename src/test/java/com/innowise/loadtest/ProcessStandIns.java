@@ -0,0 +1,129 @@
+package com.innowise.loadtest;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.model.enums.OrderStatus;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka, MongoDB and random API stand-ins for tests that launch the
+ * application as a separate process (packaged jar or native binary).
+ * <p>
+ * Unlike {@link PaymentLoadTest}, which runs the application in the test JVM,
+ * these tests pass the stand-in addresses as command line arguments, see
+ * {@link #applicationArguments(String)}.
+ * </p>
+ */
+public class ProcessStandIns implements AutoCloseable {
+
+    private final EmbeddedKafkaKraftBroker kafka;
+    private final TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private final RandomApiStub randomApiStub;
+
+    public ProcessStandIns() throws IOException {
+        kafka = new EmbeddedKafkaKraftBroker(1, 3);
+        kafka.afterPropertiesSet();
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+        randomApiStub = new RandomApiStub("/api/v1.0/random", LatencyDistribution.parse("none"));
+    }
+
+    public String bootstrapServers() {
+        return kafka.getBrokersAsString();
+    }
+
+    public String mongoUri(String database) {
+        ServerAddress address = mongod.current().getServerAddress();
+        return "mongodb://" + address.getHost() + ":" + address.getPort() + "/" + database;
+    }
+
+    /**
+     * @param suffix distinguishes consumer groups and databases between runs
+     * @return Spring Boot arguments pointing the application at the stand-ins
+     */
+    public List<String> applicationArguments(String suffix) {
+        return List.of(
+                "--server.port=0",
+                "--spring.kafka.bootstrap-servers=" + bootstrapServers(),
+                "--spring.kafka.consumer.group-id=payment-" + suffix,
+                "--spring.data.mongodb.uri=" + mongoUri("payment_" + suffix.replace('-', '_')),
+                "--random-api.base-url=" + randomApiStub.baseUrl(),
+                "--management.tracing.sampling.probability=0.0",
+                "--management.loki.url=http://127.0.0.1:9");
+    }
+
+    public void createTopics(String... topics) throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers()))) {
+            admin.createTopics(Arrays.stream(topics).map(topic -> new NewTopic(topic, 3, (short) 1)).toList())
+                    .all().get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    public void publishOrder(String topic, long orderId) throws Exception {
+        Map<String, Object> props = Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers());
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(props,
+                new StringSerializer(), new JsonSerializer<>());
+        try {
+            new KafkaTemplate<>(factory).send(topic, String.valueOf(orderId), OrderCreatedEvent.builder()
+                    .orderId(orderId)
+                    .userId(1L)
+                    .status(OrderStatus.PAYMENT_PENDING)
+                    .totalAmount(new BigDecimal("10.00"))
+                    .items(List.of())
+                    .build()).get(30, TimeUnit.SECONDS);
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    public Consumer<String, PaymentCreatedEvent> paymentConsumer(String groupId) {
+        Map<String, Object> props = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, groupId,
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new JsonDeserializer<>(PaymentCreatedEvent.class, false)).createConsumer();
+    }
+
+    /**
+     * Stops a launched application, forcibly if it does not exit in time.
+     */
+    public static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    @Override
+    public void close() {
+        randomApiStub.close();
+        mongod.close();
+        kafka.destroy();
+    }
+}
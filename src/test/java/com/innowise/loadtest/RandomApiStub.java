@@ -0,0 +1,59 @@
+package com.innowise.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process stand-in for the external random number API.
+ * <p>
+ * Serves {@code GET <path>?min=..&max=..&count=..} with a JSON array of
+ * integers after a delay drawn from the configured {@link LatencyDistribution}.
+ * Each request is handled on its own virtual thread so injected latency does
+ * not serialize concurrent callers.
+ * </p>
+ */
+public class RandomApiStub implements AutoCloseable {
+
+    private final HttpServer server;
+
+    public RandomApiStub(String path, LatencyDistribution latency) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(path, exchange -> {
+            try {
+                long delay = latency.nextDelayMillis();
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+                byte[] body = ("[" + ThreadLocalRandom.current().nextInt(100, 1001) + "]")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(503, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,130 @@
+package com.innowise.loadtest;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.OrderItemEvent;
+import com.innowise.model.enums.RiskRuleType;
+import com.innowise.service.risk.RiskProgram;
+import com.innowise.service.risk.RiskRuleDefinition;
+import com.innowise.service.risk.RiskRuleSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single-thread throughput of a compiled risk program.
+ * <p>
+ * Scores a pre-generated set of orders with one to eight line items against
+ * ten rules covering every rule type. Run with
+ * {@code mvn -Pload-test test -Dtest=RiskEngineBenchmark}; tune with
+ * {@code risk.events} (default 2000000) and {@code risk.min-throughput}
+ * (default 100000 orders/s). The report is written to
+ * {@code target/load-test/risk-engine.txt}.
+ * </p>
+ */
+@Tag("load")
+class RiskEngineBenchmark {
+
+    private static final Path REPORT_DIR = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+    private static final int DISTINCT_ORDERS = 4096;
+
+    @Test
+    void scoreThroughput() throws IOException {
+        int events = Integer.getInteger("risk.events", 2_000_000);
+        long minThroughput = Long.getLong("risk.min-throughput", 100_000L);
+
+        RiskProgram program = RiskProgram.compile(ruleSet(), 2, new SimpleMeterRegistry());
+        OrderCreatedEvent[] orders = orders();
+
+        // Warm-up so the measured loop runs compiled code
+        long rejected = run(program, orders, events / 4);
+
+        long started = System.nanoTime();
+        rejected += run(program, orders, events);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double throughput = events / seconds;
+
+        writeReport(events, program.ruleIds().size(), seconds, throughput, rejected);
+        assertThat(throughput).isGreaterThanOrEqualTo(minThroughput);
+    }
+
+    private static long run(RiskProgram program, OrderCreatedEvent[] orders, int events) {
+        long rejected = 0;
+        for (int i = 0; i < events; i++) {
+            if (program.rejects(program.score(orders[i & (DISTINCT_ORDERS - 1)], i & 7))) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    private static RiskRuleSet ruleSet() {
+        List<RiskRuleDefinition> rules = List.of(
+                rule("amount-500", RiskRuleType.AMOUNT_ABOVE, "500.00", 20),
+                rule("amount-2000", RiskRuleType.AMOUNT_ABOVE, "2000.00", 40),
+                rule("amount-5000", RiskRuleType.AMOUNT_ABOVE, "5000.00", 100),
+                rule("lines-5", RiskRuleType.ITEM_COUNT_ABOVE, "5", 10),
+                rule("quantity-20", RiskRuleType.QUANTITY_ABOVE, "20", 30),
+                rule("quantity-50", RiskRuleType.QUANTITY_ABOVE, "50", 60),
+                rule("item-price-800", RiskRuleType.ITEM_PRICE_ABOVE, "800.00", 30),
+                rule("velocity-4", RiskRuleType.USER_VELOCITY_ABOVE, "4", 30),
+                rule("velocity-6", RiskRuleType.USER_VELOCITY_ABOVE, "6", 60),
+                RiskRuleDefinition.builder()
+                        .id("blocked-items").type(RiskRuleType.BLACKLISTED_ITEM)
+                        .items(List.of(13L, 666L, 4040L, 9001L)).score(100).build());
+        return new RiskRuleSet(100, rules);
+    }
+
+    private static RiskRuleDefinition rule(String id, RiskRuleType type, String threshold, int score) {
+        return RiskRuleDefinition.builder().id(id).type(type).threshold(new BigDecimal(threshold)).score(score).build();
+    }
+
+    private static OrderCreatedEvent[] orders() {
+        SplittableRandom random = new SplittableRandom(42);
+        OrderCreatedEvent[] orders = new OrderCreatedEvent[DISTINCT_ORDERS];
+        for (int i = 0; i < orders.length; i++) {
+            int lines = random.nextInt(1, 9);
+            List<OrderItemEvent> items = new ArrayList<>(lines);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < lines; j++) {
+                BigDecimal price = BigDecimal.valueOf(random.nextLong(100, 100_000), 2);
+                int quantity = random.nextInt(1, 10);
+                items.add(OrderItemEvent.builder()
+                        .itemId(random.nextLong(1, 10_000))
+                        .itemName("item")
+                        .price(price)
+                        .quantity(quantity)
+                        .build());
+                total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+            }
+            orders[i] = OrderCreatedEvent.builder()
+                    .orderId((long) i)
+                    .userId((long) (i & 255))
+                    .totalAmount(total)
+                    .items(items)
+                    .build();
+        }
+        return orders;
+    }
+
+    private static void writeReport(int events, int rules, double seconds, double throughput, long rejected)
+            throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Path report = REPORT_DIR.resolve("risk-engine.txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(report))) {
+            out.printf("%-8s %10s %10s %14s %10s%n", "rules", "orders", "seconds", "orders/s", "rejected");
+            out.printf("%-8d %10d %10.2f %14.0f %10d%n", rules, events, seconds, throughput, rejected);
+        }
+        System.out.println(Files.readString(report));
+    }
+}
@@ -0,0 +1,225 @@
+package com.innowise.loadtest;
+
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.metrics.StartupMetrics;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Time-to-first-consumed-message benchmark for the packaged application.
+ * <p>
+ * Each run publishes one {@code OrderCreatedEvent} to a fresh topic, launches
+ * the jar as a separate JVM against an embedded Kafka broker, an in-process
+ * MongoDB and a local random API stub, and records two numbers:
+ * <ul>
+ * <li>the time from JVM start to the first consumed message, as logged by
+ * {@link StartupMetrics}</li>
+ * <li>the wall time from process launch until the matching
+ * {@code PaymentCreatedEvent} is visible</li>
+ * </ul>
+ * Variants (system property {@code startup.variants}, default
+ * {@code baseline,aot,aot-cds}):
+ * <ul>
+ * <li>{@code baseline} - {@code java -jar}</li>
+ * <li>{@code aot} - {@code -Dspring.aot.enabled=true}; needs a jar built with {@code -Pfast-startup}</li>
+ * <li>{@code aot-cds} - as {@code aot}, run from the extracted jar with a CDS
+ * archive produced by a training run, like the Docker image</li>
+ * </ul>
+ * Run with {@code mvn -Pfast-startup package -DskipTests && mvn -Pstartup-benchmark test};
+ * {@code startup.runs} sets runs per variant (default 3), {@code startup.jar}
+ * the jar to launch (default: the single executable jar in {@code target}) and
+ * {@code startup.warm-up} whether JIT warm-up runs before consuming (default
+ * false, so the variants are compared on startup alone).
+ * The report is written to {@code target/startup-benchmark/summary.txt}.
+ * </p>
+ */
+@Tag("startup")
+class StartupTimeBenchmark {
+
+    private static final Path WORK_DIR = Path.of("target", "startup-benchmark");
+    private static final Duration RUN_TIMEOUT = Duration.ofMinutes(2);
+
+    private static ProcessStandIns standIns;
+    private static Path jar;
+
+    @BeforeAll
+    static void startStandIns() throws IOException {
+        jar = locateJar();
+        assumeTrue(jar != null, "No executable jar found; run mvn package first");
+
+        standIns = new ProcessStandIns();
+    }
+
+    @AfterAll
+    static void stopStandIns() {
+        if (standIns != null) {
+            standIns.close();
+        }
+    }
+
+    @Test
+    void timeToFirstConsumedMessage() throws Exception {
+        int runs = Integer.getInteger("startup.runs", 3);
+        List<String> variants = Arrays.asList(System.getProperty("startup.variants", "baseline,aot,aot-cds").split(","));
+        Map<String, List<long[]>> results = new LinkedHashMap<>();
+
+        int runNumber = 0;
+        for (String variant : variants) {
+            List<String> command = prepare(variant.trim());
+            List<long[]> samples = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                samples.add(measure(command, runNumber++));
+            }
+            results.put(variant.trim(), samples);
+        }
+
+        writeReport(results);
+        results.values().forEach(samples -> assertThat(samples).allSatisfy(s -> assertThat(s[0]).isPositive()));
+    }
+
+    private List<String> prepare(String variant) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return switch (variant) {
+            case "baseline" -> List.of(java, "-jar", jar.toAbsolutePath().toString());
+            case "aot" -> List.of(java, "-Dspring.aot.enabled=true", "-jar", jar.toAbsolutePath().toString());
+            case "aot-cds" -> {
+                Path extracted = WORK_DIR.resolve("extracted").toAbsolutePath();
+                Path extractedJar = extracted.resolve(jar.getFileName());
+                Path archive = extracted.resolve("app.jsa");
+                run(List.of(java, "-Djarmode=tools", "-jar", jar.toAbsolutePath().toString(),
+                        "extract", "--destination", extracted.toString(), "--force"), null);
+                List<String> training = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive,
+                        "-Dspring.aot.enabled=true", "-Dspring.context.exit=onRefresh",
+                        "-Dspring.kafka.admin.auto-create=false", "-Dpayment.migration.mode=none",
+                        "-jar", extractedJar.toString()));
+                training.addAll(standIns.applicationArguments("training"));
+                run(training, extracted);
+                yield List.of(java, "-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                        "-jar", extractedJar.toString());
+            }
+            default -> throw new IllegalArgumentException("Unknown startup variant: " + variant);
+        };
+    }
+
+    /**
+     * @return {JVM-reported time to first consumed message, wall time to first payment event}, in ms
+     */
+    private long[] measure(List<String> baseCommand, int runNumber) throws Exception {
+        String suffix = "startup-" + runNumber;
+        String orderTopic = "order-events-" + suffix;
+        String paymentTopic = "payment-events-" + suffix;
+        standIns.createTopics(orderTopic, paymentTopic);
+        standIns.publishOrder(orderTopic, runNumber + 1L);
+
+        List<String> command = new ArrayList<>(baseCommand);
+        command.addAll(standIns.applicationArguments(suffix));
+        command.add("--spring.kafka.topic.order-events=" + orderTopic);
+        command.add("--spring.kafka.topic.payment-events=" + paymentTopic);
+        command.add("--payment.migration.fail-on-pending=false");
+        command.add("--payment.warm-up.enabled=" + Boolean.getBoolean("startup.warm-up"));
+
+        long launchedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        CompletableFuture<Long> firstMessage = CompletableFuture.supplyAsync(() -> readFirstMessageMillis(process));
+        try (Consumer<String, PaymentCreatedEvent> consumer = standIns.paymentConsumer("benchmark-" + suffix)) {
+            consumer.subscribe(List.of(paymentTopic));
+            long deadline = launchedAt + RUN_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!consumer.poll(Duration.ofMillis(50)).isEmpty()) {
+                    long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchedAt);
+                    return new long[]{firstMessage.get(RUN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS), wallMillis};
+                }
+            }
+            throw new IllegalStateException("No payment event within " + RUN_TIMEOUT + " for " + command);
+        } finally {
+            ProcessStandIns.stop(process);
+        }
+    }
+
+    private static long readFirstMessageMillis(Process process) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            long result = -1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int index = line.indexOf(StartupMetrics.FIRST_MESSAGE_LOG_PREFIX);
+                if (result < 0 && index >= 0) {
+                    String value = line.substring(index + StartupMetrics.FIRST_MESSAGE_LOG_PREFIX.length()).trim();
+                    result = Long.parseLong(value.split("\\s+")[0]);
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void run(List<String> command, Path directory) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        if (directory != null) {
+            builder.directory(directory.toFile());
+        }
+        Process process = builder.start();
+        assertThat(process.waitFor(RUN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                .as("%s finished in time", command).isTrue();
+        assertThat(process.exitValue()).as("%s exit code", command).isZero();
+    }
+
+    private static Path locateJar() throws IOException {
+        String configured = System.getProperty("startup.jar");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        Path target = Path.of("target");
+        if (!Files.isDirectory(target)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(target)) {
+            Optional<Path> candidate = files
+                    .filter(p -> p.getFileName().toString().endsWith(".jar"))
+                    .findFirst();
+            return candidate.orElse(null);
+        }
+    }
+
+    private static void writeReport(Map<String, List<long[]>> results) throws IOException {
+        Files.createDirectories(WORK_DIR);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(WORK_DIR.resolve("summary.txt")))) {
+            out.printf("%-10s %6s %28s %28s%n", "variant", "runs",
+                    "first message ms (min/med/max)", "first payment ms (min/med/max)");
+            results.forEach((variant, samples) -> out.printf("%-10s %6d %28s %28s%n", variant, samples.size(),
+                    stats(samples, 0), stats(samples, 1)));
+        }
+        System.out.println(Files.readString(WORK_DIR.resolve("summary.txt")));
+    }
+
+    private static String stats(List<long[]> samples, int column) {
+        long[] values = samples.stream().mapToLong(s -> s[column]).sorted().toArray();
+        return values[0] + "/" + values[values.length / 2] + "/" + values[values.length - 1];
+    }
+}
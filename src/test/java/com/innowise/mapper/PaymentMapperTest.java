@@ -53,7 +53,8 @@ class PaymentMapperTest {
                 2L,
                 PaymentStatus.PENDING,
                 now,
-                BigDecimal.valueOf(200.00)
+                BigDecimal.valueOf(200.00),
+                4L
         );
 
         PaymentResponseDto dto = paymentMapper.toDto(entity);
@@ -65,6 +66,7 @@ class PaymentMapperTest {
         assertEquals(entity.getStatus(), dto.getStatus());
         assertEquals(entity.getTimestamp(), dto.getTimestamp());
         assertEquals(entity.getPaymentAmount(), dto.getPaymentAmount());
+        assertEquals(entity.getVersion(), dto.getVersion());
     }
 
     @Test
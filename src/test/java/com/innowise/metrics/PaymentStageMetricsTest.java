@@ -0,0 +1,85 @@
+package com.innowise.metrics;
+
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentStageMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private PaymentStageMetrics stageMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        stageMetrics = new PaymentStageMetrics(registry);
+    }
+
+    @Test
+    void record_shouldTagSuccessfulStage() {
+        String result = stageMetrics.record(ProcessingStage.INSERT, () -> "ok");
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(stageTimer("insert", "success").count()).isEqualTo(1);
+        assertThat(stageTimer("insert", "error").count()).isZero();
+    }
+
+    @Test
+    void record_shouldTagFailedStage() {
+        assertThatThrownBy(() -> stageMetrics.record(ProcessingStage.RANDOM_FETCH, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(stageTimer("random_fetch", "error").count()).isEqualTo(1);
+    }
+
+    @Test
+    void record_shouldCountDeadlineExceededUnderReportedStage() {
+        assertThatThrownBy(() -> stageMetrics.record(ProcessingStage.INSERT, () -> {
+            throw new DeadlineExceededException(ProcessingStage.INSERT, Duration.ofSeconds(1));
+        })).isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(registry.get(PaymentStageMetrics.DEADLINE_EXCEEDED_COUNTER).tag("stage", "insert")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get(PaymentStageMetrics.DEADLINE_EXCEEDED_COUNTER).tag("stage", "publish")
+                .counter().count()).isZero();
+        assertThat(stageTimer("insert", "error").count()).isEqualTo(1);
+    }
+
+    @Test
+    void record_shouldAcceptCallerMeasuredDuration() {
+        stageMetrics.record(ProcessingStage.PUBLISH, System.nanoTime(), false);
+
+        assertThat(stageTimer("publish", "error").count()).isEqualTo(1);
+    }
+
+    @Test
+    void recordEndToEndLag_shouldTagByOutcome() {
+        stageMetrics.recordEndToEndLag(LocalDateTime.now().minusSeconds(2), "success");
+
+        Timer timer = registry.get(PaymentStageMetrics.END_TO_END_TIMER).tag("outcome", "success").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.SECONDS)).isGreaterThanOrEqualTo(1.9);
+    }
+
+    @Test
+    void recordEndToEndLag_shouldIgnoreMissingTimestamp() {
+        stageMetrics.recordEndToEndLag(null, "success");
+
+        assertThat(registry.find(PaymentStageMetrics.END_TO_END_TIMER).timer()).isNull();
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return registry.get(PaymentStageMetrics.STAGE_TIMER).tag("stage", stage).tag("outcome", outcome).timer();
+    }
+}
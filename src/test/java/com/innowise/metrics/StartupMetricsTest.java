@@ -0,0 +1,29 @@
+package com.innowise.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupMetricsTest {
+
+    @Test
+    void messageConsumed_shouldRecordOnlyFirstMessage() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StartupMetrics startupMetrics = new StartupMetrics(registry);
+
+        assertThat(startupMetrics.getFirstMessageMillis()).isNaN();
+
+        startupMetrics.messageConsumed();
+        double first = startupMetrics.getFirstMessageMillis();
+        Thread.sleep(5);
+        startupMetrics.messageConsumed();
+
+        assertThat(first).isPositive();
+        assertThat(startupMetrics.getFirstMessageMillis()).isEqualTo(first);
+        assertThat(registry.get(StartupMetrics.FIRST_MESSAGE_GAUGE).timeGauge().value(TimeUnit.MILLISECONDS))
+                .isEqualTo(first);
+    }
+}
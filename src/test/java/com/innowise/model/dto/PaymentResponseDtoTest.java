@@ -43,7 +43,7 @@ class PaymentResponseDtoTest {
         BigDecimal amount = new BigDecimal("150.00");
 
         PaymentResponseDto dto = new PaymentResponseDto(
-                id, orderId, userId, status, timestamp, amount
+                id, orderId, userId, status, timestamp, amount, 1L
         );
 
         assertThat(dto.getId()).isEqualTo(id);
@@ -115,7 +115,7 @@ class PaymentResponseDtoTest {
         BigDecimal amount = new BigDecimal("450.00");
 
         PaymentResponseDto dto = new PaymentResponseDto(
-                id, orderId, userId, status, timestamp, amount
+                id, orderId, userId, status, timestamp, amount, 1L
         );
 
         assertThat(dto.getId()).isEqualTo(id);
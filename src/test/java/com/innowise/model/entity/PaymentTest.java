@@ -39,7 +39,8 @@ class PaymentTest {
                 12L,
                 PaymentStatus.PENDING,
                 now,
-                BigDecimal.valueOf(500.00)
+                BigDecimal.valueOf(500.00),
+                3L
         );
 
         assertEquals("10", payment.getId());
@@ -48,15 +49,16 @@ class PaymentTest {
         assertEquals(PaymentStatus.PENDING, payment.getStatus());
         assertEquals(now, payment.getTimestamp());
         assertEquals(BigDecimal.valueOf(500.00), payment.getPaymentAmount());
+        assertEquals(3L, payment.getVersion());
     }
 
     @Test
     void testEqualsAndHashCode() {
         LocalDateTime now = LocalDateTime.now();
 
-        Payment p1 = new Payment("1", 2L, 3L, PaymentStatus.SUCCESS, now, BigDecimal.TEN);
-        Payment p2 = new Payment("1", 2L, 3L, PaymentStatus.SUCCESS, now, BigDecimal.TEN);
-        Payment p3 = new Payment("4", 5L, 6L, PaymentStatus.FAILED, now, BigDecimal.ONE);
+        Payment p1 = new Payment("1", 2L, 3L, PaymentStatus.SUCCESS, now, BigDecimal.TEN, 0L);
+        Payment p2 = new Payment("1", 2L, 3L, PaymentStatus.SUCCESS, now, BigDecimal.TEN, 0L);
+        Payment p3 = new Payment("4", 5L, 6L, PaymentStatus.FAILED, now, BigDecimal.ONE, 0L);
 
         assertEquals(p1, p2);
         assertEquals(p1.hashCode(), p2.hashCode());
@@ -66,7 +68,7 @@ class PaymentTest {
     @Test
     void testToStringContainsFields() {
         LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
-        Payment payment = new Payment("100", 101L, 102L, PaymentStatus.FAILED, now, BigDecimal.valueOf(999.99));
+        Payment payment = new Payment("100", 101L, 102L, PaymentStatus.FAILED, now, BigDecimal.valueOf(999.99), 1L);
 
         String toString = payment.toString();
 
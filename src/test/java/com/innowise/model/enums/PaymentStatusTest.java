@@ -0,0 +1,39 @@
+package com.innowise.model.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStatusTest {
+
+    @Test
+    void canTransitionTo_shouldAllowDecisionFromPending() {
+        assertThat(PaymentStatus.PENDING.canTransitionTo(PaymentStatus.SUCCESS)).isTrue();
+        assertThat(PaymentStatus.PENDING.canTransitionTo(PaymentStatus.FAILED)).isTrue();
+        assertThat(PaymentStatus.PENDING.canTransitionTo(PaymentStatus.PENDING)).isFalse();
+    }
+
+    @Test
+    void canTransitionTo_shouldOnlyAllowCompensationFromSuccess() {
+        assertThat(PaymentStatus.SUCCESS.canTransitionTo(PaymentStatus.FAILED)).isTrue();
+        assertThat(PaymentStatus.SUCCESS.canTransitionTo(PaymentStatus.PENDING)).isFalse();
+        assertThat(PaymentStatus.SUCCESS.canTransitionTo(PaymentStatus.SUCCESS)).isFalse();
+    }
+
+    @Test
+    void canTransitionTo_shouldTreatFailedAsFinal() {
+        for (PaymentStatus target : PaymentStatus.values()) {
+            assertThat(PaymentStatus.FAILED.canTransitionTo(target)).isFalse();
+        }
+    }
+
+    @Test
+    void sourcesOf_shouldListLegalSourceStatuses() {
+        assertThat(PaymentStatus.sourcesOf(PaymentStatus.SUCCESS)).isEqualTo(EnumSet.of(PaymentStatus.PENDING));
+        assertThat(PaymentStatus.sourcesOf(PaymentStatus.FAILED))
+                .isEqualTo(EnumSet.of(PaymentStatus.PENDING, PaymentStatus.SUCCESS));
+        assertThat(PaymentStatus.sourcesOf(PaymentStatus.PENDING)).isEmpty();
+    }
+}
@@ -0,0 +1,53 @@
+package com.innowise.model.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinorUnitsTest {
+
+    @Test
+    void of_shouldConvertDecimalToMinorUnits() {
+        assertThat(MinorUnits.of(new BigDecimal("150.25"), 2)).isEqualTo(15025L);
+        assertThat(MinorUnits.of(new BigDecimal("150"), 2)).isEqualTo(15000L);
+    }
+
+    @Test
+    void of_shouldRejectAmountWithTooManyFractionDigits() {
+        assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("1.005"), 2))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void toBigDecimal_shouldRestoreScale() {
+        assertThat(MinorUnits.toBigDecimal(15025L, 2)).isEqualTo(new BigDecimal("150.25"));
+    }
+
+    @Test
+    void arithmetic_shouldBeOverflowChecked() {
+        assertThat(MinorUnits.add(100L, 250L)).isEqualTo(350L);
+        assertThat(MinorUnits.subtract(100L, 250L)).isEqualTo(-150L);
+        assertThat(MinorUnits.multiply(1999L, 3L)).isEqualTo(5997L);
+
+        assertThatThrownBy(() -> MinorUnits.add(Long.MAX_VALUE, 1L))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MinorUnits.multiply(Long.MAX_VALUE, 2L))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void rescale_shouldConvertBetweenScales() {
+        assertThat(MinorUnits.rescale(15025L, 2, 4)).isEqualTo(1502500L);
+        assertThat(MinorUnits.rescale(1502500L, 4, 2)).isEqualTo(15025L);
+        assertThat(MinorUnits.rescale(15025L, 2, 2)).isEqualTo(15025L);
+    }
+
+    @Test
+    void rescale_shouldRejectLossOfPrecision() {
+        assertThatThrownBy(() -> MinorUnits.rescale(15025L, 2, 0))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,160 @@
+package com.innowise.service.archive;
+
+import com.innowise.config.ArchiveProperties;
+import com.innowise.dao.archive.PaymentArchive;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.kafka.BackpressureController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentArchiverTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentArchive paymentArchive;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BackpressureController backpressureController;
+
+    private ArchiveProperties properties;
+    private SimpleMeterRegistry registry;
+    private PaymentArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ArchiveProperties();
+        properties.setBatchSize(3);
+        properties.setMaxRate(1_000_000);
+        properties.setHotRetention(Duration.ofDays(90));
+        registry = new SimpleMeterRegistry();
+        archiver = new PaymentArchiver(properties, paymentRepository, paymentArchive, mongoTemplate,
+                backpressureController, registry);
+        // Disabled: marks the archiver running without scheduling it
+        archiver.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiver.stop();
+    }
+
+    @Test
+    void archive_shouldUpsertByMonthBeforeDeletingFromHotCollection() {
+        Payment march = settled("payment-1", LocalDateTime.of(2024, 3, 31, 23, 59));
+        Payment april = settled("payment-2", LocalDateTime.of(2024, 4, 1, 0, 0));
+        when(paymentRepository.findSettledBefore(any(LocalDateTime.class), eq(3)))
+                .thenReturn(List.of(march, april));
+        when(paymentRepository.deleteUnchanged(anyList())).thenReturn(2);
+
+        assertThat(archiver.archive()).isEqualTo(2);
+
+        InOrder inOrder = inOrder(paymentArchive, paymentRepository);
+        inOrder.verify(paymentArchive).upsertAll(YearMonth.of(2024, 3), List.of(march));
+        inOrder.verify(paymentArchive).upsertAll(YearMonth.of(2024, 4), List.of(april));
+        inOrder.verify(paymentRepository).deleteUnchanged(List.of(march, april));
+        assertThat(registry.get("payment.archive.moved").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void archive_shouldContinueUntilShortBatchAndRenewLease() {
+        List<Payment> full = List.of(settled("payment-1", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                settled("payment-2", LocalDateTime.of(2024, 1, 2, 0, 0)),
+                settled("payment-3", LocalDateTime.of(2024, 1, 3, 0, 0)));
+        List<Payment> rest = List.of(settled("payment-4", LocalDateTime.of(2024, 1, 4, 0, 0)));
+        when(paymentRepository.findSettledBefore(any(LocalDateTime.class), eq(3))).thenReturn(full, rest);
+        when(paymentRepository.deleteUnchanged(anyList())).thenReturn(3, 1);
+
+        assertThat(archiver.archive()).isEqualTo(4);
+
+        verify(paymentRepository, times(2)).findSettledBefore(any(LocalDateTime.class), eq(3));
+        // Acquired before the first batch and renewed after the full one
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), any(Update.class), eq(MongoLease.COLLECTION));
+    }
+
+    @Test
+    void archive_shouldStop_whenNothingCouldBeDeleted() {
+        List<Payment> full = List.of(settled("payment-1", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                settled("payment-2", LocalDateTime.of(2024, 1, 2, 0, 0)),
+                settled("payment-3", LocalDateTime.of(2024, 1, 3, 0, 0)));
+        when(paymentRepository.findSettledBefore(any(LocalDateTime.class), eq(3))).thenReturn(full);
+        when(paymentRepository.deleteUnchanged(anyList())).thenReturn(0);
+
+        assertThat(archiver.archive()).isZero();
+
+        verify(paymentRepository, times(1)).findSettledBefore(any(LocalDateTime.class), eq(3));
+    }
+
+    @Test
+    void archive_shouldDoNothing_whenLeaseHeldElsewhere() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MongoLease.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertThat(archiver.archive()).isZero();
+
+        verifyNoInteractions(paymentRepository, paymentArchive);
+    }
+
+    @Test
+    void archive_shouldDropMonthsPastArchiveRetention_whenCaughtUp() {
+        properties.setArchiveRetention(Duration.ofDays(365));
+        YearMonth current = YearMonth.now();
+        YearMonth expired = current.minusMonths(14);
+        YearMonth kept = current.minusMonths(11);
+        when(paymentRepository.findSettledBefore(any(LocalDateTime.class), eq(3))).thenReturn(List.of());
+        when(paymentArchive.months()).thenReturn(List.of(kept, expired));
+
+        archiver.archive();
+
+        verify(paymentArchive).drop(expired);
+        verify(paymentArchive, never()).drop(kept);
+        assertThat(registry.get("payment.archive.months.dropped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void archive_shouldKeepArchive_whenNoArchiveRetention() {
+        when(paymentRepository.findSettledBefore(any(LocalDateTime.class), eq(3))).thenReturn(List.of());
+
+        archiver.archive();
+
+        verify(paymentArchive, never()).months();
+    }
+
+    private static Payment settled(String id, LocalDateTime timestamp) {
+        return Payment.builder()
+                .id(id)
+                .status(PaymentStatus.SUCCESS)
+                .timestamp(timestamp)
+                .version(1L)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.innowise.service.concurrent;
+
+import com.innowise.config.ProcessingProperties;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineTest {
+
+    @Test
+    void remaining_shouldBeBoundedByBudget() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+
+        assertThat(deadline.remaining(ProcessingStage.INSERT))
+                .isPositive()
+                .isLessThanOrEqualTo(Duration.ofSeconds(5));
+        assertThat(deadline.isExpired()).isFalse();
+    }
+
+    @Test
+    void remaining_shouldThrowWithStage_whenExpired() {
+        Deadline deadline = Deadline.after(Duration.ZERO);
+
+        assertThat(deadline.isExpired()).isTrue();
+        assertThatThrownBy(() -> deadline.remaining(ProcessingStage.STATUS_UPDATE))
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessageContaining("status_update")
+                .extracting("stage").isEqualTo(ProcessingStage.STATUS_UPDATE);
+    }
+
+    @Test
+    void attach_shouldRestorePreviousDeadlineOnClose() {
+        Deadline outer = Deadline.after(Duration.ofSeconds(10));
+        Deadline inner = Deadline.after(Duration.ofSeconds(1));
+
+        try (Deadline.Attachment ignored = outer.attach()) {
+            try (Deadline.Attachment ignoredInner = inner.attach()) {
+                assertThat(Deadline.current()).containsSame(inner);
+            }
+            assertThat(Deadline.current()).containsSame(outer);
+        }
+        assertThat(Deadline.current()).isEmpty();
+    }
+
+    @Test
+    void check_shouldBeNoOp_withoutAttachedDeadline() {
+        assertThatCode(() -> Deadline.check(ProcessingStage.PUBLISH)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void subtasks_shouldSeeTheForkingThreadsDeadline() {
+        SubtaskExecutor subtaskExecutor = new SubtaskExecutor(new ProcessingProperties());
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+        try (Deadline.Attachment ignored = deadline.attach();
+             SubtaskScope scope = subtaskExecutor.open()) {
+            Supplier<Optional<Deadline>> seen = scope.fork(Deadline::current);
+
+            scope.join(Duration.ofSeconds(5));
+
+            assertThat(seen.get()).containsSame(deadline);
+        } finally {
+            subtaskExecutor.destroy();
+        }
+    }
+}
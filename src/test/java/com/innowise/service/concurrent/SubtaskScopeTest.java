@@ -0,0 +1,131 @@
+package com.innowise.service.concurrent;
+
+import com.innowise.config.ProcessingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubtaskScopeTest {
+
+    private final SubtaskExecutor subtaskExecutor = new SubtaskExecutor(new ProcessingProperties());
+
+    @AfterEach
+    void tearDown() {
+        subtaskExecutor.destroy();
+    }
+
+    @Test
+    void join_shouldReturnResultsOfAllSubtasks_runningOnVirtualThreads() {
+        try (SubtaskScope scope = subtaskExecutor.open()) {
+            Supplier<Boolean> virtual = scope.fork(() -> Thread.currentThread().isVirtual());
+            Supplier<String> name = scope.fork(() -> Thread.currentThread().getName());
+
+            scope.join(Duration.ofSeconds(5));
+
+            assertThat(virtual.get()).isTrue();
+            assertThat(name.get()).startsWith("payment-subtask-");
+        }
+    }
+
+    @Test
+    void join_shouldTakeAsLongAsTheSlowestSubtask() {
+        long start = System.nanoTime();
+        try (SubtaskScope scope = subtaskExecutor.open()) {
+            scope.fork(() -> sleep(200));
+            scope.fork(() -> sleep(200));
+
+            scope.join(Duration.ofSeconds(5));
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(390));
+    }
+
+    @Test
+    void join_shouldRethrowFirstFailure_andCancelOtherSubtasks() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (SubtaskScope scope = subtaskExecutor.open()) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                throw new IllegalArgumentException("boom");
+            });
+
+            assertThatThrownBy(() -> scope.join(Duration.ofSeconds(5)))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("boom");
+        }
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void join_shouldWrapCheckedFailure() {
+        try (SubtaskScope scope = subtaskExecutor.open()) {
+            scope.fork(() -> {
+                throw new IOException("io");
+            });
+
+            assertThatThrownBy(() -> scope.join(Duration.ofSeconds(5)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasCauseInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    void join_shouldFailAndCancel_whenDeadlinePasses() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (SubtaskScope scope = subtaskExecutor.open()) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+
+            assertThatThrownBy(() -> scope.join(Duration.ofMillis(50)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasCauseInstanceOf(TimeoutException.class);
+        }
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void close_shouldCancelSubtasksThatWereNotJoined() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (SubtaskScope scope = subtaskExecutor.open()) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+        }
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static Void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return null;
+    }
+}
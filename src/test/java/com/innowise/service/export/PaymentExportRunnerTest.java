@@ -0,0 +1,96 @@
+package com.innowise.service.export;
+
+import com.innowise.config.ExportProperties;
+import com.innowise.model.enums.ExportFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentExportRunnerTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 5, 2, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private PaymentExporter exporter;
+
+    @Mock
+    private ConfigurableApplicationContext applicationContext;
+
+    private ExportProperties properties;
+    private AtomicInteger exitCode;
+    private PaymentExportRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExportProperties();
+        exitCode = new AtomicInteger(-1);
+        runner = new PaymentExportRunner(properties, exporter, applicationContext, exitCode::set);
+    }
+
+    @Test
+    void run_shouldDoNothing_whenNoOutputConfigured() {
+        runner.run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(exporter);
+        assertThat(exitCode.get()).isEqualTo(-1);
+    }
+
+    @Test
+    void run_shouldExportIntoDirectoryAndExitWithZero() throws IOException {
+        properties.setOutput(directory);
+        properties.setFrom(FROM);
+        properties.setTo(TO);
+        properties.setFormat(ExportFormat.CSV);
+        properties.setGzip(true);
+
+        runner.run(new DefaultApplicationArguments());
+
+        verify(exporter).exportToFile(FROM, TO, ExportFormat.CSV, true,
+                directory.resolve("payments-20240501T000000-20240502T000000.csv.gz"));
+        assertThat(exitCode.get()).isZero();
+    }
+
+    @Test
+    void run_shouldExitWithOne_whenExportFails() throws IOException {
+        properties.setOutput(directory.resolve("payments.ndjson"));
+        properties.setFrom(FROM);
+        properties.setTo(TO);
+        when(exporter.exportToFile(any(), any(), any(), anyBoolean(), any())).thenThrow(new IOException("disk full"));
+
+        runner.run(new DefaultApplicationArguments());
+
+        assertThat(exitCode.get()).isEqualTo(1);
+    }
+
+    @Test
+    void run_shouldExitWithOne_whenRangeIsInvalid() {
+        properties.setOutput(directory);
+        properties.setFrom(TO);
+        properties.setTo(FROM);
+
+        runner.run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(exporter);
+        assertThat(exitCode.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.innowise.service.export;
+
+import com.innowise.config.ExportProperties;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.ExportFormat;
+import com.innowise.model.enums.PaymentStatus;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentExporterTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 5, 2, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    private SimpleMeterRegistry registry;
+    private PaymentExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        exporter = new PaymentExporter(paymentRepository, new ExportProperties(), registry);
+    }
+
+    @Test
+    void export_shouldWriteOneJsonObjectPerLine() {
+        stubPayments(payment("payment-1", "150.25"), payment("payment-2", "0.10"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exporter.export(FROM, TO, ExportFormat.NDJSON, false, out)).isEqualTo(2);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "{\"id\":\"payment-1\",\"orderId\":1001,\"userId\":2002,\"status\":\"SUCCESS\","
+                        + "\"timestamp\":\"2024-05-01T12:30:15\",\"amount\":150.25,\"version\":1}",
+                "{\"id\":\"payment-2\",\"orderId\":1001,\"userId\":2002,\"status\":\"SUCCESS\","
+                        + "\"timestamp\":\"2024-05-01T12:30:15\",\"amount\":0.10,\"version\":1}");
+        assertThat(registry.get("payment.export.payments").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void export_shouldWriteNullForMissingFields() {
+        stubPayments(Payment.builder().id("payment-1").build());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(FROM, TO, ExportFormat.NDJSON, false, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"payment-1\",\"orderId\":null,"
+                + "\"userId\":null,\"status\":null,\"timestamp\":null,\"amount\":null,\"version\":null}\n");
+    }
+
+    @Test
+    void export_shouldWriteCsvWithHeaderAndQuoting() {
+        stubPayments(payment("payment-1", "150.25"), payment("legacy,\"id\"", "1.00"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(FROM, TO, ExportFormat.CSV, false, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                PaymentExporter.CSV_HEADER,
+                "payment-1,1001,2002,SUCCESS,2024-05-01T12:30:15,150.25,1",
+                "\"legacy,\"\"id\"\"\",1001,2002,SUCCESS,2024-05-01T12:30:15,1.00,1");
+    }
+
+    @Test
+    void export_shouldCompress_whenGzipRequested() throws IOException {
+        stubPayments(payment("payment-1", "150.25"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(FROM, TO, ExportFormat.CSV, true, out);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .startsWith(PaymentExporter.CSV_HEADER + "\n")
+                    .contains("payment-1,1001");
+        }
+    }
+
+    @Test
+    void exportToFile_shouldMoveCompleteFileIntoPlace() throws IOException {
+        stubPayments(payment("payment-1", "150.25"));
+        Path target = directory.resolve("payments.ndjson");
+
+        assertThat(exporter.exportToFile(FROM, TO, ExportFormat.NDJSON, false, target)).isEqualTo(1);
+
+        assertThat(Files.readString(target)).contains("\"id\":\"payment-1\"");
+        assertThat(directory.resolve("payments.ndjson.part")).doesNotExist();
+    }
+
+    @Test
+    void exportToFile_shouldLeaveNoFile_whenExportFails() {
+        when(paymentRepository.streamBetween(eq(FROM), eq(TO), any(ReadPreference.class), anyInt(), any()))
+                .thenThrow(new IllegalStateException("cursor killed"));
+        Path target = directory.resolve("payments.ndjson");
+
+        assertThatThrownBy(() -> exporter.exportToFile(FROM, TO, ExportFormat.NDJSON, false, target))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(target).doesNotExist();
+        assertThat(directory.resolve("payments.ndjson.part")).doesNotExist();
+    }
+
+    @Test
+    void fileName_shouldNameRangeFormatAndCompression() {
+        assertThat(PaymentExporter.fileName(FROM, TO, ExportFormat.CSV, true))
+                .isEqualTo("payments-20240501T000000-20240502T000000.csv.gz");
+    }
+
+    private void stubPayments(Payment... payments) {
+        when(paymentRepository.streamBetween(eq(FROM), eq(TO), eq(ReadPreference.secondaryPreferred()), eq(1000),
+                any())).thenAnswer(invocation -> {
+                    Consumer<Payment> action = invocation.getArgument(4);
+                    List.of(payments).forEach(action);
+                    return (long) payments.length;
+                });
+    }
+
+    private static Payment payment(String id, String amount) {
+        return Payment.builder()
+                .id(id)
+                .orderId(1001L)
+                .userId(2002L)
+                .status(PaymentStatus.SUCCESS)
+                .timestamp(LocalDateTime.of(2024, 5, 1, 12, 30, 15))
+                .paymentAmount(new BigDecimal(amount))
+                .version(1L)
+                .build();
+    }
+}
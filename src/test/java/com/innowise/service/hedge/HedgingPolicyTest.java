@@ -0,0 +1,106 @@
+package com.innowise.service.hedge;
+
+import com.innowise.config.HedgeProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingPolicyTest {
+
+    private SimpleMeterRegistry registry;
+    private HedgeProperties properties;
+    private HedgingPolicy hedgingPolicy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        properties = new HedgeProperties();
+        properties.setMinSamples(20);
+        properties.setBudgetRatio(0.5);
+        hedgingPolicy = new HedgingPolicy(properties, registry);
+    }
+
+    @Test
+    void refresh_shouldNotHedge_beforeEnoughSamples() {
+        hedgingPolicy.hedge(Mono.delay(Duration.ofMillis(5)).map(tick -> 1)).block();
+
+        hedgingPolicy.refresh();
+
+        assertThat(hedgingPolicy.getHedgeDelay()).isNull();
+    }
+
+    @Test
+    void refresh_shouldDeriveHedgeDelayFromObservedLatency() {
+        warmUp(Duration.ofMillis(30));
+
+        hedgingPolicy.refresh();
+
+        assertThat(hedgingPolicy.getHedgeDelay())
+                .isGreaterThanOrEqualTo(Duration.ofMillis(20))
+                .isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void refresh_shouldNotHedge_whenDisabled() {
+        warmUp(Duration.ofMillis(30));
+        properties.setEnabled(false);
+
+        hedgingPolicy.refresh();
+
+        assertThat(hedgingPolicy.getHedgeDelay()).isNull();
+    }
+
+    @Test
+    void hedge_shouldReturnHedgeAnswer_whenPrimaryIsSlow() {
+        warmUp(Duration.ofMillis(30));
+        hedgingPolicy.refresh();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<Integer> request = Mono.defer(() -> subscriptions.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(2)).map(tick -> 1)
+                : Mono.delay(Duration.ofMillis(10)).map(tick -> 2));
+
+        long start = System.nanoTime();
+        Integer result = hedgingPolicy.hedge(request).block();
+
+        assertThat(result).isEqualTo(2);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(registry.get("random.api.requests").tag("type", "hedge").counter().count()).isEqualTo(1);
+        assertThat(registry.get("random.api.hedge.wins").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void hedge_shouldNotHedge_whenPrimaryAnswersInTime() {
+        warmUp(Duration.ofMillis(30));
+        hedgingPolicy.refresh();
+
+        Integer result = hedgingPolicy.hedge(Mono.just(7)).block();
+
+        assertThat(result).isEqualTo(7);
+        assertThat(registry.get("random.api.requests").tag("type", "hedge").counter().count()).isZero();
+    }
+
+    @Test
+    void hedge_shouldRespectBudget() {
+        properties.setBudgetRatio(0);
+        warmUp(Duration.ofMillis(30));
+        hedgingPolicy.refresh();
+
+        Integer result = hedgingPolicy.hedge(Mono.delay(Duration.ofMillis(300)).map(tick -> 3)).block();
+
+        assertThat(result).isEqualTo(3);
+        assertThat(registry.get("random.api.requests").tag("type", "hedge").counter().count()).isZero();
+        assertThat(registry.get("random.api.hedge.budget.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    private void warmUp(Duration latency) {
+        for (int i = 0; i < properties.getMinSamples(); i++) {
+            hedgingPolicy.hedge(Mono.delay(latency).map(tick -> 0)).block();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.innowise.service.impl;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalPaymentDecisionEngineTest {
+
+    private final OrderCreatedEvent event = OrderCreatedEvent.builder().orderId(1L).build();
+
+    @Test
+    void decide_shouldProduceBothOutcomes() {
+        LocalPaymentDecisionEngine engine = new LocalPaymentDecisionEngine(100, 1000);
+        Set<PaymentStatus> seen = EnumSet.noneOf(PaymentStatus.class);
+
+        for (int i = 0; i < 200; i++) {
+            seen.add(engine.decide(event));
+        }
+
+        assertThat(seen).containsExactlyInAnyOrder(PaymentStatus.SUCCESS, PaymentStatus.FAILED);
+    }
+
+    @Test
+    void decide_shouldHonourRange() {
+        LocalPaymentDecisionEngine engine = new LocalPaymentDecisionEngine(7, 7);
+
+        assertThat(engine.decide(event)).isEqualTo(PaymentStatus.FAILED);
+    }
+}
@@ -2,24 +2,41 @@ package com.innowise.service.impl;
 
 import com.innowise.event.OrderCreatedEvent;
 import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.config.IndexProperties;
+import com.innowise.config.ProcessingProperties;
+import com.innowise.config.PublisherProperties;
+import com.innowise.metrics.PaymentStageMetrics;
 import com.innowise.model.dto.PaymentCreateRequestDto;
 import com.innowise.model.dto.PaymentResponseDto;
 import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.ProcessingStage;
+import com.innowise.model.enums.PublishMode;
 import com.innowise.service.PaymentService;
 import com.innowise.service.RandomNumberClient;
+import com.innowise.service.concurrent.Deadline;
+import com.innowise.service.concurrent.SubtaskExecutor;
+import com.innowise.service.index.PaymentIndex;
+import com.innowise.service.journal.PaymentJournal;
 import com.innowise.service.kafka.PaymentEventProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -42,7 +59,19 @@ class PaymentProcessingServiceImplTest {
     @Mock
     private RandomNumberClient randomNumberClient;
 
-    @InjectMocks
+    @Mock
+    private PaymentJournal paymentJournal;
+
+    @Spy
+    private PaymentStageMetrics stageMetrics = new PaymentStageMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private SubtaskExecutor subtaskExecutor = new SubtaskExecutor(new ProcessingProperties());
+
+    private PaymentIndex paymentIndex;
+
+    private PublisherProperties publisherProperties;
+
     private PaymentProcessingServiceImpl paymentProcessingService;
 
     @Captor
@@ -58,6 +87,12 @@ class PaymentProcessingServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        paymentIndex = new PaymentIndex(new IndexProperties(), new SimpleMeterRegistry());
+        publisherProperties = new PublisherProperties();
+        paymentProcessingService = new PaymentProcessingServiceImpl(paymentService, eventProducer,
+                new RemotePaymentDecisionEngine(randomNumberClient), stageMetrics, subtaskExecutor, paymentJournal,
+                paymentIndex, publisherProperties);
+
         orderEvent = OrderCreatedEvent.builder()
                 .orderId(100L)
                 .userId(200L)
@@ -98,7 +133,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(42);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -110,7 +145,7 @@ class PaymentProcessingServiceImplTest {
         assertThat(capturedDto.getPaymentAmount()).isEqualByComparingTo(new BigDecimal("150.00"));
 
         verify(randomNumberClient).generateRandomNumber();
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null);
 
         verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
         PaymentCreatedEvent capturedEvent = paymentEventCaptor.getValue();
@@ -121,13 +156,57 @@ class PaymentProcessingServiceImplTest {
         assertThat(capturedEvent.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
     }
 
+    @Test
+    @DisplayName("Should publish again when the Kafka transaction of the first attempt does not commit")
+    void processPayment_shouldPublishAgain_whenTransactionCommitFails()
+            throws ExecutionException, InterruptedException {
+        when(randomNumberClient.generateRandomNumber()).thenReturn(42);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
+                .thenReturn(pendingPayment);
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
+                .thenReturn(successPayment);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            paymentProcessingService.processPayment(orderEvent);
+            // The commit fails: the transaction is rolled back and afterCommit never runs
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(paymentIndex.findPaymentId(100L)).isNull();
+
+        paymentProcessingService.processPayment(orderEvent);
+
+        verify(eventProducer, times(2)).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+        assertThat(paymentIndex.findPaymentId(100L)).isEqualTo("payment-123");
+    }
+
+    @Test
+    @DisplayName("Should leave the event to the change stream publisher in change stream mode")
+    void processPayment_shouldOnlyWritePayment_whenChangeStreamMode() {
+        publisherProperties.setMode(PublishMode.CHANGE_STREAM);
+        when(randomNumberClient.generateRandomNumber()).thenReturn(42);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
+                .thenReturn(pendingPayment);
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
+                .thenReturn(successPayment);
+
+        paymentProcessingService.processPayment(orderEvent);
+
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null);
+        verifyNoInteractions(eventProducer);
+        assertThat(paymentIndex.findPaymentId(100L)).isEqualTo("payment-123");
+    }
+
     @Test
     @DisplayName("Should create payment with correct DTO")
     void processPayment_shouldCreatePaymentWithCorrectDto() {
         when(randomNumberClient.generateRandomNumber()).thenReturn(50);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus(anyString(), any(PaymentStatus.class)))
+        when(paymentService.updatePaymentStatus(anyString(), any(PaymentStatus.class), any()))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -147,7 +226,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(100);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus(anyString(), any(PaymentStatus.class)))
+        when(paymentService.updatePaymentStatus(anyString(), any(PaymentStatus.class), any()))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -161,12 +240,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(2);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null);
     }
 
     @Test
@@ -176,7 +255,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(10);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -199,12 +278,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(0);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null);
         verify(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
     }
 
@@ -214,12 +293,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(-2);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null);
     }
 
     @Test
@@ -228,12 +307,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(1000000);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null);
     }
 
     
@@ -245,12 +324,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(1);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED, null))
                 .thenReturn(failedPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
         verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
         PaymentCreatedEvent capturedEvent = paymentEventCaptor.getValue();
         assertThat(capturedEvent.getStatus()).isEqualTo(PaymentStatus.FAILED);
@@ -262,12 +341,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(3);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED, null))
                 .thenReturn(failedPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
     }
 
     @Test
@@ -277,7 +356,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(5);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED, null))
                 .thenReturn(failedPayment);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -294,12 +373,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(-3);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED, null))
                 .thenReturn(failedPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
     }
 
     @Test
@@ -308,12 +387,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(999999);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED, null))
                 .thenReturn(failedPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
     }
 
     
@@ -325,7 +404,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(4);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
         doThrow(new ExecutionException("Kafka error", new RuntimeException()))
                 .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
@@ -334,8 +413,28 @@ class PaymentProcessingServiceImplTest {
             paymentProcessingService.processPayment(orderEvent);
         });
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
-        verify(paymentService, times(2)).updatePaymentStatus(anyString(), any(PaymentStatus.class));
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
+        verify(paymentService, times(2)).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
+    }
+
+    @Test
+    @DisplayName("Should make each status transition conditional on the version it last saw")
+    void processPayment_shouldPassLastSeenVersionToStatusTransitions()
+            throws ExecutionException, InterruptedException {
+        pendingPayment.setVersion(0L);
+        successPayment.setVersion(1L);
+        when(randomNumberClient.generateRandomNumber()).thenReturn(4);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
+                .thenReturn(pendingPayment);
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, 0L))
+                .thenReturn(successPayment);
+        doThrow(new ExecutionException("Kafka error", new RuntimeException()))
+                .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+
+        assertThrows(RuntimeException.class, () -> paymentProcessingService.processPayment(orderEvent));
+
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, 0L);
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED, 1L);
     }
 
     @Test
@@ -345,15 +444,15 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(6);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
         doThrow(new InterruptedException("Thread interrupted"))
                 .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
-        verify(paymentService, times(2)).updatePaymentStatus(anyString(), any(PaymentStatus.class));
+        verify(paymentService).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
+        verify(paymentService, times(2)).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
 
         assertTrue(Thread.currentThread().isInterrupted());
         Thread.interrupted(); 
@@ -366,7 +465,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(2);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
         doThrow(new RuntimeException("Kafka is down"))
                 .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
@@ -376,8 +475,8 @@ class PaymentProcessingServiceImplTest {
         });
 
         verify(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
-        verify(paymentService, times(1)).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS);
-        verify(paymentService, never()).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
+        verify(paymentService, times(1)).updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null);
+        verify(paymentService, never()).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
     }
 
     @Test
@@ -387,7 +486,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(7);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.FAILED, null))
                 .thenReturn(failedPayment);
         doThrow(new RuntimeException("Kafka connection lost"))
                 .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
@@ -397,7 +496,7 @@ class PaymentProcessingServiceImplTest {
         });
 
         verify(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
-        verify(paymentService, times(1)).updatePaymentStatus("payment-123", PaymentStatus.FAILED);
+        verify(paymentService, times(1)).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
     }
 
     
@@ -430,7 +529,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(4);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(zeroPending);
-        when(paymentService.updatePaymentStatus("payment-zero", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-zero", PaymentStatus.SUCCESS, null))
                 .thenReturn(zeroSuccess);
 
         paymentProcessingService.processPayment(zeroAmountEvent);
@@ -469,7 +568,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(6);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(largePending);
-        when(paymentService.updatePaymentStatus("payment-large", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-large", PaymentStatus.SUCCESS, null))
                 .thenReturn(largeSuccess);
 
         paymentProcessingService.processPayment(largeAmountEvent);
@@ -493,7 +592,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(8);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(updatedWithDifferentAmount);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -519,7 +618,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(8);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(updatedWithNewId);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -550,12 +649,12 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(14);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingWithDifferentId);
-        when(paymentService.updatePaymentStatus("payment-different", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-different", PaymentStatus.SUCCESS, null))
                 .thenReturn(successWithDifferentId);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        verify(paymentService).updatePaymentStatus(eq("payment-different"), eq(PaymentStatus.SUCCESS));
+        verify(paymentService).updatePaymentStatus(eq("payment-different"), eq(PaymentStatus.SUCCESS), isNull());
         verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
         assertThat(paymentEventCaptor.getValue().getPaymentId()).isEqualTo("payment-different");
     }
@@ -568,16 +667,154 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(12);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
-        var inOrder = inOrder(paymentService, randomNumberClient, eventProducer);
-        inOrder.verify(paymentService).createPayment(any(PaymentCreateRequestDto.class));
-        inOrder.verify(randomNumberClient).generateRandomNumber();
-        inOrder.verify(paymentService).updatePaymentStatus(anyString(), any(PaymentStatus.class));
-        inOrder.verify(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+        // createPayment and generateRandomNumber run in parallel, so only their order relative to the update is fixed
+        var insertOrder = inOrder(paymentService, eventProducer);
+        insertOrder.verify(paymentService).createPayment(any(PaymentCreateRequestDto.class));
+        insertOrder.verify(paymentService).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
+        insertOrder.verify(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+        var randomOrder = inOrder(randomNumberClient, paymentService);
+        randomOrder.verify(randomNumberClient).generateRandomNumber();
+        randomOrder.verify(paymentService).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
+    }
+
+    @Test
+    @DisplayName("Should fetch the random number while the pending payment is inserted")
+    void processPayment_shouldRunInsertAndRandomFetchInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return pendingPayment;
+        });
+        when(randomNumberClient.generateRandomNumber()).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return 20;
+        });
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
+                .thenReturn(successPayment);
+
+        paymentProcessingService.processPayment(orderEvent);
+
+        verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
+        assertThat(paymentEventCaptor.getValue().getEventId()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("Should fail fast without touching Mongo or Kafka when the deadline has already passed")
+    void processPayment_shouldFailFast_whenDeadlineAlreadyPassed() {
+        lenient().when(randomNumberClient.generateRandomNumber()).thenReturn(10);
+
+        try (Deadline.Attachment ignored = Deadline.after(Duration.ZERO).attach()) {
+            DeadlineExceededException thrown = assertThrows(DeadlineExceededException.class,
+                    () -> paymentProcessingService.processPayment(orderEvent));
+            assertThat(thrown.getStage()).isEqualTo(ProcessingStage.INSERT);
+        }
+
+        verify(paymentService, never()).createPayment(any(PaymentCreateRequestDto.class));
+        verifyNoInteractions(eventProducer);
+        verify(stageMetrics).recordDeadlineExceeded(ProcessingStage.INSERT);
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for a hung insert once the message deadline has passed")
+    void processPayment_shouldThrowDeadlineExceeded_whenInsertOutlivesMessageDeadline() {
+        CountDownLatch never = new CountDownLatch(1);
+        lenient().when(randomNumberClient.generateRandomNumber()).thenReturn(10);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class))).thenAnswer(invocation -> {
+            never.await(5, TimeUnit.SECONDS);
+            return pendingPayment;
+        });
+
+        long started = System.nanoTime();
+        try (Deadline.Attachment ignored = Deadline.after(Duration.ofMillis(200)).attach()) {
+            DeadlineExceededException thrown = assertThrows(DeadlineExceededException.class,
+                    () -> paymentProcessingService.processPayment(orderEvent));
+            assertThat(thrown.getStage()).isEqualTo(ProcessingStage.INSERT);
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        verify(stageMetrics).recordDeadlineExceeded(ProcessingStage.INSERT);
+        verify(paymentService, never()).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
+        verifyNoInteractions(eventProducer);
+    }
+
+    @Test
+    @DisplayName("Should count a publish deadline and not mark the payment FAILED")
+    void processPayment_shouldCountPublishDeadline_andKeepStatus() throws Exception {
+        when(randomNumberClient.generateRandomNumber()).thenReturn(8);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
+                .thenReturn(pendingPayment);
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
+                .thenReturn(successPayment);
+        doThrow(new DeadlineExceededException(ProcessingStage.PUBLISH, Duration.ofSeconds(5)))
+                .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+
+        assertThrows(DeadlineExceededException.class, () -> paymentProcessingService.processPayment(orderEvent));
+
+        verify(stageMetrics).recordDeadlineExceeded(ProcessingStage.PUBLISH);
+        verify(paymentService, never()).updatePaymentStatus("payment-123", PaymentStatus.FAILED, null);
+    }
+
+    @Test
+    @DisplayName("Should resend the same event instead of creating another payment when a timed-out publish is retried")
+    void processPayment_shouldResendSameEvent_whenTimedOutPublishIsRetried() throws Exception {
+        when(randomNumberClient.generateRandomNumber()).thenReturn(8);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
+                .thenReturn(pendingPayment);
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
+                .thenReturn(successPayment);
+        doThrow(new DeadlineExceededException(ProcessingStage.PUBLISH, Duration.ofSeconds(5)))
+                .doNothing()
+                .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+
+        assertThrows(DeadlineExceededException.class, () -> paymentProcessingService.processPayment(orderEvent));
+        paymentProcessingService.processPayment(orderEvent);
+
+        verify(paymentService, times(1)).createPayment(any(PaymentCreateRequestDto.class));
+        verify(randomNumberClient, times(1)).generateRandomNumber();
+        verify(eventProducer, times(2)).sendPaymentCreatedEvent(paymentEventCaptor.capture());
+        assertThat(paymentEventCaptor.getAllValues().get(1)).isSameAs(paymentEventCaptor.getAllValues().get(0));
+        assertThat(paymentEventCaptor.getAllValues().get(1).getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(paymentIndex.findPaymentId(100L)).isEqualTo("payment-123");
+        assertThat(paymentIndex.findUnacknowledged(100L)).isNull();
+
+        // A further redelivery is now a plain duplicate
+        paymentProcessingService.processPayment(orderEvent);
+        verify(eventProducer, times(2)).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should cancel the random number fetch and rethrow when the insert fails")
+    void processPayment_shouldCancelRandomFetch_whenInsertFails() throws Exception {
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchInterrupted = new CountDownLatch(1);
+        when(randomNumberClient.generateRandomNumber()).thenAnswer(invocation -> {
+            fetchStarted.countDown();
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                fetchInterrupted.countDown();
+            }
+            return 0;
+        });
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class))).thenAnswer(invocation -> {
+            assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+            throw new IllegalStateException("Mongo is down");
+        });
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> paymentProcessingService.processPayment(orderEvent));
+
+        assertThat(thrown).hasMessage("Mongo is down");
+        assertTrue(fetchInterrupted.await(5, TimeUnit.SECONDS));
+        verify(paymentService, never()).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
+        verifyNoInteractions(eventProducer);
     }
 
     @Test
@@ -587,13 +824,13 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(16);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
 
         var inOrder = inOrder(paymentService, eventProducer);
-        inOrder.verify(paymentService).updatePaymentStatus(anyString(), any(PaymentStatus.class));
+        inOrder.verify(paymentService).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
         inOrder.verify(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
     }
 
@@ -604,7 +841,7 @@ class PaymentProcessingServiceImplTest {
         when(randomNumberClient.generateRandomNumber()).thenReturn(18);
         when(paymentService.createPayment(any(PaymentCreateRequestDto.class)))
                 .thenReturn(pendingPayment);
-        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS))
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null))
                 .thenReturn(successPayment);
 
         paymentProcessingService.processPayment(orderEvent);
@@ -612,4 +849,92 @@ class PaymentProcessingServiceImplTest {
         verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
         assertThat(paymentEventCaptor.getValue().getStatus()).isEqualTo(PaymentStatus.SUCCESS);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should journal the settled payment instead of inserting and updating it")
+    void processPayment_shouldJournalSettledPayment_whenJournalEnabled()
+            throws ExecutionException, InterruptedException {
+        when(paymentJournal.isEnabled()).thenReturn(true);
+        when(randomNumberClient.generateRandomNumber()).thenReturn(8);
+        when(paymentService.journalPayment(anyString(), any(PaymentCreateRequestDto.class), eq(PaymentStatus.SUCCESS)))
+                .thenReturn(successPayment);
+
+        paymentProcessingService.processPayment(orderEvent);
+
+        verify(paymentService).journalPayment(anyString(), paymentCreateCaptor.capture(), eq(PaymentStatus.SUCCESS));
+        assertThat(paymentCreateCaptor.getValue().getOrderId()).isEqualTo(100L);
+        verify(paymentService, never()).createPayment(any(PaymentCreateRequestDto.class));
+        verify(paymentService, never()).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
+        verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
+        assertThat(paymentEventCaptor.getValue().getPaymentId()).isEqualTo("payment-123");
+        assertThat(paymentEventCaptor.getValue().getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    @Test
+    @DisplayName("Should journal the same payment again when the deadline fired after the journal enqueue")
+    void processPayment_shouldReuseQueuedPayment_whenJournalWaitHitDeadline()
+            throws ExecutionException, InterruptedException {
+        when(paymentJournal.isEnabled()).thenReturn(true);
+        when(randomNumberClient.generateRandomNumber()).thenReturn(8);
+        when(paymentService.journalPayment(anyString(), any(PaymentCreateRequestDto.class), eq(PaymentStatus.SUCCESS)))
+                .thenThrow(new DeadlineExceededException(ProcessingStage.JOURNAL, Duration.ofSeconds(5)))
+                .thenReturn(successPayment);
+
+        assertThrows(DeadlineExceededException.class, () -> paymentProcessingService.processPayment(orderEvent));
+        paymentProcessingService.processPayment(orderEvent);
+
+        ArgumentCaptor<String> ids = ArgumentCaptor.forClass(String.class);
+        verify(paymentService, times(2)).journalPayment(ids.capture(), any(PaymentCreateRequestDto.class),
+                eq(PaymentStatus.SUCCESS));
+        assertThat(ids.getAllValues().get(1)).isEqualTo(ids.getAllValues().get(0));
+        verify(randomNumberClient, times(1)).generateRandomNumber();
+        verify(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+        assertThat(paymentIndex.findQueued(100L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should journal FAILED status when publishing a journaled payment fails")
+    void processPayment_shouldJournalFailedStatus_whenJournaledPublishFails()
+            throws ExecutionException, InterruptedException {
+        when(paymentJournal.isEnabled()).thenReturn(true);
+        when(randomNumberClient.generateRandomNumber()).thenReturn(8);
+        when(paymentService.journalPayment(anyString(), any(PaymentCreateRequestDto.class), eq(PaymentStatus.SUCCESS)))
+                .thenReturn(successPayment);
+        doThrow(new ExecutionException("Kafka error", new RuntimeException()))
+                .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+
+        assertThrows(RuntimeException.class, () -> paymentProcessingService.processPayment(orderEvent));
+
+        verify(paymentService).journalPaymentStatus(successPayment, PaymentStatus.FAILED);
+        verify(paymentService, never()).updatePaymentStatus(anyString(), any(PaymentStatus.class), any());
+    }
+
+    @Test
+    @DisplayName("Should remember the published payment and skip a redelivered order")
+    void processPayment_shouldSkipRedeliveredOrder() throws ExecutionException, InterruptedException {
+        when(randomNumberClient.generateRandomNumber()).thenReturn(2);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class))).thenReturn(pendingPayment);
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null)).thenReturn(successPayment);
+
+        paymentProcessingService.processPayment(orderEvent);
+        paymentProcessingService.processPayment(orderEvent);
+
+        assertThat(paymentIndex.findPaymentId(100L)).isEqualTo("payment-123");
+        verify(paymentService, times(1)).createPayment(any(PaymentCreateRequestDto.class));
+        verify(eventProducer, times(1)).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should not remember the order when publishing failed, so a retry processes it")
+    void processPayment_shouldNotIndexOrder_whenPublishFails() throws ExecutionException, InterruptedException {
+        when(randomNumberClient.generateRandomNumber()).thenReturn(2);
+        when(paymentService.createPayment(any(PaymentCreateRequestDto.class))).thenReturn(pendingPayment);
+        when(paymentService.updatePaymentStatus("payment-123", PaymentStatus.SUCCESS, null)).thenReturn(successPayment);
+        doThrow(new ExecutionException("Kafka error", new RuntimeException()))
+                .when(eventProducer).sendPaymentCreatedEvent(any(PaymentCreatedEvent.class));
+
+        assertThrows(RuntimeException.class, () -> paymentProcessingService.processPayment(orderEvent));
+
+        assertThat(paymentIndex.findPaymentId(100L)).isNull();
+    }
+}
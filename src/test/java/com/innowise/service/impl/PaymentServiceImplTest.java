@@ -1,17 +1,33 @@
 package com.innowise.service.impl;
 
+import com.innowise.config.BulkProperties;
+import com.innowise.config.IndexProperties;
+import com.innowise.config.ProcessingProperties;
+import com.innowise.config.PublisherProperties;
+import com.innowise.dao.repository.BulkStatusUpdate;
 import com.innowise.dao.repository.PaymentRepository;
 import com.innowise.event.OrderCreatedEvent;
 import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.exception.IllegalStatusTransitionException;
 import com.innowise.exception.PaymentNotFoundException;
+import com.innowise.metrics.PaymentStageMetrics;
 import com.innowise.mapper.PaymentMapper;
+import com.innowise.model.dto.BulkStatusUpdateResponseDto;
 import com.innowise.model.dto.PaymentCreateRequestDto;
 import com.innowise.model.dto.PaymentResponseDto;
 import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.BulkUpdateOutcome;
 import com.innowise.model.enums.PaymentStatus;
 import com.innowise.service.PaymentService;
 import com.innowise.service.RandomNumberClient;
+import com.innowise.service.concurrent.SubtaskExecutor;
+import com.innowise.service.index.PaymentIndex;
+import com.innowise.service.journal.PaymentJournal;
 import com.innowise.service.kafka.PaymentEventProducer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -20,10 +36,15 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -31,6 +52,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +64,18 @@ class PaymentServiceImplTest {
     @Mock
     private PaymentMapper paymentMapper;
 
+    @Mock
+    private PaymentJournal paymentJournal;
+
+    @Spy
+    private Counter paymentCounter = Counter.builder("payments.counter").register(new SimpleMeterRegistry());
+
+    @Spy
+    private Timer paymentTimer = Timer.builder("payments.timer").register(new SimpleMeterRegistry());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private PaymentServiceImpl paymentService;
 
@@ -229,17 +263,8 @@ class PaymentServiceImplTest {
     }
 
     @Test
-    void updatePaymentStatus_shouldUpdateStatusToSuccess() {
+    void updatePaymentStatus_shouldTransitionWithOneConditionalUpdate() {
         String paymentId = "payment-123";
-        Payment existingPayment = Payment.builder()
-                .id(paymentId)
-                .orderId(100L)
-                .userId(200L)
-                .paymentAmount(new BigDecimal("150.00"))
-                .status(PaymentStatus.PENDING)
-                .timestamp(LocalDateTime.now())
-                .build();
-
         Payment updatedPayment = Payment.builder()
                 .id(paymentId)
                 .orderId(100L)
@@ -247,205 +272,307 @@ class PaymentServiceImplTest {
                 .paymentAmount(new BigDecimal("150.00"))
                 .status(PaymentStatus.SUCCESS)
                 .timestamp(LocalDateTime.now())
+                .version(1L)
                 .build();
 
         PaymentResponseDto updatedResponseDto = PaymentResponseDto.builder()
                 .id(paymentId)
                 .status(PaymentStatus.SUCCESS)
+                .version(1L)
                 .build();
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(existingPayment)).thenReturn(updatedPayment);
+        when(paymentRepository.transitionStatus(paymentId, PaymentStatus.SUCCESS, 0L))
+                .thenReturn(Optional.of(updatedPayment));
         when(paymentMapper.toDto(updatedPayment)).thenReturn(updatedResponseDto);
 
-        PaymentResponseDto result = paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS);
-
-        assertThat(result).isNotNull();
-        assertThat(result.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
-
-        verify(paymentRepository).findById(paymentId);
-        verify(paymentRepository).save(paymentCaptor.capture());
-        verify(paymentMapper).toDto(updatedPayment);
+        PaymentResponseDto result = paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS, 0L);
 
-        Payment capturedPayment = paymentCaptor.getValue();
-        assertThat(capturedPayment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(result).isSameAs(updatedResponseDto);
+        verify(paymentRepository).transitionStatus(paymentId, PaymentStatus.SUCCESS, 0L);
+        verify(paymentRepository, never()).findById(any());
+        verify(paymentRepository, never()).save(any(Payment.class));
     }
 
     @Test
-    void updatePaymentStatus_shouldUpdateStatusToFailed() {
+    void updatePaymentStatus_shouldGuardOnStatusOnly_whenVersionUnknown() {
         String paymentId = "payment-456";
-        Payment existingPayment = Payment.builder()
-                .id(paymentId)
-                .status(PaymentStatus.PENDING)
-                .build();
-
         Payment updatedPayment = Payment.builder()
                 .id(paymentId)
                 .status(PaymentStatus.FAILED)
                 .build();
 
-        PaymentResponseDto failedResponseDto = PaymentResponseDto.builder()
-                .id(paymentId)
-                .status(PaymentStatus.FAILED)
-                .build();
+        when(paymentRepository.transitionStatus(paymentId, PaymentStatus.FAILED, null))
+                .thenReturn(Optional.of(updatedPayment));
+        when(paymentMapper.toDto(updatedPayment)).thenReturn(responseDto);
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(existingPayment)).thenReturn(updatedPayment);
-        when(paymentMapper.toDto(updatedPayment)).thenReturn(failedResponseDto);
+        paymentService.updatePaymentStatus(paymentId, PaymentStatus.FAILED, null);
 
-        PaymentResponseDto result = paymentService.updatePaymentStatus(paymentId, PaymentStatus.FAILED);
-
-        assertThat(result.getStatus()).isEqualTo(PaymentStatus.FAILED);
-        verify(paymentRepository).save(paymentCaptor.capture());
-        assertThat(paymentCaptor.getValue().getStatus()).isEqualTo(PaymentStatus.FAILED);
+        verify(paymentRepository).transitionStatus(paymentId, PaymentStatus.FAILED, null);
     }
 
     @Test
     void updatePaymentStatus_shouldThrowExceptionWhenPaymentNotFound() {
         String nonExistentId = "non-existent-id";
+        when(paymentRepository.transitionStatus(nonExistentId, PaymentStatus.SUCCESS, null))
+                .thenReturn(Optional.empty());
         when(paymentRepository.findById(nonExistentId)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> paymentService.updatePaymentStatus(nonExistentId, PaymentStatus.SUCCESS))
+        assertThatThrownBy(() -> paymentService.updatePaymentStatus(nonExistentId, PaymentStatus.SUCCESS, null))
                 .isInstanceOf(PaymentNotFoundException.class);
 
-        verify(paymentRepository).findById(nonExistentId);
-        verify(paymentRepository, never()).save(any(Payment.class));
         verify(paymentMapper, never()).toDto(any(Payment.class));
     }
 
     @Test
-    void updatePaymentStatus_shouldCallFindById() {
-        String paymentId = "payment-789";
-        Payment existingPayment = Payment.builder()
+    void updatePaymentStatus_shouldReturnPaymentUnchanged_whenAlreadyInStatus() {
+        String paymentId = "payment-repeat";
+        Payment current = Payment.builder()
                 .id(paymentId)
-                .status(PaymentStatus.PENDING)
+                .status(PaymentStatus.FAILED)
+                .version(2L)
                 .build();
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(existingPayment)).thenReturn(existingPayment);
-        when(paymentMapper.toDto(existingPayment)).thenReturn(responseDto);
+        when(paymentRepository.transitionStatus(paymentId, PaymentStatus.FAILED, 1L)).thenReturn(Optional.empty());
+        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(current));
+        when(paymentMapper.toDto(current)).thenReturn(responseDto);
 
-        paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS);
+        PaymentResponseDto result = paymentService.updatePaymentStatus(paymentId, PaymentStatus.FAILED, 1L);
 
-        verify(paymentRepository).findById(paymentId);
+        assertThat(result).isSameAs(responseDto);
+        assertThat(meterRegistry.find("payment.status.transitions.rejected").counter()).isNull();
     }
 
     @Test
-    void updatePaymentStatus_shouldSaveUpdatedPayment() {
-        String paymentId = "payment-save";
-        Payment existingPayment = Payment.builder()
+    void updatePaymentStatus_shouldRejectIllegalTransition() {
+        String paymentId = "payment-final";
+        Payment current = Payment.builder()
                 .id(paymentId)
-                .status(PaymentStatus.PENDING)
+                .status(PaymentStatus.FAILED)
+                .version(1L)
                 .build();
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(existingPayment)).thenReturn(existingPayment);
-        when(paymentMapper.toDto(existingPayment)).thenReturn(responseDto);
+        when(paymentRepository.transitionStatus(paymentId, PaymentStatus.SUCCESS, null)).thenReturn(Optional.empty());
+        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(current));
 
-        paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS);
+        assertThatThrownBy(() -> paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS, null))
+                .isInstanceOf(IllegalStatusTransitionException.class)
+                .satisfies(e -> {
+                    IllegalStatusTransitionException ex = (IllegalStatusTransitionException) e;
+                    assertThat(ex.getFrom()).isEqualTo(PaymentStatus.FAILED);
+                    assertThat(ex.getTo()).isEqualTo(PaymentStatus.SUCCESS);
+                });
 
-        verify(paymentRepository).save(existingPayment);
+        assertThat(meterRegistry.get("payment.status.transitions.rejected")
+                .tags("from", "failed", "to", "success", "reason", "illegal")
+                .counter().count()).isEqualTo(1.0);
+        verify(paymentRepository, never()).save(any(Payment.class));
     }
 
     @Test
-    void updatePaymentStatus_shouldReturnMappedDto() {
-        String paymentId = "payment-mapped";
-        Payment existingPayment = Payment.builder()
-                .id(paymentId)
-                .status(PaymentStatus.PENDING)
-                .build();
-
-        Payment updatedPayment = Payment.builder()
+    void updatePaymentStatus_shouldRejectStaleVersion() {
+        String paymentId = "payment-raced";
+        Payment current = Payment.builder()
                 .id(paymentId)
                 .status(PaymentStatus.SUCCESS)
+                .version(2L)
                 .build();
 
-        PaymentResponseDto mappedDto = PaymentResponseDto.builder()
-                .id(paymentId)
-                .status(PaymentStatus.SUCCESS)
-                .build();
+        when(paymentRepository.transitionStatus(paymentId, PaymentStatus.FAILED, 1L)).thenReturn(Optional.empty());
+        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(current));
+
+        assertThatThrownBy(() -> paymentService.updatePaymentStatus(paymentId, PaymentStatus.FAILED, 1L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(existingPayment)).thenReturn(updatedPayment);
-        when(paymentMapper.toDto(updatedPayment)).thenReturn(mappedDto);
+        assertThat(meterRegistry.get("payment.status.transitions.rejected")
+                .tags("from", "success", "to", "failed", "reason", "concurrent")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void updatePaymentStatus_shouldCountOnlyAppliedTransitions() {
+        Payment updatedPayment = Payment.builder().id("payment-1").status(PaymentStatus.SUCCESS).build();
+        when(paymentRepository.transitionStatus("payment-1", PaymentStatus.SUCCESS, 0L))
+                .thenReturn(Optional.of(updatedPayment));
+        when(paymentMapper.toDto(updatedPayment)).thenReturn(responseDto);
 
-        PaymentResponseDto result = paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS);
+        paymentService.updatePaymentStatus("payment-1", PaymentStatus.SUCCESS, 0L);
 
-        assertThat(result).isSameAs(mappedDto);
-        verify(paymentMapper).toDto(updatedPayment);
+        verify(paymentCounter).increment();
     }
 
     @Test
-    void updatePaymentStatus_shouldHandleMultipleStatusChanges() {
-        String paymentId = "payment-multi";
-        Payment existingPayment = Payment.builder()
-                .id(paymentId)
-                .status(PaymentStatus.PENDING)
+    void journalPayment_shouldJournalSettledPaymentWithAssignedId() {
+        Payment mappedPayment = Payment.builder()
+                .orderId(100L)
+                .userId(200L)
+                .paymentAmount(new BigDecimal("150.00"))
                 .build();
-
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(any(Payment.class))).thenReturn(existingPayment);
+        when(paymentMapper.toEntity(createRequestDto)).thenReturn(mappedPayment);
         when(paymentMapper.toDto(any(Payment.class))).thenReturn(responseDto);
 
-        paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS);
+        PaymentResponseDto result = paymentService.journalPayment("65f1a2b3c4d5e6f708091a2b", createRequestDto,
+                PaymentStatus.SUCCESS);
 
-        verify(paymentRepository).save(paymentCaptor.capture());
-        assertThat(paymentCaptor.getValue().getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(result).isSameAs(responseDto);
+        verify(paymentJournal).append(paymentCaptor.capture());
+        Payment journaled = paymentCaptor.getValue();
+        assertThat(journaled.getId()).isEqualTo("65f1a2b3c4d5e6f708091a2b");
+        assertThat(journaled.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(journaled.getTimestamp()).isNotNull();
+        verifyNoInteractions(paymentRepository);
+    }
 
-        reset(paymentRepository, paymentMapper);
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(any(Payment.class))).thenReturn(existingPayment);
-        when(paymentMapper.toDto(any(Payment.class))).thenReturn(responseDto);
+    @Test
+    void journalPaymentStatus_shouldJournalWholePaymentWithNewStatus() {
+        PaymentResponseDto journaled = PaymentResponseDto.builder()
+                .id("payment-123")
+                .orderId(100L)
+                .userId(200L)
+                .paymentAmount(new BigDecimal("150.00"))
+                .status(PaymentStatus.SUCCESS)
+                .timestamp(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
 
-        paymentService.updatePaymentStatus(paymentId, PaymentStatus.FAILED);
+        paymentService.journalPaymentStatus(journaled, PaymentStatus.FAILED);
 
-        verify(paymentRepository).save(paymentCaptor.capture());
-        assertThat(paymentCaptor.getValue().getStatus()).isEqualTo(PaymentStatus.FAILED);
+        verify(paymentJournal).append(paymentCaptor.capture());
+        Payment updated = paymentCaptor.getValue();
+        assertThat(updated.getId()).isEqualTo("payment-123");
+        assertThat(updated.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(updated.getPaymentAmount()).isEqualByComparingTo("150.00");
+        assertThat(updated.getTimestamp()).isEqualTo(LocalDateTime.of(2024, 1, 1, 12, 0));
+        verifyNoInteractions(paymentRepository);
     }
 
     @Test
-    void updatePaymentStatus_shouldPreserveOtherPaymentFields() {
-        String paymentId = "payment-preserve";
-        LocalDateTime originalTimestamp = LocalDateTime.now().minusDays(1);
-        BigDecimal originalAmount = new BigDecimal("500.00");
+    void persistSettledPayments_shouldInsertBatchWithAssignedIds() {
+        List<Payment> payments = List.of(
+                Payment.builder().orderId(1L).status(PaymentStatus.SUCCESS).build(),
+                Payment.builder().orderId(2L).status(PaymentStatus.FAILED).build());
+
+        paymentService.persistSettledPayments(payments);
+
+        verify(paymentRepository).insert(payments);
+        verify(paymentJournal, never()).appendAll(anyList());
+        assertThat(payments).allSatisfy(payment -> {
+            assertThat(payment.getId()).matches("[0-9a-f]{24}");
+            assertThat(payment.getTimestamp()).isNotNull();
+        });
+        assertThat(payments.get(0).getId()).isNotEqualTo(payments.get(1).getId());
+    }
 
-        Payment existingPayment = Payment.builder()
-                .id(paymentId)
-                .orderId(999L)
-                .userId(888L)
-                .paymentAmount(originalAmount)
-                .status(PaymentStatus.PENDING)
-                .timestamp(originalTimestamp)
-                .build();
+    @Test
+    void persistSettledPayments_shouldJournalBatch_whenJournalIsEnabled() {
+        when(paymentJournal.isEnabled()).thenReturn(true);
+        List<Payment> payments = List.of(Payment.builder().orderId(1L).status(PaymentStatus.SUCCESS).build());
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(existingPayment));
-        when(paymentRepository.save(existingPayment)).thenReturn(existingPayment);
-        when(paymentMapper.toDto(existingPayment)).thenReturn(responseDto);
+        paymentService.persistSettledPayments(payments);
 
-        paymentService.updatePaymentStatus(paymentId, PaymentStatus.SUCCESS);
+        verify(paymentJournal).appendAll(payments);
+        verifyNoInteractions(paymentRepository);
+    }
 
-        verify(paymentRepository).save(paymentCaptor.capture());
-        Payment savedPayment = paymentCaptor.getValue();
+    @Nested
+    class BulkStatusUpdateTest {
 
-        assertThat(savedPayment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
-        assertThat(savedPayment.getOrderId()).isEqualTo(999L);
-        assertThat(savedPayment.getUserId()).isEqualTo(888L);
-        assertThat(savedPayment.getPaymentAmount()).isEqualByComparingTo(originalAmount);
-        assertThat(savedPayment.getTimestamp()).isEqualTo(originalTimestamp);
-    }
+        private MeterRegistry meterRegistry;
+        private PaymentServiceImpl bulkPaymentService;
 
-    @Test
-    void updatePaymentStatus_shouldThrowPaymentNotFoundException_WithCorrectExceptionType() {
-        String nonExistentId = "does-not-exist";
-        when(paymentRepository.findById(nonExistentId)).thenReturn(Optional.empty());
+        @BeforeEach
+        void setUp() {
+            meterRegistry = new SimpleMeterRegistry();
+            BulkProperties bulkProperties = new BulkProperties();
+            bulkProperties.setChunkSize(2);
+            bulkPaymentService = new PaymentServiceImpl(paymentRepository, paymentMapper, paymentJournal,
+                    bulkProperties,
+                    Counter.builder("created").register(meterRegistry),
+                    Counter.builder("success").register(meterRegistry),
+                    Counter.builder("failed").register(meterRegistry),
+                    Timer.builder("processing").register(meterRegistry),
+                    Timer.builder("mongo").register(meterRegistry),
+                    meterRegistry);
+        }
 
-        PaymentNotFoundException exception = assertThrows(
-                PaymentNotFoundException.class,
-                () -> paymentService.updatePaymentStatus(nonExistentId, PaymentStatus.SUCCESS)
-        );
+        @Test
+        void updatePaymentStatuses_shouldSplitIntoChunks() {
+            Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+            statuses.put("p1", PaymentStatus.SUCCESS);
+            statuses.put("p2", PaymentStatus.SUCCESS);
+            statuses.put("p3", PaymentStatus.FAILED);
+
+            when(paymentRepository.updateStatuses(any())).thenAnswer(invocation -> {
+                Map<String, PaymentStatus> chunk = invocation.getArgument(0);
+                Map<String, BulkUpdateOutcome> outcomes = new LinkedHashMap<>();
+                chunk.keySet().forEach(id -> outcomes.put(id, BulkUpdateOutcome.UPDATED));
+                return new BulkStatusUpdate(outcomes, Map.of());
+            });
+
+            BulkStatusUpdateResponseDto result = bulkPaymentService.updatePaymentStatuses(statuses);
+
+            verify(paymentRepository, times(2)).updateStatuses(any());
+            assertThat(result.getRequested()).isEqualTo(3);
+            assertThat(result.getUpdated()).isEqualTo(3);
+            assertThat(result.getOutcomes()).containsOnlyKeys("p1", "p2", "p3");
+        }
+
+        @Test
+        void updatePaymentStatuses_shouldIncrementCountersInAggregate() {
+            Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+            statuses.put("p1", PaymentStatus.SUCCESS);
+            statuses.put("p2", PaymentStatus.FAILED);
+
+            Map<String, BulkUpdateOutcome> outcomes = new LinkedHashMap<>();
+            outcomes.put("p1", BulkUpdateOutcome.UPDATED);
+            outcomes.put("p2", BulkUpdateOutcome.NOT_FOUND);
+            when(paymentRepository.updateStatuses(any())).thenReturn(new BulkStatusUpdate(outcomes, Map.of()));
+
+            BulkStatusUpdateResponseDto result = bulkPaymentService.updatePaymentStatuses(statuses);
+
+            assertThat(result.getUpdated()).isEqualTo(1);
+            assertThat(result.getNotFound()).isEqualTo(1);
+            assertThat(meterRegistry.get("success").counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("failed").counter().count()).isZero();
+        }
 
-        assertThat(exception).isInstanceOf(PaymentNotFoundException.class);
-        verify(paymentRepository).findById(nonExistentId);
+        @Test
+        void updatePaymentStatuses_shouldCountRejectedUpdatesOfFailedPayments() {
+            Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+            statuses.put("p1", PaymentStatus.SUCCESS);
+
+            Map<String, BulkUpdateOutcome> outcomes = new LinkedHashMap<>();
+            outcomes.put("p1", BulkUpdateOutcome.REJECTED);
+            when(paymentRepository.updateStatuses(any()))
+                    .thenReturn(new BulkStatusUpdate(outcomes, Map.of("p1", PaymentStatus.FAILED)));
+
+            BulkStatusUpdateResponseDto result = bulkPaymentService.updatePaymentStatuses(statuses);
+
+            assertThat(result.getUpdated()).isZero();
+            assertThat(result.getRejected()).isEqualTo(1);
+            assertThat(meterRegistry.get("payment.status.transitions.rejected")
+                    .tag("from", "failed").tag("to", "success").tag("reason", "illegal")
+                    .counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("success").counter().count()).isZero();
+        }
+
+        @Test
+        void updatePaymentStatuses_shouldTagRejectionWithActualSourceStatus() {
+            Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+            statuses.put("p1", PaymentStatus.PENDING);
+
+            Map<String, BulkUpdateOutcome> outcomes = new LinkedHashMap<>();
+            outcomes.put("p1", BulkUpdateOutcome.REJECTED);
+            when(paymentRepository.updateStatuses(any()))
+                    .thenReturn(new BulkStatusUpdate(outcomes, Map.of("p1", PaymentStatus.SUCCESS)));
+
+            BulkStatusUpdateResponseDto result = bulkPaymentService.updatePaymentStatuses(statuses);
+
+            assertThat(result.getRejected()).isEqualTo(1);
+            assertThat(meterRegistry.get("payment.status.transitions.rejected")
+                    .tag("from", "success").tag("to", "pending").tag("reason", "illegal")
+                    .counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.find("payment.status.transitions.rejected").tag("from", "failed").counter())
+                    .isNull();
+        }
     }
 
     @Nested
@@ -461,7 +588,9 @@ class PaymentServiceImplTest {
         @Mock
         private RandomNumberClient randomNumberClient;
 
-        @InjectMocks
+        @Mock
+        private PaymentJournal processingJournal;
+
         private PaymentProcessingServiceImpl paymentProcessingService;
 
         @Captor
@@ -474,6 +603,11 @@ class PaymentServiceImplTest {
 
         @BeforeEach
         void setUp() {
+            paymentProcessingService = new PaymentProcessingServiceImpl(paymentService, eventProducer,
+                    new RemotePaymentDecisionEngine(randomNumberClient),
+                    new PaymentStageMetrics(new SimpleMeterRegistry()),
+                    new SubtaskExecutor(new ProcessingProperties()), processingJournal,
+                    new PaymentIndex(new IndexProperties(), new SimpleMeterRegistry()), new PublisherProperties());
             orderEvent = OrderCreatedEvent.builder()
                     .orderId(100L)
                     .userId(200L)
@@ -489,7 +623,7 @@ class PaymentServiceImplTest {
             PaymentResponseDto success = createPaymentResponse("payment-1", PaymentStatus.SUCCESS);
 
             when(paymentService.createPayment(any(PaymentCreateRequestDto.class))).thenReturn(pending);
-            when(paymentService.updatePaymentStatus("payment-1", PaymentStatus.SUCCESS)).thenReturn(success);
+            when(paymentService.updatePaymentStatus("payment-1", PaymentStatus.SUCCESS, null)).thenReturn(success);
 
             paymentProcessingService.processPayment(orderEvent);
 
@@ -499,7 +633,7 @@ class PaymentServiceImplTest {
             assertThat(dto.getUserId()).isEqualTo(200L);
             assertThat(dto.getPaymentAmount()).isEqualByComparingTo(new BigDecimal("150.00"));
 
-            verify(paymentService).updatePaymentStatus("payment-1", PaymentStatus.SUCCESS);
+            verify(paymentService).updatePaymentStatus("payment-1", PaymentStatus.SUCCESS, null);
 
             verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
             PaymentCreatedEvent event = paymentEventCaptor.getValue();
@@ -518,12 +652,12 @@ class PaymentServiceImplTest {
             PaymentResponseDto failed = createPaymentResponse("payment-2", PaymentStatus.FAILED);
 
             when(paymentService.createPayment(any())).thenReturn(pending);
-            when(paymentService.updatePaymentStatus("payment-2", PaymentStatus.FAILED)).thenReturn(failed);
+            when(paymentService.updatePaymentStatus("payment-2", PaymentStatus.FAILED, null)).thenReturn(failed);
 
             paymentProcessingService.processPayment(orderEvent);
 
             verify(paymentService).createPayment(any(PaymentCreateRequestDto.class));
-            verify(paymentService).updatePaymentStatus("payment-2", PaymentStatus.FAILED);
+            verify(paymentService).updatePaymentStatus("payment-2", PaymentStatus.FAILED, null);
 
             verify(eventProducer).sendPaymentCreatedEvent(paymentEventCaptor.capture());
             PaymentCreatedEvent event;
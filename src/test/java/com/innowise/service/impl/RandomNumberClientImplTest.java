@@ -1,6 +1,12 @@
 package com.innowise.service.impl;
 
+import com.innowise.config.HedgeProperties;
 import com.innowise.config.RandomApiProperties;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
+import com.innowise.service.concurrent.Deadline;
+import com.innowise.service.hedge.HedgingPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,9 +15,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -42,7 +50,8 @@ class RandomNumberClientImplTest {
         lenient().when(randomApiProperties.getMax()).thenReturn(100);
         lenient().when(randomApiProperties.getCount()).thenReturn(1);
 
-        randomNumberClient = new RandomNumberClientImpl(webClient, randomApiProperties);
+        randomNumberClient = new RandomNumberClientImpl(webClient, randomApiProperties,
+                new HedgingPolicy(new HedgeProperties(), new SimpleMeterRegistry()));
     }
 
     @Test
@@ -168,4 +177,33 @@ class RandomNumberClientImplTest {
 
         assertThat(result).isEqualTo(5);
     }
+
+    @Test
+    void generateRandomNumber_shouldFailFast_whenDeadlinePassesDuringCall() {
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Integer[].class)).thenReturn(Mono.never());
+
+        try (Deadline.Attachment ignored = Deadline.after(Duration.ofMillis(100)).attach()) {
+            assertThatThrownBy(() -> randomNumberClient.generateRandomNumber())
+                    .isInstanceOf(DeadlineExceededException.class)
+                    .extracting("stage").isEqualTo(ProcessingStage.RANDOM_FETCH);
+        }
+    }
+
+    @Test
+    void generateRandomNumber_shouldNotCallApi_whenDeadlineAlreadyPassed() {
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Integer[].class)).thenReturn(Mono.fromCallable(() -> {
+            throw new AssertionError("API must not be subscribed");
+        }));
+
+        try (Deadline.Attachment ignored = Deadline.after(Duration.ZERO).attach()) {
+            assertThatThrownBy(() -> randomNumberClient.generateRandomNumber())
+                    .isInstanceOf(DeadlineExceededException.class);
+        }
+    }
 }
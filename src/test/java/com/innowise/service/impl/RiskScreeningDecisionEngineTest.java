@@ -0,0 +1,46 @@
+package com.innowise.service.impl;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.risk.RiskEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RiskScreeningDecisionEngineTest {
+
+    @Mock
+    private RiskEngine riskEngine;
+
+    @Mock
+    private PaymentDecisionEngine delegate;
+
+    @InjectMocks
+    private RiskScreeningDecisionEngine decisionEngine;
+
+    private final OrderCreatedEvent event = OrderCreatedEvent.builder().orderId(1L).build();
+
+    @Test
+    void decide_shouldFailRejectedOrder_withoutAskingDelegate() {
+        when(riskEngine.rejects(event)).thenReturn(true);
+
+        assertThat(decisionEngine.decide(event)).isEqualTo(PaymentStatus.FAILED);
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void decide_shouldAskDelegate_whenOrderIsAccepted() {
+        when(riskEngine.rejects(event)).thenReturn(false);
+        when(delegate.decide(event)).thenReturn(PaymentStatus.SUCCESS);
+
+        assertThat(decisionEngine.decide(event)).isEqualTo(PaymentStatus.SUCCESS);
+    }
+}
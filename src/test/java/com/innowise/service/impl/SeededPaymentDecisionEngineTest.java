@@ -0,0 +1,63 @@
+package com.innowise.service.impl;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SeededPaymentDecisionEngineTest {
+
+    @Test
+    void decide_shouldBeDeterministicPerOrder() {
+        SeededPaymentDecisionEngine first = new SeededPaymentDecisionEngine(42L, 100, 1000);
+        SeededPaymentDecisionEngine second = new SeededPaymentDecisionEngine(42L, 100, 1000);
+
+        LongStream.rangeClosed(1, 500).forEach(orderId ->
+                assertThat(first.decide(order(orderId))).isEqualTo(second.decide(order(orderId))));
+    }
+
+    @Test
+    void decide_shouldNotDependOnCallOrder() {
+        SeededPaymentDecisionEngine engine = new SeededPaymentDecisionEngine(7L, 100, 1000);
+        PaymentStatus before = engine.decide(order(99L));
+
+        LongStream.rangeClosed(1, 50).forEach(orderId -> engine.decide(order(orderId)));
+
+        assertThat(engine.decide(order(99L))).isEqualTo(before);
+    }
+
+    @Test
+    void decide_shouldProduceBothOutcomes() {
+        SeededPaymentDecisionEngine engine = new SeededPaymentDecisionEngine(42L, 100, 1000);
+        Map<PaymentStatus, Integer> counts = new EnumMap<>(PaymentStatus.class);
+
+        LongStream.rangeClosed(1, 1000).forEach(orderId -> counts.merge(engine.decide(order(orderId)), 1, Integer::sum));
+
+        assertThat(counts.get(PaymentStatus.SUCCESS)).isBetween(400, 600);
+        assertThat(counts.get(PaymentStatus.FAILED)).isBetween(400, 600);
+    }
+
+    @Test
+    void decide_shouldHonourRange() {
+        SeededPaymentDecisionEngine engine = new SeededPaymentDecisionEngine(42L, 4, 4);
+
+        assertThat(engine.decide(order(1L))).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(engine.decide(order(2L))).isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    @Test
+    void constructor_shouldRejectInvertedRange() {
+        assertThatThrownBy(() -> new SeededPaymentDecisionEngine(42L, 10, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static OrderCreatedEvent order(long orderId) {
+        return OrderCreatedEvent.builder().orderId(orderId).build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.innowise.service.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClockLongCacheTest {
+
+    @Test
+    void put_shouldStoreValuesAcrossSegments() {
+        ClockLongCache<String> cache = new ClockLongCache<>(10_000);
+        for (long key = 0; key < 5_000; key++) {
+            cache.put(key, "value-" + key);
+        }
+
+        assertThat(cache.size()).isEqualTo(5_000);
+        assertThat(cache.get(4_321L)).isEqualTo("value-4321");
+        assertThat(cache.remove(4_321L)).isEqualTo("value-4321");
+        assertThat(cache.get(4_321L)).isNull();
+        assertThat(cache.evictions()).isZero();
+    }
+
+    @Test
+    void put_shouldEvictBeyondMaxSize() {
+        ClockLongCache<Long> cache = new ClockLongCache<>(1_000);
+        for (long key = 0; key < 50_000; key++) {
+            cache.put(key, key);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(cache.maxSize());
+        assertThat(cache.maxSize()).isBetween(1_000, 1_000 + 256);
+        assertThat(cache.evictions()).isEqualTo(50_000L - cache.size());
+    }
+
+    @Test
+    void removeIf_shouldRemoveMatchingEntriesInAllSegments() {
+        ClockLongCache<Long> cache = new ClockLongCache<>(10_000);
+        for (long key = 0; key < 1_000; key++) {
+            cache.put(key, key);
+        }
+
+        assertThat(cache.removeIf(value -> value >= 500)).isEqualTo(500);
+        assertThat(cache.size()).isEqualTo(500);
+    }
+
+    @Test
+    void computeIfAbsent_shouldCreateOneValuePerKeyUnderContention() throws Exception {
+        ClockLongCache<Object> cache = new ClockLongCache<>(100_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Object>>> results = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            results.add(executor.submit(() -> {
+                List<Object> values = new ArrayList<>();
+                for (long key = 0; key < 10_000; key++) {
+                    values.add(cache.computeIfAbsent(key, ignored -> new Object()));
+                }
+                return values;
+            }));
+        }
+        List<Object> first = results.get(0).get();
+        for (Future<List<Object>> result : results) {
+            assertThat(result.get()).containsExactlyElementsOf(first);
+        }
+        executor.shutdown();
+
+        assertThat(cache.size()).isEqualTo(10_000);
+    }
+}
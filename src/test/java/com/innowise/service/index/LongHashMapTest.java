@@ -0,0 +1,133 @@
+package com.innowise.service.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongHashMapTest {
+
+    @Test
+    void put_shouldStoreAndReplaceValues() {
+        LongHashMap<String> map = new LongHashMap<>();
+
+        assertThat(map.put(1L, "a")).isNull();
+        assertThat(map.put(0L, "zero")).isNull();
+        assertThat(map.put(-1L, "minus")).isNull();
+        assertThat(map.put(1L, "b")).isEqualTo("a");
+
+        assertThat(map.get(1L)).isEqualTo("b");
+        assertThat(map.get(0L)).isEqualTo("zero");
+        assertThat(map.get(-1L)).isEqualTo("minus");
+        assertThat(map.get(2L)).isNull();
+        assertThat(map.size()).isEqualTo(3);
+    }
+
+    @Test
+    void put_shouldRejectNullValue() {
+        assertThatThrownBy(() -> new LongHashMap<String>().put(1L, null)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    void put_shouldGrowBeyondExpectedSize() {
+        LongHashMap<Long> map = new LongHashMap<>(4);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 1_000_003L, key);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(map.get(key * 1_000_003L)).isEqualTo(key);
+        }
+    }
+
+    @Test
+    void putIfAbsentAndComputeIfAbsent_shouldKeepExistingValue() {
+        LongHashMap<String> map = new LongHashMap<>();
+
+        assertThat(map.putIfAbsent(7L, "first")).isNull();
+        assertThat(map.putIfAbsent(7L, "second")).isEqualTo("first");
+        assertThat(map.computeIfAbsent(7L, key -> "third")).isEqualTo("first");
+        assertThat(map.computeIfAbsent(8L, key -> "key-" + key)).isEqualTo("key-8");
+    }
+
+    @Test
+    void remove_shouldKeepCollidingKeysReachable() {
+        LongHashMap<Long> map = new LongHashMap<>(16);
+        for (long key = 0; key < 12; key++) {
+            map.put(key, key);
+        }
+
+        for (long key = 0; key < 12; key += 2) {
+            assertThat(map.remove(key)).isEqualTo(key);
+        }
+
+        assertThat(map.size()).isEqualTo(6);
+        for (long key = 0; key < 12; key++) {
+            assertThat(map.get(key)).isEqualTo(key % 2 == 0 ? null : key);
+        }
+    }
+
+    @Test
+    void operations_shouldMatchHashMapUnderRandomWorkload() {
+        LongHashMap<Integer> map = new LongHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(4)) {
+                case 0, 1 -> assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+                case 2 -> assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+                default -> assertThat(map.get(key)).isEqualTo(expected.get(key));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    void removeIf_shouldRemoveAllMatchingEntries() {
+        LongHashMap<Long> map = new LongHashMap<>();
+        for (long key = 0; key < 1_000; key++) {
+            map.put(key, key);
+        }
+
+        assertThat(map.removeIf(value -> value % 3 == 0)).isEqualTo(334);
+
+        assertThat(map.size()).isEqualTo(666);
+        for (long key = 0; key < 1_000; key++) {
+            assertThat(map.containsKey(key)).isEqualTo(key % 3 != 0);
+        }
+    }
+
+    @Test
+    void withClockEviction_shouldStayBoundedAndKeepRecentlyReadEntries() {
+        LongHashMap<Long> map = LongHashMap.withClockEviction(100);
+        for (long key = 0; key < 10; key++) {
+            map.put(key, key);
+        }
+
+        for (long key = 10; key < 10_000; key++) {
+            map.put(key, key);
+            if (key % 20 == 0) {
+                for (long hot = 0; hot < 10; hot++) {
+                    assertThat(map.get(hot)).isEqualTo(hot);
+                }
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(100);
+        assertThat(map.evictions()).isEqualTo(9_900);
+    }
+
+    @Test
+    void withClockEviction_shouldRejectNonPositiveSize() {
+        assertThatThrownBy(() -> LongHashMap.withClockEviction(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.innowise.service.index;
+
+import com.innowise.config.IndexProperties;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.model.enums.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentIndexTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void isDuplicate_shouldRecognizePublishedOrder() {
+        PaymentIndex index = new PaymentIndex(new IndexProperties(), registry);
+
+        assertThat(index.isDuplicate(100L)).isFalse();
+        index.recordPublished(100L, "payment-1");
+
+        assertThat(index.isDuplicate(100L)).isTrue();
+        assertThat(index.isDuplicate(null)).isFalse();
+        assertThat(index.findPaymentId(100L)).isEqualTo("payment-1");
+        assertThat(registry.get("payment.index.duplicates").counter().count()).isEqualTo(1);
+        assertThat(registry.get("payment.index.orders").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void recordPublished_shouldWaitForTransactionCommit() {
+        PaymentIndex index = new PaymentIndex(new IndexProperties(), registry);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.recordPublished(100L, "payment-1");
+
+            assertThat(index.findPaymentId(100L)).isNull();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.findPaymentId(100L)).isEqualTo("payment-1");
+    }
+
+    @Test
+    void findUnacknowledged_shouldKeepEventUntilPublished() {
+        PaymentIndex index = new PaymentIndex(new IndexProperties(), registry);
+        PaymentCreatedEvent event = PaymentCreatedEvent.builder().paymentId("payment-1").orderId(100L).build();
+
+        index.recordUnacknowledged(100L, event);
+
+        assertThat(index.findUnacknowledged(100L)).isSameAs(event);
+        assertThat(index.isDuplicate(100L)).isFalse();
+        index.recordPublished(100L, "payment-1");
+        assertThat(index.findUnacknowledged(100L)).isNull();
+        assertThat(index.findUnacknowledged(null)).isNull();
+    }
+
+    @Test
+    void findQueued_shouldKeepPaymentUntilPublished() {
+        PaymentIndex index = new PaymentIndex(new IndexProperties(), registry);
+        QueuedPayment payment = new QueuedPayment("payment-1", PaymentStatus.SUCCESS);
+
+        index.recordQueued(100L, payment);
+
+        assertThat(index.findQueued(100L)).isSameAs(payment);
+        index.recordPublished(100L, "payment-1");
+        assertThat(index.findQueued(100L)).isNull();
+        assertThat(index.findQueued(null)).isNull();
+    }
+
+    @Test
+    void isDuplicate_shouldForgetOrdersBeyondMaxOrders() {
+        IndexProperties properties = new IndexProperties();
+        properties.setMaxOrders(64);
+        PaymentIndex index = new PaymentIndex(properties, registry);
+
+        for (long orderId = 0; orderId < 1_000; orderId++) {
+            index.recordPublished(orderId, "payment-" + orderId);
+        }
+
+        assertThat(index.isDuplicate(999L)).isTrue();
+        assertThat(index.isDuplicate(0L)).isFalse();
+        assertThat(registry.get("payment.index.evictions").functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void isDuplicate_shouldBeDisabled_whenMaxOrdersIsZero() {
+        IndexProperties properties = new IndexProperties();
+        properties.setMaxOrders(0);
+        PaymentIndex index = new PaymentIndex(properties, registry);
+
+        index.recordPublished(100L, "payment-1");
+
+        assertThat(index.isDuplicate(100L)).isFalse();
+        assertThat(registry.find("payment.index.orders").gauge()).isNull();
+    }
+}
@@ -0,0 +1,133 @@
+package com.innowise.service.job;
+
+import com.innowise.config.SweeperProperties;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.service.kafka.BackpressureController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeasedBackgroundJobTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BackpressureController backpressureController;
+
+    private SweeperProperties properties;
+    private SimpleMeterRegistry registry;
+    private TestJob job;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SweeperProperties();
+        properties.setInterval(Duration.ofMillis(10));
+        properties.setMaxRate(100);
+        registry = new SimpleMeterRegistry();
+        job = new TestJob(properties, mongoTemplate, backpressureController, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.stop();
+    }
+
+    @Test
+    void start_shouldOnlyMarkRunning_whenDisabled() throws InterruptedException {
+        job.start();
+
+        assertThat(job.isRunning()).isTrue();
+        assertThat(job.runs.await(50, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    @Test
+    void start_shouldRunEveryInterval_andStopShouldReleaseLease() throws InterruptedException {
+        properties.setEnabled(true);
+
+        job.start();
+
+        assertThat(job.runs.await(5, TimeUnit.SECONDS)).isTrue();
+        job.stop();
+        assertThat(job.isRunning()).isFalse();
+        verify(mongoTemplate).remove(any(Query.class), eq(MongoLease.COLLECTION));
+    }
+
+    @Test
+    void start_shouldKeepRunning_whenARunFails() throws InterruptedException {
+        properties.setEnabled(true);
+        job.failures = 1;
+
+        job.start();
+
+        assertThat(job.runs.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void renewLease_shouldStopTheRun_whenLeaseHeldElsewhere() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MongoLease.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertThat(job.tryAcquireLease()).isFalse();
+        assertThat(job.renewLease()).isFalse();
+    }
+
+    @Test
+    void deferIfPaused_shouldCountDeferral_whenConsumersArePausedByBackpressure() {
+        when(backpressureController.isPaused()).thenReturn(false, true);
+
+        assertThat(job.deferIfPaused()).isFalse();
+        assertThat(job.deferIfPaused()).isTrue();
+
+        assertThat(registry.get("payment.test.deferred").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void throttle_shouldSleepForTheRestOfTheBudget() throws InterruptedException {
+        long started = System.nanoTime();
+
+        job.throttle(5, started);
+
+        // 5 items at 100 per second
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    private static class TestJob extends LeasedBackgroundJob {
+
+        private final CountDownLatch runs = new CountDownLatch(1);
+        private volatile int failures;
+
+        TestJob(SweeperProperties properties, MongoTemplate mongoTemplate,
+                BackpressureController backpressureController, MeterRegistry registry) {
+            super("payment-test", "payment.test", properties, mongoTemplate, backpressureController, registry);
+        }
+
+        @Override
+        protected void runOnce() {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("boom");
+            }
+            runs.countDown();
+        }
+    }
+}
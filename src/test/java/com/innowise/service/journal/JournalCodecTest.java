@@ -0,0 +1,51 @@
+package com.innowise.service.journal;
+
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalCodecTest {
+
+    @Test
+    void decode_shouldRestoreEncodedPayment() {
+        Payment payment = Payment.builder()
+                .id("65f1c0ffee0123456789abcd")
+                .orderId(100L)
+                .userId(-200L)
+                .status(PaymentStatus.FAILED)
+                .timestamp(LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_789))
+                .paymentAmount(new BigDecimal("-12345678901234567890.125"))
+                .build();
+
+        Payment decoded = JournalCodec.decode(ByteBuffer.wrap(JournalCodec.encode(payment)));
+
+        assertThat(decoded).isEqualTo(payment);
+        assertThat(decoded.getPaymentAmount().scale()).isEqualTo(3);
+    }
+
+    @Test
+    void decode_shouldKeepAbsentFieldsNull() {
+        Payment payment = Payment.builder().id("payment-1").build();
+
+        Payment decoded = JournalCodec.decode(ByteBuffer.wrap(JournalCodec.encode(payment)));
+
+        assertThat(decoded).isEqualTo(payment);
+    }
+
+    @Test
+    void decode_shouldRejectUnknownVersion() {
+        byte[] encoded = JournalCodec.encode(Payment.builder().id("payment-1").build());
+        encoded[0] = JournalCodec.VERSION + 1;
+
+        assertThatThrownBy(() -> JournalCodec.decode(ByteBuffer.wrap(encoded)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("version");
+    }
+}
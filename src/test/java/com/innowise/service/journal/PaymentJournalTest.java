@@ -0,0 +1,298 @@
+package com.innowise.service.journal;
+
+import com.innowise.config.JournalProperties;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.ProcessingStage;
+import com.innowise.service.concurrent.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    private JournalProperties properties;
+    private SimpleMeterRegistry registry;
+    private PaymentJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JournalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofKilobytes(4));
+        properties.setDrainBatchSize(10);
+        registry = new SimpleMeterRegistry();
+        journal = new PaymentJournal(properties, paymentRepository, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.stop();
+    }
+
+    @Test
+    void append_shouldMakePaymentDurableAndDrainIntoMongo() {
+        journal.start();
+        Payment payment = payment("payment-1", PaymentStatus.SUCCESS);
+
+        journal.append(payment);
+        assertThat(journal.pendingBytes()).isPositive();
+        journal.drain();
+
+        verify(paymentRepository).upsertAll(List.of(payment));
+        assertThat(journal.pendingBytes()).isZero();
+        assertThat(registry.get("payment.journal.drained").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void append_shouldGroupConcurrentAppendsIntoFewCommits() throws Exception {
+        properties.setGroupCommitWindow(Duration.ofMillis(20));
+        journal.start();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String id = "payment-" + i;
+            futures.add(executor.submit(() -> journal.append(payment(id, PaymentStatus.SUCCESS))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.close();
+
+        var commits = registry.get("payment.journal.group.commit.size").summary();
+        assertThat(commits.totalAmount()).isEqualTo(20);
+        assertThat(commits.count()).isLessThan(20);
+    }
+
+    @Test
+    void appendAll_shouldMakeWholeBatchDurableAndDrainItInOrder() {
+        journal.start();
+        List<Payment> payments = List.of(
+                payment("payment-1", PaymentStatus.SUCCESS),
+                payment("payment-2", PaymentStatus.FAILED),
+                payment("payment-3", PaymentStatus.SUCCESS));
+
+        journal.appendAll(payments);
+        journal.drain();
+
+        verify(paymentRepository).upsertAll(payments);
+        assertThat(registry.get("payment.journal.append").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void append_shouldRollOverToNewSegmentAndDeleteDrainedOnes() throws IOException {
+        journal.start();
+        for (int i = 0; i < 100; i++) {
+            journal.append(payment("payment-" + i, PaymentStatus.SUCCESS));
+        }
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        journal.drain();
+
+        verify(paymentRepository, atLeast(10)).upsertAll(anyList());
+        assertThat(registry.get("payment.journal.drained").counter().count()).isEqualTo(100);
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(journal.pendingBytes()).isZero();
+    }
+
+    @Test
+    void drain_shouldKeepRecordsAndRetry_whenMongoFails() {
+        journal.start();
+        journal.append(payment("payment-1", PaymentStatus.SUCCESS));
+        doThrow(new DataAccessResourceFailureException("Mongo is down"))
+                .doNothing()
+                .when(paymentRepository).upsertAll(anyList());
+
+        journal.drain();
+        assertThat(journal.pendingBytes()).isPositive();
+        assertThat(registry.get("payment.journal.drain.failures").counter().count()).isEqualTo(1);
+
+        journal.drain();
+        assertThat(journal.pendingBytes()).isZero();
+        verify(paymentRepository, times(2)).upsertAll(anyList());
+    }
+
+    @Test
+    void start_shouldReplayUndrainedSegmentsInOrder() throws IOException {
+        journal.start();
+        journal.append(payment("payment-1", PaymentStatus.SUCCESS));
+        journal.append(payment("payment-2", PaymentStatus.SUCCESS));
+        journal.append(payment("payment-1", PaymentStatus.FAILED));
+        simulateCrash();
+
+        PaymentJournal restarted = newJournal();
+        restarted.start();
+        try {
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Payment>> replayed = ArgumentCaptor.forClass(List.class);
+            verify(paymentRepository).upsertAll(replayed.capture());
+            assertThat(replayed.getValue()).extracting(Payment::getId, Payment::getStatus).containsExactly(
+                    tuple("payment-1", PaymentStatus.SUCCESS),
+                    tuple("payment-2", PaymentStatus.SUCCESS),
+                    tuple("payment-1", PaymentStatus.FAILED));
+            assertThat(segmentFiles()).hasSize(1);
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void start_shouldNotReplayRecordsDrainedBeforeCrash() {
+        journal.start();
+        Payment drained = payment("payment-1", PaymentStatus.SUCCESS);
+        Payment undrained = payment("payment-2", PaymentStatus.FAILED);
+        journal.append(drained);
+        journal.drain();
+        journal.append(undrained);
+        simulateCrash();
+
+        PaymentJournal restarted = newJournal();
+        restarted.start();
+        try {
+            verify(paymentRepository).upsertAll(List.of(undrained));
+            verifyNoMoreInteractions(paymentRepository);
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void start_shouldIgnoreTornRecordAtEndOfSegment() throws IOException {
+        journal.start();
+        journal.append(payment("payment-1", PaymentStatus.SUCCESS));
+        journal.append(payment("payment-2", PaymentStatus.SUCCESS));
+        simulateCrash();
+        corruptLastRecord(segmentFiles().get(0));
+
+        PaymentJournal restarted = newJournal();
+        restarted.start();
+        try {
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Payment>> replayed = ArgumentCaptor.forClass(List.class);
+            verify(paymentRepository).upsertAll(replayed.capture());
+            assertThat(replayed.getValue()).extracting(Payment::getId).containsExactly("payment-1");
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void start_shouldFailAndKeepSegments_whenReplayFails() throws IOException {
+        journal.start();
+        journal.append(payment("payment-1", PaymentStatus.SUCCESS));
+        simulateCrash();
+        doThrow(new DataAccessResourceFailureException("Mongo is down")).when(paymentRepository).upsertAll(anyList());
+
+        PaymentJournal restarted = newJournal();
+
+        assertThatThrownBy(restarted::start).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void append_shouldFailFast_whenDeadlineHasPassed() {
+        journal.start();
+
+        try (Deadline.Attachment ignored = Deadline.after(Duration.ofNanos(1)).attach()) {
+            assertThatThrownBy(() -> journal.append(payment("payment-1", PaymentStatus.SUCCESS)))
+                    .isInstanceOf(DeadlineExceededException.class)
+                    .extracting("stage").isEqualTo(ProcessingStage.JOURNAL);
+        }
+    }
+
+    @Test
+    void append_shouldFail_whenJournalIsNotOpen() {
+        properties.setEnabled(false);
+        journal.start();
+
+        assertThat(journal.isEnabled()).isFalse();
+        assertThatThrownBy(() -> journal.append(payment("payment-1", PaymentStatus.SUCCESS)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    private PaymentJournal newJournal() {
+        return new PaymentJournal(properties, paymentRepository, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Stops the writer without draining, leaving the segments as a crash would.
+     */
+    private void simulateCrash() {
+        doThrow(new DataAccessResourceFailureException("crash")).when(paymentRepository).upsertAll(anyList());
+        journal.stop();
+        reset(paymentRepository);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void corruptLastRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int position = JournalSegment.HEADER_SIZE;
+            int last = position;
+            while (buffer.getInt(position) > 0) {
+                last = position;
+                position += JournalSegment.RECORD_OVERHEAD + buffer.getInt(position);
+            }
+            int payloadEnd = last + JournalSegment.RECORD_OVERHEAD + buffer.getInt(last) - 1;
+            buffer.put(payloadEnd, (byte) (buffer.get(payloadEnd) ^ 0x5A));
+        }
+    }
+
+    private static Payment payment(String id, PaymentStatus status) {
+        return Payment.builder()
+                .id(id)
+                .orderId(100L)
+                .userId(200L)
+                .status(status)
+                .timestamp(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .paymentAmount(new BigDecimal("150.00"))
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package com.innowise.service.kafka;
+
+import com.innowise.config.BackpressureProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BackpressureControllerTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerEndpointRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private DownstreamProbe mongoProbe;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BackpressureProperties properties;
+    private BackpressureController controller;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(listenerEndpointRegistry.getListenerContainers()).thenReturn(List.of(container));
+        lenient().when(mongoProbe.stage()).thenReturn("mongo");
+
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new BackpressureProperties();
+        properties.setMaxLatency(Duration.ofMillis(100));
+        properties.setResumeLatency(Duration.ofMillis(20));
+        properties.setMaxInFlight(2);
+        properties.setResumeInFlight(0);
+        properties.setMinPause(Duration.ZERO);
+
+        controller = new BackpressureController(listenerEndpointRegistry, properties, List.of(mongoProbe), meterRegistry);
+    }
+
+    @Test
+    void evaluate_shouldNotPause_whenLatencyBelowThreshold() {
+        recordCall("mongo", Duration.ofMillis(50));
+
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isFalse();
+        verify(container, never()).pause();
+    }
+
+    @Test
+    void evaluate_shouldPause_whenLatencyAboveThreshold() {
+        recordCall("random-api", Duration.ofMillis(500));
+
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isTrue();
+        verify(container).pause();
+        assertThat(meterRegistry.get("kafka.consumer.backpressure.pauses").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void evaluate_shouldPause_whenInFlightAboveThreshold() {
+        controller.callStarted();
+        controller.callStarted();
+        controller.callStarted();
+
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isTrue();
+        verify(container).pause();
+    }
+
+    @Test
+    void evaluate_shouldStayPaused_whenLatencyBetweenWatermarks() {
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+
+        recordCall("mongo", Duration.ofMillis(50));
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isTrue();
+        verify(container, never()).resume();
+    }
+
+    @Test
+    void evaluate_shouldResume_whenLatencyBelowResumeWatermark() {
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+
+        recordCall("mongo", Duration.ofMillis(5));
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isFalse();
+        verify(container).resume();
+        assertThat(meterRegistry.get("kafka.consumer.backpressure.resumes").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("kafka.consumer.backpressure.paused.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void evaluate_shouldNotResume_beforeMinimumPauseElapsed() {
+        properties.setMinPause(Duration.ofHours(1));
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isTrue();
+        verify(container, never()).resume();
+    }
+
+    @Test
+    void evaluate_shouldResume_whenDisabledWhilePaused() {
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+
+        properties.setEnabled(false);
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isFalse();
+        verify(container).resume();
+    }
+
+    @Test
+    void evaluate_shouldProbeIdleStageWhilePaused_andResumeWhenProbeIsFast() {
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+        verify(mongoProbe, never()).probe();
+
+        controller.evaluate();
+
+        verify(mongoProbe).probe();
+        assertThat(controller.isPaused()).isFalse();
+    }
+
+    @Test
+    void evaluate_shouldStayPaused_whenProbeFails() {
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+        doThrow(new IllegalStateException("connection refused")).when(mongoProbe).probe();
+
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isTrue();
+        verify(container, never()).resume();
+    }
+
+    @Test
+    void evaluate_shouldStayPaused_whenProbeIsSlow() {
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+        doAnswer(invocation -> {
+            Thread.sleep(30);
+            return null;
+        }).when(mongoProbe).probe();
+
+        controller.evaluate();
+
+        assertThat(controller.isPaused()).isTrue();
+    }
+
+    @Test
+    void evaluate_shouldNotProbe_whenStageHadCallsWhilePaused() {
+        recordCall("mongo", Duration.ofMillis(500));
+        controller.evaluate();
+
+        recordCall("mongo", Duration.ofMillis(5));
+        controller.evaluate();
+
+        verify(mongoProbe, never()).probe();
+    }
+
+    private void recordCall(String stage, Duration latency) {
+        controller.callStarted();
+        controller.callCompleted(stage, latency.toNanos());
+    }
+}
@@ -0,0 +1,181 @@
+package com.innowise.service.kafka;
+
+import com.innowise.config.ConsumerLagProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumerLagMonitorTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("order-events", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("order-events", 1);
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerEndpointRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Admin admin;
+
+    @Mock
+    private ListConsumerGroupOffsetsResult committedResult;
+
+    @Mock
+    private ListOffsetsResult endOffsetsResult;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConsumerLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ConsumerLagProperties properties = new ConsumerLagProperties();
+        monitor = new ConsumerLagMonitor(() -> admin, listenerEndpointRegistry, properties, meterRegistry);
+
+        lenient().when(listenerEndpointRegistry.getListenerContainer("order-events-listener")).thenReturn(container);
+        lenient().when(container.getGroupId()).thenReturn("payment-service");
+        lenient().when(container.metrics()).thenReturn(Map.of());
+    }
+
+    @Test
+    void refresh_shouldExportLagPerAssignedPartition() {
+        when(container.getAssignedPartitions()).thenReturn(List.of(PARTITION_0, PARTITION_1));
+        stubOffsets(Map.of(PARTITION_0, new OffsetAndMetadata(90), PARTITION_1, new OffsetAndMetadata(40)),
+                Map.of(PARTITION_0, 100L, PARTITION_1, 40L));
+
+        monitor.refresh();
+
+        assertThat(partitionLag(0)).isEqualTo(10);
+        assertThat(partitionLag(1)).isZero();
+        assertThat(monitor.getTotalLag()).isEqualTo(10);
+        assertThat(meterRegistry.get("kafka.consumer.lag").gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    void refresh_shouldClearLag_whenPartitionRevoked() {
+        when(container.getAssignedPartitions()).thenReturn(List.of(PARTITION_0), List.of());
+        stubOffsets(Map.of(PARTITION_0, new OffsetAndMetadata(5)), Map.of(PARTITION_0, 25L));
+
+        monitor.refresh();
+        monitor.refresh();
+
+        assertThat(partitionLag(0)).isNaN();
+        assertThat(monitor.getTotalLag()).isNaN();
+    }
+
+    @Test
+    void refresh_shouldCountFailure_whenAdminRequestFails() {
+        when(container.getAssignedPartitions()).thenReturn(List.of(PARTITION_0));
+        when(admin.listConsumerGroupOffsets(anyMap())).thenReturn(committedResult);
+        when(committedResult.partitionsToOffsetAndMetadata("payment-service"))
+                .thenReturn(failedFuture(new IllegalStateException("broker down")));
+
+        monitor.refresh();
+
+        assertThat(meterRegistry.get("kafka.consumer.lag.refresh.failures").counter().count()).isEqualTo(1);
+        assertThat(monitor.getTotalLag()).isNaN();
+    }
+
+    @Test
+    void refresh_shouldSampleConsumerClientMetrics() {
+        when(container.getAssignedPartitions()).thenReturn(List.of());
+        Map<String, Map<MetricName, ? extends Metric>> clientMetrics = Map.of(
+                "consumer-0", Map.of(metricName("commit-latency-avg"), metric(12.5),
+                        metricName("last-poll-seconds-ago"), metric(3.0)),
+                "consumer-1", Map.of(metricName("commit-latency-avg"), metric(20.0),
+                        metricName("last-poll-seconds-ago"), metric(1.0)));
+        when(container.metrics()).thenReturn(clientMetrics);
+
+        monitor.refresh();
+
+        assertThat(meterRegistry.get("kafka.consumer.commit.latency.avg").gauge().value()).isEqualTo(20.0);
+        assertThat(meterRegistry.get("kafka.consumer.last.poll.age").gauge().value()).isEqualTo(3.0);
+        verifyNoInteractions(admin);
+    }
+
+    @Test
+    void refresh_shouldDoNothing_whenDisabled() {
+        ConsumerLagProperties properties = new ConsumerLagProperties();
+        properties.setEnabled(false);
+        ConsumerLagMonitor disabled = new ConsumerLagMonitor(() -> admin, listenerEndpointRegistry, properties,
+                new SimpleMeterRegistry());
+
+        disabled.refresh();
+
+        verifyNoInteractions(admin, container);
+    }
+
+    @Test
+    void success_shouldCountProcessedRecordsPerPartition() {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("order-events", 1, 7L, "key", "value");
+
+        monitor.success(record, null);
+        monitor.success(record, null);
+        monitor.failure(record, new RuntimeException(), null);
+
+        assertThat(meterRegistry.get("kafka.consumer.partition.records.processed")
+                .tag("partition", "1").tag("outcome", "success").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("kafka.consumer.partition.records.processed")
+                .tag("partition", "1").tag("outcome", "error").counter().count()).isEqualTo(1);
+    }
+
+    private void stubOffsets(Map<TopicPartition, OffsetAndMetadata> committed, Map<TopicPartition, Long> endOffsets) {
+        when(admin.listConsumerGroupOffsets(anyMap())).thenReturn(committedResult);
+        when(committedResult.partitionsToOffsetAndMetadata(eq("payment-service")))
+                .thenReturn(KafkaFuture.completedFuture(committed));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> infos = new HashMap<>();
+        endOffsets.forEach((tp, offset) -> infos.put(tp,
+                new ListOffsetsResult.ListOffsetsResultInfo(offset, -1L, Optional.empty())));
+        when(admin.listOffsets(anyMap())).thenReturn(endOffsetsResult);
+        when(endOffsetsResult.all()).thenReturn(KafkaFuture.completedFuture(infos));
+    }
+
+    private double partitionLag(int partition) {
+        return meterRegistry.get("kafka.consumer.partition.lag")
+                .tag("partition", String.valueOf(partition)).gauge().value();
+    }
+
+    private static <T> KafkaFuture<T> failedFuture(Throwable error) {
+        KafkaFutureImpl<T> future = new KafkaFutureImpl<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private static MetricName metricName(String name) {
+        return new MetricName(name, "consumer-metrics", "", Map.of());
+    }
+
+    private static Metric metric(double value) {
+        Metric metric = mock(Metric.class);
+        when(metric.metricValue()).thenReturn(value);
+        return metric;
+    }
+}
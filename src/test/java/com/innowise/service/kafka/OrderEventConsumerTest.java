@@ -1,18 +1,26 @@
 package com.innowise.service.kafka;
 
+import com.innowise.config.ProcessingProperties;
 import com.innowise.event.OrderCreatedEvent;
+import com.innowise.metrics.StartupMetrics;
 import com.innowise.model.enums.EventType;
 import com.innowise.model.enums.OrderStatus;
 import com.innowise.service.PaymentProcessingService;
+import com.innowise.service.concurrent.Deadline;
+import io.micrometer.core.instrument.Counter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
@@ -22,6 +30,15 @@ class OrderEventConsumerTest {
     @Mock
     private PaymentProcessingService paymentProcessingService;
 
+    @Mock
+    private Counter kafkaOrderMessagesConsumedCounter;
+
+    @Mock
+    private StartupMetrics startupMetrics;
+
+    @Spy
+    private ProcessingProperties processingProperties = new ProcessingProperties();
+
     @InjectMocks
     private OrderEventConsumer orderEventConsumer;
 
@@ -45,6 +62,43 @@ class OrderEventConsumerTest {
         verify(paymentProcessingService).processPayment(validEvent);
     }
 
+    @Test
+    void handleOrderCreatedEvent_shouldAttachDeadlineWhileProcessing() {
+        processingProperties.setMessageBudget(Duration.ofSeconds(3));
+        AtomicReference<Deadline> seen = new AtomicReference<>();
+        doAnswer(invocation -> {
+            seen.set(Deadline.current().orElse(null));
+            return null;
+        }).when(paymentProcessingService).processPayment(validEvent);
+
+        orderEventConsumer.handleOrderCreatedEvent(validEvent);
+
+        assertThat(seen.get()).isNotNull();
+        assertThat(seen.get().budget()).isEqualTo(Duration.ofSeconds(3));
+        assertThat(Deadline.current()).isEmpty();
+    }
+
+    @Test
+    void handleOrderCreatedEvent_shouldNotAttachDeadline_whenBudgetIsZero() {
+        processingProperties.setMessageBudget(Duration.ZERO);
+        doAnswer(invocation -> {
+            assertThat(Deadline.current()).isEmpty();
+            return null;
+        }).when(paymentProcessingService).processPayment(validEvent);
+
+        orderEventConsumer.handleOrderCreatedEvent(validEvent);
+
+        verify(paymentProcessingService).processPayment(validEvent);
+    }
+
+    @Test
+    void handleOrderCreatedEvent_shouldCountConsumedMessage() {
+        orderEventConsumer.handleOrderCreatedEvent(validEvent);
+
+        verify(kafkaOrderMessagesConsumedCounter).increment();
+        verify(startupMetrics).messageConsumed();
+    }
+
     @Test
     void handleOrderCreatedEvent_shouldThrowException_whenOrderIdIsNull() {
         OrderCreatedEvent nullOrderIdEvent = OrderCreatedEvent.builder()
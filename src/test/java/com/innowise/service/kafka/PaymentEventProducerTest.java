@@ -1,7 +1,10 @@
 package com.innowise.service.kafka;
 
 import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.model.enums.ProcessingStage;
 import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.concurrent.Deadline;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -18,6 +21,7 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -322,4 +326,37 @@ class PaymentEventProducerTest {
                                 .status(status)
                                 .build();
         }
+
+        @Test
+        void sendPaymentCreatedEvent_shouldFailFast_whenAcknowledgementMissesDeadline() {
+                when(kafkaTemplate.send(anyString(), anyString(), any()))
+                                .thenReturn(new CompletableFuture<>());
+
+                try (Deadline.Attachment ignored = Deadline.after(Duration.ofMillis(50)).attach()) {
+                        assertThatThrownBy(() -> paymentEventProducer.sendPaymentCreatedEvent(testEvent))
+                                        .isInstanceOf(DeadlineExceededException.class)
+                                        .extracting("stage").isEqualTo(ProcessingStage.PUBLISH);
+                }
+        }
+
+        @Test
+        void sendPaymentCreatedEvent_shouldNotSend_whenDeadlineAlreadyPassed() {
+                try (Deadline.Attachment ignored = Deadline.after(Duration.ZERO).attach()) {
+                        assertThatThrownBy(() -> paymentEventProducer.sendPaymentCreatedEvent(testEvent))
+                                        .isInstanceOf(DeadlineExceededException.class);
+                }
+
+                verifyNoInteractions(kafkaTemplate);
+        }
+
+        @Test
+        void sendPaymentCreatedEventAsync_shouldReturnWithoutWaiting() {
+                CompletableFuture<SendResult<String, Object>> future = new CompletableFuture<>();
+                when(kafkaTemplate.send(anyString(), anyString(), any()))
+                                .thenReturn(future);
+
+                assertThat(paymentEventProducer.sendPaymentCreatedEventAsync(testEvent)).isSameAs(future);
+
+                verify(kafkaTemplate).send(eq("payment-events"), eq("100"), eq(testEvent));
+        }
 }
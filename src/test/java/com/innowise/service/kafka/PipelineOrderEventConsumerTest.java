@@ -0,0 +1,59 @@
+package com.innowise.service.kafka;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.metrics.StartupMetrics;
+import com.innowise.service.pipeline.PaymentPipeline;
+import io.micrometer.core.instrument.Counter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PipelineOrderEventConsumerTest {
+
+    @Mock
+    private PaymentPipeline paymentPipeline;
+
+    @Mock
+    private Counter kafkaOrderMessagesConsumedCounter;
+
+    @Mock
+    private StartupMetrics startupMetrics;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @InjectMocks
+    private PipelineOrderEventConsumer consumer;
+
+    @Test
+    void handleOrderCreatedEvent_shouldSubmitRecordWithoutAcknowledging() {
+        ConsumerRecord<String, OrderCreatedEvent> record = new ConsumerRecord<>("order-events", 0, 5L, "100",
+                OrderCreatedEvent.builder().orderId(100L).build());
+
+        consumer.handleOrderCreatedEvent(record, acknowledgment);
+
+        verify(kafkaOrderMessagesConsumedCounter).increment();
+        verify(startupMetrics).messageConsumed();
+        verify(paymentPipeline).submit(record, acknowledgment);
+        verifyNoInteractions(acknowledgment);
+    }
+
+    @Test
+    void handleOrderCreatedEvent_shouldPropagateFailure_whenPipelineIsStopped() {
+        ConsumerRecord<String, OrderCreatedEvent> record = new ConsumerRecord<>("order-events", 0, 5L, "100",
+                OrderCreatedEvent.builder().orderId(100L).build());
+        doThrow(new IllegalStateException("Payment pipeline is not running"))
+                .when(paymentPipeline).submit(record, acknowledgment);
+
+        assertThatThrownBy(() -> consumer.handleOrderCreatedEvent(record, acknowledgment))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
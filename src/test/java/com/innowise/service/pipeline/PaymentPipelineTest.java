@@ -0,0 +1,340 @@
+package com.innowise.service.pipeline;
+
+import com.innowise.config.IndexProperties;
+import com.innowise.config.PipelineProperties;
+import com.innowise.config.ProcessingProperties;
+import com.innowise.config.PublisherProperties;
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.exception.DeadlineExceededException;
+import com.innowise.metrics.PaymentStageMetrics;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.EventType;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.PipelineStage;
+import com.innowise.model.enums.PublishMode;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.PaymentService;
+import com.innowise.service.concurrent.SubtaskExecutor;
+import com.innowise.service.index.PaymentIndex;
+import com.innowise.service.journal.PaymentJournal;
+import com.innowise.service.kafka.PaymentEventProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PaymentPipelineTest {
+
+    private static final long WAIT_MILLIS = 5000;
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private PaymentDecisionEngine decisionEngine;
+
+    @Mock
+    private PaymentEventProducer paymentEventProducer;
+
+    @Mock
+    private PaymentJournal paymentJournal;
+
+    @Mock
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    private PipelineProperties properties;
+    private PublisherProperties publisherProperties;
+    private SimpleMeterRegistry registry;
+    private SubtaskExecutor subtaskExecutor;
+    private PaymentIndex paymentIndex;
+    private PaymentPipeline pipeline;
+    private final List<List<Long>> persistedBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new PipelineProperties();
+        properties.setEnabled(true);
+        properties.setRingSize(8);
+        properties.setMaxBatchSize(4);
+        registry = new SimpleMeterRegistry();
+        subtaskExecutor = new SubtaskExecutor(new ProcessingProperties());
+        paymentIndex = new PaymentIndex(new IndexProperties(), registry);
+        publisherProperties = new PublisherProperties();
+        pipeline = new PaymentPipeline(properties, new ProcessingProperties(), publisherProperties, paymentService,
+                decisionEngine, paymentEventProducer, paymentJournal, paymentIndex, subtaskExecutor,
+                new PaymentStageMetrics(registry), deadLetterRecoverer, registry);
+
+        when(decisionEngine.decide(any())).thenReturn(PaymentStatus.SUCCESS);
+        doAnswer(invocation -> {
+            List<Payment> payments = invocation.getArgument(0);
+            List<Long> orderIds = new ArrayList<>();
+            for (Payment payment : payments) {
+                payment.setId("payment-" + payment.getOrderId());
+                orderIds.add(payment.getOrderId());
+            }
+            synchronized (persistedBatches) {
+                persistedBatches.add(orderIds);
+            }
+            return null;
+        }).when(paymentService).persistSettledPayments(anyList());
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+        subtaskExecutor.destroy();
+    }
+
+    @Test
+    void submit_shouldDecidePersistPublishAndAcknowledgeInOrder() {
+        pipeline.start();
+        List<Acknowledgment> acknowledgments = new ArrayList<>();
+        for (long orderId = 1; orderId <= 20; orderId++) {
+            Acknowledgment acknowledgment = mock(Acknowledgment.class);
+            acknowledgments.add(acknowledgment);
+            pipeline.submit(record(orderId, order(orderId)), acknowledgment);
+        }
+
+        InOrder inOrder = inOrder(acknowledgments.toArray());
+        for (Acknowledgment acknowledgment : acknowledgments) {
+            inOrder.verify(acknowledgment, timeout(WAIT_MILLIS)).acknowledge();
+        }
+        ArgumentCaptor<PaymentCreatedEvent> events = ArgumentCaptor.forClass(PaymentCreatedEvent.class);
+        verify(paymentEventProducer, times(20)).sendPaymentCreatedEventAsync(events.capture());
+        assertThat(events.getAllValues())
+                .extracting(PaymentCreatedEvent::getOrderId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 20).boxed().toList());
+        assertThat(events.getAllValues().get(0).getPaymentId()).isEqualTo("payment-1");
+        assertThat(events.getAllValues()).allSatisfy(event ->
+                assertThat(event.getStatus()).isEqualTo(PaymentStatus.SUCCESS));
+        synchronized (persistedBatches) {
+            assertThat(persistedBatches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(4));
+            assertThat(persistedBatches.stream().mapToInt(List::size).sum()).isEqualTo(20);
+        }
+        verifyNoInteractions(deadLetterRecoverer);
+        assertThat(paymentIndex.findPaymentId(20L)).isEqualTo("payment-20");
+    }
+
+    @Test
+    void submit_shouldAcknowledgeAfterPersistWithoutPublishing_whenChangeStreamMode() {
+        publisherProperties.setMode(PublishMode.CHANGE_STREAM);
+        pipeline.start();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        pipeline.submit(record(1L, order(1L)), acknowledgment);
+
+        verify(acknowledgment, timeout(WAIT_MILLIS)).acknowledge();
+        verify(paymentService).persistSettledPayments(anyList());
+        verify(paymentEventProducer, never()).sendPaymentCreatedEventAsync(any());
+        verifyNoInteractions(deadLetterRecoverer);
+        assertThat(paymentIndex.findPaymentId(1L)).isEqualTo("payment-1");
+    }
+
+    @Test
+    void submit_shouldSkipOrderAlreadyPublished() {
+        paymentIndex.recordPublished(1L, "payment-1");
+        pipeline.start();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        pipeline.submit(record(1L, order(1L)), acknowledgment);
+
+        verify(acknowledgment, timeout(WAIT_MILLIS)).acknowledge();
+        verify(decisionEngine, never()).decide(any());
+        verify(paymentEventProducer, never()).sendPaymentCreatedEventAsync(any());
+        verifyNoInteractions(deadLetterRecoverer);
+    }
+
+    @Test
+    void submit_shouldDeadLetterEventWithoutType() {
+        pipeline.start();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        OrderCreatedEvent event = order(1L);
+        event.setEventType(null);
+
+        pipeline.submit(record(1L, event), acknowledgment);
+
+        verify(acknowledgment, timeout(WAIT_MILLIS)).acknowledge();
+        verify(decisionEngine, never()).decide(any());
+        verify(deadLetterRecoverer).accept(any(), any(IllegalArgumentException.class));
+    }
+
+    @Test
+    void submit_shouldDeadLetterInvalidEventAndContinueWithTheRest() {
+        pipeline.start();
+        Acknowledgment invalid = mock(Acknowledgment.class);
+        Acknowledgment valid = mock(Acknowledgment.class);
+        ConsumerRecord<String, OrderCreatedEvent> invalidRecord = record(1L, order(null));
+
+        pipeline.submit(invalidRecord, invalid);
+        pipeline.submit(record(2L, order(2L)), valid);
+
+        verify(valid, timeout(WAIT_MILLIS)).acknowledge();
+        verify(invalid).acknowledge();
+        verify(deadLetterRecoverer).accept(eq(invalidRecord), any(IllegalArgumentException.class));
+        verify(paymentEventProducer, times(1)).sendPaymentCreatedEventAsync(any());
+    }
+
+    @Test
+    void submit_shouldDeadLetterRecord_whenDecisionFails() {
+        when(decisionEngine.decide(argThatOrderId(1L))).thenThrow(new IllegalStateException("engine down"));
+        pipeline.start();
+        Acknowledgment failed = mock(Acknowledgment.class);
+        Acknowledgment succeeded = mock(Acknowledgment.class);
+        ConsumerRecord<String, OrderCreatedEvent> failedRecord = record(1L, order(1L));
+
+        pipeline.submit(failedRecord, failed);
+        pipeline.submit(record(2L, order(2L)), succeeded);
+
+        verify(succeeded, timeout(WAIT_MILLIS)).acknowledge();
+        verify(failed).acknowledge();
+        verify(deadLetterRecoverer).accept(eq(failedRecord), any(IllegalStateException.class));
+        synchronized (persistedBatches) {
+            assertThat(persistedBatches.stream().flatMap(List::stream)).containsExactly(2L);
+        }
+    }
+
+    @Test
+    void submit_shouldMarkPaymentFailedAndDeadLetter_whenPublishFails() {
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        pipeline.start();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        ConsumerRecord<String, OrderCreatedEvent> record = record(1L, order(1L));
+
+        pipeline.submit(record, acknowledgment);
+
+        verify(acknowledgment, timeout(WAIT_MILLIS)).acknowledge();
+        verify(paymentService).updatePaymentStatus("payment-1", PaymentStatus.FAILED, null);
+        verify(deadLetterRecoverer).accept(eq(record), any(IllegalStateException.class));
+    }
+
+    @Test
+    void submit_shouldMarkPaymentFailed_whenDeadlinePassesBeforePublish() {
+        ProcessingProperties processingProperties = new ProcessingProperties();
+        processingProperties.setMessageBudget(Duration.ofMillis(200));
+        pipeline = new PaymentPipeline(properties, processingProperties, publisherProperties, paymentService,
+                decisionEngine, paymentEventProducer, paymentJournal, paymentIndex, subtaskExecutor,
+                new PaymentStageMetrics(registry), deadLetterRecoverer, registry);
+        doAnswer(invocation -> {
+            List<Payment> payments = invocation.getArgument(0);
+            payments.forEach(payment -> payment.setId("payment-" + payment.getOrderId()));
+            Thread.sleep(400);
+            return null;
+        }).when(paymentService).persistSettledPayments(anyList());
+        pipeline.start();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        ConsumerRecord<String, OrderCreatedEvent> record = record(1L, order(1L));
+
+        pipeline.submit(record, acknowledgment);
+
+        verify(acknowledgment, timeout(WAIT_MILLIS)).acknowledge();
+        verify(paymentEventProducer, never()).sendPaymentCreatedEventAsync(any());
+        verify(paymentService).updatePaymentStatus("payment-1", PaymentStatus.FAILED, null);
+        verify(deadLetterRecoverer).accept(eq(record), any(DeadlineExceededException.class));
+    }
+
+    @Test
+    void submit_shouldDeadLetterWholeBatch_whenPersistFails() {
+        doThrow(new IllegalStateException("mongo down")).when(paymentService).persistSettledPayments(anyList());
+        pipeline.start();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        pipeline.submit(record(1L, order(1L)), acknowledgment);
+
+        verify(acknowledgment, timeout(WAIT_MILLIS)).acknowledge();
+        verify(deadLetterRecoverer).accept(any(), any(IllegalStateException.class));
+        verify(paymentEventProducer, never()).sendPaymentCreatedEventAsync(any());
+    }
+
+    @Test
+    void submit_shouldFail_whenPipelineIsNotRunning() {
+        assertThatThrownBy(() -> pipeline.submit(record(1L, order(1L)), mock(Acknowledgment.class)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void start_shouldDoNothing_whenDisabled() {
+        properties.setEnabled(false);
+
+        pipeline.start();
+
+        assertThat(pipeline.isRunning()).isFalse();
+    }
+
+    @Test
+    void occupancy_shouldBeRegisteredPerStage() {
+        pipeline.start();
+
+        for (PipelineStage stage : PipelineStage.values()) {
+            assertThat(registry.get("payment.pipeline.ring.occupancy").tag("stage", stage.tagValue())
+                    .gauge().value()).isZero();
+        }
+    }
+
+    @Test
+    void stop_shouldLetRecordsInTheRingFinish() throws Exception {
+        CompletableFuture<SendResult<String, Object>> pending = new CompletableFuture<>();
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any())).thenReturn(pending);
+        pipeline.start();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        pipeline.submit(record(1L, order(1L)), acknowledgment);
+
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(pipeline::stop);
+        Thread.sleep(100);
+        assertThat(stopped).isNotDone();
+        pending.complete(mock(SendResult.class));
+
+        stopped.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        verify(acknowledgment).acknowledge();
+        assertThat(pipeline.isRunning()).isFalse();
+    }
+
+    private static OrderCreatedEvent argThatOrderId(long orderId) {
+        return argThat(event -> event != null && Long.valueOf(orderId).equals(event.getOrderId()));
+    }
+
+    private static ConsumerRecord<String, OrderCreatedEvent> record(long offset, OrderCreatedEvent event) {
+        return new ConsumerRecord<>("order-events", 0, offset, String.valueOf(offset), event);
+    }
+
+    private static OrderCreatedEvent order(Long orderId) {
+        return OrderCreatedEvent.builder()
+                .eventType(EventType.ORDER_CREATE)
+                .orderId(orderId)
+                .userId(7L)
+                .totalAmount(new BigDecimal("25.00"))
+                .build();
+    }
+}
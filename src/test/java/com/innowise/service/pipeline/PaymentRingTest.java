@@ -0,0 +1,67 @@
+package com.innowise.service.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentRingTest {
+
+    private static final long SHORT_WAIT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void constructor_shouldRejectSizeThatIsNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new PaymentRing(1000, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PaymentRing(0, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void get_shouldReuseSlotsAroundTheRing() {
+        PaymentRing ring = new PaymentRing(4, 2);
+
+        assertThat(ring.get(5)).isSameAs(ring.get(1));
+        assertThat(ring.get(4)).isNotSameAs(ring.get(1));
+    }
+
+    @Test
+    void stages_shouldOnlySeeWhatThePreviousStageFinished() throws InterruptedException {
+        PaymentRing ring = new PaymentRing(8, 2);
+        for (int i = 0; i < 3; i++) {
+            ring.publish(ring.claim(SHORT_WAIT));
+        }
+
+        assertThat(ring.waitFor(0, 0, SHORT_WAIT)).isEqualTo(2);
+        assertThat(ring.waitFor(1, 0, SHORT_WAIT)).isEqualTo(-1);
+        assertThat(ring.occupancy(0)).isEqualTo(3);
+
+        ring.advance(0, 1);
+
+        assertThat(ring.waitFor(1, 0, SHORT_WAIT)).isEqualTo(1);
+        assertThat(ring.occupancy(0)).isEqualTo(1);
+        assertThat(ring.occupancy(1)).isEqualTo(2);
+        assertThat(ring.pending()).isEqualTo(3);
+    }
+
+    @Test
+    void claim_shouldWaitUntilLastStageFreesASlot() throws Exception {
+        PaymentRing ring = new PaymentRing(2, 1);
+        ring.publish(ring.claim(SHORT_WAIT));
+        ring.publish(ring.claim(SHORT_WAIT));
+
+        assertThat(ring.claim(SHORT_WAIT)).isEqualTo(-1);
+
+        CompletableFuture<Long> claimed = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ring.claim(TimeUnit.SECONDS.toNanos(5));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        ring.advance(0, 0);
+
+        assertThat(claimed.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,250 @@
+package com.innowise.service.publisher;
+
+import com.innowise.config.PublisherProperties;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.dao.stream.ResumeTokenStore;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.service.kafka.PaymentEventProducer;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeStreamPaymentPublisherTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentEventProducer paymentEventProducer;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> tokenCollection;
+
+    @Mock
+    private MongoCollection<BsonDocument> tokens;
+
+    @Mock
+    private FindIterable<BsonDocument> storedToken;
+
+    @Mock
+    private MongoChangeStreamCursor<ChangeStreamDocument<Payment>> cursor;
+
+    private PublisherProperties properties;
+    private SimpleMeterRegistry registry;
+    private ChangeStreamPaymentPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PublisherProperties();
+        properties.setBatchSize(2);
+        properties.setSendTimeout(Duration.ofSeconds(1));
+        registry = new SimpleMeterRegistry();
+        publisher = new ChangeStreamPaymentPublisher(properties, paymentRepository, paymentEventProducer,
+                mongoTemplate, registry);
+        // Inline mode: marks the publisher running without starting its thread
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.stop();
+    }
+
+    @Test
+    void tail_shouldPublishBatchThenStoreResumeTokenOfItsLastChange() {
+        ChangeStreamDocument<Payment> first = inserted("t1", payment("payment-1", PaymentStatus.SUCCESS));
+        ChangeStreamDocument<Payment> second = inserted("t2", payment("payment-2", PaymentStatus.FAILED));
+        stubTokens(null);
+        when(paymentRepository.watchSettled(isNull(), eq(2), any(Duration.class))).thenReturn(cursor);
+        when(cursor.tryNext()).thenReturn(first, second).thenAnswer(invocation -> stopAndReturnNothing());
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(publisher.tail()).isEqualTo(2);
+
+        ArgumentCaptor<PaymentCreatedEvent> events = ArgumentCaptor.forClass(PaymentCreatedEvent.class);
+        verify(paymentEventProducer, times(2)).sendPaymentCreatedEventAsync(events.capture());
+        assertThat(events.getAllValues()).extracting(PaymentCreatedEvent::getPaymentId)
+                .containsExactly("payment-1", "payment-2");
+        assertThat(storedTokens()).containsExactly(token("t2"));
+        verify(cursor).close();
+        assertThat(registry.get("payment.publisher.published").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void tail_shouldResumeAfterStoredToken() {
+        stubTokens(token("t7"));
+        when(paymentRepository.watchSettled(eq(token("t7")), anyInt(), any(Duration.class))).thenReturn(cursor);
+        when(cursor.tryNext()).thenAnswer(invocation -> stopAndReturnNothing());
+
+        assertThat(publisher.tail()).isZero();
+
+        verify(paymentRepository).watchSettled(eq(token("t7")), eq(2), eq(properties.getMaxAwaitTime()));
+    }
+
+    @Test
+    void tail_shouldNotStoreToken_whenBatchCannotBePublished() {
+        stubTokens(null);
+        when(paymentRepository.watchSettled(isNull(), eq(2), any(Duration.class))).thenReturn(cursor);
+        when(cursor.tryNext()).thenReturn(inserted("t1", payment("payment-1", PaymentStatus.SUCCESS)),
+                inserted("t2", payment("payment-2", PaymentStatus.SUCCESS)));
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThatThrownBy(() -> publisher.tail()).isInstanceOf(IllegalStateException.class);
+
+        verify(tokens, never()).replaceOne(any(Bson.class), any(BsonDocument.class), any(ReplaceOptions.class));
+        verify(cursor).close();
+        assertThat(registry.get("payment.publisher.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void tail_shouldSkipPaymentsDeletedSinceTheChange() {
+        stubTokens(null);
+        when(paymentRepository.watchSettled(isNull(), eq(2), any(Duration.class))).thenReturn(cursor);
+        when(cursor.tryNext()).thenReturn(inserted("t1", null), inserted("t2", payment("payment-2",
+                PaymentStatus.SUCCESS))).thenAnswer(invocation -> stopAndReturnNothing());
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(publisher.tail()).isEqualTo(1);
+
+        assertThat(storedTokens()).containsExactly(token("t2"));
+        assertThat(registry.get("payment.publisher.skipped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void tail_shouldNotPublishFailedOrphan_whenOrderAlreadySucceeded() {
+        stubTokens(null);
+        when(paymentRepository.watchSettled(isNull(), eq(2), any(Duration.class))).thenReturn(cursor);
+        when(cursor.tryNext()).thenReturn(inserted("t1", payment("payment-1", PaymentStatus.SUCCESS)),
+                inserted("t2", payment("payment-2", PaymentStatus.FAILED)))
+                .thenAnswer(invocation -> stopAndReturnNothing());
+        when(paymentRepository.findOrdersWithStatus(List.of(1001L), EnumSet.of(PaymentStatus.SUCCESS)))
+                .thenReturn(Set.of(1001L));
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(publisher.tail()).isEqualTo(1);
+
+        ArgumentCaptor<PaymentCreatedEvent> event = ArgumentCaptor.forClass(PaymentCreatedEvent.class);
+        verify(paymentEventProducer).sendPaymentCreatedEventAsync(event.capture());
+        assertThat(event.getValue().getPaymentId()).isEqualTo("payment-1");
+        assertThat(storedTokens()).containsExactly(token("t2"));
+        assertThat(registry.get("payment.publisher.orphans").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void tail_shouldDoNothing_whenLeaseHeldElsewhere() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MongoLease.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertThat(publisher.tail()).isZero();
+
+        verifyNoInteractions(paymentRepository, paymentEventProducer);
+    }
+
+    @Test
+    void toEvent_shouldTakeStatusFromUpdateAndDeriveEventIdFromResumeToken() {
+        Payment current = payment("payment-1", PaymentStatus.FAILED);
+        ChangeStreamDocument<Payment> update = change("update", "t1", current,
+                new UpdateDescription(List.of(), new BsonDocument("s", new BsonString("SUCCESS"))));
+
+        PaymentCreatedEvent event = ChangeStreamPaymentPublisher.toEvent(update);
+
+        assertThat(event.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(event.getPaymentId()).isEqualTo("payment-1");
+        assertThat(event.getOrderId()).isEqualTo(1001L);
+        assertThat(event.getAmount()).isEqualByComparingTo("10.00");
+        assertThat(event.getEventId()).isEqualTo(ChangeStreamPaymentPublisher.toEvent(update).getEventId())
+                .isNotEqualTo(ChangeStreamPaymentPublisher.toEvent(inserted("t2", current)).getEventId());
+    }
+
+    private Object stopAndReturnNothing() {
+        publisher.stop();
+        return null;
+    }
+
+    private void stubTokens(BsonDocument stored) {
+        when(mongoTemplate.getCollection(ResumeTokenStore.COLLECTION)).thenReturn(tokenCollection);
+        when(tokenCollection.withDocumentClass(BsonDocument.class)).thenReturn(tokens);
+        when(tokens.find(any(Bson.class))).thenReturn(storedToken);
+        when(storedToken.first()).thenReturn(stored == null ? null : new BsonDocument("token", stored));
+    }
+
+    private List<BsonDocument> storedTokens() {
+        ArgumentCaptor<BsonDocument> documents = ArgumentCaptor.forClass(BsonDocument.class);
+        verify(tokens, atLeastOnce()).replaceOne(any(Bson.class), documents.capture(), any(ReplaceOptions.class));
+        return documents.getAllValues().stream().map(document -> document.getDocument("token")).toList();
+    }
+
+    private static BsonDocument token(String data) {
+        return new BsonDocument("_data", new BsonString(data));
+    }
+
+    private static ChangeStreamDocument<Payment> inserted(String token, Payment payment) {
+        return change("insert", token, payment, null);
+    }
+
+    private static ChangeStreamDocument<Payment> change(String operationType, String token, Payment payment,
+                                                        UpdateDescription updateDescription) {
+        return new ChangeStreamDocument<>(operationType, token(token), null, null, payment, null,
+                new BsonDocument("_id", new BsonString(payment == null ? "gone" : payment.getId())),
+                new BsonTimestamp((int) Instant.now().getEpochSecond(), 1), updateDescription,
+                null, null, null, null, null);
+    }
+
+    private static Payment payment(String id, PaymentStatus status) {
+        return Payment.builder()
+                .id(id)
+                .orderId(1001L)
+                .userId(7L)
+                .status(status)
+                .paymentAmount(new BigDecimal("10.00"))
+                .version(1L)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.innowise.service.risk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.config.MoneyProperties;
+import com.innowise.config.RiskProperties;
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.model.enums.RiskRuleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static com.innowise.service.risk.RiskProgramTest.order;
+import static com.innowise.service.risk.RiskProgramTest.rule;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RiskEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RiskProperties properties;
+    private SimpleMeterRegistry registry;
+    private RiskEngine riskEngine;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RiskProperties();
+        registry = new SimpleMeterRegistry();
+        riskEngine = new RiskEngine(properties, new MoneyProperties(), new ObjectMapper(), registry);
+    }
+
+    @Test
+    void rejects_shouldUseInlineRules() throws Exception {
+        properties.setRules(List.of(rule("large", RiskRuleType.AMOUNT_ABOVE, "100.00", 100)));
+        riskEngine.afterPropertiesSet();
+
+        assertThat(riskEngine.rejects(order("99.99", List.of()))).isFalse();
+        assertThat(riskEngine.rejects(order("100.01", List.of()))).isTrue();
+        assertThat(registry.get("payment.risk.decisions").tag("outcome", "rejected").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void rejects_shouldAcceptEverything_whenDisabled() throws Exception {
+        properties.setRules(List.of(rule("any", RiskRuleType.AMOUNT_ABOVE, "0", 100)));
+        properties.setEnabled(false);
+        riskEngine.afterPropertiesSet();
+
+        assertThat(riskEngine.rejects(order("1.00", List.of()))).isFalse();
+    }
+
+    @Test
+    void rejects_shouldCountUserVelocity() throws Exception {
+        properties.setRules(List.of(rule("velocity", RiskRuleType.USER_VELOCITY_ABOVE, "2", 100)));
+        riskEngine.afterPropertiesSet();
+
+        assertThat(riskEngine.rejects(orderOf(1L, "1.00"))).isFalse();
+        assertThat(riskEngine.rejects(orderOf(2L, "1.00"))).isFalse();
+        assertThat(riskEngine.rejects(orderOf(3L, "1.00"))).isTrue();
+    }
+
+    @Test
+    void rejects_shouldCountVelocityOncePerOrder() throws Exception {
+        properties.setRules(List.of(rule("velocity", RiskRuleType.USER_VELOCITY_ABOVE, "2", 100)));
+        riskEngine.afterPropertiesSet();
+
+        assertThat(riskEngine.rejects(orderOf(1L, "1.00"))).isFalse();
+        assertThat(riskEngine.rejects(orderOf(2L, "1.00"))).isFalse();
+        assertThat(riskEngine.rejects(orderOf(2L, "1.00"))).isFalse();
+        assertThat(riskEngine.rejects(orderOf(2L, "1.00"))).isFalse();
+        assertThat(riskEngine.rejects(orderOf(3L, "1.00"))).isTrue();
+    }
+
+    @Test
+    void reload_shouldSwapRulesWhenFileChanges() throws Exception {
+        Path rulesFile = tempDir.resolve("risk-rules.json");
+        Files.writeString(rulesFile, """
+                {"rejectScore": 100, "rules": [{"id": "large", "type": "AMOUNT_ABOVE", "threshold": 500}]}
+                """);
+        properties.setRulesFile(rulesFile);
+        riskEngine.afterPropertiesSet();
+        assertThat(riskEngine.rejects(order("200.00", List.of()))).isFalse();
+
+        Files.writeString(rulesFile, """
+                {"rejectScore": 100, "rules": [{"id": "medium", "type": "AMOUNT_ABOVE", "threshold": 100}]}
+                """);
+        Files.setLastModifiedTime(rulesFile, FileTime.from(Instant.now().plusSeconds(5)));
+        riskEngine.reload();
+
+        assertThat(riskEngine.currentProgram().ruleIds()).containsExactly("medium");
+        assertThat(riskEngine.rejects(order("200.00", List.of()))).isTrue();
+    }
+
+    @Test
+    void reload_shouldKeepPreviousRules_whenFileIsInvalid() throws Exception {
+        Path rulesFile = tempDir.resolve("risk-rules.json");
+        Files.writeString(rulesFile, """
+                {"rules": [{"id": "large", "type": "AMOUNT_ABOVE", "threshold": 500}]}
+                """);
+        properties.setRulesFile(rulesFile);
+        riskEngine.afterPropertiesSet();
+
+        Files.writeString(rulesFile, """
+                {"rules": [{"id": "broken", "type": "AMOUNT_ABOVE"}]}
+                """);
+        Files.setLastModifiedTime(rulesFile, FileTime.from(Instant.now().plusSeconds(5)));
+        riskEngine.reload();
+
+        assertThat(riskEngine.currentProgram().ruleIds()).containsExactly("large");
+        assertThat(registry.get("payment.risk.reload.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void afterPropertiesSet_shouldFail_whenInitialRulesAreInvalid() {
+        properties.setRules(List.of(rule("broken", RiskRuleType.ITEM_COUNT_ABOVE, null, 1)));
+
+        assertThatThrownBy(() -> riskEngine.afterPropertiesSet()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static OrderCreatedEvent orderOf(long orderId, String totalAmount) {
+        OrderCreatedEvent event = order(totalAmount, null);
+        event.setOrderId(orderId);
+        return event;
+    }
+}
@@ -0,0 +1,144 @@
+package com.innowise.service.risk;
+
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.OrderItemEvent;
+import com.innowise.model.enums.RiskRuleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RiskProgramTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void score_shouldMatchAmountAboveThreshold() {
+        RiskProgram program = compile(rule("large", RiskRuleType.AMOUNT_ABOVE, "1000.00", 100));
+
+        assertThat(program.score(order("1000.00", List.of()), 0)).isZero();
+        assertThat(program.score(order("1000.01", List.of()), 0)).isEqualTo(100);
+        assertThat(hits("large")).isEqualTo(1);
+    }
+
+    @Test
+    void score_shouldMatchItemCountQuantityAndPrice() {
+        RiskProgram program = compile(
+                rule("many-lines", RiskRuleType.ITEM_COUNT_ABOVE, "2", 10),
+                rule("bulk", RiskRuleType.QUANTITY_ABOVE, "10", 20),
+                rule("pricey-item", RiskRuleType.ITEM_PRICE_ABOVE, "500", 40));
+
+        int score = program.score(order("900.00", List.of(
+                item(1L, "100.00", 5),
+                item(2L, "600.00", 4),
+                item(3L, "200.00", 2))), 0);
+
+        assertThat(score).isEqualTo(10 + 20 + 40);
+    }
+
+    @Test
+    void score_shouldMatchBlacklistedItem() {
+        RiskRuleDefinition blacklist = RiskRuleDefinition.builder()
+                .id("blocked").type(RiskRuleType.BLACKLISTED_ITEM).items(List.of(666L, 13L)).score(100).build();
+        RiskProgram program = compile(blacklist);
+
+        assertThat(program.score(order("10.00", List.of(item(1L, "10.00", 1))), 0)).isZero();
+        assertThat(program.score(order("10.00", List.of(item(1L, "5.00", 1), item(13L, "5.00", 1))), 0))
+                .isEqualTo(100);
+    }
+
+    @Test
+    void score_shouldMatchVelocity() {
+        RiskProgram program = compile(rule("velocity", RiskRuleType.USER_VELOCITY_ABOVE, "3", 100));
+
+        assertThat(program.usesVelocity()).isTrue();
+        assertThat(program.score(order("1.00", null), 3)).isZero();
+        assertThat(program.score(order("1.00", null), 4)).isEqualTo(100);
+    }
+
+    @Test
+    void rejects_shouldCompareWithRejectScore() {
+        RiskProgram program = RiskProgram.compile(new RiskRuleSet(50, List.of(
+                rule("a", RiskRuleType.AMOUNT_ABOVE, "1", 30))), 2, registry);
+
+        assertThat(program.rejects(29)).isFalse();
+        assertThat(program.rejects(50)).isTrue();
+    }
+
+    @Test
+    void score_shouldTolerateMissingFieldsAndExtraFractionDigits() {
+        RiskProgram program = compile(
+                rule("large", RiskRuleType.AMOUNT_ABOVE, "10.00", 100),
+                rule("bulk", RiskRuleType.QUANTITY_ABOVE, "0", 1));
+
+        assertThat(program.score(OrderCreatedEvent.builder().build(), 0)).isZero();
+        assertThat(program.score(order("10.001", List.of(new OrderItemEvent())), 0)).isEqualTo(100);
+    }
+
+    @Test
+    void empty_shouldNeverReject() {
+        RiskProgram program = RiskProgram.empty();
+
+        assertThat(program.rejects(program.score(order("1000000.00", List.of()), 1000))).isFalse();
+    }
+
+    @Test
+    void compile_shouldRejectInvalidRules() {
+        assertThatThrownBy(() -> compile(rule(null, RiskRuleType.AMOUNT_ABOVE, "1", 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compile(rule("a", RiskRuleType.AMOUNT_ABOVE, null, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compile(rule("a", RiskRuleType.AMOUNT_ABOVE, "1", 1),
+                rule("a", RiskRuleType.ITEM_COUNT_ABOVE, "1", 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Duplicate");
+        assertThatThrownBy(() -> compile(RiskRuleDefinition.builder()
+                .id("b").type(RiskRuleType.BLACKLISTED_ITEM).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private RiskProgram compile(RiskRuleDefinition... rules) {
+        return RiskProgram.compile(new RiskRuleSet(100, List.of(rules)), 2, registry);
+    }
+
+    private double hits(String rule) {
+        return registry.get(RiskProgram.RULE_HITS_COUNTER).tag("rule", rule).counter().count();
+    }
+
+    static RiskRuleDefinition rule(String id, RiskRuleType type, String threshold, int score) {
+        return RiskRuleDefinition.builder()
+                .id(id)
+                .type(type)
+                .threshold(threshold == null ? null : new BigDecimal(threshold))
+                .score(score)
+                .build();
+    }
+
+    static OrderCreatedEvent order(String totalAmount, List<OrderItemEvent> items) {
+        return OrderCreatedEvent.builder()
+                .orderId(1L)
+                .userId(2L)
+                .totalAmount(new BigDecimal(totalAmount))
+                .items(items)
+                .build();
+    }
+
+    static OrderItemEvent item(long itemId, String price, int quantity) {
+        return OrderItemEvent.builder()
+                .itemId(itemId)
+                .itemName("item-" + itemId)
+                .price(new BigDecimal(price))
+                .quantity(quantity)
+                .build();
+    }
+}
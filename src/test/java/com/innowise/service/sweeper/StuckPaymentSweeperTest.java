@@ -0,0 +1,246 @@
+package com.innowise.service.sweeper;
+
+import com.innowise.config.PublisherProperties;
+import com.innowise.config.SweeperProperties;
+import com.innowise.dao.lease.MongoLease;
+import com.innowise.dao.repository.PaymentRepository;
+import com.innowise.event.OrderCreatedEvent;
+import com.innowise.event.PaymentCreatedEvent;
+import com.innowise.model.entity.Payment;
+import com.innowise.model.enums.PaymentStatus;
+import com.innowise.model.enums.PublishMode;
+import com.innowise.model.enums.StuckPaymentResolution;
+import com.innowise.service.PaymentDecisionEngine;
+import com.innowise.service.kafka.BackpressureController;
+import com.innowise.service.kafka.PaymentEventProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StuckPaymentSweeperTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private PaymentDecisionEngine decisionEngine;
+
+    @Mock
+    private PaymentEventProducer paymentEventProducer;
+
+    @Mock
+    private BackpressureController backpressureController;
+
+    private SweeperProperties properties;
+    private PublisherProperties publisherProperties;
+    private SimpleMeterRegistry registry;
+    private StuckPaymentSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SweeperProperties();
+        properties.setBatchSize(2);
+        properties.setMaxRate(1_000_000);
+        properties.setStuckAfter(Duration.ofMinutes(5));
+        publisherProperties = new PublisherProperties();
+        registry = new SimpleMeterRegistry();
+        sweeper = new StuckPaymentSweeper(properties, publisherProperties, paymentRepository, mongoTemplate,
+                decisionEngine, paymentEventProducer, backpressureController, registry);
+        // Disabled: marks the sweeper running without scheduling it
+        sweeper.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweeper.stop();
+    }
+
+    @Test
+    void sweep_shouldFailStuckPaymentsAndPublishTheirEvents() {
+        Payment stuck = pending("payment-1", 0L);
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), isNull(), eq(2)))
+                .thenReturn(List.of(stuck));
+        when(paymentRepository.settlePending(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(sweeper.sweep()).isEqualTo(1);
+
+        assertThat(stuck.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        ArgumentCaptor<PaymentCreatedEvent> event = ArgumentCaptor.forClass(PaymentCreatedEvent.class);
+        verify(paymentEventProducer).sendPaymentCreatedEventAsync(event.capture());
+        assertThat(event.getValue().getPaymentId()).isEqualTo("payment-1");
+        assertThat(event.getValue().getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(registry.get("payment.sweeper.settled").tag("status", "failed").counter().count())
+                .isEqualTo(1.0);
+        verifyNoInteractions(decisionEngine);
+    }
+
+    @Test
+    void sweep_shouldNotPublish_whenChangeStreamMode() {
+        publisherProperties.setMode(PublishMode.CHANGE_STREAM);
+        Payment stuck = pending("payment-1", 0L);
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), isNull(), eq(2)))
+                .thenReturn(List.of(stuck));
+        when(paymentRepository.settlePending(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(sweeper.sweep()).isEqualTo(1);
+
+        verifyNoInteractions(paymentEventProducer);
+        assertThat(registry.get("payment.sweeper.settled").tag("status", "failed").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void sweep_shouldPageWithKeysetCursorUntilShortPage() {
+        Payment first = pending("payment-1", 0L);
+        Payment second = pending("payment-2", 0L);
+        Payment third = pending("payment-3", 0L);
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), isNull(), eq(2)))
+                .thenReturn(List.of(first, second));
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), eq(second), eq(2)))
+                .thenReturn(List.of(third));
+        when(paymentRepository.settlePending(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(sweeper.sweep()).isEqualTo(3);
+
+        verify(paymentRepository, times(2)).findPendingBefore(any(LocalDateTime.class), any(), anyInt());
+        verify(paymentRepository, times(2)).settlePending(anyList());
+        // Acquired before the first page and renewed after the full one
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), any(Update.class), eq(MongoLease.COLLECTION));
+    }
+
+    @Test
+    void sweep_shouldDoNothing_whenLeaseHeldElsewhere() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MongoLease.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertThat(sweeper.sweep()).isZero();
+
+        verifyNoInteractions(paymentRepository, paymentEventProducer);
+    }
+
+    @Test
+    void sweep_shouldAskDecisionEngine_whenResolutionIsDecide() {
+        properties.setResolution(StuckPaymentResolution.DECIDE);
+        Payment stuck = pending("payment-1", 0L);
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), isNull(), eq(2)))
+                .thenReturn(List.of(stuck));
+        when(decisionEngine.decide(any(OrderCreatedEvent.class))).thenReturn(PaymentStatus.SUCCESS);
+        when(paymentRepository.settlePending(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        sweeper.sweep();
+
+        ArgumentCaptor<OrderCreatedEvent> order = ArgumentCaptor.forClass(OrderCreatedEvent.class);
+        verify(decisionEngine).decide(order.capture());
+        assertThat(order.getValue().getOrderId()).isEqualTo(stuck.getOrderId());
+        assertThat(order.getValue().getTotalAmount()).isEqualTo(stuck.getPaymentAmount());
+        assertThat(stuck.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    @Test
+    void sweep_shouldNotPublishPaymentsChangedByAnotherWriter() {
+        Payment stuck = pending("payment-1", 0L);
+        Payment raced = pending("payment-2", 0L);
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), isNull(), eq(2)))
+                .thenReturn(List.of(stuck, raced));
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), eq(raced), eq(2)))
+                .thenReturn(List.of());
+        when(paymentRepository.settlePending(anyList())).thenReturn(List.of(stuck));
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(sweeper.sweep()).isEqualTo(1);
+
+        verify(paymentEventProducer, times(1)).sendPaymentCreatedEventAsync(any());
+        assertThat(registry.get("payment.sweeper.skipped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sweep_shouldFailOrphanWithoutPublishing_whenOrderAlreadySettled() {
+        properties.setResolution(StuckPaymentResolution.DECIDE);
+        Payment orphan = pending("payment-1", 0L);
+        Payment stuck = pending("payment-2", 0L);
+        stuck.setOrderId(1002L);
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), isNull(), eq(2)))
+                .thenReturn(List.of(orphan, stuck));
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), eq(stuck), eq(2)))
+                .thenReturn(List.of());
+        when(paymentRepository.findOrdersWithStatus(eq(List.of(1001L, 1002L)), anyCollection()))
+                .thenReturn(Set.of(1001L));
+        when(decisionEngine.decide(any(OrderCreatedEvent.class))).thenReturn(PaymentStatus.SUCCESS);
+        when(paymentRepository.settlePending(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(sweeper.sweep()).isEqualTo(2);
+
+        assertThat(orphan.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        verify(decisionEngine, times(1)).decide(any(OrderCreatedEvent.class));
+        ArgumentCaptor<PaymentCreatedEvent> event = ArgumentCaptor.forClass(PaymentCreatedEvent.class);
+        verify(paymentEventProducer, times(1)).sendPaymentCreatedEventAsync(event.capture());
+        assertThat(event.getValue().getPaymentId()).isEqualTo("payment-2");
+        assertThat(registry.get("payment.sweeper.orphans").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sweep_shouldCompensateSuccess_whenEventCannotBePublished() {
+        properties.setResolution(StuckPaymentResolution.DECIDE);
+        Payment stuck = pending("payment-1", 0L);
+        when(paymentRepository.findPendingBefore(any(LocalDateTime.class), isNull(), eq(2)))
+                .thenReturn(List.of(stuck));
+        when(decisionEngine.decide(any(OrderCreatedEvent.class))).thenReturn(PaymentStatus.SUCCESS);
+        when(paymentRepository.settlePending(anyList())).thenAnswer(invocation -> {
+            List<Payment> payments = invocation.getArgument(0);
+            payments.forEach(payment -> payment.setVersion(payment.getVersion() + 1));
+            return payments;
+        });
+        when(paymentEventProducer.sendPaymentCreatedEventAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        sweeper.sweep();
+
+        verify(paymentRepository).transitionStatus("payment-1", PaymentStatus.FAILED, 1L);
+        assertThat(registry.get("payment.sweeper.publish.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    private static Payment pending(String id, Long version) {
+        return Payment.builder()
+                .id(id)
+                .orderId(1001L)
+                .userId(7L)
+                .status(PaymentStatus.PENDING)
+                .timestamp(LocalDateTime.now().minusHours(1))
+                .paymentAmount(new BigDecimal("10.00"))
+                .version(version)
+                .build();
+    }
+}
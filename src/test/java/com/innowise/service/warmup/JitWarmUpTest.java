@@ -0,0 +1,100 @@
+package com.innowise.service.warmup;
+
+import com.innowise.config.WarmUpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JitWarmUpTest {
+
+    @Mock
+    private WarmUpWorkload workload;
+
+    private WarmUpProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong compilationMillis;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WarmUpProperties();
+        properties.setBatchSize(10);
+        properties.setMinIterations(50);
+        properties.setStableRounds(2);
+        properties.setSettleThreshold(Duration.ofMillis(5));
+        properties.setBudget(Duration.ofSeconds(10));
+        meterRegistry = new SimpleMeterRegistry();
+        compilationMillis = new AtomicLong();
+    }
+
+    @Test
+    void warmUp_shouldStop_whenCompilationSettled() {
+        JitWarmUp warmUp = new JitWarmUp(workload, properties, meterRegistry, compilationMillis::get);
+
+        String outcome = warmUp.warmUp();
+
+        assertThat(outcome).isEqualTo("settled");
+        verify(workload, times(50)).runOnce();
+        assertThat(meterRegistry.get("payment.warmup.iterations").counter().count()).isEqualTo(50);
+        assertThat(meterRegistry.get("payment.warmup.duration").tag("outcome", "settled").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void warmUp_shouldKeepGoing_whileCompilerIsBusy() {
+        JitWarmUp warmUp = new JitWarmUp(workload, properties, meterRegistry,
+                () -> compilationMillis.addAndGet(compilationMillis.get() < 1_000 ? 100 : 0));
+
+        String outcome = warmUp.warmUp();
+
+        assertThat(outcome).isEqualTo("settled");
+        verify(workload, atLeast(100)).runOnce();
+    }
+
+    @Test
+    void warmUp_shouldStop_whenBudgetExhausted() {
+        properties.setBudget(Duration.ofMillis(50));
+        JitWarmUp warmUp = new JitWarmUp(workload, properties, meterRegistry, compilationMillis::incrementAndGet);
+        properties.setSettleThreshold(Duration.ZERO);
+
+        String outcome = warmUp.warmUp();
+
+        assertThat(outcome).isEqualTo("budget");
+    }
+
+    @Test
+    void warmUp_shouldRunMinIterations_whenCompilationTimeUnsupported() {
+        JitWarmUp warmUp = new JitWarmUp(workload, properties, meterRegistry, () -> -1);
+
+        assertThat(warmUp.warmUp()).isEqualTo("settled");
+        verify(workload, times(50)).runOnce();
+    }
+
+    @Test
+    void warmUp_shouldNotBlockStartup_whenWorkloadFails() {
+        doThrow(new IllegalStateException("boom")).when(workload).runOnce();
+        JitWarmUp warmUp = new JitWarmUp(workload, properties, meterRegistry, compilationMillis::get);
+
+        assertThat(warmUp.warmUp()).isEqualTo("failed");
+    }
+
+    @Test
+    void start_shouldSkipWarmUp_whenDisabled() {
+        properties.setEnabled(false);
+        JitWarmUp warmUp = new JitWarmUp(workload, properties, meterRegistry, compilationMillis::get);
+
+        warmUp.start();
+
+        assertThat(warmUp.isRunning()).isTrue();
+        verifyNoInteractions(workload);
+    }
+}
@@ -0,0 +1,35 @@
+package com.innowise.service.warmup;
+
+import com.innowise.dao.codec.PaymentCodec;
+import com.innowise.mapper.PaymentMapper;
+import com.innowise.model.enums.MoneyRepresentation;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WarmUpWorkloadTest {
+
+    @Test
+    void runOnce_shouldExerciseSerializationMappingAndCodecPaths() {
+        WarmUpWorkload workload = new WarmUpWorkload(
+                Mappers.getMapper(PaymentMapper.class),
+                new PaymentCodec(MoneyRepresentation.DECIMAL128, 2),
+                new DefaultKafkaProducerFactory<>(Map.of()),
+                new DefaultKafkaConsumerFactory<>(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.innowise.*")),
+                "order-events",
+                "payment-events");
+
+        workload.runOnce();
+        long afterFirst = workload.sink();
+        workload.runOnce();
+
+        assertThat(afterFirst).isPositive();
+        assertThat(workload.sink()).isGreaterThan(afterFirst);
+    }
+}